@@ -32,6 +32,10 @@
  */
 package org.openimaj.audio.analysis;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.openimaj.audio.AudioFormat;
 import org.openimaj.audio.AudioStream;
 import org.openimaj.audio.SampleChunk;
@@ -50,12 +54,35 @@ import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
  * 	frequency domain array (such as that delivered by {@link #getLastFFT()})
  * 	and returns a {@link SampleChunk}. The format of the output sample chunk
  * 	is determined by the given audio format.
+ * 	<p>
+ * 	The FFT plans (twiddle factors, etc.) for the most recently used sizes
+ * 	are cached and shared between all instances, and the array returned by {@link #getLastFFT()}
+ * 	is reused between calls to {@link #process(SampleBuffer)} if the size
+ * 	of the input doesn't change, so that processing a stream of fixed size
+ * 	sample chunks doesn't allocate. Copy the data from {@link #getLastFFT()}
+ * 	if you need to keep it beyond the next call to process.
  *
  *  @author David Dupplaw (dpd@ecs.soton.ac.uk)
  *	@created 28 Oct 2011
  */
 public class FourierTransform extends AudioProcessor
 {
+	/** The maximum number of FFT plans to cache */
+	public static final int MAX_CACHED_PLANS = 8;
+
+	/** The cache of FFT plans, keyed by FFT size, in least recently used order */
+	private static final Map<Integer, FloatFFT_1D> plans =
+			new LinkedHashMap<Integer, FloatFFT_1D>( 16, 0.75f, true )
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry( final Map.Entry<Integer, FloatFFT_1D> eldest )
+		{
+			return this.size() > FourierTransform.MAX_CACHED_PLANS;
+		}
+	};
+
 	/** The last generated FFT */
 	private float[][] lastFFT = null;
 
@@ -114,14 +141,18 @@ public class FourierTransform extends AudioProcessor
 				this.nextPowerOf2( nSamplesPerChannel ) : nSamplesPerChannel;
 
 		// The Fourier transformer we're going to use
-		final FloatFFT_1D fft = new FloatFFT_1D( nSamplesPerChannel );
+		final FloatFFT_1D fft = FourierTransform.getPlan( nSamplesPerChannel );
+
+		// Reuse the output arrays from the last call if we can.
+		// Twice the length to account for imaginary parts
+		if( this.lastFFT == null || this.lastFFT.length != nChannels
+				|| this.lastFFT[0].length != sizeOfFFT*2 )
+			this.lastFFT = new float[nChannels][sizeOfFFT*2];
 
 		// Creates an FFT for each of the channels in turn
-		this.lastFFT = new float[nChannels][];
 		for( int c = 0; c < nChannels; c++ )
 		{
-			// Twice the length to account for imaginary parts
-			this.lastFFT[c] = new float[ sizeOfFFT*2 ];
+			Arrays.fill( this.lastFFT[c], 0 );
 
 			// Fill the array
 			for( int x = 0; x < nSamplesPerChannel; x++ )
@@ -134,7 +165,7 @@ public class FourierTransform extends AudioProcessor
 			fft.complexForward( this.lastFFT[c] );
 
 			if( this.normalise )
-				this.normaliseReals( sizeOfFFT );
+				this.normaliseReals( this.lastFFT[c], sizeOfFFT );
 
 //			System.out.println( "FFT Output (channel "+c+"): " );
 //			System.out.println( Arrays.toString( this.lastFFT[c] ));
@@ -144,14 +175,38 @@ public class FourierTransform extends AudioProcessor
     }
 
 	/**
-	 * 	Divides the real parts of the last FFT by the given size
+	 * 	Divides the real parts of the given FFT data by the given size
+	 *	@param data The FFT data
 	 *	@param size the divisor
 	 */
-	private void normaliseReals( final int size )
+	private void normaliseReals( final float[] data, final int size )
 	{
-		for( int c = 0; c < this.lastFFT.length; c++ )
-			for( int i = 0; i < this.lastFFT[c].length; i +=2 )
-				this.lastFFT[c][i] /= size;
+		for( int i = 0; i < data.length; i +=2 )
+			data[i] /= size;
+	}
+
+	/**
+	 * 	Get the (cached) FFT plan for transforms of the given size. The plans
+	 * 	only hold read-only precomputed tables, so they can be shared
+	 * 	between threads. Only the {@link #MAX_CACHED_PLANS} most recently
+	 * 	used plans are kept, so streams with varying chunk sizes don't
+	 * 	fill the cache.
+	 *
+	 *	@param size The size of the FFT (number of complex values)
+	 *	@return The FFT plan
+	 */
+	public static FloatFFT_1D getPlan( final int size )
+	{
+		synchronized( FourierTransform.plans )
+		{
+			FloatFFT_1D fft = FourierTransform.plans.get( size );
+			if( fft == null )
+			{
+				fft = new FloatFFT_1D( size );
+				FourierTransform.plans.put( size, fft );
+			}
+			return fft;
+		}
 	}
 
 	/**
@@ -190,7 +245,7 @@ public class FourierTransform extends AudioProcessor
 		final int nChannels = transformedData.length;
 
 		// The Fourier transformer we're going to use
-		final FloatFFT_1D fft = new FloatFFT_1D( transformedData[0].length/2 );
+		final FloatFFT_1D fft = FourierTransform.getPlan( transformedData[0].length/2 );
 
 		// Create a sample buffer to put the time domain data into
 		final SampleBuffer sb = SampleBufferFactory.createSampleBuffer( format,
@@ -229,10 +284,23 @@ public class FourierTransform extends AudioProcessor
 	 */
 	public float[][] getMagnitudes()
 	{
-		final float[][] mags = new float[this.lastFFT.length][];
+		return this.getMagnitudes( null );
+	}
+
+	/**
+	 * 	Computes the magnitudes of the last FFT data into the given array,
+	 * 	which is reused if it is of the correct size (otherwise a new array is
+	 * 	allocated). The length of the arrays of magnitudes will be half the
+	 * 	length of the FFT data (up to the Nyquist frequency).
+	 *
+	 *	@param mags The array to fill; can be null
+	 *	@return The magnitudes of the last FFT data.
+	 */
+	public float[][] getMagnitudes( float[][] mags )
+	{
+		mags = this.prepareSpectrumArray( mags, 4 );
 		for( int c = 0; c < this.lastFFT.length; c++ )
 		{
-			mags[c] = new float[ this.lastFFT[c].length/4 ];
 			for( int i = 0; i < this.lastFFT[c].length/4; i++ )
 			{
 				final float re = this.lastFFT[c][i*2];
@@ -254,10 +322,23 @@ public class FourierTransform extends AudioProcessor
 	 */
 	public float[][] getPowerMagnitudes()
 	{
-		final float[][] mags = new float[this.lastFFT.length][];
+		return this.getPowerMagnitudes( null );
+	}
+
+	/**
+	 * 	Computes the power magnitudes of the last FFT data into the given
+	 * 	array, which is reused if it is of the correct size (otherwise a new
+	 * 	array is allocated).
+	 *
+	 *	@param mags The array to fill; can be null
+	 *	@return The power magnitudes of the last FFT data.
+	 *	@see #getPowerMagnitudes()
+	 */
+	public float[][] getPowerMagnitudes( float[][] mags )
+	{
+		mags = this.prepareSpectrumArray( mags, 4 );
 		for( int c = 0; c < this.lastFFT.length; c++ )
 		{
-			mags[c] = new float[ this.lastFFT[c].length/4 ];
 			for( int i = 0; i < this.lastFFT[c].length/4; i++ )
 			{
 				final float re = this.lastFFT[c][i*2];
@@ -279,10 +360,24 @@ public class FourierTransform extends AudioProcessor
 	 */
 	public float[][] getNormalisedMagnitudes( final float scalar )
 	{
-		final float[][] mags = new float[this.lastFFT.length][];
+		return this.getNormalisedMagnitudes( scalar, null );
+	}
+
+	/**
+	 * 	Computes the normalised magnitudes of the last FFT data into the given
+	 * 	array, which is reused if it is of the correct size (otherwise a new
+	 * 	array is allocated).
+	 *
+	 *	@param scalar The scalar
+	 *	@param mags The array to fill; can be null
+	 *	@return Normalised magnitudes.
+	 *	@see #getNormalisedMagnitudes(float)
+	 */
+	public float[][] getNormalisedMagnitudes( final float scalar, float[][] mags )
+	{
+		mags = this.prepareSpectrumArray( mags, 4 );
 		for( int c = 0; c < this.lastFFT.length; c++ )
 		{
-			mags[c] = new float[ this.lastFFT[c].length/4 ];
 			for( int i = 0; i < this.lastFFT[c].length/4; i++ )
 			{
 				final float re = this.lastFFT[c][i*2] * scalar;
@@ -294,6 +389,24 @@ public class FourierTransform extends AudioProcessor
 		return mags;
 	}
 
+	/**
+	 * 	Returns the given array if it has the right shape to hold values
+	 * 	derived from the last FFT (with the given divisor of the FFT data
+	 * 	length), or a newly allocated array otherwise.
+	 *
+	 *	@param data The candidate array; can be null
+	 *	@param divisor The divisor of the FFT data length
+	 *	@return An array of the correct shape
+	 */
+	private float[][] prepareSpectrumArray( final float[][] data, final int divisor )
+	{
+		final int len = this.lastFFT[0].length/divisor;
+		if( data != null && data.length == this.lastFFT.length && data[0].length == len )
+			return data;
+
+		return new float[this.lastFFT.length][len];
+	}
+
 	/**
 	 * 	Returns just the real numbers from the last FFT. The result will include
 	 * 	the symmetrical part.
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/**
+ *
+ */
+package org.openimaj.audio;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openimaj.audio.analysis.FourierTransform;
+import org.openimaj.audio.samples.SampleBuffer;
+import org.openimaj.audio.samples.SampleBufferFactory;
+
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
+
+/**
+ *	Tests for the {@link FourierTransform}.
+ *
+ *	@author David Dupplaw (dpd@ecs.soton.ac.uk)
+ */
+public class FourierTransformTest
+{
+	private SampleBuffer sine( final int n, final double freq )
+	{
+		final AudioFormat af = new AudioFormat( 16, 44.1, 1 );
+		final SampleBuffer sb = SampleBufferFactory.createSampleBuffer( af, n );
+		for( int i = 0; i < n; i++ )
+			sb.set( i, (float)(Math.sin( 2 * Math.PI * freq * i / 44100 ) * Short.MAX_VALUE / 2) );
+		return sb;
+	}
+
+	/**
+	 * 	Test that the output buffers are reused for inputs of the same
+	 * 	size, and that reusing them gives the same result as a fresh
+	 * 	transform.
+	 */
+	@Test
+	public void testBufferReuse()
+	{
+		final FourierTransform ft = new FourierTransform();
+
+		ft.process( this.sine( 512, 1000 ) );
+		final float[][] first = ft.getLastFFT();
+		final float[][] firstMags = ft.getMagnitudes( null );
+
+		ft.process( this.sine( 512, 5000 ) );
+		Assert.assertSame( first, ft.getLastFFT() );
+		Assert.assertSame( firstMags, ft.getMagnitudes( firstMags ) );
+
+		final FourierTransform fresh = new FourierTransform();
+		fresh.process( this.sine( 512, 5000 ) );
+		Assert.assertArrayEquals( fresh.getLastFFT()[0], ft.getLastFFT()[0], 0f );
+		Assert.assertArrayEquals( fresh.getMagnitudes()[0], firstMags[0], 0f );
+
+		ft.process( this.sine( 1024, 5000 ) );
+		Assert.assertEquals( 2048, ft.getLastFFT()[0].length );
+	}
+
+	/**
+	 * 	Test that the cached plans give the same result as a new plan
+	 */
+	@Test
+	public void testPlanCache()
+	{
+		Assert.assertSame( FourierTransform.getPlan( 256 ), FourierTransform.getPlan( 256 ) );
+
+		final SampleBuffer sb = this.sine( 256, 2000 );
+		final float[] data = new float[512];
+		for( int i = 0; i < 256; i++ )
+			data[i*2] = sb.get( i );
+		new FloatFFT_1D( 256 ).complexForward( data );
+		for( int i = 0; i < data.length; i += 2 )
+			data[i] /= 256;
+
+		final FourierTransform ft = new FourierTransform();
+		ft.process( sb );
+		Assert.assertArrayEquals( data, ft.getLastFFT()[0], 0f );
+	}
+
+	/**
+	 * 	Test that only the most recently used plans are cached
+	 */
+	@Test
+	public void testPlanCacheBounded()
+	{
+		final FloatFFT_1D plan = FourierTransform.getPlan( 100 );
+		for( int i = 1; i < FourierTransform.MAX_CACHED_PLANS; i++ )
+		{
+			FourierTransform.getPlan( 100 + i );
+			Assert.assertSame( plan, FourierTransform.getPlan( 100 ) );
+		}
+
+		// the least recently used plan is dropped once the cache is full
+		for( int i = 1; i <= FourierTransform.MAX_CACHED_PLANS; i++ )
+			FourierTransform.getPlan( 200 + i );
+		Assert.assertNotSame( plan, FourierTransform.getPlan( 100 ) );
+	}
+}
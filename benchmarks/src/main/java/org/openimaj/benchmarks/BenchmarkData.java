@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+
+/**
+ * Fixed inputs for the benchmarks. Synthetic data is generated from a fixed
+ * seed, and the standard test images are read from the
+ * <code>test-resources</code> module, so that every run of a benchmark (and
+ * every version of OpenIMAJ being benchmarked) sees exactly the same data.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public final class BenchmarkData {
+	/**
+	 * The seed used for all synthetic data
+	 */
+	public static final long SEED = 42;
+
+	/**
+	 * Prefix of image names that refer to synthetic images; the prefix is
+	 * followed by the size of the (square) image, for example
+	 * <code>synthetic-512</code>.
+	 */
+	public static final String SYNTHETIC_PREFIX = "synthetic-";
+
+	private static final String TEST_IMAGE_PATH = "/org/openimaj/image/data/";
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Get an image by name. Names starting with {@link #SYNTHETIC_PREFIX}
+	 * produce a synthetic image of random noise with the given size; all other
+	 * names refer to images in the test-resources module (e.g.
+	 * <code>cat.jpg</code>).
+	 * 
+	 * @param name
+	 *            the name of the image
+	 * @return the image
+	 * @throws IOException
+	 *             if the image cannot be read
+	 */
+	public static FImage image(String name) throws IOException {
+		if (name.startsWith(SYNTHETIC_PREFIX)) {
+			final int size = Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length()));
+			return randomImage(size, size);
+		}
+
+		return ImageUtilities.readF(BenchmarkData.class.getResourceAsStream(TEST_IMAGE_PATH + name));
+	}
+
+	/**
+	 * Create an image of uniformly distributed random noise in [0, 1)
+	 * 
+	 * @param width
+	 *            the width
+	 * @param height
+	 *            the height
+	 * @return the image
+	 */
+	public static FImage randomImage(int width, int height) {
+		final Random rng = new Random(SEED);
+		final FImage image = new FImage(width, height);
+
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				image.pixels[y][x] = rng.nextFloat();
+
+		return image;
+	}
+
+	/**
+	 * Create random data drawn from a mixture of Gaussians with the given
+	 * number of components, so that clustering and nearest-neighbour searches
+	 * see data with some structure.
+	 * 
+	 * @param n
+	 *            the number of vectors
+	 * @param dims
+	 *            the dimensionality
+	 * @param components
+	 *            the number of mixture components
+	 * @return the data
+	 */
+	public static float[][] randomFloatData(int n, int dims, int components) {
+		final Random rng = new Random(SEED);
+
+		final float[][] centres = new float[components][dims];
+		for (int i = 0; i < components; i++)
+			for (int j = 0; j < dims; j++)
+				centres[i][j] = rng.nextFloat() * 100;
+
+		final float[][] data = new float[n][dims];
+		for (int i = 0; i < n; i++) {
+			final float[] c = centres[rng.nextInt(components)];
+
+			for (int j = 0; j < dims; j++)
+				data[i][j] = c[j] + (float) rng.nextGaussian() * 5;
+		}
+
+		return data;
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main entry point for the benchmarks. This accepts the standard JMH command
+ * line options (use <code>-h</code> to list them), but unless told otherwise
+ * writes the results as JSON to {@value #DEFAULT_RESULT_FILE}, so that runs
+ * against different versions can be compared with standard tools. For
+ * example, to run only the image benchmarks:
+ * 
+ * <pre>
+ * java -jar benchmarks.jar -rff results-1.4.json 'org.openimaj.benchmarks.image.*'
+ * </pre>
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class RunBenchmarks {
+	/**
+	 * The default file the results are written to
+	 */
+	public static final String DEFAULT_RESULT_FILE = "openimaj-benchmarks.json";
+
+	private RunBenchmarks() {
+	}
+
+	/**
+	 * Run the benchmarks
+	 * 
+	 * @param args
+	 *            JMH command line options
+	 * @throws Exception
+	 *             if there is a problem parsing the options or running the
+	 *             benchmarks
+	 */
+	public static void main(String[] args) throws Exception {
+		final CommandLineOptions cmd = new CommandLineOptions(args);
+
+		if (cmd.shouldHelp()) {
+			cmd.showHelp();
+			return;
+		}
+
+		if (cmd.shouldList()) {
+			new Runner(cmd).list();
+			return;
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+
+		if (!cmd.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+
+		if (!cmd.getResult().hasValue())
+			options.result(DEFAULT_RESULT_FILE);
+
+		new Runner(options.build()).run();
+	}
+}
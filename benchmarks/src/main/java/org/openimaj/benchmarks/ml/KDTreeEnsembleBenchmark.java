@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.benchmarks.ml;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openimaj.benchmarks.BenchmarkData;
+import org.openimaj.knn.approximate.FloatKDTreeEnsemble;
+import org.openimaj.knn.approximate.FloatNearestNeighboursKDTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of construction of, and approximate k-nearest-neighbour search
+ * with, an ensemble of randomised KD-Trees ({@link FloatKDTreeEnsemble}).
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KDTreeEnsembleBenchmark {
+	private static final int NUM_QUERIES = 1000;
+
+	/**
+	 * The number of points in the index
+	 */
+	@Param({ "10000", "100000" })
+	public int numPoints;
+
+	/**
+	 * The number of neighbours to find
+	 */
+	@Param({ "1", "10" })
+	public int K;
+
+	private float[][] data;
+	private float[][] queries;
+	private FloatNearestNeighboursKDTree nn;
+
+	private int[][] argmins;
+	private float[][] mins;
+
+	/**
+	 * Generate the data and build the index
+	 */
+	@Setup
+	public void setup() {
+		data = BenchmarkData.randomFloatData(numPoints + NUM_QUERIES, 128, 1000);
+
+		queries = new float[NUM_QUERIES][];
+		System.arraycopy(data, numPoints, queries, 0, NUM_QUERIES);
+
+		final float[][] points = new float[numPoints][];
+		System.arraycopy(data, 0, points, 0, numPoints);
+		data = points;
+
+		nn = new FloatNearestNeighboursKDTree(data, FloatNearestNeighboursKDTree.DEFAULT_NTREES,
+				FloatNearestNeighboursKDTree.DEFAULT_NCHECKS);
+
+		argmins = new int[NUM_QUERIES][K];
+		mins = new float[NUM_QUERIES][K];
+	}
+
+	/**
+	 * @return the ensemble
+	 */
+	@Benchmark
+	public FloatKDTreeEnsemble build() {
+		return new FloatKDTreeEnsemble(data, FloatNearestNeighboursKDTree.DEFAULT_NTREES, (int) BenchmarkData.SEED);
+	}
+
+	/**
+	 * @return the indices of the neighbours
+	 */
+	@Benchmark
+	public int[][] search() {
+		nn.searchKNN(queries, K, argmins, mins);
+		return argmins;
+	}
+}
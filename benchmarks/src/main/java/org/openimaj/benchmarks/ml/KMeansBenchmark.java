@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.benchmarks.ml;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openimaj.benchmarks.BenchmarkData;
+import org.openimaj.ml.clustering.FloatCentroidsResult;
+import org.openimaj.ml.clustering.kmeans.FloatKMeans;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of {@link FloatKMeans} clustering (exact and approximate) on
+ * SIFT-like synthetic data.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KMeansBenchmark {
+	private static final int NUM_ITERATIONS = 10;
+
+	/**
+	 * The number of clusters
+	 */
+	@Param({ "64", "512" })
+	public int K;
+
+	/**
+	 * The type of assignment; either "exact" or "kdtree"
+	 */
+	@Param({ "exact", "kdtree" })
+	public String assigner;
+
+	/**
+	 * The number of data points
+	 */
+	@Param({ "20000" })
+	public int numPoints;
+
+	/**
+	 * The dimensionality of the data
+	 */
+	@Param({ "128" })
+	public int numDims;
+
+	private float[][] data;
+	private FloatKMeans kmeans;
+
+	/**
+	 * Generate the data and configure the clusterer
+	 */
+	@Setup
+	public void setup() {
+		data = BenchmarkData.randomFloatData(numPoints, numDims, 1000);
+
+		if (assigner.equals("exact"))
+			kmeans = FloatKMeans.createExact(K, NUM_ITERATIONS);
+		else
+			kmeans = FloatKMeans.createKDTreeEnsemble(K);
+
+		kmeans.getConfiguration().setMaxIterations(NUM_ITERATIONS);
+	}
+
+	/**
+	 * @return the clustering result
+	 */
+	@Benchmark
+	public FloatCentroidsResult cluster() {
+		// reseed so that every invocation does the same work
+		kmeans.seed(BenchmarkData.SEED);
+		return kmeans.cluster(data);
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.benchmarks.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openimaj.util.concurrent.ArrayBlockingDroppingQueue;
+import org.openimaj.util.concurrent.BlockingDroppingQueue;
+import org.openimaj.util.concurrent.RingBufferDroppingQueue;
+import org.openimaj.util.concurrent.RingBufferDroppingQueue.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput benchmark of the {@link BlockingDroppingQueue} implementations
+ * when shared between several producers and consumers, as they would be in a
+ * {@link org.openimaj.util.stream.BlockingDroppingBufferedStream} fed from a
+ * live source. Producers {@link BlockingDroppingQueue#put(Object) put} (and so
+ * drop when the consumers fall behind), and consumers poll with a short
+ * timeout so that the wait strategy of the ring buffer comes into play.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DroppingQueueBenchmark {
+	private static final Object ITEM = new Object();
+
+	/**
+	 * The queue implementation; either "array" for
+	 * {@link ArrayBlockingDroppingQueue} or "ring-" followed by the name of a
+	 * {@link WaitStrategy} for {@link RingBufferDroppingQueue}.
+	 */
+	@Param({ "array", "ring-spin", "ring-yield", "ring-park" })
+	public String queue;
+
+	/**
+	 * The capacity of the queue
+	 */
+	@Param({ "1", "1024" })
+	public int capacity;
+
+	private BlockingDroppingQueue<Object> buffer;
+
+	/**
+	 * Create the queue
+	 */
+	@Setup
+	public void setup() {
+		if (queue.equals("array")) {
+			buffer = new ArrayBlockingDroppingQueue<Object>(capacity);
+		} else {
+			final String ws = queue.substring("ring-".length()).toUpperCase();
+			buffer = new RingBufferDroppingQueue<Object>(capacity, WaitStrategy.valueOf(ws));
+		}
+	}
+
+	/**
+	 * @return the dropped item
+	 * @throws InterruptedException
+	 */
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(4)
+	public Object put() throws InterruptedException {
+		return buffer.put(ITEM);
+	}
+
+	/**
+	 * @return the item taken from the queue, or null if the poll timed out
+	 * @throws InterruptedException
+	 */
+	@Benchmark
+	@Group("contended")
+	@GroupThreads(4)
+	public Object poll() throws InterruptedException {
+		return buffer.poll(1, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return the dropped item
+	 * @throws InterruptedException
+	 */
+	@Benchmark
+	@Group("uncontended")
+	@GroupThreads(1)
+	public Object putSingle() throws InterruptedException {
+		return buffer.put(ITEM);
+	}
+
+	/**
+	 * @return the item taken from the queue, or null if the poll timed out
+	 * @throws InterruptedException
+	 */
+	@Benchmark
+	@Group("uncontended")
+	@GroupThreads(1)
+	public Object pollSingle() throws InterruptedException {
+		return buffer.poll(1, TimeUnit.MILLISECONDS);
+	}
+}
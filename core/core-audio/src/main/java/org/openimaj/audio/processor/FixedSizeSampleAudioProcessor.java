@@ -32,8 +32,12 @@
  */
 package org.openimaj.audio.processor;
 
+import java.util.Arrays;
+
+import org.openimaj.audio.AudioFormat;
 import org.openimaj.audio.AudioStream;
 import org.openimaj.audio.SampleChunk;
+import org.openimaj.audio.timecode.AudioTimecode;
 
 /**
  * Provides an audio processor that will process sample chunks of specific sizes
@@ -61,8 +65,29 @@ public class FixedSizeSampleAudioProcessor extends AudioProcessor
 	/** The size of each required sample chunk */
 	private int requiredSampleSetSize = 512;
 
-	/** Our buffer of sample chunks stored between calls to process() */
-	private SampleChunk sampleBuffer = null;
+	/** Our buffer of samples stored between calls to process() */
+	private byte[] buffer = null;
+
+	/** The number of bytes in the buffer */
+	private int bufferLength = 0;
+
+	/** Whether the buffer holds samples left over from the last window */
+	private boolean buffered = false;
+
+	/** The timecode (in milliseconds) of the start of the buffer */
+	private long bufferStart = 0;
+
+	/** The format of the buffered samples */
+	private AudioFormat format = null;
+
+	/** The number of bytes in each sample */
+	private int bytesPerSample = 1;
+
+	/** Whether the sample chunks we return are reused */
+	private boolean reuseSampleChunks = false;
+
+	/** The sample chunk we return if they are being reused */
+	private SampleChunk outputChunk = null;
 
 	/** The number of samples overlap required between each window */
 	private int windowStep = 0;
@@ -137,59 +162,46 @@ public class FixedSizeSampleAudioProcessor extends AudioProcessor
 	@Override
 	public SampleChunk nextSampleChunk()
 	{
-		// System.out.println( "Sample Buffer: "+(sampleBuffer != null?
-		// sampleBuffer.getNumberOfSamples() : "null"));
-
-		// Get the samples. If there's more samples than we need in the
-		// buffer, we'll just use that, otherwise we'll get a new sample
-		// chunk from the stream.
-		SampleChunk s = null;
-		if (this.sampleBuffer != null &&
-				this.sampleBuffer.getNumberOfSamples() >= this.requiredSampleSetSize)
-		{
-			s = this.sampleBuffer;
-			this.sampleBuffer = null;
-		}
-		else
+		// If there's enough samples in the buffer, we'll just use those,
+		// otherwise we'll get a new sample chunk from the stream and add it
+		// onto the end of the buffered samples.
+		if (!this.buffered || this.bufferLength < this.requiredSampleSetSize * this.bytesPerSample)
 		{
-			s = this.getUnderlyingStream().nextSampleChunk();
-			if (s != null)
-				s = s.clone();
-
-			// If we have something in our buffer, prepend it to the new
-			// sample chunk
-			if (this.sampleBuffer != null && this.sampleBuffer.getNumberOfSamples() > 0
-					&& s != null)
+			final SampleChunk s = this.getUnderlyingStream().nextSampleChunk();
+
+			// Catch the end of the stream. If there's anything left over in
+			// the buffer we return that, otherwise there's no more audio.
+			if (s == null)
 			{
-				// Prepend the contents of the sample buffer to the new sample
-				// chunk
-				s.prepend(this.sampleBuffer);
-				this.sampleBuffer = null;
+				if (this.buffered)
+				{
+					this.buffered = false;
+					return this.output(this.bufferLength);
+				}
+				else
+					return null;
 			}
-		}
-
-		// Sample buffer will always be null here
-		// It will be reinstated later with the left-overs after processing.
-		// From this point on we'll only work on the SampleChunk s.
 
-		// Catch the end of the stream. As the sample buffer is always empty
-		// at this point, the only time s can be null is that if the
-		// nextSampleChunk() above returned null. In which case, there's no
-		// more audio, so we return null.
-		if (s == null)
-		{
-			if (this.sampleBuffer != null)
+			// If the buffer's empty, the new samples start it off
+			if (!this.buffered || this.bufferLength == 0)
 			{
-				s = this.sampleBuffer;
-				this.sampleBuffer = null;
-				return s;
+				if (!s.getFormat().equals(this.format))
+					this.format = s.getFormat().clone();
+				this.bytesPerSample = this.format.getNBits() / 8;
+				this.bufferLength = 0;
+				this.bufferStart = s.getStartTimecode() == null ? 0 :
+						s.getStartTimecode().getTimecodeInMilliseconds();
 			}
-			else
-				return null;
+
+			this.appendToBuffer(s);
 		}
 
+		// Sample buffer is no longer held over from the last call. It will be
+		// reinstated later with the left-overs after processing.
+		this.buffered = false;
+
 		// Now check how many samples we have to start with
-		int nSamples = s.getNumberOfSamples();
+		int nSamples = this.bufferLength / this.bytesPerSample;
 
 		// If we don't have enough samples, we'll keep getting chunks until
 		// we have enough or until the end of the stream is reached.
@@ -199,11 +211,11 @@ public class FixedSizeSampleAudioProcessor extends AudioProcessor
 			final SampleChunk nextSamples = this.getUnderlyingStream().nextSampleChunk();
 			if (nextSamples != null)
 			{
-				// Append the new samples onto the end of the sample chunk
-				s.append(nextSamples);
+				// Append the new samples onto the end of the buffer
+				this.appendToBuffer(nextSamples);
 
 				// Check how many samples we now have.
-				nSamples = s.getNumberOfSamples();
+				nSamples = this.bufferLength / this.bytesPerSample;
 			}
 			else
 				endOfStream = true;
@@ -211,30 +223,31 @@ public class FixedSizeSampleAudioProcessor extends AudioProcessor
 
 		// If we have the right number of samples,
 		// or we've got to the end of the stream
-		// then we just return the chunk we have.
+		// then we just return the samples we have.
 		SampleChunk ss;
 		if (!endOfStream && (this.overlapping || nSamples > this.requiredSampleSetSize))
 		{
 			// We must now have too many samples...
-			// Store the excess back into the buffer
+			// Keep the excess in the buffer
 			int start = 0;
 			if (this.overlapping)
 				start = this.windowStep;
 			else
 				start = this.requiredSampleSetSize;
 
-			// Store the rest into the sample buffer
-			this.sampleBuffer = s.getSampleSlice(start, nSamples - start);
+			// Process a slice of the buffer
+			ss = this.output(this.requiredSampleSetSize * this.bytesPerSample);
 
-			// Process a slice of the sample chunk
-			ss = s.getSampleSlice(0, this.requiredSampleSetSize);
+			// Shift the rest down to the front of the buffer
+			final int startByte = start * this.bytesPerSample;
+			System.arraycopy(this.buffer, startByte, this.buffer, 0, this.bufferLength - startByte);
+			this.bufferLength -= startByte;
+			this.bufferStart += (long) (start / this.format.getSampleRateKHz());
+			this.buffered = true;
 		}
 		else
 		{
-			ss = s;
-
-			if (ss.getNumberOfSamples() < this.requiredSampleSetSize)
-				ss.pad(this.requiredSampleSetSize);
+			ss = this.output(Math.max(this.bufferLength, this.requiredSampleSetSize * this.bytesPerSample));
 		}
 
 		try
@@ -249,6 +262,92 @@ public class FixedSizeSampleAudioProcessor extends AudioProcessor
 		}
 	}
 
+	/**
+	 * Append the samples in the given chunk to the end of the buffer, growing
+	 * it if necessary.
+	 *
+	 * @param s
+	 *            The samples to append
+	 */
+	private void appendToBuffer(final SampleChunk s)
+	{
+		// Check the sample formats are the same
+		if (this.bufferLength > 0 && !s.getFormat().equals(this.format))
+			throw new IllegalArgumentException("Sample types are not equivalent");
+
+		final byte[] samples = s.getSamples();
+		if (this.buffer == null || this.bufferLength + samples.length > this.buffer.length)
+		{
+			final int size = Math.max(this.bufferLength + samples.length, this.buffer == null ? 0 : this.buffer.length * 2);
+			this.buffer = this.buffer == null ? new byte[size] : Arrays.copyOf(this.buffer, size);
+		}
+
+		System.arraycopy(samples, 0, this.buffer, this.bufferLength, samples.length);
+		this.bufferLength += samples.length;
+	}
+
+	/**
+	 * Get a sample chunk holding the given number of bytes from the front of
+	 * the buffer, zero padded if the buffer doesn't hold that many. If the
+	 * chunks are being reused, the chunk returned from the last call is
+	 * overwritten.
+	 *
+	 * @param nBytes
+	 *            The number of bytes
+	 * @return The sample chunk
+	 */
+	private SampleChunk output(final int nBytes)
+	{
+		SampleChunk out = this.reuseSampleChunks ? this.outputChunk : null;
+		if (out == null || out.getSamples().length != nBytes || out.getFormat() != this.format)
+		{
+			out = new SampleChunk(new byte[nBytes], this.format, new AudioTimecode(this.bufferStart));
+			if (this.reuseSampleChunks)
+				this.outputChunk = out;
+		}
+		else
+		{
+			out.getStartTimecode().setTimecodeInMilliseconds(this.bufferStart);
+		}
+
+		final byte[] samples = out.getSamples();
+		final int n = Math.min(nBytes, this.bufferLength);
+		System.arraycopy(this.buffer, 0, samples, 0, n);
+		Arrays.fill(samples, n, nBytes, (byte) 0);
+
+		return out;
+	}
+
+	/**
+	 * Set whether the sample chunks returned by {@link #nextSampleChunk()} are
+	 * reused. If they are, the samples of the chunk returned from one call
+	 * will be overwritten by the next call (and the chunks passed to
+	 * {@link #process(SampleChunk)} are the same object each time), so that
+	 * processing a stream of fixed size windows doesn't allocate. Copy the
+	 * samples if you need to keep them beyond the next call. Defaults to
+	 * false.
+	 *
+	 * @param reuse
+	 *            true if the sample chunks should be reused
+	 */
+	public void setReuseSampleChunks(final boolean reuse)
+	{
+		this.reuseSampleChunks = reuse;
+		this.outputChunk = null;
+	}
+
+	/**
+	 * Returns whether the sample chunks returned by {@link #nextSampleChunk()}
+	 * are reused.
+	 *
+	 * @return true if the sample chunks are reused
+	 * @see #setReuseSampleChunks(boolean)
+	 */
+	public boolean isReuseSampleChunks()
+	{
+		return this.reuseSampleChunks;
+	}
+
 	/**
 	 * Set the step of each overlapping window.
 	 *
@@ -235,4 +235,44 @@ public class FixedSizeSampleAudioProcessorTest
 		// (nsamples - window size/window step)
 		Assert.assertEquals( ((65536 / 2)-256)/windowStep+1, count );	
 	}
+
+	/**
+	 * Test that reusing the sample chunks gives the same windows (and
+	 * timecodes) as creating new ones
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testReuseSampleChunks() throws Exception
+	{
+		for (final int windowStep : new int[] { 0, 16, 100 })
+		{
+			final FixedSizeSampleAudioProcessor fresh = new FixedSizeSampleAudioProcessor(new TestAudio(), 256);
+			fresh.setWindowStep(windowStep);
+
+			final FixedSizeSampleAudioProcessor reused = new FixedSizeSampleAudioProcessor(new TestAudio(), 256);
+			reused.setWindowStep(windowStep);
+			reused.setReuseSampleChunks(true);
+
+			SampleChunk expected;
+			SampleChunk last = null;
+			int n = 0;
+			while ((expected = fresh.nextSampleChunk()) != null)
+			{
+				final SampleChunk actual = reused.nextSampleChunk();
+
+				Assert.assertTrue(Arrays.equals(expected.getSamples(), actual.getSamples()));
+				Assert.assertEquals(expected.getStartTimecode().getTimecodeInMilliseconds(),
+						actual.getStartTimecode().getTimecodeInMilliseconds());
+
+				if (last != null && actual.getNumberOfSamples() == 256)
+					Assert.assertSame(last, actual);
+				last = actual;
+				n++;
+			}
+
+			Assert.assertNull(reused.nextSampleChunk());
+			Assert.assertTrue(n > 1);
+		}
+	}
 }
@@ -0,0 +1,535 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.feature.local.list;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.openimaj.data.AbstractDataSource;
+import org.openimaj.data.DataSource;
+import org.openimaj.data.RandomData;
+import org.openimaj.feature.local.LocalFeature;
+import org.openimaj.io.IOUtils;
+import org.openimaj.util.list.AbstractFileBackedList;
+
+/**
+ * A {@link FileLocalFeatureList} that memory-maps the fixed-length records of
+ * a binary local feature file once, rather than opening and seeking the file
+ * on every access. As well as deserialising whole features, the list provides
+ * zero-copy {@link ByteBuffer} views of each record, and for features with
+ * <code>byte</code> descriptors (i.e. {@link LocalFeature}s whose feature
+ * vector is backed by a <code>byte[]</code>), views of the descriptor and
+ * location parts of each record, together with a {@link DataSource} of the
+ * descriptors that can be fed directly to the clustering algorithms.
+ * <p>
+ * Only binary files are supported.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ * 
+ * @param <T>
+ *            the type of local feature
+ */
+public class MemoryMappedFileLocalFeatureList<T extends LocalFeature<?, ?>> extends FileLocalFeatureList<T> {
+	protected final ByteBuffer[] chunks;
+	protected final int recordsPerChunk;
+
+	/** offset of the descriptor within a record; -1 if not byte descriptors */
+	protected final int vectorOffset;
+
+	protected MemoryMappedFileLocalFeatureList(int size, int veclen, int headerLength, int recordLength, File file,
+			Class<T> clz) throws IOException
+	{
+		super(size, veclen, true, headerLength, recordLength, file, clz);
+
+		this.recordsPerChunk = Math.max(1, Integer.MAX_VALUE / Math.max(1, recordLength));
+		this.chunks = new ByteBuffer[Math.max(1, (size + recordsPerChunk - 1) / recordsPerChunk)];
+
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(file, "r");
+			final FileChannel channel = raf.getChannel();
+
+			for (int i = 0; i < chunks.length; i++) {
+				final long start = headerLength + (long) i * recordsPerChunk * recordLength;
+				final int n = Math.min(recordsPerChunk, size - i * recordsPerChunk);
+
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, (long) n * recordLength);
+			}
+		} finally {
+			if (raf != null)
+				try {
+					raf.close();
+				} catch (final IOException e) {
+				}
+		}
+
+		this.vectorOffset = findVectorOffset();
+	}
+
+	/**
+	 * Memory-map a binary file containing a set of local features of type
+	 * clz. The same assumptions about clz as
+	 * {@link FileLocalFeatureList#read(File, Class)} apply.
+	 * 
+	 * @param <T>
+	 *            the local feature class
+	 * @param keypointFile
+	 *            the file
+	 * @param clz
+	 *            the local feature class
+	 * @return a list of local feature backed by the memory-mapped file
+	 * @throws IOException
+	 *             if a problem occurs reading the file, or if the file is not
+	 *             binary
+	 */
+	public static <T extends LocalFeature<?, ?>> MemoryMappedFileLocalFeatureList<T> read(File keypointFile,
+			Class<T> clz) throws IOException
+	{
+		if (!IOUtils.isBinary(keypointFile, LocalFeatureList.BINARY_HEADER))
+			throw new IOException("Only binary local feature files can be memory-mapped");
+
+		final int[] header = LocalFeatureListUtils.readHeader(keypointFile, true);
+		final int size = header[0];
+		final int veclen = header[1];
+		final int headerLength = header[2];
+
+		final T instance = LocalFeatureListUtils.newInstance(clz, veclen);
+		final int recordLength = serialise(instance).length;
+
+		return new MemoryMappedFileLocalFeatureList<T>(size, veclen, headerLength, recordLength, keypointFile, clz);
+	}
+
+	private static byte[] serialise(LocalFeature<?, ?> feature) throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		feature.writeBinary(new DataOutputStream(buffer));
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Locate the descriptor within a record by serialising an empty feature
+	 * before and after filling its (byte) descriptor.
+	 */
+	private int findVectorOffset() throws IOException {
+		final T instance = newElementInstance();
+		final Object vector = instance.getFeatureVector().getVector();
+
+		if (!(vector instanceof byte[]) || ((byte[]) vector).length != veclen || veclen == 0)
+			return -1;
+
+		final byte[] before = serialise(instance);
+		Arrays.fill((byte[]) vector, (byte) 1);
+		final byte[] after = serialise(instance);
+		Arrays.fill((byte[]) vector, (byte) 0);
+
+		int first = 0;
+		while (first < before.length && before[first] == after[first])
+			first++;
+
+		int last = before.length - 1;
+		while (last > first && before[last] == after[last])
+			last--;
+
+		if (last - first + 1 != veclen)
+			return -1;
+
+		// the location must either precede or follow the descriptor
+		if (first != 0 && first + veclen != recordLength)
+			return -1;
+
+		return first;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
+	private void checkVector() {
+		if (vectorOffset < 0)
+			throw new UnsupportedOperationException("The features in this list do not have byte descriptors");
+	}
+
+	private ByteBuffer view(int index, int offset, int length) {
+		checkIndex(index);
+
+		final ByteBuffer buffer = chunks[index / recordsPerChunk].duplicate();
+		final int start = (index % recordsPerChunk) * recordLength + offset;
+		buffer.limit(start + length);
+		buffer.position(start);
+
+		return buffer.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Get a read-only view of the binary record of the feature at the given
+	 * index. No data is copied.
+	 * 
+	 * @param index
+	 *            the index of the feature
+	 * @return a view of the record
+	 */
+	public ByteBuffer getRecordBuffer(int index) {
+		return view(index, 0, recordLength);
+	}
+
+	/**
+	 * Get a read-only view of the descriptor of the feature at the given
+	 * index. No data is copied.
+	 * 
+	 * @param index
+	 *            the index of the feature
+	 * @return a view of the descriptor
+	 * @throws UnsupportedOperationException
+	 *             if the features do not have byte descriptors
+	 */
+	public ByteBuffer getVectorBuffer(int index) {
+		checkVector();
+		return view(index, vectorOffset, veclen);
+	}
+
+	/**
+	 * Get a read-only view of the binary location of the feature at the given
+	 * index (i.e. the part of the record that is not the descriptor). No data
+	 * is copied.
+	 * 
+	 * @param index
+	 *            the index of the feature
+	 * @return a view of the location
+	 * @throws UnsupportedOperationException
+	 *             if the features do not have byte descriptors
+	 */
+	public ByteBuffer getLocationBuffer(int index) {
+		checkVector();
+
+		if (vectorOffset == 0)
+			return view(index, veclen, recordLength - veclen);
+		return view(index, 0, vectorOffset);
+	}
+
+	/**
+	 * Copy the descriptor of the feature at the given index into the given
+	 * array, avoiding the creation of any objects.
+	 * 
+	 * @param index
+	 *            the index of the feature
+	 * @param vector
+	 *            the array to fill; if null a new array is created
+	 * @return the descriptor
+	 * @throws UnsupportedOperationException
+	 *             if the features do not have byte descriptors
+	 */
+	public byte[] getVector(int index, byte[] vector) {
+		checkVector();
+		checkIndex(index);
+
+		if (vector == null)
+			vector = new byte[veclen];
+
+		final ByteBuffer chunk = chunks[index / recordsPerChunk];
+		final int start = (index % recordsPerChunk) * recordLength + vectorOffset;
+		for (int i = 0; i < veclen; i++)
+			vector[i] = chunk.get(start + i);
+
+		return vector;
+	}
+
+	/**
+	 * Get a {@link DataSource} over the descriptors of the features in this
+	 * list. The descriptors are copied directly from the mapped file without
+	 * deserialising the features, so the data source can be used for
+	 * efficiently sampling data for clustering.
+	 * 
+	 * @return the data source
+	 * @throws UnsupportedOperationException
+	 *             if the features do not have byte descriptors
+	 */
+	public DataSource<byte[]> createDataSource() {
+		checkVector();
+
+		return new AbstractDataSource<byte[]>() {
+			@Override
+			public void getData(int startRow, int stopRow, byte[][] data) {
+				for (int i = startRow, j = 0; i < stopRow; i++, j++)
+					data[j] = getVector(i, data[j]);
+			}
+
+			@Override
+			public byte[] getData(int row) {
+				return getVector(row, null);
+			}
+
+			@Override
+			public void getRandomRows(byte[][] data) {
+				final int[] rows = RandomData.getUniqueRandomInts(data.length, 0, size);
+				Arrays.sort(rows);
+
+				for (int i = 0; i < rows.length; i++)
+					data[i] = getVector(rows[i], data[i]);
+			}
+
+			@Override
+			public Iterator<byte[]> iterator() {
+				return new Iterator<byte[]>() {
+					int index = 0;
+
+					@Override
+					public boolean hasNext() {
+						return index < size;
+					}
+
+					@Override
+					public byte[] next() {
+						if (index >= size)
+							throw new NoSuchElementException();
+						return getVector(index++, null);
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int numDimensions() {
+				return veclen;
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public byte[][] createTemporaryArray(int size) {
+				return new byte[size][veclen];
+			}
+		};
+	}
+
+	@Override
+	public T get(int index) {
+		try {
+			return readRecord(new ByteBufferDataInput(view(index, 0, recordLength)));
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public T next() {
+				if (index >= size)
+					throw new NoSuchElementException();
+				return get(index++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Modifying a FileList isn't supported");
+			}
+		};
+	}
+
+	@Override
+	public MemoryLocalFeatureList<T> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || fromIndex > size || toIndex < fromIndex || toIndex > size)
+			throw new IllegalArgumentException("bad offsets");
+
+		final MemoryLocalFeatureList<T> list = new MemoryLocalFeatureList<T>(veclen, toIndex - fromIndex);
+		for (int i = fromIndex; i < toIndex; i++)
+			list.add(get(i));
+
+		return list;
+	}
+
+	@Override
+	public MemoryLocalFeatureList<T> randomSubList(int nelem) {
+		if (nelem > size)
+			throw new IllegalArgumentException("number of requested elements is greater than the list size");
+
+		final int[] indices = RandomData.getUniqueRandomInts(nelem, 0, size);
+
+		final MemoryLocalFeatureList<T> list = new MemoryLocalFeatureList<T>(veclen, nelem);
+		for (final int i : indices)
+			list.add(get(i));
+
+		return list;
+	}
+
+	@Override
+	protected AbstractFileBackedList<T> newInstance(int newSize, boolean isBinary, int newHeaderLength,
+			int recordLength, File file)
+	{
+		try {
+			return new MemoryMappedFileLocalFeatureList<T>(newSize, veclen, newHeaderLength, recordLength, file, clz);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * {@link DataInput} that reads directly from a {@link ByteBuffer}. The
+	 * byte order of the buffer must be big-endian, as per {@link DataInput}.
+	 */
+	private static final class ByteBufferDataInput implements DataInput {
+		private final ByteBuffer buffer;
+
+		ByteBufferDataInput(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private void require(int n) throws EOFException {
+			if (buffer.remaining() < n)
+				throw new EOFException();
+		}
+
+		@Override
+		public void readFully(byte[] b) throws IOException {
+			readFully(b, 0, b.length);
+		}
+
+		@Override
+		public void readFully(byte[] b, int off, int len) throws IOException {
+			require(len);
+			buffer.get(b, off, len);
+		}
+
+		@Override
+		public int skipBytes(int n) {
+			n = Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + n);
+			return n;
+		}
+
+		@Override
+		public boolean readBoolean() throws IOException {
+			return readByte() != 0;
+		}
+
+		@Override
+		public byte readByte() throws IOException {
+			require(1);
+			return buffer.get();
+		}
+
+		@Override
+		public int readUnsignedByte() throws IOException {
+			return readByte() & 0xff;
+		}
+
+		@Override
+		public short readShort() throws IOException {
+			require(2);
+			return buffer.getShort();
+		}
+
+		@Override
+		public int readUnsignedShort() throws IOException {
+			return readShort() & 0xffff;
+		}
+
+		@Override
+		public char readChar() throws IOException {
+			require(2);
+			return buffer.getChar();
+		}
+
+		@Override
+		public int readInt() throws IOException {
+			require(4);
+			return buffer.getInt();
+		}
+
+		@Override
+		public long readLong() throws IOException {
+			require(8);
+			return buffer.getLong();
+		}
+
+		@Override
+		public float readFloat() throws IOException {
+			require(4);
+			return buffer.getFloat();
+		}
+
+		@Override
+		public double readDouble() throws IOException {
+			require(8);
+			return buffer.getDouble();
+		}
+
+		@Override
+		public String readLine() throws IOException {
+			if (!buffer.hasRemaining())
+				return null;
+
+			final StringBuilder sb = new StringBuilder();
+			while (buffer.hasRemaining()) {
+				final char c = (char) (buffer.get() & 0xff);
+				if (c == '\n')
+					break;
+				if (c == '\r') {
+					if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n')
+						buffer.get();
+					break;
+				}
+				sb.append(c);
+			}
+			return sb.toString();
+		}
+
+		@Override
+		public String readUTF() throws IOException {
+			return DataInputStream.readUTF(this);
+		}
+	}
+}
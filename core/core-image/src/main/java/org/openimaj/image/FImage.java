@@ -36,12 +36,19 @@ import org.openimaj.image.analyser.PixelAnalyser;
 import org.openimaj.image.colour.ColourSpace;
 import org.openimaj.image.pixel.FValuePixel;
 import org.openimaj.image.pixel.Pixel;
+import org.openimaj.image.processor.FImageWindow;
+import org.openimaj.image.processor.FloatKernelProcessor;
+import org.openimaj.image.processor.FloatPixelProcessor;
 import org.openimaj.image.processor.KernelProcessor;
 import org.openimaj.image.processor.PixelProcessor;
+import org.openimaj.image.processor.Processor;
 import org.openimaj.image.renderer.FImageRenderer;
 import org.openimaj.image.renderer.RenderHints;
 import org.openimaj.math.geometry.shape.Rectangle;
 import org.openimaj.math.util.Interpolation;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
 
 import Jama.Matrix;
 
@@ -68,6 +75,18 @@ public class FImage extends SingleBandImage<Float, FImage>
 	 */
 	protected static final float DEFAULT_GAUSS_TRUNCATE = 4.0f;
 
+	/**
+	 * The number of pixels above which the primitive processors run in
+	 * parallel
+	 */
+	static final int PARALLEL_MIN_PIXELS = 1 << 16;
+
+	/**
+	 * The approximate number of pixels in each band of rows processed in
+	 * parallel
+	 */
+	static final int PARALLEL_BAND_PIXELS = 1 << 15;
+
 	/** The underlying pixels */
 	public float pixels[][];
 
@@ -1347,6 +1366,157 @@ public class FImage extends SingleBandImage<Float, FImage>
 		return this;
 	}
 
+	/**
+	 * Process this image with the given {@link FloatKernelProcessor} and return
+	 * a new image containing the result.
+	 *
+	 * @param p
+	 *            The {@link FloatKernelProcessor} to apply.
+	 * @return A new image containing the result.
+	 */
+	public FImage process(final FloatKernelProcessor p) {
+		return this.process(p, false);
+	}
+
+	/**
+	 * Process this image with the given {@link FloatKernelProcessor} and return
+	 * a new image containing the result. The kernel reads the image through a
+	 * reusable {@link FImageWindow} rather than a copy of each patch, and
+	 * large images are processed in parallel bands of rows.
+	 *
+	 * @param p
+	 *            The {@link FloatKernelProcessor} to apply.
+	 * @param pad
+	 *            Should the image be zero padded so the kernel reaches the
+	 *            edges of the output
+	 * @return A new image containing the result.
+	 */
+	public FImage process(final FloatKernelProcessor p, final boolean pad)
+	{
+		final FImage newImage = new FImage(this.width, this.height);
+		final int kh = p.getKernelHeight();
+		final int kw = p.getKernelWidth();
+		final int hh = kh / 2;
+		final int hw = kw / 2;
+
+		final int x0 = pad ? 0 : hw;
+		final int x1 = pad ? this.width : this.width - (kw - hw);
+		final int y0 = pad ? 0 : hh;
+		final int y1 = pad ? this.height : this.height - (kh - hh);
+
+		processRows(y0, y1, this.width, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				final FImageWindow window = new FImageWindow(FImage.this, kw, kh);
+
+				for (int y = range.start; y < range.stop; y++) {
+					final float[] out = newImage.pixels[y];
+
+					for (int x = x0; x < x1; x++) {
+						window.setPosition(x - hw, y - hh);
+						out[x] = p.processKernel(window);
+					}
+				}
+			}
+		});
+
+		return newImage;
+	}
+
+	/**
+	 * Process this image with the given {@link FloatKernelProcessor}
+	 * side-affecting this image.
+	 *
+	 * @param p
+	 *            The {@link FloatKernelProcessor} to apply.
+	 * @return A reference to this image containing the result.
+	 */
+	public FImage processInplace(final FloatKernelProcessor p) {
+		return this.processInplace(p, false);
+	}
+
+	/**
+	 * Process this image with the given {@link FloatKernelProcessor}
+	 * side-affecting this image.
+	 *
+	 * @param p
+	 *            The {@link FloatKernelProcessor} to apply.
+	 * @param pad
+	 *            Should the image be zero padded so the kernel reaches the
+	 *            edges of the output
+	 * @return A reference to this image containing the result.
+	 */
+	public FImage processInplace(final FloatKernelProcessor p, final boolean pad) {
+		return this.internalAssign(this.process(p, pad));
+	}
+
+	/**
+	 * Process this image with the given {@link FloatPixelProcessor} and return
+	 * a new image containing the result.
+	 *
+	 * @param p
+	 *            The {@link FloatPixelProcessor} to apply.
+	 * @return A new image containing the result.
+	 */
+	public FImage process(final FloatPixelProcessor p) {
+		return this.clone().processInplace(p);
+	}
+
+	/**
+	 * Process this image with the given {@link FloatPixelProcessor}
+	 * side-affecting this image. Large images are processed in parallel bands
+	 * of rows.
+	 *
+	 * @param p
+	 *            The {@link FloatPixelProcessor} to apply.
+	 * @return A reference to this image containing the result.
+	 */
+	public FImage processInplace(final FloatPixelProcessor p)
+	{
+		processRows(0, this.height, this.width, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				for (int y = range.start; y < range.stop; y++) {
+					final float[] row = FImage.this.pixels[y];
+
+					for (int x = 0; x < FImage.this.width; x++)
+						row[x] = p.processPixel(row[x]);
+				}
+			}
+		});
+
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc} This method has been overridden in {@link FImage} to
+	 * support {@link FloatKernelProcessor}s.
+	 *
+	 * @see org.openimaj.image.Image#processInplace(org.openimaj.image.processor.Processor)
+	 */
+	@Override
+	public FImage processInplace(final Processor<FImage> p) {
+		if (p instanceof FloatKernelProcessor)
+			return this.processInplace((FloatKernelProcessor) p);
+
+		return super.processInplace(p);
+	}
+
+	/**
+	 * Apply an operation to the rows [start, stop) of an image of the given
+	 * width. Images with more than {@link #PARALLEL_MIN_PIXELS} pixels are
+	 * split into bands of rows that are processed in parallel.
+	 */
+	static void processRows(int start, int stop, int width, Operation<IntRange> op) {
+		if (stop <= start)
+			return;
+
+		if ((long) (stop - start) * width < PARALLEL_MIN_PIXELS)
+			Parallel.forBlocks(start, stop, stop - start, op);
+		else
+			Parallel.forBlocks(start, stop, Math.max(1, PARALLEL_BAND_PIXELS / Math.max(1, width)), op);
+	}
+
 	/**
 	 * {@inheritDoc} This method has been overridden in {@link FImage} for
 	 * performance.
@@ -33,8 +33,13 @@ import java.util.Comparator;
 
 import org.openimaj.image.colour.ColourSpace;
 import org.openimaj.image.pixel.Pixel;
+import org.openimaj.image.processor.FloatKernelProcessor;
+import org.openimaj.image.processor.FloatMultibandPixelProcessor;
+import org.openimaj.image.processor.FloatPixelProcessor;
 import org.openimaj.image.renderer.MBFImageRenderer;
 import org.openimaj.image.renderer.RenderHints;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel.IntRange;
 
 /**
  * A multiband floating-point image.
@@ -621,4 +626,123 @@ public class MBFImage extends MultiBandImage<Float, MBFImage, FImage> {
 		}
 		return f;
 	}
+
+	/**
+	 * Process each band of this image with the given
+	 * {@link FloatKernelProcessor} and return a new image containing the
+	 * result.
+	 *
+	 * @param p
+	 *            The {@link FloatKernelProcessor} to apply.
+	 * @param pad
+	 *            Should the image be zero padded so the kernel reaches the
+	 *            edges of the output
+	 * @return A new image containing the result.
+	 */
+	public MBFImage process(final FloatKernelProcessor p, final boolean pad) {
+		final MBFImage out = new MBFImage();
+		out.colourSpace = this.colourSpace;
+
+		for (final FImage band : this.bands)
+			out.bands.add(band.process(p, pad));
+
+		return out;
+	}
+
+	/**
+	 * Process each band of this image with the given
+	 * {@link FloatKernelProcessor} side-affecting this image.
+	 *
+	 * @param p
+	 *            The {@link FloatKernelProcessor} to apply.
+	 * @param pad
+	 *            Should the image be zero padded so the kernel reaches the
+	 *            edges of the output
+	 * @return A reference to this image containing the result.
+	 */
+	public MBFImage processInplace(final FloatKernelProcessor p, final boolean pad) {
+		for (final FImage band : this.bands)
+			band.processInplace(p, pad);
+
+		return this;
+	}
+
+	/**
+	 * Process each band of this image with the given
+	 * {@link FloatPixelProcessor} and return a new image containing the
+	 * result.
+	 *
+	 * @param p
+	 *            The {@link FloatPixelProcessor} to apply.
+	 * @return A new image containing the result.
+	 */
+	public MBFImage process(final FloatPixelProcessor p) {
+		return this.clone().processInplace(p);
+	}
+
+	/**
+	 * Process each band of this image with the given
+	 * {@link FloatPixelProcessor} side-affecting this image.
+	 *
+	 * @param p
+	 *            The {@link FloatPixelProcessor} to apply.
+	 * @return A reference to this image containing the result.
+	 */
+	public MBFImage processInplace(final FloatPixelProcessor p) {
+		for (final FImage band : this.bands)
+			band.processInplace(p);
+
+		return this;
+	}
+
+	/**
+	 * Process this image with the given {@link FloatMultibandPixelProcessor}
+	 * and return a new image containing the result.
+	 *
+	 * @param p
+	 *            The {@link FloatMultibandPixelProcessor} to apply.
+	 * @return A new image containing the result.
+	 */
+	public MBFImage process(final FloatMultibandPixelProcessor p) {
+		return this.clone().processInplace(p);
+	}
+
+	/**
+	 * Process this image with the given {@link FloatMultibandPixelProcessor}
+	 * side-affecting this image. The band values of each pixel are gathered
+	 * into a reused array rather than boxed, and large images are processed in
+	 * parallel bands of rows.
+	 *
+	 * @param p
+	 *            The {@link FloatMultibandPixelProcessor} to apply.
+	 * @return A reference to this image containing the result.
+	 */
+	public MBFImage processInplace(final FloatMultibandPixelProcessor p) {
+		final int nbands = this.numBands();
+		final int width = this.getWidth();
+		final float[][][] pixels = new float[nbands][][];
+		for (int b = 0; b < nbands; b++)
+			pixels[b] = this.bands.get(b).pixels;
+
+		FImage.processRows(0, this.getHeight(), width, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				final float[] pixel = new float[nbands];
+
+				for (int y = range.start; y < range.stop; y++) {
+					for (int x = 0; x < width; x++) {
+						for (int b = 0; b < nbands; b++)
+							pixel[b] = pixels[b][y][x];
+
+						p.processPixel(pixel);
+
+						for (int b = 0; b < nbands; b++)
+							pixels[b][y][x] = pixel[b];
+					}
+				}
+			}
+		});
+
+		return this;
+	}
 }
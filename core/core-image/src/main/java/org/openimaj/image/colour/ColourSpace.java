@@ -839,18 +839,22 @@ public enum ColourSpace {
 	public abstract MBFImage convertToRGB(MBFImage input);
 
 	/**
-	 * Convert the image to this colour space
+	 * Convert the image to this colour space. If there is a
+	 * {@link ColourTransform} that directly converts between the colour spaces
+	 * it is used; otherwise the image is converted through RGB.
 	 * 
 	 * @param input
 	 *            an image
 	 * @return image in this colour space
 	 */
 	public MBFImage convert(final MBFImage input) {
-		return this.convertFromRGB(input.getColourSpace().convertToRGB(input));
+		return convert(input, this);
 	}
 
 	/**
-	 * Convert the image to the given colour space
+	 * Convert the image to the given colour space. If there is a
+	 * {@link ColourTransform} that directly converts between the colour spaces
+	 * it is used; otherwise the image is converted through RGB.
 	 * 
 	 * @param image
 	 *            the image
@@ -859,6 +863,10 @@ public enum ColourSpace {
 	 * @return the converted image
 	 */
 	public static MBFImage convert(final MBFImage image, final ColourSpace cs) {
+		final ColourTransform transform = ColourTransform.get(image.colourSpace, cs);
+		if (transform != null)
+			return transform.transform(image);
+
 		return cs.convertFromRGB(image.colourSpace.convertToRGB(image));
 	}
 
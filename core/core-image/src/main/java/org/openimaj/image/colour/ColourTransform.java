@@ -0,0 +1,599 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.colour;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.image.MBFImage;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * A fused, per-pixel colour transform between two {@link ColourSpace}s.
+ * Transforms read all the bands of a pixel and write all the bands of the
+ * result in a single pass over the image, so no intermediate band images are
+ * created. Rows of large images are transformed in parallel.
+ * <p>
+ * Transforms can be chained with {@link #then(ColourTransform)}; chained
+ * transforms only buffer a single row of each intermediate colour space rather
+ * than materialising whole intermediate images. The result of a chained
+ * transform is identical to applying the individual transforms one after the
+ * other.
+ * <p>
+ * Transforms from RGB that need to linearise the input (i.e. undo sRGB
+ * companding) use a lookup table for values that are exactly representable as
+ * 8-bit levels (i.e. images that were originally read from 8-bit data), and
+ * fall back to computing the value otherwise. The results are the same either
+ * way.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public abstract class ColourTransform {
+	/**
+	 * Images with fewer pixels than this are transformed in the calling thread
+	 */
+	private static final int PARALLEL_MIN_PIXELS = 1 << 16;
+
+	/**
+	 * Approximate number of pixels in each band of rows processed in parallel
+	 */
+	private static final int PARALLEL_BAND_PIXELS = 1 << 15;
+
+	/**
+	 * Linear (inverse sRGB companded) values of the 8-bit levels
+	 */
+	private static final double[] SRGB_LINEAR_LUT = new double[256];
+
+	static {
+		for (int i = 0; i < 256; i++)
+			SRGB_LINEAR_LUT[i] = inverseCompandDirect(ImageUtilities.BYTE_TO_FLOAT_LUT[i]);
+	}
+
+	/**
+	 * RGB to CIE XYZ. Equivalent to {@link Transforms#RGB_TO_CIEXYZ(MBFImage)}.
+	 */
+	public static final ColourTransform RGB_TO_CIEXYZ = new ColourTransform(ColourSpace.RGB, ColourSpace.CIE_XYZ) {
+		@Override
+		protected void transformRow(float[][] in, float[][] out, int width) {
+			final float[] R = in[0], G = in[1], B = in[2];
+			final float[] X = out[0], Y = out[1], Z = out[2];
+
+			for (int x = 0; x < width; x++) {
+				final double r = inverseCompand(R[x]);
+				final double g = inverseCompand(G[x]);
+				final double b = inverseCompand(B[x]);
+
+				X[x] = (float) (r * 0.4124564 + g * 0.3575761 + b * 0.1804375);
+				Y[x] = (float) (r * 0.2126729 + g * 0.7151522 + b * 0.0721750);
+				Z[x] = (float) (r * 0.0193339 + g * 0.1191920 + b * 0.9503041);
+			}
+		}
+	};
+
+	/**
+	 * CIE XYZ to RGB. Equivalent to {@link Transforms#CIEXYZ_TO_RGB(MBFImage)}.
+	 */
+	public static final ColourTransform CIEXYZ_TO_RGB = new ColourTransform(ColourSpace.CIE_XYZ, ColourSpace.RGB) {
+		@Override
+		protected void transformRow(float[][] in, float[][] out, int width) {
+			final float[] X = in[0], Y = in[1], Z = in[2];
+			final float[] R = out[0], G = out[1], B = out[2];
+
+			for (int x = 0; x < width; x++) {
+				final float xv = X[x];
+				final float yv = Y[x];
+				final float zv = Z[x];
+
+				final double r = xv * 3.2404542 + yv * -1.5371385 + zv * -0.4985314;
+				final double g = xv * -0.9692660 + yv * 1.8760108 + zv * 0.0415560;
+				final double b = xv * 0.0556434 + yv * -0.2040259 + zv * 1.0572252;
+
+				R[x] = (float) ((r <= 0.0031308) ? (r * 12.92) : (1.055 * Math.pow(r, 1 / 2.4) - 0.055));
+				G[x] = (float) ((g <= 0.0031308) ? (g * 12.92) : (1.055 * Math.pow(g, 1 / 2.4) - 0.055));
+				B[x] = (float) ((b <= 0.0031308) ? (b * 12.92) : (1.055 * Math.pow(b, 1 / 2.4) - 0.055));
+			}
+		}
+	};
+
+	/**
+	 * CIE XYZ to CIE Lab. Equivalent to
+	 * {@link Transforms#CIEXYZ_TO_CIELab(MBFImage)}.
+	 */
+	public static final ColourTransform CIEXYZ_TO_CIELab = new XYZToLab(ColourSpace.CIE_Lab, false);
+
+	/**
+	 * CIE XYZ to normalised CIE Lab.
+	 */
+	public static final ColourTransform CIEXYZ_TO_CIELabNormalised = new XYZToLab(ColourSpace.CIE_Lab_Norm, true);
+
+	/**
+	 * CIE Lab to CIE XYZ. Equivalent to
+	 * {@link Transforms#CIELab_TO_CIEXYZ(MBFImage)}.
+	 */
+	public static final ColourTransform CIELab_TO_CIEXYZ = new LabToXYZ(ColourSpace.CIE_Lab, false);
+
+	/**
+	 * Normalised CIE Lab to CIE XYZ.
+	 */
+	public static final ColourTransform CIELabNormalised_TO_CIEXYZ = new LabToXYZ(ColourSpace.CIE_Lab_Norm, true);
+
+	/**
+	 * RGB to CIE Lab, going through CIE XYZ. Equivalent to
+	 * {@link Transforms#RGB_TO_CIELab(MBFImage)}.
+	 */
+	public static final ColourTransform RGB_TO_CIELab = RGB_TO_CIEXYZ.then(CIEXYZ_TO_CIELab);
+
+	/**
+	 * RGB to normalised CIE Lab, going through CIE XYZ. Equivalent to
+	 * {@link Transforms#RGB_TO_CIELabNormalised(MBFImage)}.
+	 */
+	public static final ColourTransform RGB_TO_CIELabNormalised = RGB_TO_CIEXYZ.then(CIEXYZ_TO_CIELabNormalised);
+
+	/**
+	 * CIE Lab to RGB, going through CIE XYZ. Equivalent to
+	 * {@link Transforms#CIELab_TO_RGB(MBFImage)}.
+	 */
+	public static final ColourTransform CIELab_TO_RGB = CIELab_TO_CIEXYZ.then(CIEXYZ_TO_RGB);
+
+	/**
+	 * Normalised CIE Lab to RGB, going through CIE XYZ. Equivalent to
+	 * {@link Transforms#CIELabNormalised_TO_RGB(MBFImage)}.
+	 */
+	public static final ColourTransform CIELabNormalised_TO_RGB = CIELabNormalised_TO_CIEXYZ.then(CIEXYZ_TO_RGB);
+
+	/**
+	 * RGB to HSV. Equivalent to {@link Transforms#RGB_TO_HSV(MBFImage)}.
+	 */
+	public static final ColourTransform RGB_TO_HSV = new ColourTransform(ColourSpace.RGB, ColourSpace.HSV) {
+		@Override
+		protected void transformRow(float[][] in, float[][] out, int width) {
+			final float[] R = in[0], G = in[1], B = in[2];
+			final float[] H = out[0], S = out[1], V = out[2];
+			final float[] pIn = new float[3];
+			final float[] pOut = new float[3];
+
+			for (int x = 0; x < width; x++) {
+				pIn[0] = R[x];
+				pIn[1] = G[x];
+				pIn[2] = B[x];
+
+				Transforms.RGB_TO_HSV(pIn, pOut);
+
+				H[x] = pOut[0];
+				S[x] = pOut[1];
+				V[x] = pOut[2];
+			}
+		}
+	};
+
+	/**
+	 * RGB to NTSC weighted luminance. Equivalent to
+	 * {@link Transforms#calculateIntensityNTSC(MBFImage)}.
+	 */
+	public static final ColourTransform RGB_TO_LUMINANCE_NTSC = new ColourTransform(ColourSpace.RGB,
+			ColourSpace.LUMINANCE_NTSC)
+	{
+		@Override
+		protected void transformRow(float[][] in, float[][] out, int width) {
+			final float[] R = in[0], G = in[1], B = in[2];
+			final float[] L = out[0];
+
+			for (int x = 0; x < width; x++)
+				L[x] = (0.299f * R[x] + 0.587f * G[x] + 0.114f * B[x]);
+		}
+	};
+
+	private static final Map<ColourSpace, Map<ColourSpace, ColourTransform>> REGISTRY =
+			new EnumMap<ColourSpace, Map<ColourSpace, ColourTransform>>(ColourSpace.class);
+
+	static {
+		register(RGB_TO_CIEXYZ);
+		register(CIEXYZ_TO_RGB);
+		register(CIEXYZ_TO_CIELab);
+		register(CIEXYZ_TO_CIELabNormalised);
+		register(CIELab_TO_CIEXYZ);
+		register(CIELabNormalised_TO_CIEXYZ);
+		register(RGB_TO_CIELab);
+		register(RGB_TO_CIELabNormalised);
+		register(CIELab_TO_RGB);
+		register(CIELabNormalised_TO_RGB);
+		register(RGB_TO_HSV);
+		register(RGB_TO_LUMINANCE_NTSC);
+	}
+
+	private static void register(ColourTransform t) {
+		Map<ColourSpace, ColourTransform> map = REGISTRY.get(t.inputSpace);
+		if (map == null)
+			REGISTRY.put(t.inputSpace, map = new EnumMap<ColourSpace, ColourTransform>(ColourSpace.class));
+		map.put(t.outputSpace, t);
+	}
+
+	/**
+	 * Get the fused transform that directly converts between the given colour
+	 * spaces. RGBA images are treated as RGB (the alpha band is ignored).
+	 *
+	 * @param from
+	 *            the input colour space
+	 * @param to
+	 *            the output colour space
+	 * @return the transform, or null if there isn't a direct transform between
+	 *         the two colour spaces
+	 */
+	public static ColourTransform get(ColourSpace from, ColourSpace to) {
+		if (from == ColourSpace.RGBA)
+			from = ColourSpace.RGB;
+
+		final Map<ColourSpace, ColourTransform> map = REGISTRY.get(from);
+		return map == null ? null : map.get(to);
+	}
+
+	protected final ColourSpace inputSpace;
+	protected final ColourSpace outputSpace;
+
+	/**
+	 * Construct with the given input and output colour spaces
+	 *
+	 * @param inputSpace
+	 *            the input colour space
+	 * @param outputSpace
+	 *            the output colour space
+	 */
+	protected ColourTransform(ColourSpace inputSpace, ColourSpace outputSpace) {
+		this.inputSpace = inputSpace;
+		this.outputSpace = outputSpace;
+	}
+
+	/**
+	 * @return the colour space of the input
+	 */
+	public ColourSpace getInputSpace() {
+		return inputSpace;
+	}
+
+	/**
+	 * @return the colour space of the output
+	 */
+	public ColourSpace getOutputSpace() {
+		return outputSpace;
+	}
+
+	/**
+	 * Transform a row of pixels. The input and output rows might be the same
+	 * arrays, so implementations must read all of the bands of a pixel before
+	 * writing any of its outputs.
+	 *
+	 * @param in
+	 *            the input row of each band
+	 * @param out
+	 *            the output row of each band
+	 * @param width
+	 *            the number of pixels in the row
+	 */
+	protected abstract void transformRow(float[][] in, float[][] out, int width);
+
+	/**
+	 * Transform the rows [y0, y1) of the given band pixels.
+	 *
+	 * @param in
+	 *            the input band pixels
+	 * @param out
+	 *            the output band pixels
+	 * @param y0
+	 *            the first row
+	 * @param y1
+	 *            the row after the last row
+	 * @param width
+	 *            the width of the image
+	 */
+	protected void transformRows(float[][][] in, float[][][] out, int y0, int y1, int width) {
+		final float[][] inRow = new float[in.length][];
+		final float[][] outRow = new float[out.length][];
+
+		for (int y = y0; y < y1; y++) {
+			for (int b = 0; b < inRow.length; b++)
+				inRow[b] = in[b][y];
+			for (int b = 0; b < outRow.length; b++)
+				outRow[b] = out[b][y];
+
+			transformRow(inRow, outRow, width);
+		}
+	}
+
+	/**
+	 * Create a transform that applies this transform followed by the given
+	 * one, without creating an intermediate image.
+	 *
+	 * @param next
+	 *            the transform to apply to the output of this one
+	 * @return the chained transform
+	 */
+	public ColourTransform then(ColourTransform next) {
+		if (next.inputSpace != outputSpace)
+			throw new IllegalArgumentException("Cannot chain a transform from " + next.inputSpace
+					+ " after a transform to " + outputSpace);
+
+		final List<ColourTransform> stages = new ArrayList<ColourTransform>();
+		addStages(this, stages);
+		addStages(next, stages);
+
+		return new Chain(stages.toArray(new ColourTransform[stages.size()]));
+	}
+
+	private static void addStages(ColourTransform t, List<ColourTransform> stages) {
+		if (t instanceof Chain) {
+			for (final ColourTransform s : ((Chain) t).stages)
+				stages.add(s);
+		} else {
+			stages.add(t);
+		}
+	}
+
+	/**
+	 * Transform the given image into a new image.
+	 *
+	 * @param in
+	 *            the input image
+	 * @return the transformed image
+	 */
+	public MBFImage transform(MBFImage in) {
+		return transform(in, new MBFImage(in.getWidth(), in.getHeight(), outputSpace));
+	}
+
+	/**
+	 * Transform the given image, writing the result into the destination
+	 * image. The destination can be the input image, in which case the input
+	 * is transformed in place. The colour space of the destination is set to
+	 * the output colour space of this transform.
+	 *
+	 * @param in
+	 *            the input image
+	 * @param dest
+	 *            the destination image
+	 * @return the destination image
+	 */
+	public MBFImage transform(MBFImage in, MBFImage dest) {
+		final int nin = inputSpace.getNumBands();
+		final int nout = outputSpace.getNumBands();
+
+		if (in.numBands() < nin)
+			throw new IllegalArgumentException("Input image must have at least " + nin + " bands");
+		if (dest.numBands() != nout)
+			throw new IllegalArgumentException("Destination image must have " + nout + " bands");
+		if (in.getWidth() != dest.getWidth() || in.getHeight() != dest.getHeight())
+			throw new IllegalArgumentException("Input and destination images must be the same size");
+
+		final float[][][] src = new float[nin][][];
+		for (int b = 0; b < nin; b++)
+			src[b] = in.getBand(b).pixels;
+
+		final float[][][] dst = new float[nout][][];
+		for (int b = 0; b < nout; b++)
+			dst[b] = dest.getBand(b).pixels;
+
+		apply(src, dst, in.getWidth(), in.getHeight());
+		dest.colourSpace = outputSpace;
+
+		return dest;
+	}
+
+	/**
+	 * Transform the given image into the given single band destination. The
+	 * output colour space of this transform must have a single band.
+	 *
+	 * @param in
+	 *            the input image
+	 * @param dest
+	 *            the destination image
+	 * @return the destination image
+	 */
+	public FImage transform(MBFImage in, FImage dest) {
+		transform(in, new MBFImage(outputSpace, dest));
+		return dest;
+	}
+
+	private void apply(final float[][][] src, final float[][][] dst, final int width, final int height) {
+		if (height == 0)
+			return;
+
+		final Operation<IntRange> op = new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				transformRows(src, dst, range.start, range.stop, width);
+			}
+		};
+
+		if ((long) width * height < PARALLEL_MIN_PIXELS)
+			Parallel.forBlocks(0, height, height, op);
+		else
+			Parallel.forBlocks(0, height, Math.max(1, PARALLEL_BAND_PIXELS / Math.max(1, width)), op);
+	}
+
+	/**
+	 * Undo sRGB companding, using the lookup table if the value is an 8-bit
+	 * level.
+	 */
+	static double inverseCompand(float v) {
+		final int i = (int) (v * 255f + 0.5f);
+
+		if (i >= 0 && i < 256 && ImageUtilities.BYTE_TO_FLOAT_LUT[i] == v)
+			return SRGB_LINEAR_LUT[i];
+
+		return inverseCompandDirect(v);
+	}
+
+	private static double inverseCompandDirect(float v) {
+		return (v <= 0.04045) ? (v / 12.92) : (Math.pow((v + 0.055) / 1.055, 2.4));
+	}
+
+	private static class XYZToLab extends ColourTransform {
+		private static final double epsilon = 0.008856; // actual CIE standard
+		private static final double kappa = 903.3; // actual CIE standard
+
+		private static final double Xr = 0.950456; // reference white
+		private static final double Yr = 1.0; // reference white
+		private static final double Zr = 1.088754; // reference white
+
+		private final float Lscale;
+		private final float ascale;
+		private final float bscale;
+		private final float abdelta;
+
+		XYZToLab(ColourSpace outputSpace, boolean norm) {
+			super(ColourSpace.CIE_XYZ, outputSpace);
+
+			Lscale = norm ? 1f / 100f : 1;
+			ascale = norm ? 1f / 256f : 1;
+			bscale = norm ? 1f / 256f : 1;
+			abdelta = norm ? 127 : 0;
+		}
+
+		@Override
+		protected void transformRow(float[][] in, float[][] out, int width) {
+			final float[] Xb = in[0], Yb = in[1], Zb = in[2];
+			final float[] Lb = out[0], ab = out[1], bb = out[2];
+
+			for (int x = 0; x < width; x++) {
+				final double xr = Xb[x] / Xr;
+				final double yr = Yb[x] / Yr;
+				final double zr = Zb[x] / Zr;
+
+				final double fx = (xr > epsilon) ? (Math.pow(xr, 1.0 / 3.0)) : ((kappa * xr + 16.0) / 116.0);
+				final double fy = (yr > epsilon) ? (Math.pow(yr, 1.0 / 3.0)) : ((kappa * yr + 16.0) / 116.0);
+				final double fz = (zr > epsilon) ? (Math.pow(zr, 1.0 / 3.0)) : ((kappa * zr + 16.0) / 116.0);
+
+				Lb[x] = ((float) (116.0 * fy - 16.0)) * Lscale;
+				ab[x] = ((float) (500.0 * (fx - fy)) + abdelta) * ascale;
+				bb[x] = ((float) (200.0 * (fy - fz)) + abdelta) * bscale;
+			}
+		}
+	}
+
+	private static class LabToXYZ extends ColourTransform {
+		private static final double epsilon = 0.008856; // actual CIE standard
+		private static final double kappa = 903.3; // actual CIE standard
+
+		private static final double Xr = 0.950456; // reference white
+		private static final double Yr = 1.0; // reference white
+		private static final double Zr = 1.088754; // reference white
+
+		private final float Lscale;
+		private final float ascale;
+		private final float bscale;
+		private final float abdelta;
+
+		LabToXYZ(ColourSpace inputSpace, boolean norm) {
+			super(inputSpace, ColourSpace.CIE_XYZ);
+
+			Lscale = norm ? 100 : 1;
+			ascale = norm ? 256 : 1;
+			bscale = norm ? 256 : 1;
+			abdelta = norm ? -127 : 0;
+		}
+
+		@Override
+		protected void transformRow(float[][] in, float[][] out, int width) {
+			final float[] Lb = in[0], ab = in[1], bb = in[2];
+			final float[] Xb = out[0], Yb = out[1], Zb = out[2];
+
+			for (int x = 0; x < width; x++) {
+				final float L = (Lb[x] * Lscale);
+				final float a = (ab[x] * ascale) + abdelta;
+				final float b = (bb[x] * bscale) + abdelta;
+
+				final double fy = (L + 16) / 116;
+				final double fx = a / 500 + fy;
+				final double fz = fy - (b / 200);
+
+				final double fx3 = fx * fx * fx;
+				final double fz3 = fz * fz * fz;
+
+				final double xr = (fx3 > epsilon) ? fx3 : (116 * fx - 16) / kappa;
+				final double yr = (L > kappa * epsilon) ? Math.pow((L + 16) / 116, 3) : L / kappa;
+				final double zr = (fz3 > epsilon) ? fz3 : (116 * fz - 16) / kappa;
+
+				Xb[x] = (float) (Xr * xr);
+				Yb[x] = (float) (Yr * yr);
+				Zb[x] = (float) (Zr * zr);
+			}
+		}
+	}
+
+	private static class Chain extends ColourTransform {
+		final ColourTransform[] stages;
+
+		Chain(ColourTransform[] stages) {
+			super(stages[0].inputSpace, stages[stages.length - 1].outputSpace);
+			this.stages = stages;
+		}
+
+		private float[][][] createBuffers(int width) {
+			final float[][][] buffers = new float[stages.length - 1][][];
+			for (int i = 0; i < buffers.length; i++)
+				buffers[i] = new float[stages[i].outputSpace.getNumBands()][width];
+			return buffers;
+		}
+
+		private void transformRow(float[][] in, float[][] out, int width, float[][][] buffers) {
+			float[][] current = in;
+			for (int i = 0; i < buffers.length; i++) {
+				stages[i].transformRow(current, buffers[i], width);
+				current = buffers[i];
+			}
+			stages[stages.length - 1].transformRow(current, out, width);
+		}
+
+		@Override
+		protected void transformRow(float[][] in, float[][] out, int width) {
+			transformRow(in, out, width, createBuffers(width));
+		}
+
+		@Override
+		protected void transformRows(float[][][] in, float[][][] out, int y0, int y1, int width) {
+			final float[][][] buffers = createBuffers(width);
+			final float[][] inRow = new float[in.length][];
+			final float[][] outRow = new float[out.length][];
+
+			for (int y = y0; y < y1; y++) {
+				for (int b = 0; b < inRow.length; b++)
+					inRow[b] = in[b][y];
+				for (int b = 0; b < outRow.length; b++)
+					outRow[b] = out[b][y];
+
+				transformRow(inRow, outRow, width, buffers);
+			}
+		}
+	}
+}
@@ -118,17 +118,7 @@ public class Transforms {
 		if (in.colourSpace != ColourSpace.RGB && in.colourSpace != ColourSpace.RGBA)
 			throw new UnsupportedOperationException("Can only convert RGB or RGBA images");
 
-		final FImage out = new FImage(in.getWidth(), in.getHeight());
-
-		for (int r = 0; r < in.getHeight(); r++) {
-			for (int c = 0; c < in.getWidth(); c++) {
-				out.pixels[r][c] = (0.299f * in.getBand(0).pixels[r][c] +
-						0.587f * in.getBand(1).pixels[r][c] +
-						0.114f * in.getBand(2).pixels[r][c]);
-			}
-		}
-
-		return out;
+		return ColourTransform.RGB_TO_LUMINANCE_NTSC.transform(in, new FImage(in.getWidth(), in.getHeight()));
 	}
 
 	/**
@@ -501,36 +491,7 @@ public class Transforms {
 		if (in.colourSpace != ColourSpace.RGB && in.colourSpace != ColourSpace.RGBA)
 			throw new IllegalArgumentException("RGB or RGBA colourspace is required");
 
-		final int width = in.getWidth();
-		final int height = in.getHeight();
-
-		final MBFImage out = new MBFImage(width, height, ColourSpace.HSV);
-
-		final float[][] R = in.getBand(0).pixels;
-		final float[][] G = in.getBand(1).pixels;
-		final float[][] B = in.getBand(2).pixels;
-
-		final float[][] H = out.getBand(0).pixels;
-		final float[][] S = out.getBand(1).pixels;
-		final float[][] V = out.getBand(2).pixels;
-
-		final float[] pIn = new float[3];
-		final float[] pOut = new float[3];
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-
-				pIn[0] = R[y][x];
-				pIn[1] = G[y][x];
-				pIn[2] = B[y][x];
-
-				Transforms.RGB_TO_HSV(pIn, pOut);
-
-				H[y][x] = pOut[0];
-				S[y][x] = pOut[1];
-				V[y][x] = pOut[2];
-			}
-		}
-		return out;
+		return ColourTransform.RGB_TO_HSV.transform(in);
 	}
 
 	/**
@@ -1093,37 +1054,7 @@ public class Transforms {
 	 * @return CIEXYZ image
 	 */
 	public static MBFImage RGB_TO_CIEXYZ(final MBFImage in) {
-		final int height = in.getHeight();
-		final int width = in.getWidth();
-		final MBFImage out = new MBFImage(width, height, ColourSpace.CIE_XYZ);
-
-		final FImage Rb = in.getBand(0);
-		final FImage Gb = in.getBand(1);
-		final FImage Bb = in.getBand(2);
-
-		final FImage Xb = out.getBand(0);
-		final FImage Yb = out.getBand(1);
-		final FImage Zb = out.getBand(2);
-
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				final float R = Rb.pixels[y][x];
-				final float G = Gb.pixels[y][x];
-				final float B = Bb.pixels[y][x];
-
-				// inverse sRGB companding
-				final double r = (R <= 0.04045) ? (R / 12.92) : (Math.pow((R + 0.055) / 1.055, 2.4));
-				final double g = (G <= 0.04045) ? (G / 12.92) : (Math.pow((G + 0.055) / 1.055, 2.4));
-				final double b = (B <= 0.04045) ? (B / 12.92) : (Math.pow((B + 0.055) / 1.055, 2.4));
-
-				// XYZ linear transform
-				Xb.pixels[y][x] = (float) (r * 0.4124564 + g * 0.3575761 + b * 0.1804375);
-				Yb.pixels[y][x] = (float) (r * 0.2126729 + g * 0.7151522 + b * 0.0721750);
-				Zb.pixels[y][x] = (float) (r * 0.0193339 + g * 0.1191920 + b * 0.9503041);
-			}
-		}
-
-		return out;
+		return ColourTransform.RGB_TO_CIEXYZ.transform(in);
 	}
 
 	/**
@@ -1156,44 +1087,10 @@ public class Transforms {
 	 * @return RGB image
 	 */
 	public static MBFImage CIEXYZ_TO_RGB(final MBFImage in, final boolean inPlace) {
-		final int height = in.getHeight();
-		final int width = in.getWidth();
-
-		MBFImage out;
-		if (inPlace) {
-			out = in;
-			out.colourSpace = ColourSpace.RGB;
-		} else {
-			out = new MBFImage(width, height, ColourSpace.RGB);
-		}
-
-		final FImage Xb = in.getBand(0);
-		final FImage Yb = in.getBand(1);
-		final FImage Zb = in.getBand(2);
-
-		final FImage Rb = out.getBand(0);
-		final FImage Gb = out.getBand(1);
-		final FImage Bb = out.getBand(2);
-
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				final float X = Xb.pixels[y][x];
-				final float Y = Yb.pixels[y][x];
-				final float Z = Zb.pixels[y][x];
-
-				// XYZ to linear rgb
-				final double r = X * 3.2404542 + Y * -1.5371385 + Z * -0.4985314;
-				final double g = X * -0.9692660 + Y * 1.8760108 + Z * 0.0415560;
-				final double b = X * 0.0556434 + Y * -0.2040259 + Z * 1.0572252;
-
-				// sRGB companding
-				Rb.pixels[y][x] = (float) ((r <= 0.0031308) ? (r * 12.92) : (1.055 * Math.pow(r, 1 / 2.4) - 0.055));
-				Gb.pixels[y][x] = (float) ((g <= 0.0031308) ? (g * 12.92) : (1.055 * Math.pow(g, 1 / 2.4) - 0.055));
-				Bb.pixels[y][x] = (float) ((b <= 0.0031308) ? (b * 12.92) : (1.055 * Math.pow(b, 1 / 2.4) - 0.055));
-			}
-		}
+		if (inPlace)
+			return ColourTransform.CIEXYZ_TO_RGB.transform(in, in);
 
-		return out;
+		return ColourTransform.CIEXYZ_TO_RGB.transform(in);
 	}
 
 	/**
@@ -1224,58 +1121,12 @@ public class Transforms {
 	}
 
 	private static MBFImage CIEXYZ_TO_CIELab(final MBFImage input, final boolean inPlace, final boolean norm) {
-		final double epsilon = 0.008856; // actual CIE standard
-		final double kappa = 903.3; // actual CIE standard
+		final ColourTransform t = norm ? ColourTransform.CIEXYZ_TO_CIELabNormalised : ColourTransform.CIEXYZ_TO_CIELab;
 
-		final double Xr = 0.950456; // reference white
-		final double Yr = 1.0; // reference white
-		final double Zr = 1.088754; // reference white
-
-		final int height = input.getHeight();
-		final int width = input.getWidth();
+		if (inPlace)
+			return t.transform(input, input);
 
-		MBFImage out;
-		if (inPlace) {
-			out = input;
-			out.colourSpace = ColourSpace.CIE_Lab;
-		} else {
-			out = new MBFImage(width, height, ColourSpace.CIE_Lab);
-		}
-
-		final FImage Xb = input.getBand(0);
-		final FImage Yb = input.getBand(1);
-		final FImage Zb = input.getBand(2);
-
-		final FImage Lb = out.getBand(0);
-		final FImage ab = out.getBand(1);
-		final FImage bb = out.getBand(2);
-
-		final float Lscale = norm ? 1f / 100f : 1;
-		final float ascale = norm ? 1f / 256f : 1;
-		final float bscale = norm ? 1f / 256f : 1;
-		final float abdelta = norm ? 127 : 0;
-
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				final float X = Xb.pixels[y][x];
-				final float Y = Yb.pixels[y][x];
-				final float Z = Zb.pixels[y][x];
-
-				final double xr = X / Xr;
-				final double yr = Y / Yr;
-				final double zr = Z / Zr;
-
-				final double fx = (xr > epsilon) ? (Math.pow(xr, 1.0 / 3.0)) : ((kappa * xr + 16.0) / 116.0);
-				final double fy = (yr > epsilon) ? (Math.pow(yr, 1.0 / 3.0)) : ((kappa * yr + 16.0) / 116.0);
-				final double fz = (zr > epsilon) ? (Math.pow(zr, 1.0 / 3.0)) : ((kappa * zr + 16.0) / 116.0);
-
-				Lb.pixels[y][x] = ((float) (116.0 * fy - 16.0)) * Lscale;
-				ab.pixels[y][x] = ((float) (500.0 * (fx - fy)) + abdelta) * ascale;
-				bb.pixels[y][x] = ((float) (200.0 * (fy - fz)) + abdelta) * bscale;
-			}
-		}
-
-		return out;
+		return t.transform(input);
 	}
 
 	/**
@@ -1290,7 +1141,7 @@ public class Transforms {
 	 * @return transformed CIE Lab image
 	 */
 	public static MBFImage RGB_TO_CIELab(final MBFImage input) {
-		return Transforms.CIEXYZ_TO_CIELab(Transforms.RGB_TO_CIEXYZ(input), true);
+		return ColourTransform.RGB_TO_CIELab.transform(input);
 	}
 
 	/**
@@ -1307,55 +1158,10 @@ public class Transforms {
 	}
 
 	private static MBFImage CIELab_TO_CIEXYZ(final MBFImage input, final boolean norm) {
-		final double epsilon = 0.008856; // actual CIE standard
-		final double kappa = 903.3; // actual CIE standard
-
-		final double Xr = 0.950456; // reference white
-		final double Yr = 1.0; // reference white
-		final double Zr = 1.088754; // reference white
-
-		final int height = input.getHeight();
-		final int width = input.getWidth();
-
-		final MBFImage out = new MBFImage(width, height, ColourSpace.CIE_XYZ);
-
-		final FImage Lb = input.getBand(0);
-		final FImage ab = input.getBand(1);
-		final FImage bb = input.getBand(2);
-
-		final FImage Xb = out.getBand(0);
-		final FImage Yb = out.getBand(1);
-		final FImage Zb = out.getBand(2);
-
-		final float Lscale = norm ? 100 : 1;
-		final float ascale = norm ? 256 : 1;
-		final float bscale = norm ? 256 : 1;
-		final float abdelta = norm ? -127 : 0;
-
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < width; x++) {
-				final float L = (Lb.pixels[y][x] * Lscale);
-				final float a = (ab.pixels[y][x] * ascale) + abdelta;
-				final float b = (bb.pixels[y][x] * bscale) + abdelta;
+		if (norm)
+			return ColourTransform.CIELabNormalised_TO_CIEXYZ.transform(input);
 
-				final double fy = (L + 16) / 116;
-				final double fx = a / 500 + fy;
-				final double fz = fy - (b / 200);
-
-				final double fx3 = fx * fx * fx;
-				final double fz3 = fz * fz * fz;
-
-				final double xr = (fx3 > epsilon) ? fx3 : (116 * fx - 16) / kappa;
-				final double yr = (L > kappa * epsilon) ? Math.pow((L + 16) / 116, 3) : L / kappa;
-				final double zr = (fz3 > epsilon) ? fz3 : (116 * fz - 16) / kappa;
-
-				Xb.pixels[y][x] = (float) (Xr * xr);
-				Yb.pixels[y][x] = (float) (Yr * yr);
-				Zb.pixels[y][x] = (float) (Zr * zr);
-			}
-		}
-
-		return out;
+		return ColourTransform.CIELab_TO_CIEXYZ.transform(input);
 	}
 
 	/**
@@ -1370,7 +1176,7 @@ public class Transforms {
 	 * @return transformed RGB image
 	 */
 	public static MBFImage CIELab_TO_RGB(final MBFImage input) {
-		return Transforms.CIEXYZ_TO_RGB(Transforms.CIELab_TO_CIEXYZ(input), true);
+		return ColourTransform.CIELab_TO_RGB.transform(input);
 	}
 
 	/**
@@ -1383,7 +1189,7 @@ public class Transforms {
 	 * @return converted image
 	 */
 	public static MBFImage RGB_TO_CIELabNormalised(final MBFImage input) {
-		return Transforms.CIEXYZ_TO_CIELab(Transforms.RGB_TO_CIEXYZ(input), true, true);
+		return ColourTransform.RGB_TO_CIELabNormalised.transform(input);
 	}
 
 	/**
@@ -1398,7 +1204,7 @@ public class Transforms {
 	 * @return transformed RGB image
 	 */
 	public static MBFImage CIELabNormalised_TO_RGB(final MBFImage input) {
-		return Transforms.CIEXYZ_TO_RGB(Transforms.CIELab_TO_CIEXYZ(input, true), true);
+		return ColourTransform.CIELabNormalised_TO_RGB.transform(input);
 	}
 
 	/**
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor;
+
+import org.openimaj.image.FImage;
+
+/**
+ * A read-only view of a rectangular window of an {@link FImage}. Windows are
+ * used by {@link FloatKernelProcessor}s in place of copying the patch under
+ * the kernel into a new image for every pixel; a single window is moved
+ * across the image as it is processed. Pixels of the window that lie outside
+ * of the image have the value 0.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public final class FImageWindow {
+	private final float[][] pixels;
+	private final int imageWidth;
+	private final int imageHeight;
+	private final int width;
+	private final int height;
+	private int x;
+	private int y;
+	private boolean interior;
+
+	/**
+	 * Construct a window of the given size over an image, with its top-left
+	 * corner at the origin.
+	 *
+	 * @param image
+	 *            the image
+	 * @param width
+	 *            the width of the window
+	 * @param height
+	 *            the height of the window
+	 */
+	public FImageWindow(FImage image, int width, int height) {
+		this.pixels = image.pixels;
+		this.imageWidth = image.width;
+		this.imageHeight = image.height;
+		this.width = width;
+		this.height = height;
+		setPosition(0, 0);
+	}
+
+	/**
+	 * Move the window so that its top-left corner is at the given position in
+	 * the image.
+	 *
+	 * @param x
+	 *            the x-ordinate of the left of the window
+	 * @param y
+	 *            the y-ordinate of the top of the window
+	 */
+	public void setPosition(int x, int y) {
+		this.x = x;
+		this.y = y;
+		this.interior = x >= 0 && y >= 0 && x + width <= imageWidth && y + height <= imageHeight;
+	}
+
+	/**
+	 * Get the value of a pixel in the window.
+	 *
+	 * @param wx
+	 *            the x-ordinate relative to the left of the window
+	 * @param wy
+	 *            the y-ordinate relative to the top of the window
+	 * @return the pixel value, or 0 if the position is outside the image
+	 */
+	public float get(int wx, int wy) {
+		final int ix = x + wx;
+		final int iy = y + wy;
+
+		if (interior || (ix >= 0 && iy >= 0 && ix < imageWidth && iy < imageHeight))
+			return pixels[iy][ix];
+
+		return 0;
+	}
+
+	/**
+	 * @return true if the window lies entirely within the image
+	 */
+	public boolean isInterior() {
+		return interior;
+	}
+
+	/**
+	 * @return the x-ordinate of the left of the window in the image
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * @return the y-ordinate of the top of the window in the image
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * @return the width of the window
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of the window
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Copy the contents of the window into an image
+	 *
+	 * @param out
+	 *            the image to write into; must be the same size as the
+	 *            window
+	 * @return the image
+	 */
+	public FImage copyTo(FImage out) {
+		for (int wy = 0; wy < height; wy++)
+			for (int wx = 0; wx < width; wx++)
+				out.pixels[wy][wx] = get(wx, wy);
+
+		return out;
+	}
+}
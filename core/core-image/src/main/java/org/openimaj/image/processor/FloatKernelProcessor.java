@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processor;
+
+import org.openimaj.image.FImage;
+
+/**
+ * A primitive specialisation of the {@link KernelProcessor} for
+ * {@link FImage}s. Rather than being given a copy of the patch under the
+ * kernel and returning a boxed value, the processor reads the pixels through
+ * a reusable {@link FImageWindow} and returns a <code>float</code>.
+ * <p>
+ * Large images are processed in parallel bands of rows, so implementations
+ * must be safe to call concurrently from multiple threads.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public interface FloatKernelProcessor extends Processor<FImage> {
+	/**
+	 * Get the height of the kernel required by this processor.
+	 *
+	 * @return The height of the kernel required by this processor
+	 */
+	public abstract int getKernelHeight();
+
+	/**
+	 * Get the width of the kernel required by this processor.
+	 *
+	 * @return The width of the kernel required by this processor.
+	 */
+	public abstract int getKernelWidth();
+
+	/**
+	 * Process the window of pixels under the kernel and return a value that
+	 * will be used to build the output image. The window must not be retained
+	 * after the method returns.
+	 *
+	 * @param window
+	 *            the pixels under the kernel
+	 * @return A value to place in the output image.
+	 */
+	public abstract float processKernel(FImageWindow window);
+}
@@ -29,10 +29,14 @@
  */
 package org.openimaj.image;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 import org.openimaj.image.colour.ColourSpace;
+import org.openimaj.image.colour.ColourTransform;
+import org.openimaj.image.colour.Transforms;
 
 /**
  * Test some colour space conversion
@@ -89,4 +93,94 @@ public class ColourSpaceTest {
 			}
 		}
 	}
+
+	private static void assertBandsEqual(MBFImage expected, MBFImage actual, float eps) {
+		assertEquals(expected.numBands(), actual.numBands());
+		for (int b = 0; b < expected.numBands(); b++)
+			for (int y = 0; y < expected.getHeight(); y++)
+				assertArrayEquals(expected.getBand(b).pixels[y], actual.getBand(b).pixels[y], eps);
+	}
+
+	/**
+	 * Test that the fused transforms give exactly the same results as applying
+	 * their stages in turn, both into a new image and in place
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testFusedTransforms() throws Exception {
+		final MBFImage img = ImageUtilities.readMBF(ColourSpaceTest.class
+				.getResourceAsStream("/org/openimaj/image/data/sinaface.jpg"));
+
+		final MBFImage xyz = ColourTransform.RGB_TO_CIEXYZ.transform(img);
+		final MBFImage lab = ColourTransform.CIEXYZ_TO_CIELab.transform(xyz);
+
+		assertEquals(ColourSpace.CIE_Lab, ColourTransform.RGB_TO_CIELab.getOutputSpace());
+		assertBandsEqual(lab, ColourTransform.RGB_TO_CIELab.transform(img), 0);
+		assertBandsEqual(lab, ColourTransform.RGB_TO_CIEXYZ.then(ColourTransform.CIEXYZ_TO_CIELab).transform(img), 0);
+
+		final MBFImage rgb = ColourTransform.CIEXYZ_TO_RGB.transform(ColourTransform.CIELab_TO_CIEXYZ.transform(lab));
+		assertBandsEqual(rgb, ColourTransform.CIELab_TO_RGB.transform(lab), 0);
+
+		final MBFImage inplace = img.clone();
+		assertTrue(inplace == ColourTransform.RGB_TO_CIELab.transform(inplace, inplace));
+		assertEquals(ColourSpace.CIE_Lab, inplace.colourSpace);
+		assertBandsEqual(lab, inplace, 0);
+
+		final FImage ntsc = ColourTransform.RGB_TO_LUMINANCE_NTSC.transform(img, new FImage(img.getWidth(),
+				img.getHeight()));
+		assertBandsEqual(new MBFImage(ntsc), new MBFImage(Transforms.calculateIntensityNTSC(img)), 0);
+	}
+
+	/**
+	 * Test that the 8-bit lookup table gives the same result as computing the
+	 * conversion directly
+	 */
+	@Test
+	public void testByteLookup() {
+		final MBFImage img = new MBFImage(256, 2, ColourSpace.RGB);
+		for (int x = 0; x < 256; x++) {
+			img.getBand(0).pixels[0][x] = x / 255f;
+			img.getBand(1).pixels[0][x] = (255 - x) / 255f;
+			img.getBand(2).pixels[0][x] = ((x * 7) % 256) / 255f;
+
+			// not 8-bit levels
+			img.getBand(0).pixels[1][x] = (x + 0.5f) / 256f;
+			img.getBand(1).pixels[1][x] = (255 - x + 0.5f) / 256f;
+			img.getBand(2).pixels[1][x] = (((x * 7) % 256) + 0.5f) / 256f;
+		}
+
+		final MBFImage xyz = ColourTransform.RGB_TO_CIEXYZ.transform(img);
+
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 256; x++) {
+				final double r = linear(img.getBand(0).pixels[y][x]);
+				final double g = linear(img.getBand(1).pixels[y][x]);
+				final double b = linear(img.getBand(2).pixels[y][x]);
+
+				assertEquals((float) (r * 0.4124564 + g * 0.3575761 + b * 0.1804375), xyz.getBand(0).pixels[y][x], 0);
+				assertEquals((float) (r * 0.2126729 + g * 0.7151522 + b * 0.0721750), xyz.getBand(1).pixels[y][x], 0);
+				assertEquals((float) (r * 0.0193339 + g * 0.1191920 + b * 0.9503041), xyz.getBand(2).pixels[y][x], 0);
+			}
+		}
+	}
+
+	private static double linear(float v) {
+		return (v <= 0.04045) ? (v / 12.92) : (Math.pow((v + 0.055) / 1.055, 2.4));
+	}
+
+	/**
+	 * Test that direct conversions between colour spaces agree with going
+	 * through RGB
+	 */
+	@Test
+	public void testDirectConvert() {
+		final MBFImage rgb = MBFImage.randomImage(400, 300);
+		final MBFImage xyz = ColourSpace.convert(rgb, ColourSpace.CIE_XYZ);
+		final MBFImage lab = ColourSpace.convert(xyz, ColourSpace.CIE_Lab);
+
+		assertEquals(ColourSpace.CIE_Lab, lab.colourSpace);
+		assertBandsEqual(ColourSpace.CIE_Lab.convertFromRGB(rgb), lab, 1e-3f);
+		assertBandsEqual(rgb, ColourSpace.convert(lab, ColourSpace.RGB), 1e-4f);
+	}
 }
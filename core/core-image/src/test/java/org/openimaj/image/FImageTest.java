@@ -29,7 +29,17 @@
  */
 package org.openimaj.image;
 
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
 import org.junit.Test;
+import org.openimaj.image.processor.FImageWindow;
+import org.openimaj.image.processor.FloatKernelProcessor;
+import org.openimaj.image.processor.FloatPixelProcessor;
+import org.openimaj.image.processor.KernelProcessor;
+import org.openimaj.image.processor.PixelProcessor;
+import org.openimaj.image.processor.Processor;
 
 /**
  * Tests for FImage
@@ -54,4 +64,98 @@ public class FImageTest {
 			}
 		}
 	}
+	private static FImage randomImage(int width, int height) {
+		final Random rng = new Random(0);
+		final FImage image = new FImage(width, height);
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				image.pixels[y][x] = rng.nextFloat();
+		return image;
+	}
+
+	private static void assertImageEquals(FImage expected, FImage actual) {
+		for (int y = 0; y < expected.height; y++)
+			assertArrayEquals(expected.pixels[y], actual.pixels[y], 0f);
+	}
+
+	/**
+	 * Test that a {@link FloatKernelProcessor} gives the same result as the
+	 * equivalent {@link KernelProcessor}, with and without padding, on an
+	 * image large enough to be processed in parallel
+	 */
+	@Test
+	public void testFloatKernelProcessor() {
+		final FImage image = randomImage(401, 303);
+
+		final KernelProcessor<Float, FImage> boxed = new KernelProcessor<Float, FImage>() {
+			@Override
+			public int getKernelHeight() {
+				return 3;
+			}
+
+			@Override
+			public int getKernelWidth() {
+				return 4;
+			}
+
+			@Override
+			public Float processKernel(FImage patch) {
+				float sum = 0;
+				for (int y = 0; y < 3; y++)
+					for (int x = 0; x < 4; x++)
+						sum += patch.pixels[y][x] * (x + 1);
+				return sum;
+			}
+		};
+
+		final FloatKernelProcessor primitive = new FloatKernelProcessor() {
+			@Override
+			public int getKernelHeight() {
+				return 3;
+			}
+
+			@Override
+			public int getKernelWidth() {
+				return 4;
+			}
+
+			@Override
+			public float processKernel(FImageWindow window) {
+				float sum = 0;
+				for (int y = 0; y < 3; y++)
+					for (int x = 0; x < 4; x++)
+						sum += window.get(x, y) * (x + 1);
+				return sum;
+			}
+		};
+
+		assertImageEquals(image.process(boxed, false), image.process(primitive, false));
+		assertImageEquals(image.process(boxed, true), image.process(primitive, true));
+		assertImageEquals(image.process(boxed), image.process((Processor<FImage>) primitive));
+	}
+
+	/**
+	 * Test that a {@link FloatPixelProcessor} gives the same result as the
+	 * equivalent {@link PixelProcessor}
+	 */
+	@Test
+	public void testFloatPixelProcessor() {
+		final FImage image = randomImage(500, 200);
+
+		final FImage expected = image.process(new PixelProcessor<Float>() {
+			@Override
+			public Float processPixel(Float pixel) {
+				return pixel * pixel + 1;
+			}
+		});
+
+		final FImage actual = image.process(new FloatPixelProcessor() {
+			@Override
+			public float processPixel(float pixel) {
+				return pixel * pixel + 1;
+			}
+		});
+
+		assertImageEquals(expected, actual);
+	}
 }
@@ -29,6 +29,7 @@
  */
 package org.openimaj.image;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
@@ -37,6 +38,8 @@ import java.io.InputStream;
 import org.junit.Before;
 import org.junit.Test;
 import org.openimaj.image.colour.ColourSpace;
+import org.openimaj.image.processor.FloatMultibandPixelProcessor;
+import org.openimaj.image.processor.PixelProcessor;
 
 /**
  * Tests for MBFImage
@@ -91,4 +94,31 @@ public class MBFImageTest {
 			}
 		}
 	}
+	/**
+	 * Test that a {@link FloatMultibandPixelProcessor} gives the same result
+	 * as the equivalent {@link PixelProcessor}
+	 */
+	@Test
+	public void testFloatMultibandPixelProcessor() {
+		final MBFImage expected = testImage.process(new PixelProcessor<Float[]>() {
+			@Override
+			public Float[] processPixel(Float[] pixel) {
+				return new Float[] { pixel[2], pixel[0] * pixel[1], pixel[1] };
+			}
+		});
+
+		final MBFImage actual = testImage.process(new FloatMultibandPixelProcessor() {
+			@Override
+			public void processPixel(float[] pixel) {
+				final float r = pixel[0];
+				pixel[0] = pixel[2];
+				pixel[2] = pixel[1];
+				pixel[1] = r * pixel[1];
+			}
+		});
+
+		for (int b = 0; b < 3; b++)
+			for (int y = 0; y < expected.getHeight(); y++)
+				assertArrayEquals(expected.getBand(b).pixels[y], actual.getBand(b).pixels[y], 0f);
+	}
 }
@@ -0,0 +1,475 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free {@linkplain BlockingDroppingQueue blocking dropping
+ * queue} backed by a ring buffer.
+ * <p>
+ * This is a drop-in alternative to {@link ArrayBlockingDroppingQueue} for
+ * situations where many threads contend on the queue. Rather than guarding the
+ * buffer with a single lock, every slot of the ring carries a sequence number
+ * which producers and consumers use to claim the slot with a single
+ * compare-and-swap on the tail or head counter respectively (this is the
+ * bounded multi-producer/multi-consumer queue described by Dmitry Vyukov).
+ * Any number of producer and consumer threads may use the queue concurrently.
+ * <p>
+ * Elements are ordered FIFO. As with {@link ArrayBlockingDroppingQueue},
+ * {@link #offer(Object)} fails if the queue is full, whereas
+ * {@link #put(Object)} removes the oldest element to make room. Because there
+ * is no lock, a {@link #put(Object)} that races with other producers may have
+ * to drop more than one element before it can insert; every drop is counted by
+ * {@link #dropCount()}, but only the first dropped element is returned.
+ * <p>
+ * There are no condition variables for consumers to wait on; instead, a
+ * consumer blocked in {@link #take()} or {@link #poll(long, TimeUnit)} idles
+ * according to the {@link WaitStrategy} that the queue was constructed with.
+ * <p>
+ * Iteration is weakly consistent: the iterator returns a snapshot of the
+ * elements that were in the queue at some point during the call to
+ * {@link #iterator()}. Removal of arbitrary elements (through
+ * {@link #remove(Object)} or the iterator) is not supported.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ * @param <E>
+ *            the type of elements held in this collection
+ */
+public class RingBufferDroppingQueue<E> extends AbstractQueue<E> implements BlockingDroppingQueue<E> {
+	/**
+	 * Strategies for idling a consumer that is waiting for an element to
+	 * become available.
+	 */
+	public static enum WaitStrategy {
+		/**
+		 * Busy-spin. Gives the lowest latency, but burns a whole core per
+		 * waiting consumer, so should only be used when there are more cores
+		 * than threads.
+		 */
+		SPIN {
+			@Override
+			void idle(int attempt, long maxNanos) {
+				// do nothing
+			}
+		},
+		/**
+		 * Spin briefly and then yield the processor to other threads between
+		 * attempts.
+		 */
+		YIELD {
+			@Override
+			void idle(int attempt, long maxNanos) {
+				if (attempt >= SPIN_TRIES)
+					Thread.yield();
+			}
+		},
+		/**
+		 * Spin briefly, then yield, and finally park the thread for short
+		 * periods between attempts. This uses the least CPU at the cost of
+		 * (up to {@link RingBufferDroppingQueue#PARK_NANOS}) added latency
+		 * when an element arrives whilst the consumer is parked.
+		 */
+		PARK {
+			@Override
+			void idle(int attempt, long maxNanos) {
+				if (attempt >= SPIN_TRIES + YIELD_TRIES)
+					LockSupport.parkNanos(Math.min(PARK_NANOS, maxNanos));
+				else if (attempt >= SPIN_TRIES)
+					Thread.yield();
+			}
+		};
+
+		/**
+		 * Idle the current thread.
+		 *
+		 * @param attempt
+		 *            the number of consecutive failed attempts so far
+		 * @param maxNanos
+		 *            the maximum time the thread may idle for
+		 */
+		abstract void idle(int attempt, long maxNanos);
+	}
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+
+	/**
+	 * The maximum length of time that a consumer using the
+	 * {@link WaitStrategy#PARK} strategy will park for before re-checking the
+	 * queue.
+	 */
+	public static final long PARK_NANOS = 50000;
+
+	private final int capacity;
+	private final WaitStrategy waitStrategy;
+
+	private final AtomicReferenceArray<E> items;
+	private final AtomicLongArray sequences;
+
+	/** the position of the next element to take; also the total taken */
+	private final AtomicLong head = new AtomicLong();
+
+	/** the position of the next element to put; also the total inserted */
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicLong dropCount = new AtomicLong();
+
+	/**
+	 * Construct with the given capacity and the {@link WaitStrategy#PARK}
+	 * wait strategy.
+	 *
+	 * @param capacity
+	 *            the capacity of this queue
+	 * @throws IllegalArgumentException
+	 *             if <tt>capacity</tt> is less than 1
+	 */
+	public RingBufferDroppingQueue(int capacity) {
+		this(capacity, WaitStrategy.PARK);
+	}
+
+	/**
+	 * Construct with the given capacity and wait strategy.
+	 *
+	 * @param capacity
+	 *            the capacity of this queue
+	 * @param waitStrategy
+	 *            the strategy used by consumers waiting for elements
+	 * @throws IllegalArgumentException
+	 *             if <tt>capacity</tt> is less than 1
+	 */
+	public RingBufferDroppingQueue(int capacity, WaitStrategy waitStrategy) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException();
+		if (waitStrategy == null)
+			throw new NullPointerException();
+
+		this.capacity = capacity;
+		this.waitStrategy = waitStrategy;
+		this.items = new AtomicReferenceArray<E>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+
+		for (int i = 0; i < capacity; i++)
+			sequences.set(i, i);
+	}
+
+	/**
+	 * @return the wait strategy used by consumers of this queue
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	private int index(long pos) {
+		return (int) (pos % capacity);
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (e == null)
+			throw new NullPointerException();
+
+		long pos = tail.get();
+		for (;;) {
+			final int idx = index(pos);
+			final long dif = sequences.get(idx) - pos;
+
+			if (dif == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					items.lazySet(idx, e);
+					sequences.lazySet(idx, pos + 1);
+					return true;
+				}
+				pos = tail.get();
+			} else if (dif < 0) {
+				// the slot still holds an element from the previous lap
+				return false;
+			} else {
+				// another producer claimed the slot
+				pos = tail.get();
+			}
+		}
+	}
+
+	@Override
+	public E poll() {
+		long pos = head.get();
+		for (;;) {
+			final int idx = index(pos);
+			final long dif = sequences.get(idx) - (pos + 1);
+
+			if (dif == 0) {
+				if (head.compareAndSet(pos, pos + 1)) {
+					final E x = items.get(idx);
+					items.lazySet(idx, null);
+					sequences.lazySet(idx, pos + capacity);
+					return x;
+				}
+				pos = head.get();
+			} else if (dif < 0) {
+				// the slot hasn't been published yet
+				return null;
+			} else {
+				// another consumer took the slot
+				pos = head.get();
+			}
+		}
+	}
+
+	@Override
+	public E put(E e) throws InterruptedException {
+		if (e == null)
+			throw new NullPointerException();
+
+		E dropped = null;
+		while (!offer(e)) {
+			final E x = poll();
+
+			if (x != null) {
+				dropCount.incrementAndGet();
+				if (dropped == null)
+					dropped = x;
+			}
+		}
+		return dropped;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		int attempt = 0;
+		for (;;) {
+			final E x = poll();
+			if (x != null)
+				return x;
+
+			if (Thread.interrupted())
+				throw new InterruptedException();
+
+			waitStrategy.idle(attempt++, PARK_NANOS);
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		int attempt = 0;
+		for (;;) {
+			final E x = poll();
+			if (x != null)
+				return x;
+
+			if (Thread.interrupted())
+				throw new InterruptedException();
+
+			final long remaining = deadline - System.nanoTime();
+			if (remaining <= 0)
+				return null;
+
+			waitStrategy.idle(attempt++, remaining);
+		}
+	}
+
+	@Override
+	public E peek() {
+		for (;;) {
+			final long pos = head.get();
+			final int idx = index(pos);
+
+			if (sequences.get(idx) - (pos + 1) < 0)
+				return null;
+
+			final E x = items.get(idx);
+
+			// only valid if no consumer has moved past the slot in the
+			// meantime
+			if (x != null && head.get() == pos)
+				return x;
+		}
+	}
+
+	/**
+	 * Returns the number of elements in this queue. As the queue may be
+	 * concurrently modified, the result is only an estimate.
+	 *
+	 * @return the number of elements in this queue
+	 */
+	@Override
+	public int size() {
+		for (;;) {
+			final long h = head.get();
+			final long t = tail.get();
+
+			if (head.get() == h) {
+				final long size = t - h;
+				if (size < 0)
+					return 0;
+				return (int) Math.min(size, capacity);
+			}
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Returns the number of additional elements that this queue can ideally
+	 * (in the absence of memory or resource constraints) accept without
+	 * dropping. This is always equal to the initial capacity of this queue
+	 * less the current <tt>size</tt> of this queue.
+	 *
+	 * @return the remaining capacity
+	 */
+	@Override
+	public int remainingCapacity() {
+		return capacity - size();
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public boolean remove(Object o) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o == null)
+			return false;
+
+		for (final E e : snapshot())
+			if (o.equals(e))
+				return true;
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		while (poll() != null)
+			;
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		if (c == null)
+			throw new NullPointerException();
+		if (c == this)
+			throw new IllegalArgumentException();
+
+		int n = 0;
+		E x;
+		while (n < maxElements && (x = poll()) != null) {
+			c.add(x);
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over a snapshot of the elements in
+	 * this queue, in proper sequence. The iterator does not support
+	 * {@link Iterator#remove()}.
+	 *
+	 * @return an iterator over the elements in this queue
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		final Iterator<E> itr = snapshot().iterator();
+
+		return new Iterator<E>() {
+			@Override
+			public boolean hasNext() {
+				return itr.hasNext();
+			}
+
+			@Override
+			public E next() {
+				return itr.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Copy the currently published elements between the head and tail.
+	 * Elements taken by consumers during the copy are skipped.
+	 */
+	private List<E> snapshot() {
+		final List<E> list = new ArrayList<E>();
+
+		final long t = tail.get();
+		for (long pos = Math.max(head.get(), t - capacity); pos < t; pos++) {
+			final int idx = index(pos);
+
+			if (sequences.get(idx) != pos + 1)
+				continue;
+
+			final E x = items.get(idx);
+			if (x != null && sequences.get(idx) == pos + 1)
+				list.add(x);
+		}
+
+		return list;
+	}
+
+	@Override
+	public long insertCount() {
+		return tail.get();
+	}
+
+	@Override
+	public long dropCount() {
+		return dropCount.get();
+	}
+}
@@ -90,4 +90,43 @@ public abstract class HashComposition<OBJECT> implements HashFunction<OBJECT> {
 		for (int i = 0; i < nFuncs; i++)
 			hashFunctions.add(factory.create());
 	}
+
+	/**
+	 * Get the underlying hash functions
+	 *
+	 * @return the underlying hash functions
+	 */
+	public List<HashFunction<OBJECT>> getHashFunctions() {
+		return hashFunctions;
+	}
+
+	/**
+	 * Compute the hash code of the object with each of the underlying hash
+	 * functions.
+	 *
+	 * @param object
+	 *            the object
+	 * @return the hash code from each underlying function
+	 */
+	public int[] computeHashCodes(OBJECT object) {
+		final int[] hashCodes = new int[hashFunctions.size()];
+
+		for (int i = 0; i < hashCodes.length; i++)
+			hashCodes[i] = hashFunctions.get(i).computeHashCode(object);
+
+		return hashCodes;
+	}
+
+	/**
+	 * Compose the given hash codes from the underlying functions into a single
+	 * hash code. Calling this with the output of
+	 * {@link #computeHashCodes(Object)} gives the same result as
+	 * {@link #computeHashCode(Object)}, but the hash codes can also be
+	 * modified first (for example to probe neighbouring buckets).
+	 *
+	 * @param hashCodes
+	 *            the hash code of each underlying function
+	 * @return the composite hash code
+	 */
+	public abstract int combine(int[] hashCodes);
 }
@@ -90,4 +90,14 @@ public class SimpleComposition<OBJECT> extends HashComposition<OBJECT> {
 
 		return result;
 	}
+
+	@Override
+	public int combine(int[] hashCodes) {
+		int result = HashCodeUtil.SEED;
+
+		for (int i = 0; i < hashCodes.length; i++)
+			result = HashCodeUtil.hash(result, hashCodes[i]);
+
+		return result;
+	}
 }
@@ -47,4 +47,27 @@ public abstract class HashModifier<OBJECT> implements HashFunction<OBJECT> {
 	protected HashModifier(HashFunction<OBJECT> hashFunction) {
 		this.hashFunction = hashFunction;
 	}
+
+	/**
+	 * Get the hash function whose hash codes are modified
+	 * 
+	 * @return the underlying hash function
+	 */
+	public HashFunction<OBJECT> getHashFunction() {
+		return hashFunction;
+	}
+
+	@Override
+	public int computeHashCode(OBJECT object) {
+		return modifyHashCode(hashFunction.computeHashCode(object));
+	}
+
+	/**
+	 * Modify a hash code produced by the underlying hash function
+	 * 
+	 * @param hashCode
+	 *            the hash code from the underlying function
+	 * @return the modified hash code
+	 */
+	public abstract int modifyHashCode(int hashCode);
 }
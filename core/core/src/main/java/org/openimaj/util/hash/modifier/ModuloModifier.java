@@ -59,8 +59,8 @@ public class ModuloModifier<O> extends HashModifier<O> {
 	}
 
 	@Override
-	public int computeHashCode(O object) {
-		final long innerHash = hashFunction.computeHashCode(object) & 0x00000000ffffffffL;
+	public int modifyHashCode(int hashCode) {
+		final long innerHash = hashCode & 0x00000000ffffffffL;
 
 		return (int) (innerHash % range);
 	}
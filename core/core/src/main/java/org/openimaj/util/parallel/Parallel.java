@@ -35,6 +35,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.openimaj.util.function.Operation;
 import org.openimaj.util.parallel.partition.FixedSizeChunkPartitioner;
@@ -282,6 +284,99 @@ public class Parallel {
 		}
 	}
 
+	/**
+	 * Parallel integer for loop over blocks of a fixed size. The blocks are
+	 * claimed dynamically by the threads of the pool <i>and</i> the calling
+	 * thread, which gives good load balancing if the cost of each block
+	 * varies. As the calling thread only waits for blocks that have already
+	 * been claimed by other threads, it is safe to call this method from a
+	 * task that is itself running on the given pool (the calling thread will
+	 * just end up doing all the work if the pool is saturated). The increment
+	 * of the ranges passed to the operation is always 1.
+	 *
+	 * @param start
+	 *            starting value
+	 * @param stop
+	 *            stopping value
+	 * @param blockSize
+	 *            the size of each block
+	 * @param op
+	 *            operation to perform
+	 * @param pool
+	 *            the thread pool.
+	 */
+	public static void forBlocks(final int start, final int stop, final int blockSize, final Operation<IntRange> op,
+			final ThreadPoolExecutor pool)
+	{
+		final int nblocks = (stop - start + blockSize - 1) / blockSize;
+		if (nblocks <= 0)
+			return;
+
+		final AtomicInteger nextBlock = new AtomicInteger();
+		final CountDownLatch latch = new CountDownLatch(nblocks);
+		final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+
+		final Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int block;
+				while ((block = nextBlock.getAndIncrement()) < nblocks) {
+					try {
+						if (exception.get() == null) {
+							final int lo = start + block * blockSize;
+							op.perform(new IntRange(lo, Math.min(stop, lo + blockSize), 1));
+						}
+					} catch (final Throwable t) {
+						exception.compareAndSet(null, t);
+					} finally {
+						latch.countDown();
+					}
+				}
+			}
+		};
+
+		final int nhelpers = Math.min(pool.getMaximumPoolSize(), nblocks) - 1;
+		for (int i = 0; i < nhelpers; i++)
+			pool.execute(worker);
+
+		worker.run();
+
+		try {
+			latch.await();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+
+		final Throwable t = exception.get();
+		if (t instanceof Error)
+			throw (Error) t;
+		if (t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		if (t != null)
+			throw new RuntimeException(t);
+	}
+
+	/**
+	 * Parallel integer for loop over blocks of a fixed size using the default
+	 * global thread pool.
+	 *
+	 * @see #forBlocks(int, int, int, Operation, ThreadPoolExecutor)
+	 * @see GlobalExecutorPool#getPool()
+	 *
+	 * @param start
+	 *            starting value
+	 * @param stop
+	 *            stopping value
+	 * @param blockSize
+	 *            the size of each block
+	 * @param op
+	 *            operation to perform
+	 */
+	public static void forBlocks(final int start, final int stop, final int blockSize, final Operation<IntRange> op) {
+		forBlocks(start, stop, blockSize, op, GlobalExecutorPool.getPool());
+	}
+
 	/**
 	 * Parallel ForEach loop over {@link Iterable} data. The data is
 	 * automatically partitioned; if the data is a {@link List}, then a
@@ -190,6 +190,30 @@ public abstract class AbstractStream<T> implements Stream<T> {
 		};
 	}
 
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper) {
+		return new ParallelMapStream<T, R>(this, mapper);
+	}
+
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper, ThreadPoolExecutor pool, int window,
+			boolean ordered)
+	{
+		return new ParallelMapStream<T, R>(this, mapper, pool, window, ordered);
+	}
+
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper) {
+		return new ParallelMapStream<T, R>(this, mapper);
+	}
+
+	@Override
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper, ThreadPoolExecutor pool, int window,
+			boolean ordered)
+	{
+		return new ParallelMapStream<T, R>(this, mapper, pool, window, ordered);
+	}
+
 	/**
 	 * Throws an UnsupportedOperationException()
 	 */
@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.stream;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.util.function.Function;
+import org.openimaj.util.function.MultiFunction;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * A {@link Stream} that applies a {@link Function} or {@link MultiFunction} to
+ * the items of another stream using a pool of threads. At most a fixed number
+ * of items (the window) are in flight (read from the source stream but not yet
+ * consumed from this one) at any time, so a slow consumer applies backpressure
+ * to the source. Items of the source stream are read in the thread consuming
+ * this stream, so the source doesn't need to be thread-safe; this stream
+ * itself should only be consumed by a single thread.
+ * <p>
+ * In ordered mode the results are produced in the same order as the items of
+ * the source; in unordered mode they are produced as soon as they are
+ * available. If the function throws an exception, it is re-thrown (wrapped in
+ * a {@link RuntimeException} if it is checked) by the {@link #hasNext()} or
+ * {@link #next()} call that would have returned the corresponding result, and
+ * the stream is cancelled. Calling {@link #cancel()} stops the stream reading
+ * from its source and cancels any items in flight.
+ * <p>
+ * The consuming thread will run queued items itself rather than waiting for
+ * the pool to get round to them, so it is safe to consume the stream from
+ * within a task running on the same pool.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ *
+ * @param <T>
+ *            Type of the items in the source stream
+ * @param <R>
+ *            Type of the items in this stream
+ */
+public class ParallelMapStream<T, R> extends AbstractStream<R> {
+	private class Task extends FutureTask<List<R>> {
+		Task(Callable<List<R>> callable) {
+			super(callable);
+		}
+
+		@Override
+		protected void done() {
+			if (!ordered)
+				completed.add(this);
+		}
+	}
+
+	private final Iterator<T> source;
+	private final MultiFunction<T, R> mapper;
+	private final ThreadPoolExecutor pool;
+	private final int window;
+	private final boolean ordered;
+
+	private final ArrayDeque<Task> inFlight = new ArrayDeque<Task>();
+	private final LinkedBlockingQueue<Task> completed = new LinkedBlockingQueue<Task>();
+	private boolean cancelled;
+
+	private List<R> current;
+	private int currentIndex;
+
+	/**
+	 * Construct an ordered stream that applies the given {@link Function} to
+	 * the items of the source using the {@link GlobalExecutorPool}, with the
+	 * default window for the pool.
+	 *
+	 * @param source
+	 *            the source stream
+	 * @param mapper
+	 *            the function to apply
+	 */
+	public ParallelMapStream(Iterator<T> source, Function<T, R> mapper) {
+		this(source, mapper, GlobalExecutorPool.getPool());
+	}
+
+	/**
+	 * Construct an ordered stream that applies the given {@link Function} to
+	 * the items of the source using the given pool, with the default window
+	 * for the pool.
+	 *
+	 * @param source
+	 *            the source stream
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 */
+	public ParallelMapStream(Iterator<T> source, Function<T, R> mapper, ThreadPoolExecutor pool) {
+		this(source, mapper, pool, defaultWindow(pool), true);
+	}
+
+	/**
+	 * Construct a stream that applies the given {@link Function} to the items
+	 * of the source.
+	 *
+	 * @param source
+	 *            the source stream
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 * @param window
+	 *            the maximum number of items in flight
+	 * @param ordered
+	 *            if true, the results are produced in the order of the source
+	 *            items; otherwise in the order they become available
+	 */
+	public ParallelMapStream(Iterator<T> source, final Function<T, R> mapper, ThreadPoolExecutor pool, int window,
+			boolean ordered)
+	{
+		this(source, new MultiFunction<T, R>() {
+			@Override
+			public List<R> apply(T in) {
+				return Collections.singletonList(mapper.apply(in));
+			}
+		}, pool, window, ordered);
+	}
+
+	/**
+	 * Construct an ordered stream that applies the given
+	 * {@link MultiFunction} to the items of the source using the
+	 * {@link GlobalExecutorPool}, with the default window for the pool.
+	 *
+	 * @param source
+	 *            the source stream
+	 * @param mapper
+	 *            the function to apply
+	 */
+	public ParallelMapStream(Iterator<T> source, MultiFunction<T, R> mapper) {
+		this(source, mapper, GlobalExecutorPool.getPool());
+	}
+
+	/**
+	 * Construct an ordered stream that applies the given
+	 * {@link MultiFunction} to the items of the source using the given pool,
+	 * with the default window for the pool.
+	 *
+	 * @param source
+	 *            the source stream
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 */
+	public ParallelMapStream(Iterator<T> source, MultiFunction<T, R> mapper, ThreadPoolExecutor pool) {
+		this(source, mapper, pool, defaultWindow(pool), true);
+	}
+
+	/**
+	 * Construct a stream that applies the given {@link MultiFunction} to the
+	 * items of the source. The results of each item are produced
+	 * consecutively; items for which the function returns null or an empty
+	 * list produce nothing.
+	 *
+	 * @param source
+	 *            the source stream
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 * @param window
+	 *            the maximum number of items in flight
+	 * @param ordered
+	 *            if true, the results are produced in the order of the source
+	 *            items; otherwise in the order they become available
+	 */
+	public ParallelMapStream(Iterator<T> source, MultiFunction<T, R> mapper, ThreadPoolExecutor pool, int window,
+			boolean ordered)
+	{
+		if (window < 1)
+			throw new IllegalArgumentException("The window must be at least 1");
+
+		this.source = source;
+		this.mapper = mapper;
+		this.pool = pool;
+		this.window = window;
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Get the default window for the given pool. This is twice the number of
+	 * core threads of the pool, or twice the number of processors if the pool
+	 * has no core threads (for example, a cached pool, which has an unbounded
+	 * maximum size).
+	 *
+	 * @param pool
+	 *            the thread pool
+	 * @return the default window
+	 */
+	static int defaultWindow(ThreadPoolExecutor pool) {
+		int nthreads = pool.getCorePoolSize();
+		if (nthreads <= 0)
+			nthreads = Runtime.getRuntime().availableProcessors();
+
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, 2L * nthreads));
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (current == null || currentIndex >= current.size()) {
+			current = null;
+
+			if (cancelled)
+				return false;
+
+			fill();
+
+			if (inFlight.isEmpty())
+				return false;
+
+			current = take();
+			currentIndex = 0;
+		}
+
+		return true;
+	}
+
+	@Override
+	public R next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		return current.get(currentIndex++);
+	}
+
+	/**
+	 * Cancel the stream. No more items will be read from the source, items
+	 * that are in flight are cancelled, and {@link #hasNext()} will return
+	 * false.
+	 */
+	public void cancel() {
+		cancelled = true;
+		current = null;
+
+		for (final Task t : inFlight)
+			t.cancel(true);
+
+		inFlight.clear();
+		completed.clear();
+	}
+
+	/**
+	 * @return true if the stream has been cancelled (either explicitly or
+	 *         because the function threw an exception)
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	private void fill() {
+		while (inFlight.size() < window && source.hasNext()) {
+			final T item = source.next();
+			final Task task = new Task(new Callable<List<R>>() {
+				@Override
+				public List<R> call() throws Exception {
+					return mapper.apply(item);
+				}
+			});
+
+			inFlight.add(task);
+			pool.execute(task);
+		}
+	}
+
+	private List<R> take() {
+		final Task task;
+
+		try {
+			if (ordered) {
+				task = inFlight.pollFirst();
+
+				// run it ourselves if the pool hasn't started it yet; this is
+				// a no-op if it is running or done
+				task.run();
+			} else {
+				Task done = completed.poll();
+
+				if (done == null) {
+					for (final Task t : inFlight) {
+						if (!t.isDone()) {
+							t.run();
+							if (t.isDone())
+								break;
+						}
+					}
+
+					done = completed.take();
+				}
+
+				task = done;
+				inFlight.remove(task);
+			}
+
+			final List<R> result = task.get();
+			return result == null ? Collections.<R> emptyList() : result;
+		} catch (final ExecutionException e) {
+			cancel();
+
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		} catch (final InterruptedException e) {
+			cancel();
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (final CancellationException e) {
+			return Collections.emptyList();
+		}
+	}
+}
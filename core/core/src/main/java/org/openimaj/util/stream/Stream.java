@@ -169,6 +169,72 @@ public interface Stream<T> extends Iterator<T>, Iterable<T> {
 	 */
 	public <R> Stream<R> map(MultiFunction<T, R> mapper);
 
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link Function} using multiple threads
+	 * from the {@link org.openimaj.util.parallel.GlobalExecutorPool}. The
+	 * order of the items is preserved, and the number of items being
+	 * processed at any one time is bounded. See {@link ParallelMapStream} for
+	 * details.
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper);
+
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link Function} using multiple threads.
+	 * See {@link ParallelMapStream} for details.
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 * @param window
+	 *            the maximum number of items being processed at any one time
+	 * @param ordered
+	 *            true if the order of the items should be preserved; false if
+	 *            the transformed items can be produced in any order
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(Function<T, R> mapper, ThreadPoolExecutor pool, int window,
+			boolean ordered);
+
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link MultiFunction} using multiple
+	 * threads from the {@link org.openimaj.util.parallel.GlobalExecutorPool}.
+	 * The order of the items is preserved, and the number of items being
+	 * processed at any one time is bounded. See {@link ParallelMapStream} for
+	 * details.
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper);
+
+	/**
+	 * Transform the stream by creating a new stream that transforms the items
+	 * in this stream with the given {@link MultiFunction} using multiple
+	 * threads. See {@link ParallelMapStream} for details.
+	 *
+	 * @param mapper
+	 *            the function to apply
+	 * @param pool
+	 *            the thread pool
+	 * @param window
+	 *            the maximum number of items being processed at any one time
+	 * @param ordered
+	 *            true if the order of the items should be preserved; false if
+	 *            the transformed items can be produced in any order
+	 * @return a new stream with transformed items from this stream
+	 */
+	public <R> ParallelMapStream<T, R> parallelMap(MultiFunction<T, R> mapper, ThreadPoolExecutor pool, int window,
+			boolean ordered);
+
 	/**
 	 * Transform the stream using the given function to transform the items in
 	 * this stream.
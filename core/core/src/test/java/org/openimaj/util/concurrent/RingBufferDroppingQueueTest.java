@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.concurrent;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.openimaj.util.concurrent.RingBufferDroppingQueue.WaitStrategy;
+
+/**
+ * Tests for {@link RingBufferDroppingQueue}.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class RingBufferDroppingQueueTest {
+	/**
+	 * Test that the queue behaves like an {@link ArrayBlockingDroppingQueue}
+	 * when used from a single thread.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testSameAsArrayQueue() throws InterruptedException {
+		final BlockingDroppingQueue<Integer> ring = new RingBufferDroppingQueue<Integer>(5);
+		final BlockingDroppingQueue<Integer> array = new ArrayBlockingDroppingQueue<Integer>(5);
+
+		for (int i = 0; i < 23; i++) {
+			assertEquals(array.put(i), ring.put(i));
+			assertEquals(array.size(), ring.size());
+			assertEquals(array.peek(), ring.peek());
+
+			if (i % 3 == 0)
+				assertEquals(array.poll(), ring.poll());
+
+			assertEquals(array.offer(100 + i), ring.offer(100 + i));
+			assertArrayEquals(array.toArray(), ring.toArray());
+		}
+
+		assertEquals(array.insertCount(), ring.insertCount());
+		assertEquals(array.dropCount(), ring.dropCount());
+		assertEquals(array.remainingCapacity(), ring.remainingCapacity());
+		assertTrue(ring.contains(array.peek()));
+
+		final List<Integer> arrayDrained = new ArrayList<Integer>();
+		final List<Integer> ringDrained = new ArrayList<Integer>();
+		assertEquals(array.drainTo(arrayDrained, 2), ring.drainTo(ringDrained, 2));
+		assertEquals(array.drainTo(arrayDrained), ring.drainTo(ringDrained));
+		assertEquals(arrayDrained, ringDrained);
+
+		assertTrue(ring.isEmpty());
+		assertNull(ring.poll());
+		assertNull(ring.peek());
+	}
+
+	/**
+	 * Test that the timed poll gives up for all wait strategies
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testPollTimeout() throws InterruptedException {
+		for (final WaitStrategy ws : WaitStrategy.values()) {
+			final RingBufferDroppingQueue<Integer> q = new RingBufferDroppingQueue<Integer>(2, ws);
+
+			final long t0 = System.nanoTime();
+			assertNull(q.poll(10, TimeUnit.MILLISECONDS));
+			assertTrue(System.nanoTime() - t0 >= TimeUnit.MILLISECONDS.toNanos(10));
+
+			q.put(1);
+			assertEquals(1, (int) q.poll(10, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	/**
+	 * Test that nothing is lost or duplicated with several producers and
+	 * consumers: every inserted element must have been consumed exactly once
+	 * or dropped.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testConcurrentPutTake() throws InterruptedException {
+		for (final WaitStrategy ws : WaitStrategy.values()) {
+			final int nProducers = 3;
+			final int nConsumers = 3;
+			final int perProducer = 20000;
+
+			final RingBufferDroppingQueue<Long> q = new RingBufferDroppingQueue<Long>(16, ws);
+			final AtomicIntegerArray seen = new AtomicIntegerArray(nProducers * perProducer + 1);
+			final AtomicLong consumedCount = new AtomicLong();
+			final AtomicLong duplicates = new AtomicLong();
+
+			final Thread[] producers = new Thread[nProducers];
+			for (int p = 0; p < nProducers; p++) {
+				final int offset = p * perProducer;
+				producers[p] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							for (int i = 1; i <= perProducer; i++) {
+								q.put((long) (offset + i));
+							}
+						} catch (final InterruptedException e) {
+							throw new RuntimeException(e);
+						}
+					}
+				};
+			}
+
+			final Thread[] consumers = new Thread[nConsumers];
+			for (int c = 0; c < nConsumers; c++) {
+				consumers[c] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							for (;;) {
+								final long v = q.take();
+								if (v < 0)
+									return;
+								if (seen.getAndIncrement((int) v) != 0)
+									duplicates.incrementAndGet();
+								consumedCount.incrementAndGet();
+							}
+						} catch (final InterruptedException e) {
+							throw new RuntimeException(e);
+						}
+					}
+				};
+			}
+
+			for (final Thread t : producers)
+				t.start();
+			for (final Thread t : consumers)
+				t.start();
+			for (final Thread t : producers)
+				t.join();
+
+			// wait for the consumers to empty the queue before sending the
+			// poison values, so that none of them are dropped
+			while (!q.isEmpty())
+				Thread.yield();
+			for (int c = 0; c < nConsumers; c++)
+				while (!q.offer(-1L))
+					Thread.yield();
+			for (final Thread t : consumers)
+				t.join();
+
+			final long n = (long) nProducers * perProducer;
+			assertEquals(n + nConsumers, q.insertCount());
+			assertEquals(n, consumedCount.get() + q.dropCount());
+			assertEquals(0, duplicates.get());
+			assertFalse(q.contains(-1L));
+		}
+	}
+}
@@ -36,9 +36,11 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.junit.Test;
 import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel.IntRange;
 import org.openimaj.util.parallel.partition.GrowingChunkPartitioner;
 import org.openimaj.util.parallel.partition.RangePartitioner;
 
@@ -96,4 +98,31 @@ public class ParallelTest {
 
 		assertEquals(intsList.size(), out.size());
 	}
+
+	/**
+	 * Test that the block loop visits every index exactly once, including when
+	 * it is nested inside another block loop on the same pool
+	 */
+	@Test
+	public void testForBlocksNested() {
+		final int outer = 4 * GlobalExecutorPool.getPool().getMaximumPoolSize();
+		final int inner = 1001;
+		final AtomicIntegerArray counts = new AtomicIntegerArray(outer * inner);
+
+		Parallel.forBlocks(0, outer, 1, new Operation<IntRange>() {
+			@Override
+			public void perform(final IntRange o) {
+				Parallel.forBlocks(0, inner, 64, new Operation<IntRange>() {
+					@Override
+					public void perform(IntRange range) {
+						for (int i = range.start; i < range.stop; i++)
+							counts.incrementAndGet(o.start * inner + i);
+					}
+				});
+			}
+		});
+
+		for (int i = 0; i < counts.length(); i++)
+			assertEquals(1, counts.get(i));
+	}
 }
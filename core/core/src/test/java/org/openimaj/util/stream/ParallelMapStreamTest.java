@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.util.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openimaj.util.function.Function;
+import org.openimaj.util.function.MultiFunction;
+import org.openimaj.util.parallel.GlobalExecutorPool.DaemonThreadFactory;
+
+/**
+ * Tests for {@link ParallelMapStream}
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class ParallelMapStreamTest {
+	private ThreadPoolExecutor pool;
+	private List<Integer> input;
+
+	private final Function<Integer, Integer> square = new Function<Integer, Integer>() {
+		@Override
+		public Integer apply(Integer in) {
+			// make later items finish earlier
+			try {
+				Thread.sleep((in * 7) % 5);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return in * in;
+		}
+	};
+
+	/**
+	 * Setup
+	 */
+	@Before
+	public void setup() {
+		pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(4, new DaemonThreadFactory());
+
+		input = new ArrayList<Integer>();
+		for (int i = 0; i < 200; i++)
+			input.add(i);
+	}
+
+	/**
+	 * Cleanup
+	 */
+	@After
+	public void teardown() {
+		pool.shutdownNow();
+	}
+
+	private static <T> List<T> toList(Stream<T> stream) {
+		final List<T> list = new ArrayList<T>();
+		for (final T t : stream)
+			list.add(t);
+		return list;
+	}
+
+	/**
+	 * Test that ordered mapping gives the same results as sequential mapping
+	 */
+	@Test
+	public void testOrdered() {
+		final List<Integer> expected = toList(new CollectionStream<Integer>(input).map(square));
+		final List<Integer> actual = toList(new CollectionStream<Integer>(input).parallelMap(square, pool, 8, true));
+
+		assertEquals(expected, actual);
+		assertEquals(expected, toList(new CollectionStream<Integer>(input).parallelMap(square)));
+	}
+
+	/**
+	 * Test that unordered mapping gives the same results as sequential mapping
+	 * (in some order)
+	 */
+	@Test
+	public void testUnordered() {
+		final List<Integer> expected = toList(new CollectionStream<Integer>(input).map(square));
+		final List<Integer> actual = toList(new CollectionStream<Integer>(input).parallelMap(square, pool, 8, false));
+
+		Collections.sort(actual);
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Test that multi-mapping flattens the results in order, skipping empty
+	 * results
+	 */
+	@Test
+	public void testMultiMap() {
+		final MultiFunction<Integer, Integer> repeat = new MultiFunction<Integer, Integer>() {
+			@Override
+			public List<Integer> apply(Integer in) {
+				if (in % 3 == 0)
+					return null;
+				return Collections.nCopies(in % 3, in);
+			}
+		};
+
+		final List<Integer> expected = toList(new CollectionStream<Integer>(input).map(repeat));
+		final List<Integer> actual = toList(new CollectionStream<Integer>(input).parallelMap(repeat, pool, 5, true));
+
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Test that no more than the window of items are read from the source
+	 * ahead of the consumer
+	 */
+	@Test
+	public void testWindow() {
+		final AtomicInteger read = new AtomicInteger();
+		final Stream<Integer> source = new CollectionStream<Integer>(input).map(new Function<Integer, Integer>() {
+			@Override
+			public Integer apply(Integer in) {
+				read.incrementAndGet();
+				return in;
+			}
+		});
+
+		final ParallelMapStream<Integer, Integer> stream = source.parallelMap(square, pool, 6, true);
+
+		int consumed = 0;
+		while (stream.hasNext()) {
+			stream.next();
+			consumed++;
+			assertTrue(read.get() - consumed <= 6);
+		}
+		assertEquals(input.size(), consumed);
+	}
+
+	/**
+	 * Test that exceptions thrown by the function are propagated to the
+	 * consumer and cancel the stream
+	 */
+	@Test
+	public void testException() {
+		final ParallelMapStream<Integer, Integer> stream = new CollectionStream<Integer>(input).parallelMap(
+				new Function<Integer, Integer>() {
+					@Override
+					public Integer apply(Integer in) {
+						if (in == 50)
+							throw new IllegalStateException("fail");
+						return in;
+					}
+				}, pool, 8, true);
+
+		int count = 0;
+		try {
+			while (stream.hasNext()) {
+				assertEquals(count, (int) stream.next());
+				count++;
+			}
+			fail("Exception expected");
+		} catch (final IllegalStateException e) {
+			assertEquals("fail", e.getMessage());
+		}
+
+		assertEquals(50, count);
+		assertTrue(stream.isCancelled());
+		assertFalse(stream.hasNext());
+	}
+
+	/**
+	 * Test that cancelling the stream stops it reading from its source
+	 */
+	@Test
+	public void testCancel() {
+		final AtomicInteger read = new AtomicInteger();
+		final Stream<Integer> source = new CollectionStream<Integer>(input).map(new Function<Integer, Integer>() {
+			@Override
+			public Integer apply(Integer in) {
+				read.incrementAndGet();
+				return in;
+			}
+		});
+
+		final ParallelMapStream<Integer, Integer> stream = source.parallelMap(square, pool, 4, false);
+		for (int i = 0; i < 10; i++)
+			stream.next();
+
+		stream.cancel();
+		final int readAtCancel = read.get();
+
+		assertFalse(stream.hasNext());
+		assertEquals(readAtCancel, read.get());
+		assertTrue(readAtCancel <= 14);
+	}
+
+	/**
+	 * Test that the default window works with a cached pool, which has an
+	 * unbounded maximum size
+	 */
+	@Test
+	public void testCachedPool() {
+		final ThreadPoolExecutor cached = (ThreadPoolExecutor) Executors.newCachedThreadPool(new DaemonThreadFactory());
+
+		try {
+			assertEquals(2 * Runtime.getRuntime().availableProcessors(), ParallelMapStream.defaultWindow(cached));
+			assertEquals(8, ParallelMapStream.defaultWindow(pool));
+
+			final List<Integer> expected = toList(new CollectionStream<Integer>(input).map(square));
+			final List<Integer> actual = toList(new ParallelMapStream<Integer, Integer>(
+					new CollectionStream<Integer>(input), square, cached));
+			assertEquals(expected, actual);
+		} finally {
+			cached.shutdownNow();
+		}
+	}
+}
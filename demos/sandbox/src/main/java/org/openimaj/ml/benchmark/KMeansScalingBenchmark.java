@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.ml.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.openimaj.data.RandomData;
+import org.openimaj.knn.ByteNearestNeighbours;
+import org.openimaj.knn.DoubleNearestNeighbours;
+import org.openimaj.knn.FloatNearestNeighbours;
+import org.openimaj.knn.approximate.ByteNearestNeighboursKDTree;
+import org.openimaj.knn.approximate.DoubleNearestNeighboursKDTree;
+import org.openimaj.knn.approximate.FloatNearestNeighboursKDTree;
+import org.openimaj.ml.clustering.kmeans.ByteKMeans;
+import org.openimaj.ml.clustering.kmeans.DoubleKMeans;
+import org.openimaj.ml.clustering.kmeans.FloatKMeans;
+import org.openimaj.ml.clustering.kmeans.KMeansConfiguration;
+import org.openimaj.time.Timer;
+
+/**
+ * Measure how the {@link ByteKMeans}, {@link FloatKMeans} and
+ * {@link DoubleKMeans} implementations scale with the number of threads, both
+ * with a shared (locked) centroid accumulator and with per-thread
+ * accumulators. For each variant, the time for a fixed number of iterations
+ * is reported along with the speedup relative to a single thread.
+ * <p>
+ * The optional arguments are the number of samples, the dimensionality, the
+ * number of clusters and the number of iterations.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class KMeansScalingBenchmark {
+	private static final int SEED = 42;
+
+	private static abstract class Variant {
+		String name;
+
+		Variant(String name) {
+			this.name = name;
+		}
+
+		abstract void run(int K, int niters, int blockSize, ExecutorService pool, boolean perThread);
+	}
+
+	private static class ByteVariant extends Variant {
+		byte[][] data;
+
+		ByteVariant(int N, int D) {
+			super("Byte");
+			data = RandomData.getRandomByteArray(N, D, (byte) -128, (byte) 127, SEED);
+		}
+
+		@Override
+		void run(int K, int niters, int blockSize, ExecutorService pool, boolean perThread) {
+			final KMeansConfiguration<ByteNearestNeighbours, byte[]> conf = new KMeansConfiguration<ByteNearestNeighbours, byte[]>(
+					K, new ByteNearestNeighboursKDTree.Factory(), niters, blockSize, pool);
+			conf.setPerThreadAccumulation(perThread);
+
+			final ByteKMeans km = new ByteKMeans(conf);
+			km.seed(SEED);
+			km.cluster(data);
+		}
+	}
+
+	private static class FloatVariant extends Variant {
+		float[][] data;
+
+		FloatVariant(int N, int D) {
+			super("Float");
+			data = RandomData.getRandomFloatArray(N, D, 0, 1, SEED);
+		}
+
+		@Override
+		void run(int K, int niters, int blockSize, ExecutorService pool, boolean perThread) {
+			final KMeansConfiguration<FloatNearestNeighbours, float[]> conf = new KMeansConfiguration<FloatNearestNeighbours, float[]>(
+					K, new FloatNearestNeighboursKDTree.Factory(), niters, blockSize, pool);
+			conf.setPerThreadAccumulation(perThread);
+
+			final FloatKMeans km = new FloatKMeans(conf);
+			km.seed(SEED);
+			km.cluster(data);
+		}
+	}
+
+	private static class DoubleVariant extends Variant {
+		double[][] data;
+
+		DoubleVariant(int N, int D) {
+			super("Double");
+			data = RandomData.getRandomDoubleArray(N, D, 0, 1, SEED);
+		}
+
+		@Override
+		void run(int K, int niters, int blockSize, ExecutorService pool, boolean perThread) {
+			final KMeansConfiguration<DoubleNearestNeighbours, double[]> conf = new KMeansConfiguration<DoubleNearestNeighbours, double[]>(
+					K, new DoubleNearestNeighboursKDTree.Factory(), niters, blockSize, pool);
+			conf.setPerThreadAccumulation(perThread);
+
+			final DoubleKMeans km = new DoubleKMeans(conf);
+			km.seed(SEED);
+			km.cluster(data);
+		}
+	}
+
+	/**
+	 * Main method
+	 * 
+	 * @param args
+	 *            optional: number of samples, dimensionality, number of
+	 *            clusters and number of iterations
+	 */
+	public static void main(String[] args) {
+		final int N = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		final int D = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+		final int K = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+		final int niters = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+		final int maxThreads = Runtime.getRuntime().availableProcessors();
+
+		// make sure there are enough blocks to keep all threads busy
+		final int blockSize = Math.max(1, Math.min(KMeansConfiguration.DEFAULT_BLOCK_SIZE, N / (4 * maxThreads)));
+
+		System.out.format("N=%d D=%d K=%d iterations=%d blockSize=%d\n", N, D, K, niters, blockSize);
+		System.out.println("type\tmode\tthreads\ttime(ms)\tspeedup");
+
+		// powers of two below the number of processors, then the number of
+		// processors itself
+		final List<Integer> threadCounts = new ArrayList<Integer>();
+		for (int nthreads = 1; nthreads < maxThreads; nthreads *= 2)
+			threadCounts.add(nthreads);
+		threadCounts.add(maxThreads);
+
+		final Variant[] variants = { new ByteVariant(N, D), new FloatVariant(N, D), new DoubleVariant(N, D) };
+
+		for (final Variant v : variants) {
+			for (final boolean perThread : new boolean[] { false, true }) {
+				final String mode = perThread ? "per-thread" : "shared";
+				long baseline = 0;
+
+				for (final int nthreads : threadCounts) {
+					final ExecutorService pool = Executors.newFixedThreadPool(nthreads);
+
+					try {
+						// warm-up
+						v.run(K, 1, blockSize, pool, perThread);
+
+						final Timer t = Timer.timer();
+						v.run(K, niters, blockSize, pool, perThread);
+						final long duration = t.duration();
+
+						if (nthreads == 1)
+							baseline = duration;
+
+						System.out.format("%s\t%s\t%d\t%d\t%.2f\n", v.name, mode, nthreads, duration,
+								(double) baseline / duration);
+					} finally {
+						pool.shutdown();
+					}
+				}
+			}
+		}
+	}
+}
@@ -48,6 +48,7 @@ import org.openimaj.image.objectdetection.filtering.DetectionFilter;
 import org.openimaj.image.objectdetection.filtering.OpenCVGrouping;
 import org.openimaj.image.objectdetection.haar.Detector;
 import org.openimaj.image.objectdetection.haar.OCVHaarLoader;
+import org.openimaj.image.objectdetection.haar.ParallelDetector;
 import org.openimaj.image.objectdetection.haar.StageTreeClassifier;
 import org.openimaj.image.processing.algorithm.EqualisationProcessor;
 import org.openimaj.io.IOUtils;
@@ -341,6 +342,8 @@ public class HaarCascadeDetector implements FaceDetector<DetectedFace, FImage> {
 
 			if (this.detector == null)
 				this.detector = new Detector(cascade);
+			else if (this.detector instanceof ParallelDetector)
+				this.detector = new ParallelDetector(cascade, this.detector.getScaleFactor());
 			else
 				this.detector = new Detector(cascade, this.detector.getScaleFactor());
 		} catch (final Exception e) {
@@ -367,6 +370,38 @@ public class HaarCascadeDetector implements FaceDetector<DetectedFace, FImage> {
 		this.detector.setScaleFactor(scaleFactor);
 	}
 
+	/**
+	 * Set whether the detection should be performed using multiple threads.
+	 * If true, a {@link ParallelDetector} is used, which searches all the
+	 * scales and rows of the image concurrently using the global thread pool.
+	 * The detections are identical in either case.
+	 * 
+	 * @param parallel
+	 *            true if the detection should be multi-threaded
+	 */
+	public void setParallel(boolean parallel) {
+		if (parallel == isParallel())
+			return;
+
+		final Detector old = this.detector;
+		if (parallel)
+			this.detector = new ParallelDetector(old.getClassifier(), old.getScaleFactor(), old.smallStep(),
+					old.bigStep(), null);
+		else
+			this.detector = new Detector(old.getClassifier(), old.getScaleFactor(), old.smallStep(), old.bigStep());
+
+		this.detector.setMinimumDetectionSize(old.getMinimumDetectionSize());
+		this.detector.setMaximumDetectionSize(old.getMaximumDetectionSize());
+	}
+
+	/**
+	 * @return true if the detection is multi-threaded
+	 * @see #setParallel(boolean)
+	 */
+	public boolean isParallel() {
+		return this.detector instanceof ParallelDetector;
+	}
+
 	/**
 	 * Serialize the detector using java serialization to the given stream
 	 * 
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.face.detection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.image.objectdetection.haar.Detector;
+import org.openimaj.image.objectdetection.haar.ParallelDetector;
+import org.openimaj.image.processing.face.detection.HaarCascadeDetector.BuiltInCascade;
+import org.openimaj.math.geometry.shape.Rectangle;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+
+/**
+ * Tests for the {@link HaarCascadeDetector}
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class HaarCascadeDetectorTest {
+	FImage face;
+	FImage noface;
+
+	/**
+	 * Setup
+	 * 
+	 * @throws Exception
+	 */
+	@Before
+	public void setup() throws Exception {
+		face = ImageUtilities.readF(this.getClass().getResourceAsStream("/org/openimaj/image/data/face/ss.jpg"));
+		noface = ImageUtilities.readF(this.getClass().getResourceAsStream("/org/openimaj/image/data/cat.jpg"));
+	}
+
+	/**
+	 * Test that the {@link ParallelDetector} gives exactly the same raw
+	 * detections as the {@link Detector}, including with cascades with
+	 * tilted features and trees of stages
+	 */
+	@Test
+	public void testParallelDetectorMatches() {
+		final BuiltInCascade[] cascades = {
+				BuiltInCascade.frontalface_default,
+				BuiltInCascade.frontalface_alt_tree,
+				BuiltInCascade.eye_tree_eyeglasses
+		};
+
+		for (final BuiltInCascade cascade : cascades) {
+			final HaarCascadeDetector hcd = cascade.load();
+			hcd.setMinSize(20);
+
+			for (final FImage image : new FImage[] { face, noface }) {
+				hcd.setParallel(false);
+				final List<Rectangle> expected = hcd.getDetector().detect(image);
+
+				hcd.setParallel(true);
+				assertTrue(hcd.getDetector() instanceof ParallelDetector);
+				assertEquals(20, hcd.getMinSize());
+
+				final List<Rectangle> actual = hcd.getDetector().detect(image);
+				assertEquals(expected, actual);
+			}
+		}
+	}
+
+	/**
+	 * Test that faces are found in parallel mode
+	 */
+	@Test
+	public void testParallelDetectFaces() {
+		final HaarCascadeDetector hcd = new HaarCascadeDetector(40);
+		hcd.setParallel(true);
+
+		assertFalse(hcd.detectFaces(face).isEmpty());
+	}
+
+	/**
+	 * Test that parallel detection works from tasks that are themselves
+	 * running on (and saturating) the global pool
+	 * 
+	 * @throws Exception
+	 */
+	@Test(timeout = 60000)
+	public void testParallelDetectFromPoolTasks() throws Exception {
+		final HaarCascadeDetector hcd = new HaarCascadeDetector(40);
+		hcd.setParallel(true);
+
+		final ThreadPoolExecutor pool = GlobalExecutorPool.getPool();
+		final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+		for (int i = 0; i < pool.getMaximumPoolSize(); i++) {
+			futures.add(pool.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return !hcd.detectFaces(face.clone()).isEmpty();
+				}
+			}));
+		}
+
+		for (final Future<Boolean> f : futures)
+			assertTrue(f.get(60, TimeUnit.SECONDS));
+	}
+}
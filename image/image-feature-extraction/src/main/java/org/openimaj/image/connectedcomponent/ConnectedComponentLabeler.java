@@ -207,6 +207,21 @@ public class ConnectedComponentLabeler implements ImageAnalyser<FImage> {
 				}
 			}
 		},
+		/**
+		 * The two-pass algorithm using a union-find forest over primitive
+		 * arrays. See {@link UnionFindLabeler}; components are returned in
+		 * raster-scan order of their first pixel.
+		 *
+		 * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+		 */
+		UNION_FIND {
+			@Override
+			public List<ConnectedComponent> findComponents(FImage image, float bgThreshold, ConnectMode mode) {
+				final UnionFindLabeler labeler = new UnionFindLabeler(bgThreshold, mode);
+				labeler.analyseImage(image);
+				return labeler.getComponents();
+			}
+		},
 		/**
 		 * The flood-fill algorithm
 		 *
@@ -0,0 +1,495 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.connectedcomponent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.analyser.ImageAnalyser;
+import org.openimaj.image.pixel.ConnectedComponent;
+import org.openimaj.image.pixel.ConnectedComponent.ConnectMode;
+import org.openimaj.math.geometry.shape.Rectangle;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+import org.openimaj.util.function.Operation;
+
+/**
+ * A two-pass connected component labeller that works directly on the pixels
+ * of an {@link FImage} using a union-find forest over primitive arrays. Unlike
+ * the {@link ConnectedComponentLabeler}, no {@link ConnectedComponent}s or
+ * {@link org.openimaj.image.pixel.Pixel}s are created during labelling;
+ * instead the result is an <code>int</code> label image together with the
+ * area, bounding box and centroid of each component, which are accumulated
+ * during the first pass. {@link ConnectedComponent}s can be created on demand
+ * for the components that are actually needed.
+ * <p>
+ * Labels are numbered from 1 in the raster-scan order of the first pixel of
+ * each component; 0 is the background. Optionally, the image can be split into
+ * horizontal strips that are labelled in parallel and then merged across the
+ * strip boundaries.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class UnionFindLabeler implements ImageAnalyser<FImage> {
+	/**
+	 * The minimum number of rows in a strip when labelling in parallel
+	 */
+	private static final int MIN_STRIP_ROWS = 16;
+
+	/**
+	 * Provisional labels and statistics for a strip of rows
+	 */
+	private static final class Strip {
+		final int y0;
+		final int y1;
+		int base;
+		int count;
+		int[] parent = new int[256];
+		int[] bounds = new int[256 * 4];
+		int[] area = new int[256];
+		long[] sums = new long[256 * 2];
+
+		Strip(int y0, int y1) {
+			this.y0 = y0;
+			this.y1 = y1;
+		}
+
+		int newLabel() {
+			final int label = ++count;
+
+			if (label == parent.length) {
+				final int sz = parent.length * 2;
+				parent = Arrays.copyOf(parent, sz);
+				bounds = Arrays.copyOf(bounds, sz * 4);
+				area = Arrays.copyOf(area, sz);
+				sums = Arrays.copyOf(sums, sz * 2);
+			}
+
+			parent[label] = label;
+			bounds[label * 4] = Integer.MAX_VALUE;
+			bounds[label * 4 + 1] = Integer.MAX_VALUE;
+			bounds[label * 4 + 2] = Integer.MIN_VALUE;
+			bounds[label * 4 + 3] = Integer.MIN_VALUE;
+
+			return label;
+		}
+
+		void add(int label, int x, int y) {
+			final int b = label * 4;
+			if (x < bounds[b])
+				bounds[b] = x;
+			if (y < bounds[b + 1])
+				bounds[b + 1] = y;
+			if (x > bounds[b + 2])
+				bounds[b + 2] = x;
+			if (y > bounds[b + 3])
+				bounds[b + 3] = y;
+
+			area[label]++;
+			sums[label * 2] += x;
+			sums[label * 2 + 1] += y;
+		}
+	}
+
+	protected float bgThreshold = 0;
+	protected ConnectMode mode;
+	protected boolean parallel = false;
+
+	protected int width;
+	protected int height;
+	protected int[] labels;
+	protected int numComponents;
+	protected int[] area;
+	protected int[] bounds;
+	protected long[] sums;
+
+	/**
+	 * Construct with background pixels having a value of 0 or less, and the
+	 * given {@link ConnectMode}.
+	 *
+	 * @param mode
+	 *            the connection mode.
+	 */
+	public UnionFindLabeler(ConnectMode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Construct with the given background pixel threshold and
+	 * {@link ConnectMode}.
+	 *
+	 * @param bgThreshold
+	 *            threshold at which pixels with lower values are considered to
+	 *            be the background
+	 * @param mode
+	 *            the connection mode.
+	 */
+	public UnionFindLabeler(float bgThreshold, ConnectMode mode) {
+		this.bgThreshold = bgThreshold;
+		this.mode = mode;
+	}
+
+	/**
+	 * Construct with the given background pixel threshold and
+	 * {@link ConnectMode}, optionally labelling strips of the image in
+	 * parallel using the {@link GlobalExecutorPool}.
+	 *
+	 * @param bgThreshold
+	 *            threshold at which pixels with lower values are considered to
+	 *            be the background
+	 * @param mode
+	 *            the connection mode.
+	 * @param parallel
+	 *            true if the image should be labelled in parallel
+	 */
+	public UnionFindLabeler(float bgThreshold, ConnectMode mode, boolean parallel) {
+		this.bgThreshold = bgThreshold;
+		this.mode = mode;
+		this.parallel = parallel;
+	}
+
+	@Override
+	public void analyseImage(final FImage image) {
+		width = image.width;
+		height = image.height;
+		labels = new int[width * height];
+
+		final Strip[] strips = createStrips();
+
+		if (strips.length == 1) {
+			labelStrip(image, strips[0]);
+		} else {
+			Parallel.forBlocks(0, strips.length, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					labelStrip(image, strips[range.start]);
+				}
+			});
+		}
+
+		// build the global forest and join the strips
+		int total = 0;
+		for (final Strip s : strips) {
+			s.base = total;
+			total += s.count;
+		}
+
+		final int[] parent = new int[total + 1];
+		for (final Strip s : strips) {
+			for (int l = 1; l <= s.count; l++)
+				parent[s.base + l] = s.base + s.parent[l];
+		}
+
+		for (int i = 1; i < strips.length; i++)
+			joinStrips(parent, strips[i - 1], strips[i]);
+
+		// resolve final labels; roots are always the smallest label in the
+		// tree, so they are numbered in raster order
+		final int[] finalLabels = new int[total + 1];
+		numComponents = 0;
+		for (int l = 1; l <= total; l++) {
+			final int root = find(parent, l);
+			finalLabels[l] = (root == l) ? ++numComponents : finalLabels[root];
+		}
+
+		// merge the statistics
+		area = new int[numComponents + 1];
+		bounds = new int[(numComponents + 1) * 4];
+		sums = new long[(numComponents + 1) * 2];
+		for (int l = 1; l <= numComponents; l++) {
+			bounds[l * 4] = Integer.MAX_VALUE;
+			bounds[l * 4 + 1] = Integer.MAX_VALUE;
+			bounds[l * 4 + 2] = Integer.MIN_VALUE;
+			bounds[l * 4 + 3] = Integer.MIN_VALUE;
+		}
+
+		for (final Strip s : strips) {
+			for (int l = 1; l <= s.count; l++) {
+				final int f = finalLabels[s.base + l];
+
+				area[f] += s.area[l];
+				sums[f * 2] += s.sums[l * 2];
+				sums[f * 2 + 1] += s.sums[l * 2 + 1];
+				bounds[f * 4] = Math.min(bounds[f * 4], s.bounds[l * 4]);
+				bounds[f * 4 + 1] = Math.min(bounds[f * 4 + 1], s.bounds[l * 4 + 1]);
+				bounds[f * 4 + 2] = Math.max(bounds[f * 4 + 2], s.bounds[l * 4 + 2]);
+				bounds[f * 4 + 3] = Math.max(bounds[f * 4 + 3], s.bounds[l * 4 + 3]);
+			}
+		}
+
+		// second pass: write the final labels
+		if (strips.length == 1) {
+			relabelStrip(strips[0], finalLabels);
+		} else {
+			Parallel.forBlocks(0, strips.length, 1, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					relabelStrip(strips[range.start], finalLabels);
+				}
+			});
+		}
+	}
+
+	private Strip[] createStrips() {
+		int nstrips = 1;
+
+		if (parallel) {
+			final ThreadPoolExecutor pool = GlobalExecutorPool.getPool();
+			nstrips = Math.max(1, Math.min(4 * pool.getMaximumPoolSize(), height / MIN_STRIP_ROWS));
+		}
+
+		final Strip[] strips = new Strip[nstrips];
+		for (int i = 0; i < nstrips; i++)
+			strips[i] = new Strip((int) ((long) i * height / nstrips), (int) ((long) (i + 1) * height / nstrips));
+
+		return strips;
+	}
+
+	private void labelStrip(FImage image, Strip strip) {
+		final boolean connect8 = mode == ConnectMode.CONNECT_8;
+
+		for (int y = strip.y0; y < strip.y1; y++) {
+			final float[] row = image.pixels[y];
+			final int off = y * width;
+			final int up = off - width;
+			final boolean hasUp = y > strip.y0;
+
+			for (int x = 0; x < width; x++) {
+				if (row[x] <= bgThreshold)
+					continue;
+
+				int label = 0;
+				if (x > 0)
+					label = labels[off + x - 1];
+
+				if (hasUp) {
+					label = link(strip, label, labels[up + x]);
+
+					if (connect8) {
+						if (x > 0)
+							label = link(strip, label, labels[up + x - 1]);
+						if (x + 1 < width)
+							label = link(strip, label, labels[up + x + 1]);
+					}
+				}
+
+				if (label == 0)
+					label = strip.newLabel();
+
+				labels[off + x] = label;
+				strip.add(label, x, y);
+			}
+		}
+	}
+
+	private static int link(Strip strip, int label, int neighbour) {
+		if (neighbour == 0)
+			return label;
+		if (label == 0 || label == neighbour)
+			return neighbour;
+
+		union(strip.parent, label, neighbour);
+		return label;
+	}
+
+	private void joinStrips(int[] parent, Strip above, Strip below) {
+		final boolean connect8 = mode == ConnectMode.CONNECT_8;
+		final int off = below.y0 * width;
+		final int up = off - width;
+
+		for (int x = 0; x < width; x++) {
+			final int l = labels[off + x];
+			if (l == 0)
+				continue;
+
+			final int a = below.base + l;
+
+			if (labels[up + x] != 0)
+				union(parent, a, above.base + labels[up + x]);
+
+			if (connect8) {
+				if (x > 0 && labels[up + x - 1] != 0)
+					union(parent, a, above.base + labels[up + x - 1]);
+				if (x + 1 < width && labels[up + x + 1] != 0)
+					union(parent, a, above.base + labels[up + x + 1]);
+			}
+		}
+	}
+
+	private void relabelStrip(Strip strip, int[] finalLabels) {
+		final int end = strip.y1 * width;
+
+		for (int i = strip.y0 * width; i < end; i++) {
+			final int l = labels[i];
+			if (l != 0)
+				labels[i] = finalLabels[strip.base + l];
+		}
+	}
+
+	private static int find(int[] parent, int l) {
+		while (parent[l] != l) {
+			parent[l] = parent[parent[l]];
+			l = parent[l];
+		}
+		return l;
+	}
+
+	private static void union(int[] parent, int a, int b) {
+		final int ra = find(parent, a);
+		final int rb = find(parent, b);
+
+		if (ra < rb)
+			parent[rb] = ra;
+		else if (rb < ra)
+			parent[ra] = rb;
+	}
+
+	/**
+	 * @return the number of components found in the last call to
+	 *         {@link #analyseImage(FImage)}
+	 */
+	public int getNumComponents() {
+		return numComponents;
+	}
+
+	/**
+	 * Get the label image from the last call to {@link #analyseImage(FImage)}.
+	 * The labels are stored in row-major order; background pixels have a label
+	 * of 0 and components are labelled from 1 to
+	 * {@link #getNumComponents()}.
+	 *
+	 * @return the label image
+	 */
+	public int[] getLabels() {
+		return labels;
+	}
+
+	/**
+	 * Get the label of a pixel
+	 *
+	 * @param x
+	 *            the x-ordinate
+	 * @param y
+	 *            the y-ordinate
+	 * @return the label, or 0 for background
+	 */
+	public int getLabel(int x, int y) {
+		return labels[y * width + x];
+	}
+
+	/**
+	 * Get the number of pixels in a component
+	 *
+	 * @param label
+	 *            the component label
+	 * @return the area
+	 */
+	public int getArea(int label) {
+		return area[label];
+	}
+
+	/**
+	 * Get the bounding box of a component. As with
+	 * {@link ConnectedComponent#calculateRegularBoundingBox()}, the width and
+	 * height are the differences between the extremal coordinates.
+	 *
+	 * @param label
+	 *            the component label
+	 * @return the bounding box
+	 */
+	public Rectangle getBoundingBox(int label) {
+		final int b = label * 4;
+		return new Rectangle(bounds[b], bounds[b + 1], bounds[b + 2] - bounds[b], bounds[b + 3] - bounds[b + 1]);
+	}
+
+	/**
+	 * Get the centroid of a component
+	 *
+	 * @param label
+	 *            the component label
+	 * @return the centroid as {x, y}
+	 */
+	public double[] getCentroid(int label) {
+		return new double[] { (double) sums[label * 2] / area[label], (double) sums[label * 2 + 1] / area[label] };
+	}
+
+	/**
+	 * Create a {@link ConnectedComponent} containing the pixels of the
+	 * component with the given label. Only the bounding box of the component
+	 * is scanned.
+	 *
+	 * @param label
+	 *            the component label
+	 * @return the component
+	 */
+	public ConnectedComponent getComponent(int label) {
+		final ConnectedComponent cc = new ConnectedComponent();
+		final int b = label * 4;
+
+		for (int y = bounds[b + 1]; y <= bounds[b + 3]; y++) {
+			final int off = y * width;
+
+			for (int x = bounds[b]; x <= bounds[b + 2]; x++) {
+				if (labels[off + x] == label)
+					cc.addPixel(x, y);
+			}
+		}
+
+		return cc;
+	}
+
+	/**
+	 * Create {@link ConnectedComponent}s for all the components found in the
+	 * last call to {@link #analyseImage(FImage)}, in label order.
+	 *
+	 * @return the components
+	 */
+	public List<ConnectedComponent> getComponents() {
+		final List<ConnectedComponent> components = new ArrayList<ConnectedComponent>(numComponents);
+		for (int l = 0; l < numComponents; l++)
+			components.add(new ConnectedComponent());
+
+		for (int y = 0; y < height; y++) {
+			final int off = y * width;
+
+			for (int x = 0; x < width; x++) {
+				final int l = labels[off + x];
+				if (l != 0)
+					components.get(l - 1).addPixel(x, y);
+			}
+		}
+
+		return components;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.connectedcomponent;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.pixel.ConnectedComponent;
+import org.openimaj.image.pixel.ConnectedComponent.ConnectMode;
+import org.openimaj.image.pixel.Pixel;
+
+/**
+ * Tests for the {@link UnionFindLabeler}
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class UnionFindLabelerTest {
+	private static FImage randomImage(Random rng, int width, int height) {
+		final FImage image = new FImage(width, height);
+
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				image.pixels[y][x] = rng.nextFloat() < 0.45 ? 1 : 0;
+
+		return image;
+	}
+
+	private static Set<Set<Pixel>> toSets(List<ConnectedComponent> components) {
+		final Set<Set<Pixel>> sets = new HashSet<Set<Pixel>>();
+		for (final ConnectedComponent cc : components)
+			sets.add(cc.getPixels());
+		return sets;
+	}
+
+	/**
+	 * Test that the components are the same as the standard two-pass
+	 * algorithm, with and without parallel strips, and that the statistics
+	 * match those of the components.
+	 */
+	@Test
+	public void testAgainstTwoPass() {
+		final Random rng = new Random(0);
+
+		for (final ConnectMode mode : ConnectMode.values()) {
+			for (final boolean parallel : new boolean[] { false, true }) {
+				final FImage image = randomImage(rng, 67, 200);
+				final List<ConnectedComponent> expected = ConnectedComponentLabeler.Algorithm.TWO_PASS.findComponents(
+						image, 0, mode);
+
+				final UnionFindLabeler labeler = new UnionFindLabeler(0, mode, parallel);
+				labeler.analyseImage(image);
+
+				assertEquals(expected.size(), labeler.getNumComponents());
+				final List<ConnectedComponent> components = labeler.getComponents();
+				assertEquals(toSets(expected), toSets(components));
+
+				int last = -1;
+				for (int l = 1; l <= labeler.getNumComponents(); l++) {
+					final ConnectedComponent cc = components.get(l - 1);
+
+					assertEquals(cc.getPixels(), labeler.getComponent(l).getPixels());
+					assertEquals(cc.calculateArea(), labeler.getArea(l));
+					assertEquals(cc.calculateRegularBoundingBox(), labeler.getBoundingBox(l));
+					assertArrayEquals(cc.calculateCentroid(), labeler.getCentroid(l), 1e-9);
+
+					// labels are in raster order of the first pixel
+					final Pixel first = cc.topLeftMostPixel();
+					final int pos = first.y * image.width + first.x;
+					assertEquals(l, labeler.getLabel(first.x, first.y));
+					assertTrue(pos > last);
+					last = pos;
+				}
+			}
+		}
+	}
+}
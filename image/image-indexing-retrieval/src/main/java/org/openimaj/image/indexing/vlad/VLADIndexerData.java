@@ -45,11 +45,15 @@ import org.openimaj.feature.local.LocalFeatureExtractor;
 import org.openimaj.image.MBFImage;
 import org.openimaj.image.feature.local.aggregate.VLAD;
 import org.openimaj.io.IOUtils;
+import org.openimaj.knn.IncrementalNearestNeighbours;
 import org.openimaj.knn.pq.FloatProductQuantiser;
+import org.openimaj.knn.pq.IVFFloatADCNearestNeighbours;
+import org.openimaj.knn.pq.IVFFloatADCUtilities;
 import org.openimaj.knn.pq.IncrementalFloatADCNearestNeighbours;
 import org.openimaj.ml.pca.FeatureVectorPCA;
 import org.openimaj.util.array.ArrayUtils;
 import org.openimaj.util.function.Function;
+import org.openimaj.util.pair.IntFloatPair;
 
 /**
  * Class representing the data required to build a VLAD + PCA +
@@ -176,6 +180,30 @@ public class VLADIndexerData {
 		return new IncrementalFloatADCNearestNeighbours(pq, pca.getMean().length);
 	}
 
+	/**
+	 * Create an {@link IVFFloatADCNearestNeighbours} pre-prepared to index
+	 * data. Unlike {@link #createIncrementalIndex()}, the returned index only
+	 * searches the inverted lists closest to each query. The coarse quantiser
+	 * and residual product quantiser are learnt from the given sample of
+	 * PCA-VLAD vectors (see {@link #extractPcaVlad(MBFImage)}).
+	 * 
+	 * @param pcaVlads
+	 *            the sample of PCA-VLAD vectors to learn from
+	 * @param numLists
+	 *            the number of inverted lists
+	 * @param numPqAssigners
+	 *            the number of sub-quantisers of the residual product
+	 *            quantiser
+	 * @param numIterations
+	 *            the maximum number of k-means iterations
+	 * @return a new {@link IVFFloatADCNearestNeighbours}
+	 */
+	public IVFFloatADCNearestNeighbours createIVFIndex(float[][] pcaVlads, int numLists, int numPqAssigners,
+			int numIterations)
+	{
+		return IVFFloatADCUtilities.train(pcaVlads, numLists, numPqAssigners, numIterations);
+	}
+
 	/**
 	 * Index the given features into the given nearest neighbours object by
 	 * converting them to the PCA-VLAD representation and then
@@ -188,7 +216,7 @@ public class VLADIndexerData {
 	 * @return the index at which the features were added in the nearest
 	 *         neighbours object
 	 */
-	public int index(List<? extends LocalFeature<?, ?>> features, IncrementalFloatADCNearestNeighbours nn) {
+	public int index(List<? extends LocalFeature<?, ?>> features, IncrementalNearestNeighbours<float[], float[], IntFloatPair> nn) {
 		return nn.add(extractPcaVlad(features));
 	}
 
@@ -203,7 +231,7 @@ public class VLADIndexerData {
 	 * @return the index at which the features were added in the nearest
 	 *         neighbours object
 	 */
-	public int index(MBFImage image, IncrementalFloatADCNearestNeighbours nn) {
+	public int index(MBFImage image, IncrementalNearestNeighbours<float[], float[], IntFloatPair> nn) {
 		return nn.add(extractPcaVlad(image));
 	}
 
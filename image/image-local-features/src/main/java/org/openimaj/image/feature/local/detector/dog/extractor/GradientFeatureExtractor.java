@@ -31,6 +31,7 @@ package org.openimaj.image.feature.local.detector.dog.extractor;
 
 import org.openimaj.feature.OrientedFeatureVector;
 import org.openimaj.image.FImage;
+import org.openimaj.image.analysis.pyramid.ImagePool;
 import org.openimaj.image.feature.local.descriptor.gradient.GradientFeatureProvider;
 import org.openimaj.image.feature.local.descriptor.gradient.GradientFeatureProviderFactory;
 import org.openimaj.image.feature.local.descriptor.gradient.SIFTFeatureProvider;
@@ -72,6 +73,8 @@ public class GradientFeatureExtractor implements ScaleSpaceFeatureExtractor<Orie
 
 	private GradientScaleSpaceImageExtractorProperties<FImage> currentGradientProperties = new GradientScaleSpaceImageExtractorProperties<FImage>();
 
+	private ImagePool<FImage> imagePool;
+
 	/**
 	 * The magnification factor determining the size of the sampling region
 	 * relative to the scale of the interest point.
@@ -154,10 +157,17 @@ public class GradientFeatureExtractor implements ScaleSpaceFeatureExtractor<Orie
 					currentGradientProperties.orientation.height != currentGradientProperties.image.height ||
 					currentGradientProperties.orientation.width != currentGradientProperties.image.width)
 			{
-				currentGradientProperties.orientation = new FImage(currentGradientProperties.image.width,
-						currentGradientProperties.image.height);
-				currentGradientProperties.magnitude = new FImage(currentGradientProperties.image.width,
-						currentGradientProperties.image.height);
+				if (imagePool == null) {
+					currentGradientProperties.orientation = new FImage(currentGradientProperties.image.width,
+							currentGradientProperties.image.height);
+					currentGradientProperties.magnitude = new FImage(currentGradientProperties.image.width,
+							currentGradientProperties.image.height);
+				} else {
+					imagePool.release(currentGradientProperties.orientation);
+					imagePool.release(currentGradientProperties.magnitude);
+					currentGradientProperties.orientation = imagePool.acquire(currentGradientProperties.image);
+					currentGradientProperties.magnitude = imagePool.acquire(currentGradientProperties.image);
+				}
 			}
 
 			FImageGradients.gradientMagnitudesAndOrientations(currentGradientProperties.image,
@@ -171,6 +181,36 @@ public class GradientFeatureExtractor implements ScaleSpaceFeatureExtractor<Orie
 		return currentGradientProperties;
 	}
 
+	/**
+	 * Set a pool from which the gradient magnitude and orientation images are
+	 * drawn. Images are returned to the pool when the size of the image being
+	 * processed changes and when {@link #reset()} is called.
+	 *
+	 * @param imagePool
+	 *            the pool; null to allocate the gradient images as required
+	 */
+	public void setImagePool(ImagePool<FImage> imagePool) {
+		this.imagePool = imagePool;
+	}
+
+	/**
+	 * Forget the image whose gradients are currently cached, releasing the
+	 * gradient images to the pool if one is set. The gradient cache is keyed
+	 * on the identity of the image, so this must be called before reusing the
+	 * extractor with images that might have been recycled (i.e. drawn from an
+	 * {@link ImagePool}).
+	 */
+	public void reset() {
+		if (imagePool != null) {
+			imagePool.release(currentGradientProperties.orientation);
+			imagePool.release(currentGradientProperties.magnitude);
+			currentGradientProperties.orientation = null;
+			currentGradientProperties.magnitude = null;
+		}
+
+		currentGradientProperties.image = null;
+	}
+
 	/*
 	 * Iterate over the pixels in a sampling patch around the given feature
 	 * coordinates and pass the information to a feature provider that will
@@ -33,6 +33,7 @@ import java.lang.reflect.Array;
 
 import org.openimaj.image.FImage;
 import org.openimaj.image.Image;
+import org.openimaj.image.analysis.pyramid.ImagePool;
 import org.openimaj.image.analysis.pyramid.OctaveProcessor;
 import org.openimaj.image.analysis.pyramid.gaussian.GaussianOctave;
 import org.openimaj.image.analysis.pyramid.gaussian.GaussianPyramid;
@@ -73,9 +74,11 @@ public class DoGOctave<
 	public void process(GaussianOctave<I> octave) {
 		images = (I[]) Array.newInstance(octave.images[0].getClass(), options.getScales() + options.getExtraScaleSteps());
 		
+		final ImagePool<I> pool = options.getImagePool();
+		
 		//compute DoG by subtracting adjacent levels 
 		for (int i = 0; i < images.length; i++) {
-			images[i] = octave.images[i].clone();
+			images[i] = pool == null ? octave.images[i].clone() : pool.copyOf(octave.images[i]);
 			images[i].subtractInplace(octave.images[i + 1]);
 		}
 	}
@@ -30,7 +30,10 @@
 package org.openimaj.image.feature.local.detector.dog.pyramid;
 
 import org.openimaj.image.FImage;
+import org.openimaj.image.analysis.pyramid.ImagePool;
+import org.openimaj.image.analysis.pyramid.IncrementalOctaveProcessor;
 import org.openimaj.image.analysis.pyramid.gaussian.GaussianOctave;
+import org.openimaj.image.feature.local.detector.pyramid.AbstractOctaveExtremaFinder;
 import org.openimaj.image.feature.local.detector.pyramid.OctaveInterestPointFinder;
 import org.openimaj.image.feature.local.detector.pyramid.OctaveInterestPointListener;
 
@@ -43,6 +46,13 @@ import org.openimaj.image.feature.local.detector.pyramid.OctaveInterestPointList
  * of interest points from the internal finder are proxied through the
  * DoGOctaveExtremaFinder, and sent to the listener object of the 
  * DoGOctaveExtremaFinder. 
+ * <p>
+ * If the internal finder is an {@link AbstractOctaveExtremaFinder}, the
+ * DoGOctaveExtremaFinder can also be applied incrementally as the Gaussian
+ * octave is constructed (see {@link IncrementalOctaveProcessor}); each
+ * difference-of-Gaussian image is computed as soon as its two Gaussian images 
+ * are available, and each scale is searched as soon as the three
+ * difference-of-Gaussian images around it are available.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  *
@@ -50,7 +60,8 @@ import org.openimaj.image.feature.local.detector.pyramid.OctaveInterestPointList
 public class DoGOctaveExtremaFinder 
 	implements 
 		OctaveInterestPointFinder<GaussianOctave<FImage>, FImage>, 
-		OctaveInterestPointListener<GaussianOctave<FImage>, FImage> 
+		OctaveInterestPointListener<GaussianOctave<FImage>, FImage>,
+		IncrementalOctaveProcessor<GaussianOctave<FImage>, FImage>
 {
 	GaussianOctave<FImage> gaussianOctave; //the Gaussian octave
 	DoGOctave<FImage> dogOctave;	//a difference-of-Gaussian octave constructed from the Gaussian one
@@ -95,6 +106,50 @@ public class DoGOctaveExtremaFinder
 		dogOctave.process(octave);
 		
 		innerFinder.process(dogOctave);
+		
+		//the difference images can be reused once the search is complete
+		final ImagePool<FImage> pool = octave.options.getImagePool();
+		if (pool != null) pool.releaseAll(dogOctave.images);
+	}
+	
+	@Override
+	public int processLevel(GaussianOctave<FImage> octave, int index) {
+		if (!(innerFinder instanceof AbstractOctaveExtremaFinder)) {
+			//the inner finder can only work on complete octaves
+			if (index == octave.images.length - 1) process(octave);
+			return 0;
+		}
+		
+		@SuppressWarnings("unchecked")
+		final AbstractOctaveExtremaFinder<GaussianOctave<FImage>> finder = (AbstractOctaveExtremaFinder<GaussianOctave<FImage>>) innerFinder;
+		final ImagePool<FImage> pool = octave.options.getImagePool();
+		
+		if (index == 0) {
+			gaussianOctave = octave;
+			dogOctave = new DoGOctave<FImage>(octave.parentPyramid, octave.octaveSize);
+			dogOctave.images = new FImage[octave.images.length - 1];
+			return 0;
+		}
+		
+		final FImage[] dogs = dogOctave.images;
+		dogs[index - 1] = pool == null ? octave.images[index - 1].clone() : pool.copyOf(octave.images[index - 1]);
+		dogs[index - 1].subtractInplace(octave.images[index]);
+		
+		//the scale centred on the previous difference image can now be searched
+		final int scale = index - 2;
+		if (scale >= 1) {
+			finder.processScale(dogOctave, scale);
+			
+			if (pool != null) pool.release(dogs[scale - 1]);
+			dogs[scale - 1] = null;
+		}
+		
+		if (index == octave.images.length - 1 && pool != null)
+			pool.releaseAll(dogs);
+		
+		//the next scale needs the Gaussian image at index-1 for feature
+		//extraction and the one at index to compute the next difference
+		return index - 1;
 	}
 
 	@Override
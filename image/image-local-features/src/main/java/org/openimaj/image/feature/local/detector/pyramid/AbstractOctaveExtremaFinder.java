@@ -101,25 +101,49 @@ public abstract class AbstractOctaveExtremaFinder<OCTAVE extends GaussianOctave<
 
 		this.octave = octave;
 
-		final FImage[] images = octave.images;
-		final int height = images[0].height;
-		final int width = images[0].width;
+		// search through the scale-space images, leaving a border
+		for (currentScaleIndex = 1; currentScaleIndex < octave.images.length - 1; currentScaleIndex++) {
+			findExtrema(octave.images, currentScaleIndex);
+		}
+	}
+
+	/**
+	 * Search for extrema at a single scale of the octave. Only the images at
+	 * <code>scaleIndex-1</code>, <code>scaleIndex</code> and
+	 * <code>scaleIndex+1</code> need to be present, which allows the octave to
+	 * be searched incrementally whilst it is being constructed. Calling this
+	 * for each scale in turn is equivalent to calling {@link #process(OCTAVE)}.
+	 * 
+	 * @param octave
+	 *            the octave
+	 * @param scaleIndex
+	 *            the index of the scale to search
+	 */
+	public void processScale(OCTAVE octave, int scaleIndex) {
+		beforeProcess(octave);
+
+		this.octave = octave;
+		this.currentScaleIndex = scaleIndex;
+
+		findExtrema(octave.images, scaleIndex);
+	}
+
+	private void findExtrema(FImage[] images, int scaleIndex) {
+		final int height = images[scaleIndex].height;
+		final int width = images[scaleIndex].width;
 		final int borderDist = octave.options.getBorderPixels();
 
-		// search through the scale-space images, leaving a border
-		for (currentScaleIndex = 1; currentScaleIndex < images.length - 1; currentScaleIndex++) {
-			for (int y = borderDist; y < height - borderDist; y++) {
-				for (int x = borderDist; x < width - borderDist; x++) {
-					final float val = images[currentScaleIndex].pixels[y][x];
-
-					if (firstCheck(val, x, y, currentScaleIndex, images) &&
-							isLocalExtremum(val, images[currentScaleIndex - 1], x, y) &&
-							isLocalExtremum(val, images[currentScaleIndex], x, y) &&
-							isLocalExtremum(val, images[currentScaleIndex + 1], x, y) &&
-							isNotEdge(images[currentScaleIndex], x, y))
-					{
-						processExtrema(images, currentScaleIndex, x, y, octave.octaveSize);
-					}
+		for (int y = borderDist; y < height - borderDist; y++) {
+			for (int x = borderDist; x < width - borderDist; x++) {
+				final float val = images[scaleIndex].pixels[y][x];
+
+				if (firstCheck(val, x, y, scaleIndex, images) &&
+						isLocalExtremum(val, images[scaleIndex - 1], x, y) &&
+						isLocalExtremum(val, images[scaleIndex], x, y) &&
+						isLocalExtremum(val, images[scaleIndex + 1], x, y) &&
+						isNotEdge(images[scaleIndex], x, y))
+				{
+					processExtrema(images, scaleIndex, x, y, octave.octaveSize);
 				}
 			}
 		}
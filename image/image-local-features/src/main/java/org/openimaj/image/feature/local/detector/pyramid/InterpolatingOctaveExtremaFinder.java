@@ -127,6 +127,14 @@ public class InterpolatingOctaveExtremaFinder extends BasicOctaveExtremaFinder {
 		super.process(octave);
 	}
 
+	@Override
+	public void processScale(GaussianOctave<FImage> octave, int scaleIndex) {
+		if (octave != this.octave || map == null)
+			map = new boolean[octave.images[scaleIndex].height][octave.images[scaleIndex].width];
+
+		super.processScale(octave, scaleIndex);
+	}
+
 	@Override
 	protected void processExtrema(FImage[] dogs, int s, int x, int y, float octSize) {
 		currentIteration = 0;
@@ -139,11 +147,11 @@ public class InterpolatingOctaveExtremaFinder extends BasicOctaveExtremaFinder {
 		// fit 3d quadratic
 		final FitResult fit = fitQuadratic3D(dogs, s, x, y);
 
-		if (fit.offset.get(1, 0) > 0.5 && y < dogs[0].height - octave.options.getBorderPixels())
+		if (fit.offset.get(1, 0) > 0.5 && y < dogs[s].height - octave.options.getBorderPixels())
 			newy++;
 		if (fit.offset.get(1, 0) < -0.5 && y > octave.options.getBorderPixels())
 			newy--;
-		if (fit.offset.get(2, 0) > 0.5 && x < dogs[0].width - octave.options.getBorderPixels())
+		if (fit.offset.get(2, 0) > 0.5 && x < dogs[s].width - octave.options.getBorderPixels())
 			newx++;
 		if (fit.offset.get(2, 0) < -0.5 && x > octave.options.getBorderPixels())
 			newx--;
@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.feature.local.engine;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.feature.local.list.LocalFeatureList;
+import org.openimaj.image.FImage;
+import org.openimaj.image.analysis.pyramid.ImagePool;
+import org.openimaj.image.analysis.pyramid.gaussian.GaussianOctave;
+import org.openimaj.image.analysis.pyramid.gaussian.GaussianPyramid;
+import org.openimaj.image.feature.local.detector.dog.collector.OctaveKeypointCollector;
+import org.openimaj.image.feature.local.detector.dog.extractor.GradientFeatureExtractor;
+import org.openimaj.image.feature.local.detector.pyramid.OctaveInterestPointFinder;
+import org.openimaj.image.feature.local.keypoints.Keypoint;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+import org.openimaj.util.stream.AbstractStream;
+import org.openimaj.util.stream.Stream;
+
+/**
+ * A {@link DoGSIFTEngine} designed for extracting features from many images.
+ * Each concurrent extraction uses its own detector and extractor chain; the
+ * chains are kept when idle and reused for later images. The octave and
+ * gradient images are drawn from an {@link ImagePool} shared by all the
+ * chains, and the octaves are processed in streaming mode (see
+ * {@link DoGSIFTEngineOptions#setStreaming(boolean)}) to minimise the peak
+ * memory used by each extraction. The features are identical to those
+ * produced by a {@link DoGSIFTEngine} with the same options.
+ * <p>
+ * {@link #findFeatures(FImage)} is thread-safe, so the engine can be shared by
+ * several threads. Alternatively, {@link #findFeatures(Iterable)} extracts
+ * features from a sequence of images in parallel, returning the results in
+ * order, whilst limiting the number of images being processed at once.
+ * <p>
+ * The options are copied when the engine is constructed, so later changes to
+ * them have no effect on the engine. The idle chains and pooled images are
+ * held until the engine is garbage collected; call {@link #clear()} to release
+ * them sooner from a long-lived engine.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class BatchDoGSIFTEngine implements Engine<Keypoint, FImage> {
+	/**
+	 * The maximum number of bytes held by the {@link ImagePool} the engine
+	 * creates if the options don't provide one
+	 */
+	public static final long DEFAULT_POOL_BYTES = 32L * 1024 * 1024;
+
+	private final DoGSIFTEngineOptions<FImage> options;
+	private final ImagePool<FImage> imagePool;
+	private final boolean ownsImagePool;
+	private final ThreadPoolExecutor pool;
+	private final int maxInFlight;
+
+	private final ConcurrentLinkedQueue<Worker> idleWorkers = new ConcurrentLinkedQueue<Worker>();
+
+	/**
+	 * The state of a single extraction
+	 */
+	private class Worker {
+		final DoGSIFTEngineOptions<FImage> workerOptions;
+		final OctaveInterestPointFinder<GaussianOctave<FImage>, FImage> finder;
+		final GradientFeatureExtractor extractor;
+
+		Worker() {
+			workerOptions = new DoGSIFTEngineOptions<FImage>(options);
+			workerOptions.setImagePool(imagePool);
+			workerOptions.setStreaming(true);
+
+			finder = DoGSIFTEngine.createFinder(workerOptions);
+			extractor = DoGSIFTEngine.createExtractor(workerOptions);
+			extractor.setImagePool(imagePool);
+
+			workerOptions.setOctaveProcessor(finder);
+		}
+
+		LocalFeatureList<Keypoint> findFeatures(FImage image) {
+			final OctaveKeypointCollector<FImage> collector = new OctaveKeypointCollector<FImage>(extractor);
+			finder.setOctaveInterestPointListener(collector);
+
+			try {
+				new GaussianPyramid<FImage>(workerOptions).process(image);
+			} finally {
+				// the pooled images will be recycled, so the extractor must
+				// not think it has already seen them
+				extractor.reset();
+			}
+
+			return collector.getFeatures();
+		}
+	}
+
+	/**
+	 * Construct a BatchDoGSIFTEngine with the default options, using the
+	 * {@link GlobalExecutorPool} for batch extraction.
+	 */
+	public BatchDoGSIFTEngine() {
+		this(new DoGSIFTEngineOptions<FImage>());
+	}
+
+	/**
+	 * Construct a BatchDoGSIFTEngine with the given options, using the
+	 * {@link GlobalExecutorPool} for batch extraction.
+	 *
+	 * @param options
+	 *            the options
+	 */
+	public BatchDoGSIFTEngine(DoGSIFTEngineOptions<FImage> options) {
+		this(options, GlobalExecutorPool.getPool());
+	}
+
+	/**
+	 * Construct a BatchDoGSIFTEngine with the given options, using the given
+	 * thread pool for batch extraction. At most twice as many images as the
+	 * pool has core threads (or the machine has processors, if the pool has
+	 * no core threads) will be in flight at once.
+	 *
+	 * @param options
+	 *            the options
+	 * @param pool
+	 *            the thread pool
+	 */
+	public BatchDoGSIFTEngine(DoGSIFTEngineOptions<FImage> options, ThreadPoolExecutor pool) {
+		this(options, pool, 2 * (pool.getCorePoolSize() > 0 ? pool.getCorePoolSize() : Runtime.getRuntime()
+				.availableProcessors()));
+	}
+
+	/**
+	 * Construct a BatchDoGSIFTEngine with the given options, using the given
+	 * thread pool for batch extraction, and limiting the number of images that
+	 * are in flight at once. If the options have an {@link ImagePool}, it is
+	 * used by all threads; otherwise a new pool holding at most
+	 * {@link #DEFAULT_POOL_BYTES} bytes is created.
+	 *
+	 * @param options
+	 *            the options
+	 * @param pool
+	 *            the thread pool
+	 * @param maxInFlight
+	 *            the maximum number of images being processed (or waiting to
+	 *            be consumed) at once
+	 */
+	public BatchDoGSIFTEngine(DoGSIFTEngineOptions<FImage> options, ThreadPoolExecutor pool, int maxInFlight) {
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("maxInFlight must be at least 1");
+
+		this.options = new DoGSIFTEngineOptions<FImage>(options);
+		this.ownsImagePool = options.getImagePool() == null;
+		// FImage pixels are 4 byte floats
+		this.imagePool = ownsImagePool ? new ImagePool<FImage>(DEFAULT_POOL_BYTES / 4) : options.getImagePool();
+		this.pool = pool;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Find the features in the given image using an idle detector and
+	 * extractor chain, or a new one if none are idle.
+	 */
+	@Override
+	public LocalFeatureList<Keypoint> findFeatures(FImage image) {
+		Worker worker = idleWorkers.poll();
+		if (worker == null)
+			worker = new Worker();
+
+		try {
+			return worker.findFeatures(image);
+		} finally {
+			idleWorkers.offer(worker);
+		}
+	}
+
+	/**
+	 * Release the idle detector and extractor chains, and empty the image pool
+	 * if it was created by the engine (a pool given in the options is left
+	 * alone). This frees the memory held by a long-lived engine between
+	 * batches; the engine can still be used afterwards, and will create new
+	 * chains as needed.
+	 */
+	public void clear() {
+		idleWorkers.clear();
+
+		if (ownsImagePool)
+			imagePool.clear();
+	}
+
+	/**
+	 * Find the features in each of the given images in parallel. The images
+	 * are read from the iterable lazily as the returned stream is consumed,
+	 * and the features are returned in the same order as the images. Only a
+	 * bounded number of images are in flight at any time. If an extraction is
+	 * still waiting for a thread when its result is requested, it is performed
+	 * by the consuming thread, so it is safe to consume the stream from a
+	 * thread in the pool.
+	 *
+	 * @param images
+	 *            the images
+	 * @return a stream of the features of each image
+	 */
+	public Stream<LocalFeatureList<Keypoint>> findFeatures(Iterable<FImage> images) {
+		final Iterator<FImage> iterator = images.iterator();
+
+		return new AbstractStream<LocalFeatureList<Keypoint>>() {
+			private final ArrayDeque<FutureTask<LocalFeatureList<Keypoint>>> inFlight = new ArrayDeque<FutureTask<LocalFeatureList<Keypoint>>>();
+
+			private void fill() {
+				while (inFlight.size() < maxInFlight && iterator.hasNext()) {
+					final FImage image = iterator.next();
+
+					final FutureTask<LocalFeatureList<Keypoint>> task = new FutureTask<LocalFeatureList<Keypoint>>(
+							new Callable<LocalFeatureList<Keypoint>>() {
+								@Override
+								public LocalFeatureList<Keypoint> call() {
+									return findFeatures(image);
+								}
+							});
+
+					inFlight.add(task);
+					pool.execute(task);
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				fill();
+				return !inFlight.isEmpty();
+			}
+
+			@Override
+			public LocalFeatureList<Keypoint> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				final FutureTask<LocalFeatureList<Keypoint>> task = inFlight.poll();
+
+				// does nothing if the task has already been started by the pool
+				task.run();
+
+				try {
+					return task.get();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				} catch (final ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		};
+	}
+
+	/**
+	 * Get a copy of the options used by the engine.
+	 *
+	 * @return the options
+	 */
+	public DoGSIFTEngineOptions<FImage> getOptions() {
+		return new DoGSIFTEngineOptions<FImage>(options);
+	}
+
+	/**
+	 * Get the pool from which the octave and gradient images are drawn.
+	 *
+	 * @return the image pool
+	 */
+	public ImagePool<FImage> getImagePool() {
+		return imagePool;
+	}
+}
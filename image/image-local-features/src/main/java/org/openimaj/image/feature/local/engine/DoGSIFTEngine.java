@@ -103,30 +103,10 @@ public class DoGSIFTEngine implements Engine<Keypoint, FImage> {
 
 	@Override
 	public LocalFeatureList<Keypoint> findFeatures(FImage image) {
-		final OctaveInterestPointFinder<GaussianOctave<FImage>, FImage> finder =
-				new DoGOctaveExtremaFinder(new BasicOctaveExtremaFinder(options.magnitudeThreshold,
-						options.eigenvalueRatio));
+		final OctaveInterestPointFinder<GaussianOctave<FImage>, FImage> finder = createFinder(options);
 
 		final Collector<GaussianOctave<FImage>, Keypoint, FImage> collector = new OctaveKeypointCollector<FImage>(
-				new GradientFeatureExtractor(
-						new DominantOrientationExtractor(
-								options.peakThreshold,
-								new OrientationHistogramExtractor(
-										options.numOriHistBins,
-										options.scaling,
-										options.smoothingIterations,
-										options.samplingSize
-								)
-						),
-						new SIFTFeatureProvider(
-								options.numOriBins,
-								options.numSpatialBins,
-								options.valueThreshold,
-								options.gaussianSigma
-						),
-						options.magnificationFactor * options.numSpatialBins
-				)
-				);
+				createExtractor(options));
 
 		finder.setOctaveInterestPointListener(collector);
 
@@ -138,6 +118,32 @@ public class DoGSIFTEngine implements Engine<Keypoint, FImage> {
 		return collector.getFeatures();
 	}
 
+	static OctaveInterestPointFinder<GaussianOctave<FImage>, FImage> createFinder(DoGSIFTEngineOptions<?> options) {
+		return new DoGOctaveExtremaFinder(new BasicOctaveExtremaFinder(options.magnitudeThreshold,
+				options.eigenvalueRatio));
+	}
+
+	static GradientFeatureExtractor createExtractor(DoGSIFTEngineOptions<?> options) {
+		return new GradientFeatureExtractor(
+				new DominantOrientationExtractor(
+						options.peakThreshold,
+						new OrientationHistogramExtractor(
+								options.numOriHistBins,
+								options.scaling,
+								options.smoothingIterations,
+								options.samplingSize
+						)
+				),
+				new SIFTFeatureProvider(
+						options.numOriBins,
+						options.numSpatialBins,
+						options.valueThreshold,
+						options.gaussianSigma
+				),
+				options.magnificationFactor * options.numSpatialBins
+		);
+	}
+
 	/**
 	 * @return the current options used by the engine
 	 */
@@ -110,6 +110,37 @@ public class DoGSIFTEngineOptions<IMAGE extends Image<?, IMAGE> & SinglebandImag
 	 */
 	protected float gaussianSigma = 1.0f;
 
+	/**
+	 * Default constructor.
+	 */
+	public DoGSIFTEngineOptions() {
+
+	}
+
+	/**
+	 * Construct the options by copying the non-processor options from the
+	 * given options object.
+	 * 
+	 * @param options
+	 *            options to copy from
+	 */
+	public DoGSIFTEngineOptions(DoGSIFTEngineOptions<?> options) {
+		super(options);
+
+		this.eigenvalueRatio = options.eigenvalueRatio;
+		this.magnitudeThreshold = options.magnitudeThreshold;
+		this.magnificationFactor = options.magnificationFactor;
+		this.peakThreshold = options.peakThreshold;
+		this.numOriHistBins = options.numOriHistBins;
+		this.scaling = options.scaling;
+		this.smoothingIterations = options.smoothingIterations;
+		this.samplingSize = options.samplingSize;
+		this.numOriBins = options.numOriBins;
+		this.numSpatialBins = options.numSpatialBins;
+		this.valueThreshold = options.valueThreshold;
+		this.gaussianSigma = options.gaussianSigma;
+	}
+
 	/**
 	 * Get the threshold on the ratio of the Eigenvalues of the Hessian matrix
 	 * (Lowe IJCV, p.12)
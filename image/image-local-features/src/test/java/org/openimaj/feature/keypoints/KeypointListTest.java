@@ -36,6 +36,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -44,7 +45,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.openimaj.feature.local.list.FileLocalFeatureList;
+import org.openimaj.data.DataSource;
 import org.openimaj.feature.local.list.LocalFeatureList;
+import org.openimaj.feature.local.list.MemoryMappedFileLocalFeatureList;
 import org.openimaj.feature.local.list.MemoryLocalFeatureList;
 import org.openimaj.feature.local.list.StreamLocalFeatureList;
 import org.openimaj.image.FImage;
@@ -268,4 +271,48 @@ public class KeypointListTest {
 
 		ascii.delete();
 	}
+
+	/**
+	 * Test that the memory-mapped list and its views are consistent with the
+	 * original keypoints
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void memoryMappedTest() throws IOException {
+		final File binary = folder.newFile("kpt-memoryMappedTest.tmp");
+		IOUtils.writeBinary(binary, keys);
+
+		final MemoryMappedFileLocalFeatureList<Keypoint> mkl = MemoryMappedFileLocalFeatureList.read(binary,
+				Keypoint.class);
+
+		assertEquals(keys.size(), mkl.size());
+		assertEquals(keys, mkl);
+		assertEquals(keys.subList(2, 4), mkl.subList(2, 4));
+
+		final DataSource<byte[]> ds = mkl.createDataSource();
+		assertEquals(keys.size(), ds.size());
+		assertEquals(128, ds.numDimensions());
+
+		final byte[][] data = ds.createTemporaryArray(keys.size());
+		ds.getData(0, keys.size(), data);
+
+		for (int i = 0; i < keys.size(); i++) {
+			final Keypoint k = keys.get(i);
+
+			assertArrayEquals(k.ivec, data[i]);
+			assertArrayEquals(k.ivec, mkl.getVector(i, null));
+
+			final ByteBuffer vec = mkl.getVectorBuffer(i);
+			assertEquals(128, vec.remaining());
+			for (int j = 0; j < 128; j++)
+				assertEquals(k.ivec[j], vec.get(j));
+
+			final ByteBuffer loc = mkl.getLocationBuffer(i);
+			assertEquals(k.x, loc.getFloat(0), 0);
+			assertEquals(k.y, loc.getFloat(4), 0);
+		}
+
+		binary.delete();
+	}
 }
@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.feature.local.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+import org.openimaj.feature.local.list.LocalFeatureList;
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.analysis.pyramid.ImagePool;
+import org.openimaj.image.feature.local.keypoints.Keypoint;
+import org.openimaj.image.processing.convolution.FGaussianConvolve;
+import org.openimaj.math.geometry.shape.Circle;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+import org.openimaj.util.stream.Stream;
+
+/**
+ * Tests for {@link DoGSIFTEngine}.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class DoGSIFTEngineTest {
+	private FImage createImage(long seed) {
+		final Random rng = new Random(seed);
+		final FImage image = new FImage(200, 160);
+
+		for (int i = 0; i < 20; i++)
+			image.drawShapeFilled(new Circle(rng.nextInt(200), rng.nextInt(160), 3 + rng.nextInt(20)), rng.nextFloat());
+
+		return image.processInplace(new FGaussianConvolve(1f));
+	}
+
+	private void assertSameFeatures(LocalFeatureList<Keypoint> expected, LocalFeatureList<Keypoint> actual) {
+		assertEquals(expected.size(), actual.size());
+
+		for (int i = 0; i < expected.size(); i++) {
+			final Keypoint e = expected.get(i);
+			final Keypoint a = actual.get(i);
+
+			assertEquals(e.x, a.x, 0f);
+			assertEquals(e.y, a.y, 0f);
+			assertEquals(e.scale, a.scale, 0f);
+			assertEquals(e.ori, a.ori, 0f);
+			assertArrayEquals(e.ivec, a.ivec);
+		}
+	}
+
+	/**
+	 * Test that pooling the octave images and processing the octaves
+	 * incrementally doesn't change the features
+	 */
+	@Test
+	public void testPooledAndStreaming() {
+		final FImage image = createImage(1);
+		final LocalFeatureList<Keypoint> expected = new DoGSIFTEngine().findFeatures(image);
+		assertTrue(expected.size() > 0);
+
+		final DoGSIFTEngine pooled = new DoGSIFTEngine();
+		pooled.getOptions().setImagePool(new ImagePool<FImage>());
+		assertSameFeatures(expected, pooled.findFeatures(image));
+		assertTrue(pooled.getOptions().getImagePool().getPooledPixels() > 0);
+
+		final DoGSIFTEngine streaming = new DoGSIFTEngine();
+		streaming.getOptions().setStreaming(true);
+		assertSameFeatures(expected, streaming.findFeatures(image));
+
+		final DoGSIFTEngine both = new DoGSIFTEngine();
+		both.getOptions().setStreaming(true);
+		both.getOptions().setImagePool(new ImagePool<FImage>());
+		assertSameFeatures(expected, both.findFeatures(image));
+
+		// the pool now contains images from the first run; a different image
+		// must still give the correct features
+		final FImage image2 = createImage(2);
+		assertSameFeatures(new DoGSIFTEngine().findFeatures(image2), both.findFeatures(image2));
+		assertSameFeatures(expected, both.findFeatures(image));
+	}
+
+	/**
+	 * Test that copied options share the image pool, and that a pool shared
+	 * between image types never hands out an image of the wrong type
+	 */
+	@Test
+	public void testCopiedOptionsKeepPool() {
+		final DoGSIFTEngineOptions<FImage> options = new DoGSIFTEngineOptions<FImage>();
+		options.setImagePool(new ImagePool<FImage>());
+		options.setStreaming(true);
+
+		final DoGSIFTEngineOptions<FImage> copy = new DoGSIFTEngineOptions<FImage>(options);
+		assertSame(options.getImagePool(), copy.getImagePool());
+		assertTrue(copy.isStreaming());
+
+		final FImage image = createImage(1);
+		assertSameFeatures(new DoGSIFTEngine().findFeatures(image), new DoGSIFTEngine(copy).findFeatures(image));
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final ImagePool<MBFImage> shared = (ImagePool) copy.getImagePool();
+		final MBFImage colour = new MBFImage(image.width, image.height, 3);
+		shared.release(colour);
+		final MBFImage acquired = shared.acquire(new MBFImage(image.width, image.height, 3));
+		assertSame(colour, acquired);
+		shared.release(acquired);
+
+		final FImage grey = copy.getImagePool().acquire(image);
+		assertNotSame(colour, grey);
+		assertEquals(image.width, grey.width);
+	}
+
+	/**
+	 * Test that the batch engine gives the same features, in the same order,
+	 * as the standard engine
+	 */
+	@Test
+	public void testBatch() {
+		final List<FImage> images = new ArrayList<FImage>();
+		final List<LocalFeatureList<Keypoint>> expected = new ArrayList<LocalFeatureList<Keypoint>>();
+		for (int i = 0; i < 6; i++) {
+			images.add(createImage(i));
+			expected.add(new DoGSIFTEngine().findFeatures(images.get(i)));
+		}
+
+		final ThreadPoolExecutor pool = GlobalExecutorPool.getPool();
+		final BatchDoGSIFTEngine engine = new BatchDoGSIFTEngine(new DoGSIFTEngineOptions<FImage>(), pool, 2);
+
+		// run twice so the pooled images and extractor chains are reused
+		for (int run = 0; run < 2; run++) {
+			final Stream<LocalFeatureList<Keypoint>> results = engine.findFeatures(images);
+
+			for (int i = 0; i < images.size(); i++) {
+				assertTrue(results.hasNext());
+				assertSameFeatures(expected.get(i), results.next());
+			}
+			assertTrue(!results.hasNext());
+		}
+
+		for (int i = 0; i < images.size(); i++)
+			assertSameFeatures(expected.get(i), engine.findFeatures(images.get(i)));
+
+		// the engine's own pool is bounded, emptied by clear(), and the engine
+		// still works afterwards
+		assertTrue(engine.getImagePool().getPooledPixels() > 0);
+		assertTrue(engine.getImagePool().getPooledPixels() <= BatchDoGSIFTEngine.DEFAULT_POOL_BYTES / 4);
+		engine.clear();
+		assertEquals(0, engine.getImagePool().getPooledPixels());
+		assertSameFeatures(expected.get(0), engine.findFeatures(images.get(0)));
+	}
+
+	/**
+	 * Test that clearing the batch engine leaves a pool given in the options
+	 * alone
+	 */
+	@Test
+	public void testBatchClearSharedPool() {
+		final ImagePool<FImage> shared = new ImagePool<FImage>();
+		final DoGSIFTEngineOptions<FImage> options = new DoGSIFTEngineOptions<FImage>();
+		options.setImagePool(shared);
+
+		final BatchDoGSIFTEngine engine = new BatchDoGSIFTEngine(options, GlobalExecutorPool.getPool(), 2);
+		assertSame(shared, engine.getImagePool());
+
+		final FImage image = createImage(0);
+		assertSameFeatures(new DoGSIFTEngine().findFeatures(image), engine.findFeatures(image));
+
+		final long pooled = shared.getPooledPixels();
+		assertTrue(pooled > 0);
+		engine.clear();
+		assertEquals(pooled, shared.getPooledPixels());
+	}
+
+	/**
+	 * Test that the batch engine can be built on a cached pool, whose maximum
+	 * size can't be used to size the number of images in flight
+	 */
+	@Test
+	public void testBatchCachedPool() {
+		final ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+		try {
+			final BatchDoGSIFTEngine engine = new BatchDoGSIFTEngine(new DoGSIFTEngineOptions<FImage>(), pool);
+
+			final List<FImage> images = new ArrayList<FImage>();
+			for (int i = 0; i < 3; i++)
+				images.add(createImage(i));
+
+			final Stream<LocalFeatureList<Keypoint>> results = engine.findFeatures(images);
+			for (int i = 0; i < images.size(); i++)
+				assertSameFeatures(new DoGSIFTEngine().findFeatures(images.get(i)), results.next());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.analysis.pyramid;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openimaj.image.Image;
+
+/**
+ * A thread-safe pool of images that can be reused to avoid repeatedly
+ * allocating large buffers, for example when building the levels of many
+ * pyramids of the same size. Released images are grouped by their type and
+ * size, and the total number of pixels held by the pool is bounded. As the
+ * images are grouped by type, a pool can safely be shared by pyramids of
+ * different image types.
+ * <p>
+ * Images must not be used by the caller once they have been released to the
+ * pool, as they will be handed out again and overwritten. The contents of an
+ * image returned by {@link #acquire(Image)} are undefined.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ *
+ * @param <IMAGE>
+ *            Type of image
+ */
+public class ImagePool<IMAGE extends Image<?, IMAGE>> {
+	/**
+	 * The default maximum number of pixels held by the pool
+	 */
+	public static final long DEFAULT_MAX_PIXELS = 64L * 1024 * 1024;
+
+	private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Long, Queue<IMAGE>>> images = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<Long, Queue<IMAGE>>>();
+	private final AtomicLong pooledPixels = new AtomicLong();
+	private final long maxPixels;
+
+	/**
+	 * Construct a pool that holds at most {@link #DEFAULT_MAX_PIXELS} pixels.
+	 */
+	public ImagePool() {
+		this(DEFAULT_MAX_PIXELS);
+	}
+
+	/**
+	 * Construct a pool that holds at most the given number of pixels. Images
+	 * released when the pool is full are left for the garbage collector.
+	 *
+	 * @param maxPixels
+	 *            the maximum number of pixels to hold
+	 */
+	public ImagePool(long maxPixels) {
+		this.maxPixels = maxPixels;
+	}
+
+	private static long key(int width, int height) {
+		return ((long) width << 32) | (height & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Get an image with the same size as the given image. A pooled image is
+	 * returned if one is available; otherwise a new image is created. The
+	 * contents of the returned image are undefined.
+	 *
+	 * @param like
+	 *            the image whose size (and type) should be matched
+	 * @return an image of the same size
+	 */
+	public IMAGE acquire(IMAGE like) {
+		final int width = like.getWidth();
+		final int height = like.getHeight();
+
+		final ConcurrentHashMap<Long, Queue<IMAGE>> sizes = images.get(like.getClass());
+		final Queue<IMAGE> queue = sizes == null ? null : sizes.get(key(width, height));
+		if (queue != null) {
+			final IMAGE image = queue.poll();
+
+			if (image != null) {
+				pooledPixels.addAndGet(-(long) width * height);
+				return image;
+			}
+		}
+
+		return like.newInstance(width, height);
+	}
+
+	/**
+	 * Get a copy of the given image, reusing a pooled image if possible. This
+	 * is equivalent to {@link Image#clone()}, but avoids the allocation.
+	 *
+	 * @param image
+	 *            the image to copy
+	 * @return the copy
+	 */
+	public IMAGE copyOf(IMAGE image) {
+		return acquire(image).internalCopy(image);
+	}
+
+	/**
+	 * Return an image to the pool so it can be reused. Null images are
+	 * ignored.
+	 *
+	 * @param image
+	 *            the image
+	 */
+	public void release(IMAGE image) {
+		if (image == null)
+			return;
+
+		final int width = image.getWidth();
+		final int height = image.getHeight();
+		final long npixels = (long) width * height;
+
+		if (pooledPixels.addAndGet(npixels) > maxPixels) {
+			pooledPixels.addAndGet(-npixels);
+			return;
+		}
+
+		ConcurrentHashMap<Long, Queue<IMAGE>> sizes = images.get(image.getClass());
+		if (sizes == null) {
+			final ConcurrentHashMap<Long, Queue<IMAGE>> newSizes = new ConcurrentHashMap<Long, Queue<IMAGE>>();
+			sizes = images.putIfAbsent(image.getClass(), newSizes);
+			if (sizes == null)
+				sizes = newSizes;
+		}
+
+		final Long key = key(width, height);
+		Queue<IMAGE> queue = sizes.get(key);
+		if (queue == null) {
+			final Queue<IMAGE> newQueue = new ConcurrentLinkedQueue<IMAGE>();
+			queue = sizes.putIfAbsent(key, newQueue);
+			if (queue == null)
+				queue = newQueue;
+		}
+
+		queue.offer(image);
+	}
+
+	/**
+	 * Release all the non-null images in the given array to the pool, and set
+	 * their entries in the array to null.
+	 *
+	 * @param toRelease
+	 *            the images to release
+	 */
+	public void releaseAll(IMAGE[] toRelease) {
+		for (int i = 0; i < toRelease.length; i++) {
+			release(toRelease[i]);
+			toRelease[i] = null;
+		}
+	}
+
+	/**
+	 * Get the total number of pixels in the images currently held by the pool.
+	 *
+	 * @return the number of pooled pixels
+	 */
+	public long getPooledPixels() {
+		return pooledPixels.get();
+	}
+
+	/**
+	 * Remove all images from the pool.
+	 */
+	public void clear() {
+		images.clear();
+		pooledPixels.set(0);
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.analysis.pyramid;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.Image;
+import org.openimaj.image.processor.SinglebandImageProcessor;
+
+/**
+ * An {@link OctaveProcessor} that can work on an octave incrementally, as each
+ * of its images is constructed, rather than waiting for the octave to be
+ * complete. This allows the octave to discard images that are no longer
+ * required by the processor, reducing the peak memory needed to process a
+ * pyramid.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ *
+ * @param <OCTAVE>
+ *            Type of octave being processed
+ * @param <IMAGE>
+ *            Type of underlying image
+ */
+public interface IncrementalOctaveProcessor<
+		OCTAVE extends
+			Octave<?, ?, IMAGE>,
+		IMAGE extends
+			Image<?, IMAGE> &
+			SinglebandImageProcessor.Processable<Float, FImage, IMAGE>
+>
+		extends
+		OctaveProcessor<OCTAVE, IMAGE>
+{
+	/**
+	 * Process the octave after the image at the given index has been
+	 * constructed. Images are constructed in order starting at index 0, and
+	 * this method is called once for each of them; the final call (with index
+	 * <code>octave.images.length - 1</code>) marks the end of the octave.
+	 *
+	 * @param octave
+	 *            the octave being constructed
+	 * @param index
+	 *            the index of the image that has just been constructed
+	 * @return the index of the first image that is still required by the
+	 *         processor; the octave may discard any images before this.
+	 */
+	public int processLevel(OCTAVE octave, int index);
+}
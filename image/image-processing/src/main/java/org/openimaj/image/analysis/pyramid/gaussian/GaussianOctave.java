@@ -33,7 +33,10 @@ import java.lang.reflect.Array;
 
 import org.openimaj.image.FImage;
 import org.openimaj.image.Image;
+import org.openimaj.image.analysis.pyramid.ImagePool;
+import org.openimaj.image.analysis.pyramid.IncrementalOctaveProcessor;
 import org.openimaj.image.analysis.pyramid.Octave;
+import org.openimaj.image.analysis.pyramid.OctaveProcessor;
 import org.openimaj.image.processor.SinglebandImageProcessor;
 
 /**
@@ -84,6 +87,17 @@ public class GaussianOctave<IMAGE extends Image<?, IMAGE> & SinglebandImageProce
 	public void process(IMAGE image) {
 		images = (IMAGE[]) Array.newInstance(image.getClass(), options.scales + options.extraScaleSteps + 1);
 
+		final ImagePool<IMAGE> pool = options.getImagePool();
+		final OctaveProcessor<GaussianOctave<IMAGE>, IMAGE> processor = options.getOctaveProcessor();
+
+		IncrementalOctaveProcessor<GaussianOctave<IMAGE>, IMAGE> incremental = null;
+		if (options.isStreaming() && processor instanceof IncrementalOctaveProcessor)
+			incremental = (IncrementalOctaveProcessor<GaussianOctave<IMAGE>, IMAGE>) processor;
+
+		// images can only be discarded if nothing else will look at them
+		// once the octave is complete
+		final boolean discard = parentPyramid != null && parentPyramid.getOctaves() == null;
+
 		// we want to each level to be separated by a constant factor
 		// k=2^(1/scales)
 		final float k = (float) Math.pow(2.0, 1.0 / options.scales);
@@ -91,11 +105,14 @@ public class GaussianOctave<IMAGE extends Image<?, IMAGE> & SinglebandImageProce
 		// image[0] of the octave is the input image
 		images[0] = image;
 
+		if (incremental != null)
+			discardBefore(incremental.processLevel(this, 0), discard);
+
 		// the intial (input) image is considered to have sigma initialSigma.
 		float prevSigma = options.initialSigma;
 
 		for (int i = 1; i < options.scales + options.extraScaleSteps + 1; i++) {
-			images[i] = images[i - 1].clone();
+			images[i] = pool == null ? images[i - 1].clone() : pool.copyOf(images[i - 1]);
 
 			// compute the amount to increase from prevSigma to prevSigma*k
 			final float increase = prevSigma * (float) Math.sqrt(k * k - 1.0);
@@ -103,11 +120,29 @@ public class GaussianOctave<IMAGE extends Image<?, IMAGE> & SinglebandImageProce
 			images[i].processInplace(options.createGaussianBlur(increase));
 
 			prevSigma *= k;
+
+			if (incremental != null)
+				discardBefore(incremental.processLevel(this, i), discard);
 		}
 
 		// if a processor is defined, apply it
-		if (options.getOctaveProcessor() != null)
-			options.getOctaveProcessor().process(this);
+		if (processor != null && incremental == null)
+			processor.process(this);
+	}
+
+	/*
+	 * Drop the references to the images before the given index (apart from the
+	 * one that starts the next octave) so they can be reclaimed. They are not
+	 * returned to the pool, because the octave processor might still be
+	 * holding on to them (i.e. in a cache).
+	 */
+	private void discardBefore(int index, boolean discard) {
+		if (!discard)
+			return;
+
+		for (int i = 0; i < index; i++)
+			if (i != options.scales)
+				images[i] = null;
 	}
 
 	/*
@@ -129,6 +129,10 @@ public class GaussianPyramid<I extends Image<?, I> & SinglebandImageProcessor.Pr
 			// half its size ready for the next octave
 			image = ResizeProcessor.halfSize(currentOctave.getNextOctaveImage());
 
+			// if the octave isn't being retained its images can be reused
+			if (octaves == null && options.getImagePool() != null)
+				options.getImagePool().releaseAll(currentOctave.images);
+
 			octaveSize *= 2.0; // the size of the octave increases by a factor
 								// of two each iteration
 
@@ -31,6 +31,8 @@ package org.openimaj.image.analysis.pyramid.gaussian;
 
 import org.openimaj.image.FImage;
 import org.openimaj.image.Image;
+import org.openimaj.image.analysis.pyramid.ImagePool;
+import org.openimaj.image.analysis.pyramid.IncrementalOctaveProcessor;
 import org.openimaj.image.analysis.pyramid.PyramidOptions;
 import org.openimaj.image.processing.convolution.FGaussianConvolve;
 import org.openimaj.image.processor.SinglebandImageProcessor;
@@ -77,6 +79,17 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 	 */
 	protected int scales = 3;
 
+	/**
+	 * Pool from which the images of each octave are drawn; if null, the images
+	 * are allocated as required.
+	 */
+	protected ImagePool<IMAGE> imagePool;
+
+	/**
+	 * Should octaves be processed incrementally as they are constructed?
+	 */
+	protected boolean streaming = false;
+
 	/**
 	 * Default constructor.
 	 */
@@ -86,11 +99,14 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 
 	/**
 	 * Construct the pyramid options by copying the non-processor options from
-	 * the given options object.
+	 * the given options object. The image pool (if any) is shared with the
+	 * given options; this is safe even if the image types differ, as the
+	 * {@link ImagePool} keeps images of different types apart.
 	 * 
 	 * @param options
 	 *            options to copy from
 	 */
+	@SuppressWarnings("unchecked")
 	public GaussianPyramidOptions(GaussianPyramidOptions<?> options) {
 		this.borderPixels = options.borderPixels;
 		this.doubleInitialImage = options.doubleInitialImage;
@@ -98,6 +114,8 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 		this.initialSigma = options.initialSigma;
 		this.keepOctaves = options.keepOctaves;
 		this.scales = options.scales;
+		this.imagePool = (ImagePool<IMAGE>) options.imagePool;
+		this.streaming = options.streaming;
 	}
 
 	/**
@@ -210,6 +228,57 @@ public class GaussianPyramidOptions<IMAGE extends Image<?, IMAGE> & SinglebandIm
 		this.scales = scales;
 	}
 
+	/**
+	 * Get the pool from which the images of each octave are drawn.
+	 * 
+	 * @return the image pool; null if images are allocated as required
+	 */
+	public ImagePool<IMAGE> getImagePool() {
+		return imagePool;
+	}
+
+	/**
+	 * Set the pool from which the images of each octave are drawn. If the
+	 * pyramid doesn't retain its octaves, then the images of each octave are
+	 * returned to the pool once the octave has been processed, so octave
+	 * processors must not hold on to them. Sharing a pool between pyramids
+	 * (including pyramids being built concurrently) avoids reallocating the
+	 * octave images for every image that is processed.
+	 * 
+	 * @param imagePool
+	 *            the image pool; null to allocate images as required
+	 */
+	public void setImagePool(ImagePool<IMAGE> imagePool) {
+		this.imagePool = imagePool;
+	}
+
+	/**
+	 * Are octaves processed incrementally as they are constructed?
+	 * 
+	 * @see #setStreaming(boolean)
+	 * 
+	 * @return true if streaming is enabled
+	 */
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * Set whether octaves should be processed incrementally as they are
+	 * constructed. If enabled and the octave processor is an
+	 * {@link IncrementalOctaveProcessor}, the processor is invoked as each image
+	 * of the octave is constructed, and (if the pyramid doesn't retain its
+	 * octaves) images that the processor no longer needs are discarded
+	 * straight away. This greatly reduces the peak memory required to process
+	 * large images.
+	 * 
+	 * @param streaming
+	 *            true to enable streaming
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
 	/**
 	 * Create a {@link SinglebandImageProcessor} that performs a Gaussian
 	 * blurring with a standard deviation given by sigma. This method is used by
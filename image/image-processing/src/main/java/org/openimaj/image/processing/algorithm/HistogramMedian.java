@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import java.util.Arrays;
+
+import org.openimaj.citation.annotation.Reference;
+import org.openimaj.citation.annotation.ReferenceType;
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+
+/**
+ * Constant-time median filtering over rectangular supports for images whose
+ * pixels are quantised to 256 levels (i.e. images that were loaded from 8-bit
+ * data). A histogram is maintained for each column of the image and the
+ * kernel histogram is updated by adding and removing whole column histograms
+ * as it slides along each row. Two-level (coarse and fine) histograms are
+ * used, with the fine kernel histogram only being updated for the coarse
+ * buckets that are actually searched.
+ * <p>
+ * Pixels outside the image are ignored, so the support is clipped at the
+ * image edges. If the number of pixels in the clipped support is even, the
+ * result is the mean of the two middle values.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+@Reference(
+		type = ReferenceType.Article,
+		author = { "Simon Perreault", "Patrick Hébert" },
+		title = "Median Filtering in Constant Time",
+		year = "2007",
+		journal = "IEEE Transactions on Image Processing",
+		pages = { "2389", "2394" },
+		volume = "16",
+		number = "9")
+final class HistogramMedian {
+	private static final int BINS = 256;
+	private static final int FINE_BITS = 4;
+	private static final int FINE = 1 << FINE_BITS;
+	private static final int COARSE = BINS / FINE;
+	private static final int INVALID = Integer.MIN_VALUE;
+
+	private static final float[] LUT = ImageUtilities.BYTE_TO_FLOAT_LUT;
+
+	private final int width;
+	private final int height;
+	private final int left;
+	private final int right;
+	private final int top;
+	private final int bottom;
+
+	private final byte[][] levels;
+	private final int[] fineCols;
+	private final int[] coarseCols;
+
+	private final int[] coarseKernel = new int[COARSE];
+	private final int[] fineKernel = new int[BINS];
+	private final int[] fineKernelX = new int[COARSE];
+
+	private HistogramMedian(byte[][] levels, int width, int height, int left, int right, int top, int bottom) {
+		this.levels = levels;
+		this.width = width;
+		this.height = height;
+		this.left = left;
+		this.right = right;
+		this.top = top;
+		this.bottom = bottom;
+
+		fineCols = new int[width * BINS];
+		coarseCols = new int[width * COARSE];
+	}
+
+	/**
+	 * Quantise the image to 256 levels if every pixel has a value that could
+	 * have come from 8-bit data.
+	 * 
+	 * @param image
+	 *            the image
+	 * @return the levels, or null if the image isn't quantised
+	 */
+	static byte[][] quantise(FImage image) {
+		final byte[][] levels = new byte[image.height][image.width];
+
+		for (int y = 0; y < image.height; y++) {
+			final float[] row = image.pixels[y];
+
+			for (int x = 0; x < image.width; x++) {
+				final int level = Math.round(row[x] * 255f);
+
+				if (level < 0 || level >= BINS || LUT[level] != row[x])
+					return null;
+
+				levels[y][x] = (byte) level;
+			}
+		}
+
+		return levels;
+	}
+
+	/**
+	 * Median filter a quantised image with a rectangular support containing
+	 * the centre pixel. The extents give the number of pixels the support
+	 * covers on each side of the centre, so they may differ for supports of
+	 * even size.
+	 * 
+	 * @param levels
+	 *            the quantised image (from {@link #quantise(FImage)})
+	 * @param left
+	 *            the extent of the support to the left of the centre
+	 * @param right
+	 *            the extent of the support to the right of the centre
+	 * @param top
+	 *            the extent of the support above the centre
+	 * @param bottom
+	 *            the extent of the support below the centre
+	 * @return the filtered image
+	 */
+	static FImage filter(byte[][] levels, int left, int right, int top, int bottom) {
+		final int height = levels.length;
+		final int width = height == 0 ? 0 : levels[0].length;
+
+		return new HistogramMedian(levels, width, height, left, right, top, bottom).filter();
+	}
+
+	private FImage filter() {
+		final FImage output = new FImage(width, height);
+
+		for (int y = 0; y <= Math.min(bottom, height - 1); y++)
+			updateColumns(y, 1);
+
+		for (int y = 0; y < height; y++) {
+			if (y > 0) {
+				if (y - top - 1 >= 0)
+					updateColumns(y - top - 1, -1);
+				if (y + bottom < height)
+					updateColumns(y + bottom, 1);
+			}
+
+			final int nrows = Math.min(height - 1, y + bottom) - Math.max(0, y - top) + 1;
+
+			Arrays.fill(coarseKernel, 0);
+			Arrays.fill(fineKernelX, INVALID);
+			for (int c = 0; c <= Math.min(right, width - 1); c++)
+				updateCoarseKernel(c, 1);
+
+			final float[] out = output.pixels[y];
+			for (int x = 0; x < width; x++) {
+				if (x > 0) {
+					if (x - left - 1 >= 0)
+						updateCoarseKernel(x - left - 1, -1);
+					if (x + right < width)
+						updateCoarseKernel(x + right, 1);
+				}
+
+				final int count = nrows * (Math.min(width - 1, x + right) - Math.max(0, x - left) + 1);
+				final int median = count / 2;
+
+				if (count % 2 == 0) {
+					final float a = LUT[select(median, x)];
+					final float b = LUT[select(median - 1, x)];
+
+					out[x] = (a + b) / 2f;
+				} else {
+					out[x] = LUT[select(median, x)];
+				}
+			}
+		}
+
+		return output;
+	}
+
+	private void updateColumns(int y, int delta) {
+		final byte[] row = levels[y];
+
+		for (int x = 0; x < width; x++) {
+			final int level = row[x] & 0xFF;
+
+			fineCols[x * BINS + level] += delta;
+			coarseCols[x * COARSE + (level >> FINE_BITS)] += delta;
+		}
+	}
+
+	private void updateCoarseKernel(int column, int delta) {
+		final int offset = column * COARSE;
+
+		for (int i = 0; i < COARSE; i++)
+			coarseKernel[i] += delta * coarseCols[offset + i];
+	}
+
+	private void updateFineKernel(int column, int bucket, int delta) {
+		final int offset = column * BINS + bucket * FINE;
+		final int koffset = bucket * FINE;
+
+		for (int i = 0; i < FINE; i++)
+			fineKernel[koffset + i] += delta * fineCols[offset + i];
+	}
+
+	/*
+	 * Bring the fine kernel histogram for the given coarse bucket up to date
+	 * for the kernel centred at x, either incrementally or from scratch,
+	 * whichever is cheaper.
+	 */
+	private void refreshFineKernel(int bucket, int x) {
+		final int last = fineKernelX[bucket];
+
+		if (last == x)
+			return;
+
+		if (last == INVALID || 2 * (x - last) > left + right + 1) {
+			Arrays.fill(fineKernel, bucket * FINE, (bucket + 1) * FINE, 0);
+
+			for (int c = Math.max(0, x - left); c <= Math.min(width - 1, x + right); c++)
+				updateFineKernel(c, bucket, 1);
+		} else {
+			for (int xx = last + 1; xx <= x; xx++) {
+				if (xx - left - 1 >= 0)
+					updateFineKernel(xx - left - 1, bucket, -1);
+				if (xx + right < width)
+					updateFineKernel(xx + right, bucket, 1);
+			}
+		}
+
+		fineKernelX[bucket] = x;
+	}
+
+	/*
+	 * Find the level with the given (zero-based) rank in the kernel centred at
+	 * x.
+	 */
+	private int select(int rank, int x) {
+		int sum = 0;
+		int bucket = 0;
+		while (sum + coarseKernel[bucket] <= rank)
+			sum += coarseKernel[bucket++];
+
+		refreshFineKernel(bucket, x);
+
+		int level = bucket * FINE;
+		while (sum + fineKernel[level] <= rank)
+			sum += fineKernel[level++];
+
+		return level;
+	}
+}
@@ -29,15 +29,21 @@
  */
 package org.openimaj.image.processing.algorithm;
 
+import java.util.Arrays;
 import java.util.Set;
 
 import org.openimaj.image.FImage;
 import org.openimaj.image.pixel.Pixel;
 import org.openimaj.image.processor.SinglebandImageProcessor;
-import org.openimaj.math.util.FloatArrayStatsUtils;
 
 /**
  * Median filter; replaces each pixel with the median of its neighbours.
+ * <p>
+ * If the support is a centred rectangular block and the image pixels are
+ * quantised to 256 levels (as is the case for images read from 8-bit data),
+ * the filter runs in constant time per pixel regardless of the size of the
+ * support (see {@link HistogramMedian}); otherwise the neighbourhood of each
+ * pixel is sorted.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  * 
@@ -45,6 +51,12 @@ import org.openimaj.math.util.FloatArrayStatsUtils;
 public class MedianFilter implements SinglebandImageProcessor<Float, FImage> {
 	private Set<Pixel> support;
 
+	// extents of a block support around the centre pixel; -1 otherwise
+	private int left = -1;
+	private int right = -1;
+	private int top = -1;
+	private int bottom = -1;
+
 	/**
 	 * Construct with the given support region for selecting pixels to take the
 	 * median from. The support mask is a set of <code>n</code> relative x, y
@@ -56,10 +68,38 @@ public class MedianFilter implements SinglebandImageProcessor<Float, FImage> {
 	 */
 	public MedianFilter(Set<Pixel> support) {
 		this.support = support;
+
+		if (FilterSupport.isBlockSupport(support)) {
+			int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+			int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+			for (final Pixel p : support) {
+				minX = Math.min(minX, p.x);
+				maxX = Math.max(maxX, p.x);
+				minY = Math.min(minY, p.y);
+				maxY = Math.max(maxY, p.y);
+			}
+
+			// even sized blocks extend further on one side of the centre
+			if (minX <= 0 && maxX >= 0 && minY <= 0 && maxY >= 0) {
+				left = -minX;
+				right = maxX;
+				top = -minY;
+				bottom = maxY;
+			}
+		}
 	}
 
 	@Override
 	public void processImage(FImage image) {
+		if (left >= 0) {
+			final byte[][] levels = HistogramMedian.quantise(image);
+
+			if (levels != null) {
+				image.internalAssign(HistogramMedian.filter(levels, left, right, top, bottom));
+				return;
+			}
+		}
+
 		final float[] tmp = new float[support.size()];
 		final FImage tmpImage = new FImage(image.width, image.height);
 
@@ -71,14 +111,28 @@ public class MedianFilter implements SinglebandImageProcessor<Float, FImage> {
 					final int xx = x + sp.x;
 					final int yy = y + sp.y;
 
-					if (xx >= 0 && xx < image.width - 1 && yy >= 0 && yy < image.height - 1) {
+					if (xx >= 0 && xx < image.width && yy >= 0 && yy < image.height) {
 						tmp[count++] = image.pixels[yy][xx];
 					}
 				}
 
-				tmpImage.pixels[y][x] = FloatArrayStatsUtils.median(tmp, 0, count);
+				tmpImage.pixels[y][x] = median(tmp, count);
 			}
 		}
 		image.internalAssign(tmpImage);
 	}
+
+	/*
+	 * Median of the first count elements of the array; the mean of the two
+	 * middle values if count is even.
+	 */
+	private static float median(float[] arr, int count) {
+		Arrays.sort(arr, 0, count);
+
+		final int median = count / 2;
+		if (count % 2 == 0)
+			return (arr[median] + arr[median - 1]) / 2f;
+
+		return arr[median];
+	}
 }
@@ -38,6 +38,10 @@ import org.openimaj.image.processor.SinglebandImageProcessor;
 /**
  * Min filter; replaces each pixel with the minimum of its neighbours. This is
  * equivalent to greyscale morphological erosion.
+ * <p>
+ * If the support is a centred rectangular block, the van Herk/Gil-Werman
+ * algorithm is used, which takes constant time per pixel regardless of the
+ * size of the block.
  * 
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  * 
@@ -68,8 +72,7 @@ public class MinFilter implements SinglebandImageProcessor<Float, FImage> {
 	@Override
 	public void processImage(FImage image) {
 		if (blockWidth >= 1 && blockHeight >= 1) {
-			minHorizontalSym(image, blockWidth);
-			minVerticalSym(image, blockWidth);
+			VanHerkMinMax.filter(image, blockWidth, blockHeight, false);
 		} else {
 			final FImage tmpImage = new FImage(image.width, image.height);
 
@@ -92,56 +95,4 @@ public class MinFilter implements SinglebandImageProcessor<Float, FImage> {
 			image.internalAssign(tmpImage);
 		}
 	}
-
-	private static void minHorizontalSym(FImage image, int width) {
-		final int halfsize = width / 2;
-		final float buffer[] = new float[image.width + width];
-
-		for (int r = 0; r < image.height; r++) {
-			for (int i = 0; i < halfsize; i++)
-				buffer[i] = image.pixels[r][0];
-			for (int i = 0; i < image.width; i++)
-				buffer[halfsize + i] = image.pixels[r][i];
-			for (int i = 0; i < halfsize; i++)
-				buffer[halfsize + image.width + i] = image.pixels[r][image.width - 1];
-
-			final int l = buffer.length - width;
-			for (int i = 0; i < l; i++) {
-				float min = Float.MAX_VALUE;
-
-				for (int j = 0; j < width; j++)
-					min = Math.min(buffer[i + j], min);
-
-				image.pixels[r][i] = min;
-			}
-		}
-	}
-
-	private static void minVerticalSym(FImage image, int width) {
-		final int halfsize = width / 2;
-
-		final float buffer[] = new float[image.height + width];
-
-		for (int c = 0; c < image.width; c++) {
-			for (int i = 0; i < halfsize; i++)
-				buffer[i] = image.pixels[0][c];
-			for (int i = 0; i < image.height; i++)
-				buffer[halfsize + i] = image.pixels[i][c];
-			for (int i = 0; i < halfsize; i++)
-				buffer[halfsize + image.height + i] = image.pixels[image.height - 1][c];
-
-			final int l = buffer.length - width;
-			for (int i = 0; i < l; i++) {
-				float min = Float.MAX_VALUE;
-
-				for (int j = 0; j < width; j++)
-					min = Math.min(buffer[i + j], min);
-
-				buffer[i] = min;
-			}
-
-			for (int r = 0; r < image.height; r++)
-				image.pixels[r][c] = buffer[r];
-		}
-	}
 }
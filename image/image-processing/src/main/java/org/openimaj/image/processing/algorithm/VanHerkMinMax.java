@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import org.openimaj.citation.annotation.Reference;
+import org.openimaj.citation.annotation.ReferenceType;
+import org.openimaj.citation.annotation.References;
+import org.openimaj.image.FImage;
+
+/**
+ * Min and max filtering over rectangular supports using the van Herk/Gil-Werman
+ * algorithm, which requires a constant number of comparisons per pixel
+ * regardless of the size of the support. The rectangle is separated into a
+ * horizontal and a vertical pass. Edges are handled by duplicating the edge
+ * pixels, which for min and max filtering is the same as ignoring the parts of
+ * the support that fall outside the image.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+@References(references = {
+		@Reference(
+				type = ReferenceType.Article,
+				author = { "Marcel van Herk" },
+				title = "A fast algorithm for local minimum and maximum filters on rectangular and octagonal kernels",
+				year = "1992",
+				journal = "Pattern Recognition Letters",
+				pages = { "517", "521" },
+				volume = "13",
+				number = "7"),
+		@Reference(
+				type = ReferenceType.Article,
+				author = { "Joseph Gil", "Michael Werman" },
+				title = "Computing 2-D min, median, and max filters",
+				year = "1993",
+				journal = "IEEE Transactions on Pattern Analysis and Machine Intelligence",
+				pages = { "504", "507" },
+				volume = "15",
+				number = "5")
+})
+final class VanHerkMinMax {
+	private VanHerkMinMax() {
+	}
+
+	/**
+	 * Apply a min or max filter with a centred rectangular support of the given
+	 * size to the image, in place. For even sizes the support extends one
+	 * pixel further before the centre than after it, as in
+	 * {@link FilterSupport#createBlockSupport(int, int)}.
+	 * 
+	 * @param image
+	 *            the image
+	 * @param width
+	 *            the width of the support
+	 * @param height
+	 *            the height of the support
+	 * @param max
+	 *            true for a max filter; false for a min filter
+	 */
+	static void filter(FImage image, int width, int height, boolean max) {
+		if (width > 1)
+			filterHorizontal(image, width, max);
+		if (height > 1)
+			filterVertical(image, height, max);
+	}
+
+	private static void filterHorizontal(FImage image, int size, boolean max) {
+		final int halfsize = size / 2;
+		final int length = image.width + 2 * halfsize;
+		final float[] buffer = new float[length];
+		final float[] g = new float[length];
+		final float[] h = new float[length];
+
+		for (int r = 0; r < image.height; r++) {
+			final float[] row = image.pixels[r];
+
+			for (int i = 0; i < halfsize; i++)
+				buffer[i] = row[0];
+			System.arraycopy(row, 0, buffer, halfsize, image.width);
+			for (int i = 0; i < halfsize; i++)
+				buffer[halfsize + image.width + i] = row[image.width - 1];
+
+			if (max) {
+				maxBlocks(buffer, length, size, g, h);
+				for (int i = 0; i < image.width; i++)
+					row[i] = Math.max(h[i], g[i + size - 1]);
+			} else {
+				minBlocks(buffer, length, size, g, h);
+				for (int i = 0; i < image.width; i++)
+					row[i] = Math.min(h[i], g[i + size - 1]);
+			}
+		}
+	}
+
+	private static void filterVertical(FImage image, int size, boolean max) {
+		final int halfsize = size / 2;
+		final int length = image.height + 2 * halfsize;
+		final float[] buffer = new float[length];
+		final float[] g = new float[length];
+		final float[] h = new float[length];
+
+		for (int c = 0; c < image.width; c++) {
+			for (int i = 0; i < halfsize; i++)
+				buffer[i] = image.pixels[0][c];
+			for (int i = 0; i < image.height; i++)
+				buffer[halfsize + i] = image.pixels[i][c];
+			for (int i = 0; i < halfsize; i++)
+				buffer[halfsize + image.height + i] = image.pixels[image.height - 1][c];
+
+			if (max) {
+				maxBlocks(buffer, length, size, g, h);
+				for (int r = 0; r < image.height; r++)
+					image.pixels[r][c] = Math.max(h[r], g[r + size - 1]);
+			} else {
+				minBlocks(buffer, length, size, g, h);
+				for (int r = 0; r < image.height; r++)
+					image.pixels[r][c] = Math.min(h[r], g[r + size - 1]);
+			}
+		}
+	}
+
+	/*
+	 * Compute the running maxima from the start (g) and end (h) of each block
+	 * of the given size. The maximum over the window [i, i+size) is then
+	 * max(h[i], g[i+size-1]), as the window spans at most two blocks.
+	 */
+	private static void maxBlocks(float[] buffer, int length, int size, float[] g, float[] h) {
+		for (int i = 0; i < length; i++)
+			g[i] = (i % size == 0) ? buffer[i] : Math.max(g[i - 1], buffer[i]);
+
+		h[length - 1] = buffer[length - 1];
+		for (int i = length - 2; i >= 0; i--)
+			h[i] = ((i + 1) % size == 0) ? buffer[i] : Math.max(h[i + 1], buffer[i]);
+	}
+
+	private static void minBlocks(float[] buffer, int length, int size, float[] g, float[] h) {
+		for (int i = 0; i < length; i++)
+			g[i] = (i % size == 0) ? buffer[i] : Math.min(g[i - 1], buffer[i]);
+
+		h[length - 1] = buffer[length - 1];
+		for (int i = length - 2; i >= 0; i--)
+			h[i] = ((i + 1) % size == 0) ? buffer[i] : Math.min(h[i + 1], buffer[i]);
+	}
+}
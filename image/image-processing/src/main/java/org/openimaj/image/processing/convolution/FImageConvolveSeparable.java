@@ -102,7 +102,8 @@ public class FImageConvolveSeparable implements SinglebandImageProcessor<Float,
 
 	/**
 	 * Convolve the image in the horizontal direction with the kernel. Edge
-	 * effects are handled by duplicating the edge pixels.
+	 * effects are handled by duplicating the edge pixels. Large images are
+	 * processed in parallel by {@link TiledSeparableConvolution}.
 	 * 
 	 * @param image
 	 *            the image to convolve.
@@ -110,38 +111,13 @@ public class FImageConvolveSeparable implements SinglebandImageProcessor<Float,
 	 *            the convolution kernel.
 	 */
 	public static void convolveHorizontal(FImage image, float[] kernel) {
-		final int halfsize = kernel.length / 2;
-
-		final float buffer[] = new float[image.width + kernel.length];
-
-		for (int r = 0; r < image.height; r++) {
-			for (int i = 0; i < halfsize; i++)
-				buffer[i] = image.pixels[r][0];
-			for (int i = 0; i < image.width; i++)
-				buffer[halfsize + i] = image.pixels[r][i];
-			for (int i = 0; i < halfsize; i++)
-				buffer[halfsize + image.width + i] = image.pixels[r][image.width - 1];
-
-			// convolveBuffer(buffer, kernel);
-			final int l = buffer.length - kernel.length;
-			for (int i = 0; i < l; i++) {
-				float sum = 0.0f;
-
-				for (int j = 0, jj = kernel.length - 1; j < kernel.length; j++, jj--)
-					sum += buffer[i + j] * kernel[jj];
-
-				buffer[i] = sum;
-			}
-			// end convolveBuffer(buffer, kernel);
-
-			for (int c = 0; c < image.width; c++)
-				image.pixels[r][c] = buffer[c];
-		}
+		TiledSeparableConvolution.convolveHorizontal(image, kernel);
 	}
 
 	/**
 	 * Convolve the image in the vertical direction with the kernel. Edge
-	 * effects are handled by duplicating the edge pixels.
+	 * effects are handled by duplicating the edge pixels. Large images are
+	 * processed in parallel by {@link TiledSeparableConvolution}.
 	 * 
 	 * @param image
 	 *            the image to convolve.
@@ -149,33 +125,7 @@ public class FImageConvolveSeparable implements SinglebandImageProcessor<Float,
 	 *            the convolution kernel.
 	 */
 	public static void convolveVertical(FImage image, float[] kernel) {
-		final int halfsize = kernel.length / 2;
-
-		final float buffer[] = new float[image.height + kernel.length];
-
-		for (int c = 0; c < image.width; c++) {
-			for (int i = 0; i < halfsize; i++)
-				buffer[i] = image.pixels[0][c];
-			for (int i = 0; i < image.height; i++)
-				buffer[halfsize + i] = image.pixels[i][c];
-			for (int i = 0; i < halfsize; i++)
-				buffer[halfsize + image.height + i] = image.pixels[image.height - 1][c];
-
-			// convolveBuffer(buffer, kernel);
-			final int l = buffer.length - kernel.length;
-			for (int i = 0; i < l; i++) {
-				float sum = 0.0f;
-
-				for (int j = 0, jj = kernel.length - 1; j < kernel.length; j++, jj--)
-					sum += buffer[i + j] * kernel[jj];
-
-				buffer[i] = sum;
-			}
-			// end convolveBuffer(buffer, kernel);
-
-			for (int r = 0; r < image.height; r++)
-				image.pixels[r][c] = buffer[r];
-		}
+		TiledSeparableConvolution.convolveVertical(image, kernel);
 	}
 
 	/**
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.convolution;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.openimaj.image.FImage;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * Cache-aware, multi-threaded implementation of the horizontal and vertical
+ * passes of a separable convolution of an {@link FImage}. The image is
+ * processed in strips of rows that fit comfortably in the cache, and the
+ * strips are distributed across the {@link GlobalExecutorPool}. Rather than
+ * gathering each column into a buffer, the vertical pass walks the source rows
+ * in order and accumulates them into a small block of output rows at a time,
+ * so all memory accesses are row-major.
+ * <p>
+ * The output is numerically identical to the straightforward implementation:
+ * every output pixel is accumulated from the same products, in the same order,
+ * and edges are handled by duplicating the edge pixels.
+ * <p>
+ * Small images are processed on the calling thread. It is safe to use this
+ * class from tasks that are already running on the {@link GlobalExecutorPool}.
+ *
+ * @see FImageConvolveSeparable
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public final class TiledSeparableConvolution {
+	/**
+	 * Images with fewer pixels than this are processed on the calling thread
+	 */
+	private static final int MIN_PARALLEL_PIXELS = 128 * 128;
+
+	/**
+	 * Target number of pixels in each strip of rows
+	 */
+	private static final int STRIP_PIXELS = 32 * 1024;
+
+	/**
+	 * Minimum number of rows in a strip
+	 */
+	private static final int MIN_STRIP_ROWS = 8;
+
+	/**
+	 * Number of output rows accumulated together in the vertical pass
+	 */
+	private static final int ROW_BLOCK = 8;
+
+	/**
+	 * Number of columns processed together in the vertical pass
+	 */
+	private static final int COLUMN_TILE = 2048;
+
+	/**
+	 * Maximum number of released scratch buffers kept for reuse
+	 */
+	private static final int MAX_POOLED_BUFFERS = 4;
+
+	private static final ConcurrentLinkedQueue<SoftReference<float[]>> SCRATCH_POOL = new ConcurrentLinkedQueue<SoftReference<float[]>>();
+
+	private static final ThreadLocal<float[]> ROW_BUFFER = new ThreadLocal<float[]>();
+
+	private TiledSeparableConvolution() {
+	}
+
+	/**
+	 * Convolve the image in the horizontal direction with the kernel. Edge
+	 * effects are handled by duplicating the edge pixels.
+	 *
+	 * @param image
+	 *            the image to convolve.
+	 * @param kernel
+	 *            the convolution kernel.
+	 */
+	public static void convolveHorizontal(final FImage image, final float[] kernel) {
+		if (!isParallel(image)) {
+			convolveHorizontal(image, kernel, 0, image.height);
+			return;
+		}
+
+		Parallel.forBlocks(0, image.height, stripRows(image), new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				convolveHorizontal(image, kernel, range.start, range.stop);
+			}
+		});
+	}
+
+	/**
+	 * Convolve the image in the vertical direction with the kernel. Edge
+	 * effects are handled by duplicating the edge pixels.
+	 *
+	 * @param image
+	 *            the image to convolve.
+	 * @param kernel
+	 *            the convolution kernel.
+	 */
+	public static void convolveVertical(final FImage image, final float[] kernel) {
+		final int width = image.width;
+		final float[] scratch = acquireScratch(width * image.height);
+
+		try {
+			if (!isParallel(image)) {
+				convolveVertical(image, kernel, scratch, 0, image.height);
+				copyRows(scratch, image, 0, image.height);
+				return;
+			}
+
+			final int stripRows = stripRows(image);
+
+			// all strips must be complete before the result is copied back
+			// because each strip reads the source rows either side of it
+			Parallel.forBlocks(0, image.height, stripRows, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					convolveVertical(image, kernel, scratch, range.start, range.stop);
+				}
+			});
+
+			Parallel.forBlocks(0, image.height, stripRows, new Operation<IntRange>() {
+				@Override
+				public void perform(IntRange range) {
+					copyRows(scratch, image, range.start, range.stop);
+				}
+			});
+		} finally {
+			releaseScratch(scratch);
+		}
+	}
+
+	private static boolean isParallel(FImage image) {
+		return image.height > MIN_STRIP_ROWS && image.width * image.height >= MIN_PARALLEL_PIXELS;
+	}
+
+	private static int stripRows(FImage image) {
+		return Math.max(MIN_STRIP_ROWS, STRIP_PIXELS / Math.max(1, image.width));
+	}
+
+	private static void convolveHorizontal(FImage image, float[] kernel, int startRow, int stopRow) {
+		final int width = image.width;
+		final int halfsize = kernel.length / 2;
+
+		float[] buffer = ROW_BUFFER.get();
+		if (buffer == null || buffer.length < width + kernel.length) {
+			buffer = new float[width + kernel.length];
+			ROW_BUFFER.set(buffer);
+		}
+
+		for (int r = startRow; r < stopRow; r++) {
+			final float[] row = image.pixels[r];
+
+			for (int i = 0; i < halfsize; i++)
+				buffer[i] = row[0];
+			System.arraycopy(row, 0, buffer, halfsize, width);
+			for (int i = 0; i < halfsize; i++)
+				buffer[halfsize + width + i] = row[width - 1];
+
+			for (int i = 0; i < width; i++) {
+				float sum = 0.0f;
+
+				for (int j = 0, jj = kernel.length - 1; j < kernel.length; j++, jj--)
+					sum += buffer[i + j] * kernel[jj];
+
+				row[i] = sum;
+			}
+		}
+	}
+
+	/*
+	 * Compute the vertical convolution for output rows [startRow, stopRow) into
+	 * the corresponding rows of the flat output buffer. For each output row r,
+	 * the contribution of tap j comes from source row clamp(r + j - halfsize)
+	 * and is added in increasing j order, exactly as in the column-buffer
+	 * implementation.
+	 */
+	private static void convolveVertical(FImage image, float[] kernel, float[] out, int startRow, int stopRow) {
+		final int width = image.width;
+		final int height = image.height;
+		final int klen = kernel.length;
+		final int halfsize = klen / 2;
+		final float[][] pixels = image.pixels;
+
+		for (int c0 = 0; c0 < width; c0 += COLUMN_TILE) {
+			final int c1 = Math.min(width, c0 + COLUMN_TILE);
+
+			for (int r0 = startRow; r0 < stopRow; r0 += ROW_BLOCK) {
+				final int r1 = Math.min(stopRow, r0 + ROW_BLOCK);
+
+				for (int r = r0; r < r1; r++)
+					for (int c = c0, o = r * width + c0; c < c1; c++, o++)
+						out[o] = 0.0f;
+
+				// walk the source rows touched by this block in order
+				final int s0 = r0 - halfsize;
+				final int s1 = r1 - 1 + klen - 1 - halfsize;
+				for (int s = s0; s <= s1; s++) {
+					final float[] src = pixels[s < 0 ? 0 : (s >= height ? height - 1 : s)];
+
+					final int rlo = Math.max(r0, s + halfsize - klen + 1);
+					final int rhi = Math.min(r1 - 1, s + halfsize);
+					for (int r = rlo; r <= rhi; r++) {
+						final float k = kernel[klen - 1 - (s - r + halfsize)];
+
+						for (int c = c0, o = r * width + c0; c < c1; c++, o++)
+							out[o] += src[c] * k;
+					}
+				}
+			}
+		}
+	}
+
+	private static void copyRows(float[] scratch, FImage image, int startRow, int stopRow) {
+		final int width = image.width;
+
+		for (int r = startRow; r < stopRow; r++)
+			System.arraycopy(scratch, r * width, image.pixels[r], 0, width);
+	}
+
+	private static float[] acquireScratch(int length) {
+		SoftReference<float[]> ref;
+		while ((ref = SCRATCH_POOL.poll()) != null) {
+			final float[] buffer = ref.get();
+
+			// buffers that are too small are dropped; they'll be replaced by
+			// larger ones as they are released
+			if (buffer != null && buffer.length >= length)
+				return buffer;
+		}
+
+		return new float[length];
+	}
+
+	private static void releaseScratch(float[] buffer) {
+		if (SCRATCH_POOL.size() < MAX_POOLED_BUFFERS)
+			SCRATCH_POOL.offer(new SoftReference<float[]>(buffer));
+	}
+}
@@ -70,6 +70,15 @@ public class Close implements ConnectedComponentProcessor, ImageProcessor<FImage
 	 */
 	@Override
 	public void processImage(FImage image) {
+		if (erode.isPackable() && dilate.isPackable()) {
+			PackedBinaryImage packed = PackedBinaryImage.pack(image);
+
+			if (packed != null) {
+				erode.process(dilate.process(packed)).writeTo(image);
+				return;
+			}
+		}
+
 		image.processInplace(dilate, true);
 		image.processInplace(erode, true);
 	}
@@ -78,6 +78,24 @@ public class Dilate implements ConnectedComponentProcessor, KernelProcessor<Floa
 
 	@Override
 	public void process(ConnectedComponent cc) {
+		final Set<Pixel> pixels = cc.getPixels();
+		final int[] reach = PackedBinaryImage.reach(element.positive);
+
+		if (element.negative.isEmpty() && reach[0] <= sw && reach[1] <= sh) {
+			// bit-packed dilation of the component's bounding box
+			if (pixels.isEmpty())
+				return;
+
+			final int[] b = PackedBinaryImage.bounds(pixels);
+			final int x0 = b[0] - reach[0];
+			final int y0 = b[1] - reach[1];
+			final PackedBinaryImage img = new PackedBinaryImage(pixels, x0, y0,
+					b[2] - b[0] + 1 + 2 * reach[0], b[3] - b[1] + 1 + 2 * reach[1]);
+
+			img.shiftUnion(element.positive, -1, false).andNot(img).addPixelsTo(pixels, x0, y0);
+			return;
+		}
+
 		// Dilate a connected component
 		final Rectangle cc_bb = cc.calculateRegularBoundingBox();
 
@@ -95,6 +113,31 @@ public class Dilate implements ConnectedComponentProcessor, KernelProcessor<Floa
 		cc.getPixels().addAll(newPixels);
 	}
 
+	/**
+	 * Test if {@link #process(PackedBinaryImage)} gives the same result as
+	 * applying this operator as a zero-padded kernel.
+	 */
+	boolean isPackable() {
+		return PackedBinaryImage.fitsKernel(element, cx, cy, sw, sh);
+	}
+
+	/**
+	 * Dilate a packed image with the same semantics as
+	 * {@link #processKernel(FImage)} applied with zero padding.
+	 *
+	 * @param image
+	 *            the image
+	 * @return a new image containing the result
+	 */
+	PackedBinaryImage process(PackedBinaryImage image) {
+		final PackedBinaryImage out = image.clone().or(image.shiftUnion(element.positive, 1, false));
+
+		if (!element.negative.isEmpty())
+			out.or(image.shiftUnion(element.negative, 1, true));
+
+		return out;
+	}
+
 	@Override
 	public int getKernelHeight() {
 		return sh;
@@ -29,7 +29,7 @@
  */
 package org.openimaj.image.processing.morphology;
 
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 import org.openimaj.image.FImage;
@@ -38,7 +38,6 @@ import org.openimaj.image.pixel.Pixel;
 import org.openimaj.image.processing.algorithm.MinFilter;
 import org.openimaj.image.processor.KernelProcessor;
 import org.openimaj.image.processor.connectedcomponent.ConnectedComponentProcessor;
-import org.openimaj.math.geometry.shape.Rectangle;
 
 /**
  * Morphological erosion of connected components and (assumed binary) FImages.
@@ -78,22 +77,44 @@ public class Erode implements ConnectedComponentProcessor, KernelProcessor<Float
 
 	@Override
 	public void process(ConnectedComponent cc) {
-		// Erode a connected component
-		final Set<Pixel> retain = new HashSet<Pixel>();
 		final Set<Pixel> pixels = cc.getPixels();
-		final int[] se_size = element.size();
-		final Rectangle cc_bb = cc.calculateRegularBoundingBox();
-		for (int j = (int) (cc_bb.y - se_size[1]); j <= cc_bb.y + se_size[1] + cc_bb.height; j++) {
-			for (int i = (int) (cc_bb.x - se_size[0]); i <= cc_bb.x + se_size[0] + cc_bb.width; i++) {
-				final Pixel p = new Pixel(i, j);
-
-				if (element.matches(p, pixels)) {
-					retain.add(p);
-				}
-			}
+
+		if (pixels.isEmpty())
+			return;
+
+		// Erode the bit-packed bounding box of the component
+		final int[] b = PackedBinaryImage.bounds(pixels);
+		final PackedBinaryImage img = new PackedBinaryImage(pixels, b[0], b[1], b[2] - b[0] + 1, b[3] - b[1] + 1);
+		final PackedBinaryImage out = img.shiftIntersection(element.positive, -1, false)
+				.and(img.shiftIntersection(element.negative, -1, true));
+
+		final Iterator<Pixel> iter = pixels.iterator();
+		while (iter.hasNext()) {
+			final Pixel p = iter.next();
+			if (!out.get(p.x - b[0], p.y - b[1]))
+				iter.remove();
 		}
+	}
+
+	/**
+	 * Test if {@link #process(PackedBinaryImage)} gives the same result as
+	 * applying this operator as a zero-padded kernel.
+	 */
+	boolean isPackable() {
+		return PackedBinaryImage.fitsKernel(element, cx, cy, sw, sh);
+	}
 
-		cc.getPixels().retainAll(retain);
+	/**
+	 * Erode a packed image with the same semantics as
+	 * {@link #processKernel(FImage)} applied with zero padding.
+	 *
+	 * @param image
+	 *            the image
+	 * @return a new image containing the result
+	 */
+	PackedBinaryImage process(PackedBinaryImage image) {
+		return image.clone().and(image.shiftIntersection(element.positive, 1, false))
+				.and(image.shiftIntersection(element.negative, 1, true));
 	}
 
 	@Override
@@ -97,6 +97,9 @@ public class HitAndMiss implements ConnectedComponentProcessor, KernelProcessor<
 		//hit and miss transform; doesn't affect original pixels.
 		outputPixels.clear();
 
+		if (processPacked(cc.getPixels()))
+			return;
+
 		for (StructuringElement element : elements) {
 			Set<Pixel> pixels = cc.getPixels();
 			int [] se_size = element.size();
@@ -113,6 +116,76 @@ public class HitAndMiss implements ConnectedComponentProcessor, KernelProcessor<
 		}
 	}
 
+	/**
+	 * Apply the transform to the bit-packed bounding box of the pixels. This is
+	 * only possible if every element has positive pixels that lie within its
+	 * own extent (otherwise the search window of the brute-force version
+	 * affects the result).
+	 * 
+	 * @return true if the transform was applied; false otherwise
+	 */
+	private boolean processPacked(Set<Pixel> pixels) {
+		int rx = 0, ry = 0;
+		for (StructuringElement element : elements) {
+			int [] se_size = element.size();
+			int [] reach = PackedBinaryImage.reach(element.positive);
+
+			if (element.positive.isEmpty() || reach[0] > se_size[0] || reach[1] > se_size[1])
+				return false;
+
+			rx = Math.max(rx, reach[0]);
+			ry = Math.max(ry, reach[1]);
+		}
+
+		if (pixels.isEmpty())
+			return true;
+
+		int [] b = PackedBinaryImage.bounds(pixels);
+		int x0 = b[0] - rx;
+		int y0 = b[1] - ry;
+		PackedBinaryImage img = new PackedBinaryImage(pixels, x0, y0, b[2] - b[0] + 1 + 2 * rx, b[3] - b[1] + 1 + 2 * ry);
+		
+		matches(img, -1).addPixelsTo(outputPixels, x0, y0);
+		return true;
+	}
+
+	private PackedBinaryImage matches(PackedBinaryImage image, int sign) {
+		PackedBinaryImage out = new PackedBinaryImage(image.width, image.height);
+
+		for (StructuringElement element : elements) {
+			out.or(image.shiftIntersection(element.positive, sign, false)
+					.and(image.shiftIntersection(element.negative, sign, true)));
+		}
+
+		return out;
+	}
+
+	/**
+	 * Test if {@link #process(PackedBinaryImage)} gives the same result as
+	 * applying this operator as a zero-padded kernel.
+	 */
+	boolean isPackable() {
+		if (cx != sw / 2 || cy != sh / 2)
+			return false;
+
+		for (StructuringElement element : elements)
+			if (!PackedBinaryImage.fitsKernel(element, cx, cy, sw, sh))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Apply the transform to a packed image with the same semantics as
+	 * {@link #processKernel(FImage)} applied with zero padding.
+	 * 
+	 * @param image the image
+	 * @return a new image containing the result
+	 */
+	PackedBinaryImage process(PackedBinaryImage image) {
+		return matches(image, 1);
+	}
+
 	/**
 	 * Get the pixels selected by the hit and miss operator
 	 * @return a list of selected pixels
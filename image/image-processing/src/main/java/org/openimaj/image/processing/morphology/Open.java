@@ -70,6 +70,15 @@ public class Open implements ConnectedComponentProcessor, ImageProcessor<FImage>
 	 */
 	@Override
 	public void processImage(FImage image) {
+		if (erode.isPackable() && dilate.isPackable()) {
+			PackedBinaryImage packed = PackedBinaryImage.pack(image);
+
+			if (packed != null) {
+				dilate.process(erode.process(packed)).writeTo(image);
+				return;
+			}
+		}
+
 		image.processInplace(erode, true);
 		image.processInplace(dilate, true);
 	}
@@ -0,0 +1,741 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.morphology;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.pixel.Pixel;
+
+/**
+ * A compact binary image in which each row is packed into 64-bit words. The
+ * morphological operators work a whole word (64 pixels) at a time using
+ * shifts, ORs and ANDs rather than visiting every pixel of the structuring
+ * element for every pixel of the image. Structuring elements are decomposed
+ * into a small number of rectangles (a single rectangle for a box, or one
+ * rectangle per distinct row width for a disk) and each rectangle is applied
+ * separably using logarithmic (doubling) runs, so the cost of an operation is
+ * roughly proportional to the number of rectangles times the log of their
+ * size rather than the number of pixels in the element.
+ * <p>
+ * Pixels outside the image are considered to be background for all
+ * operations.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class PackedBinaryImage implements Cloneable {
+	/**
+	 * A padded working buffer. All bits outside the buffer (including the
+	 * unused bits at the end of each row) have the value of the fill word.
+	 */
+	private static final class Plane {
+		final int width;
+		final int height;
+		final int stride;
+		final long fill;
+		final long[] data;
+
+		Plane(int width, int height, long fill) {
+			this.width = width;
+			this.height = height;
+			this.stride = (width + 63) >>> 6;
+			this.fill = fill;
+			this.data = new long[stride * height];
+		}
+
+		Plane(Plane p) {
+			this.width = p.width;
+			this.height = p.height;
+			this.stride = p.stride;
+			this.fill = p.fill;
+			this.data = p.data.clone();
+		}
+	}
+
+	private static final int OR = 0;
+	private static final int AND = 1;
+
+	/** The width of the image */
+	public final int width;
+
+	/** The height of the image */
+	public final int height;
+
+	final int stride;
+	final long[] data;
+
+	/**
+	 * Construct an empty image of the given size
+	 *
+	 * @param width
+	 *            the width
+	 * @param height
+	 *            the height
+	 */
+	public PackedBinaryImage(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.stride = (width + 63) >>> 6;
+		this.data = new long[stride * height];
+	}
+
+	/**
+	 * Construct from an {@link FImage}. Pixels with a value greater than or
+	 * equal to the threshold are foreground.
+	 *
+	 * @param image
+	 *            the image
+	 * @param thresh
+	 *            the threshold
+	 */
+	public PackedBinaryImage(FImage image, float thresh) {
+		this(image.width, image.height);
+
+		for (int y = 0; y < height; y++) {
+			final float[] row = image.pixels[y];
+			final int off = y * stride;
+
+			for (int x = 0; x < width; x++) {
+				if (row[x] >= thresh)
+					data[off + (x >>> 6)] |= 1L << x;
+			}
+		}
+	}
+
+	/**
+	 * Construct from a set of pixels. The image covers the rectangle with its
+	 * top-left corner at (x0, y0); pixels outside the rectangle are ignored.
+	 *
+	 * @param pixels
+	 *            the pixels
+	 * @param x0
+	 *            the x-ordinate of the left of the image
+	 * @param y0
+	 *            the y-ordinate of the top of the image
+	 * @param width
+	 *            the width of the image
+	 * @param height
+	 *            the height of the image
+	 */
+	public PackedBinaryImage(Collection<Pixel> pixels, int x0, int y0, int width, int height) {
+		this(width, height);
+
+		for (final Pixel p : pixels) {
+			final int x = p.x - x0;
+			final int y = p.y - y0;
+
+			if (x >= 0 && y >= 0 && x < width && y < height)
+				data[y * stride + (x >>> 6)] |= 1L << x;
+		}
+	}
+
+	/**
+	 * Pack an image that is strictly binary (all pixels exactly 0 or 1).
+	 *
+	 * @param image
+	 *            the image
+	 * @return the packed image, or null if the image contains values other
+	 *         than 0 and 1
+	 */
+	static PackedBinaryImage pack(FImage image) {
+		final PackedBinaryImage packed = new PackedBinaryImage(image.width, image.height);
+
+		for (int y = 0; y < image.height; y++) {
+			final float[] row = image.pixels[y];
+			final int off = y * packed.stride;
+
+			for (int x = 0; x < image.width; x++) {
+				final float v = row[x];
+
+				if (v == 1)
+					packed.data[off + (x >>> 6)] |= 1L << x;
+				else if (v != 0)
+					return null;
+			}
+		}
+
+		return packed;
+	}
+
+	/**
+	 * Test if the structuring element can be applied by a
+	 * {@link org.openimaj.image.processor.KernelProcessor} with the given
+	 * geometry without any of its pixels being clipped.
+	 */
+	static boolean fitsKernel(StructuringElement se, int cx, int cy, int sw, int sh) {
+		for (final Pixel p : se.positive)
+			if (cx - p.x < 0 || cy - p.y < 0 || cx - p.x >= sw || cy - p.y >= sh)
+				return false;
+
+		for (final Pixel p : se.negative)
+			if (cx - p.x < 0 || cy - p.y < 0 || cx - p.x >= sw || cy - p.y >= sh)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Compute the bounds of a non-empty set of pixels
+	 *
+	 * @return {minX, minY, maxX, maxY}
+	 */
+	static int[] bounds(Collection<Pixel> pixels) {
+		final int[] b = { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE };
+
+		for (final Pixel p : pixels) {
+			b[0] = Math.min(b[0], p.x);
+			b[1] = Math.min(b[1], p.y);
+			b[2] = Math.max(b[2], p.x);
+			b[3] = Math.max(b[3], p.y);
+		}
+
+		return b;
+	}
+
+	/**
+	 * Compute the largest absolute x and y offsets in a set of pixels
+	 *
+	 * @return {max |x|, max |y|}
+	 */
+	static int[] reach(Collection<Pixel> offsets) {
+		final int[] r = { 0, 0 };
+
+		for (final Pixel p : offsets) {
+			r[0] = Math.max(r[0], Math.abs(p.x));
+			r[1] = Math.max(r[1], Math.abs(p.y));
+		}
+
+		return r;
+	}
+
+	/**
+	 * Get the value of a pixel
+	 *
+	 * @param x
+	 *            the x-ordinate
+	 * @param y
+	 *            the y-ordinate
+	 * @return true if the pixel is foreground; false otherwise
+	 */
+	public boolean get(int x, int y) {
+		return (data[y * stride + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	/**
+	 * Set the value of a pixel
+	 *
+	 * @param x
+	 *            the x-ordinate
+	 * @param y
+	 *            the y-ordinate
+	 * @param value
+	 *            true for foreground; false for background
+	 */
+	public void set(int x, int y, boolean value) {
+		if (value)
+			data[y * stride + (x >>> 6)] |= 1L << x;
+		else
+			data[y * stride + (x >>> 6)] &= ~(1L << x);
+	}
+
+	/**
+	 * @return the number of foreground pixels
+	 */
+	public int countForeground() {
+		int count = 0;
+		for (final long w : data)
+			count += Long.bitCount(w);
+		return count;
+	}
+
+	/**
+	 * @return true if there are no foreground pixels
+	 */
+	public boolean isEmpty() {
+		for (final long w : data)
+			if (w != 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Set this image to the union of itself with another image of the same
+	 * size.
+	 *
+	 * @param other
+	 *            the other image
+	 * @return this image
+	 */
+	public PackedBinaryImage or(PackedBinaryImage other) {
+		checkSize(other);
+		for (int i = 0; i < data.length; i++)
+			data[i] |= other.data[i];
+		return this;
+	}
+
+	/**
+	 * Set this image to the intersection of itself with another image of the
+	 * same size.
+	 *
+	 * @param other
+	 *            the other image
+	 * @return this image
+	 */
+	public PackedBinaryImage and(PackedBinaryImage other) {
+		checkSize(other);
+		for (int i = 0; i < data.length; i++)
+			data[i] &= other.data[i];
+		return this;
+	}
+
+	/**
+	 * Remove the foreground pixels of another image of the same size from this
+	 * image.
+	 *
+	 * @param other
+	 *            the other image
+	 * @return this image
+	 */
+	public PackedBinaryImage andNot(PackedBinaryImage other) {
+		checkSize(other);
+		for (int i = 0; i < data.length; i++)
+			data[i] &= ~other.data[i];
+		return this;
+	}
+
+	private void checkSize(PackedBinaryImage other) {
+		if (other.width != width || other.height != height)
+			throw new IllegalArgumentException("Images must be the same size");
+	}
+
+	/**
+	 * Morphological dilation (Minkowski sum) with the positive pixels of the
+	 * given structuring element. The negative pixels are ignored.
+	 *
+	 * @param se
+	 *            the structuring element
+	 * @return a new image containing the result
+	 */
+	public PackedBinaryImage dilate(StructuringElement se) {
+		return shiftUnion(se.positive, 1, false);
+	}
+
+	/**
+	 * Morphological erosion with the positive pixels of the given structuring
+	 * element. The negative pixels are ignored.
+	 *
+	 * @param se
+	 *            the structuring element
+	 * @return a new image containing the result
+	 */
+	public PackedBinaryImage erode(StructuringElement se) {
+		return shiftIntersection(se.positive, -1, false);
+	}
+
+	/**
+	 * Morphological opening (erosion followed by dilation) with the positive
+	 * pixels of the given structuring element.
+	 *
+	 * @param se
+	 *            the structuring element
+	 * @return a new image containing the result
+	 */
+	public PackedBinaryImage open(StructuringElement se) {
+		return erode(se).dilate(se);
+	}
+
+	/**
+	 * Morphological closing (dilation followed by erosion) with the positive
+	 * pixels of the given structuring element.
+	 *
+	 * @param se
+	 *            the structuring element
+	 * @return a new image containing the result
+	 */
+	public PackedBinaryImage close(StructuringElement se) {
+		return dilate(se).erode(se);
+	}
+
+	/**
+	 * The hit-and-miss transform; a pixel is set in the output if all the
+	 * positive pixels of the structuring element centred on it are foreground
+	 * and all of the negative pixels are background.
+	 *
+	 * @param se
+	 *            the structuring element
+	 * @return a new image containing the result
+	 */
+	public PackedBinaryImage hitAndMiss(StructuringElement se) {
+		return shiftIntersection(se.positive, -1, false).and(shiftIntersection(se.negative, -1, true));
+	}
+
+	/**
+	 * Compute the union over the offsets d of this image shifted by
+	 * <code>sign * d</code>; i.e. <code>out(x) = OR_d in(x - sign * d)</code>.
+	 * If complement is true the complement of this image (with everything
+	 * outside the image being foreground) is used as the input.
+	 */
+	PackedBinaryImage shiftUnion(Collection<Pixel> offsets, int sign, boolean complement) {
+		return combineShifts(offsets, sign, complement, OR);
+	}
+
+	/**
+	 * Compute the intersection over the offsets d of this image shifted by
+	 * <code>sign * d</code>; i.e. <code>out(x) = AND_d in(x - sign * d)</code>.
+	 * If complement is true the complement of this image (with everything
+	 * outside the image being foreground) is used as the input.
+	 */
+	PackedBinaryImage shiftIntersection(Collection<Pixel> offsets, int sign, boolean complement) {
+		return combineShifts(offsets, sign, complement, AND);
+	}
+
+	private PackedBinaryImage combineShifts(Collection<Pixel> offsets, int sign, boolean complement, int op) {
+		final PackedBinaryImage out = new PackedBinaryImage(width, height);
+
+		if (offsets.isEmpty()) {
+			if (op == AND)
+				out.fill();
+			return out;
+		}
+
+		final List<int[]> rects = decompose(offsets, sign);
+
+		int minX = 0, maxX = 0, minY = 0, maxY = 0;
+		for (final int[] r : rects) {
+			minX = Math.min(minX, r[0]);
+			maxX = Math.max(maxX, r[1]);
+			minY = Math.min(minY, r[2]);
+			maxY = Math.max(maxY, r[3]);
+		}
+
+		// pad so that every position read by the final shifts is materialised
+		final int padL = maxX, padR = -minX, padT = maxY, padB = -minY;
+		final Plane base = new Plane(width + padL + padR, height + padT + padB, complement ? -1L : 0L);
+
+		for (int y = 0; y < height; y++) {
+			final int dst = (y + padT) * base.stride;
+			final int src = y * stride;
+
+			for (int i = 0; i < base.stride; i++)
+				base.data[dst + i] = readShifted(data, src, stride, 0L, i, padL);
+		}
+
+		if (complement) {
+			for (int i = 0; i < base.data.length; i++)
+				base.data[i] = ~base.data[i];
+		}
+
+		final Plane result = new Plane(base.width, base.height, base.fill);
+		if (op == AND)
+			Arrays.fill(result.data, -1L);
+
+		Plane lastRun = null;
+		int lastLen = -1;
+		for (final int[] r : rects) {
+			final int lx = r[1] - r[0] + 1;
+			if (lx != lastLen) {
+				lastRun = run(base, lx, 1, op);
+				lastLen = lx;
+			}
+
+			final Plane block = run(lastRun, 1, r[3] - r[2] + 1, op);
+			shiftCombine(result, block, r[0], r[2], op);
+		}
+
+		for (int y = 0; y < height; y++) {
+			final int src = (y + padT) * result.stride;
+			final int dst = y * stride;
+
+			for (int i = 0; i < stride; i++)
+				out.data[dst + i] = readShifted(result.data, src, result.stride, result.fill, i, -padL);
+		}
+		out.maskTails();
+
+		return out;
+	}
+
+	/**
+	 * Decompose a set of offsets (multiplied by sign) into a list of
+	 * rectangles {x0, x1, y0, y1} whose union is the set. Each horizontal run
+	 * of offsets is grown vertically over the rows whose runs contain it, so
+	 * convex shapes like boxes and disks need only one rectangle per distinct
+	 * run width. The rectangles are sorted by width so that horizontal runs can
+	 * be shared.
+	 */
+	static List<int[]> decompose(Collection<Pixel> offsets, int sign) {
+		int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+		int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+		for (final Pixel p : offsets) {
+			minX = Math.min(minX, sign * p.x);
+			maxX = Math.max(maxX, sign * p.x);
+			minY = Math.min(minY, sign * p.y);
+			maxY = Math.max(maxY, sign * p.y);
+		}
+
+		final int w = maxX - minX + 1;
+		final int h = maxY - minY + 1;
+		final boolean[][] mask = new boolean[h][w];
+		for (final Pixel p : offsets)
+			mask[sign * p.y - minY][sign * p.x - minX] = true;
+
+		final List<int[]> rects = new ArrayList<int[]>();
+		for (int y = 0; y < h; y++) {
+			for (int x = 0; x < w; x++) {
+				if (!mask[y][x])
+					continue;
+
+				final int x0 = x;
+				while (x + 1 < w && mask[y][x + 1])
+					x++;
+				final int x1 = x;
+
+				int y0 = y, y1 = y;
+				while (y0 > 0 && covers(mask[y0 - 1], x0, x1))
+					y0--;
+				while (y1 + 1 < h && covers(mask[y1 + 1], x0, x1))
+					y1++;
+
+				final int[] rect = { x0 + minX, x1 + minX, y0 + minY, y1 + minY };
+				boolean found = false;
+				for (final int[] r : rects) {
+					if (Arrays.equals(r, rect)) {
+						found = true;
+						break;
+					}
+				}
+				if (!found)
+					rects.add(rect);
+			}
+		}
+
+		// sort by width so consecutive rectangles can share horizontal runs
+		for (int i = 1; i < rects.size(); i++) {
+			for (int j = i; j > 0 && width(rects.get(j)) < width(rects.get(j - 1)); j--)
+				rects.set(j, rects.set(j - 1, rects.get(j)));
+		}
+
+		return rects;
+	}
+
+	private static int width(int[] rect) {
+		return rect[1] - rect[0];
+	}
+
+	private static boolean covers(boolean[] row, int x0, int x1) {
+		for (int x = x0; x <= x1; x++)
+			if (!row[x])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Compute <code>out(x, y) = op_{0<=i<lx, 0<=j<ly} in(x - i, y - j)</code>
+	 * by repeated doubling.
+	 */
+	private static Plane run(Plane in, int lx, int ly, int op) {
+		Plane cur = in;
+
+		int span = 1;
+		while (span * 2 <= lx) {
+			final Plane next = new Plane(cur);
+			shiftCombine(next, cur, span, 0, op);
+			cur = next;
+			span *= 2;
+		}
+		if (span < lx) {
+			final Plane next = new Plane(cur);
+			shiftCombine(next, cur, lx - span, 0, op);
+			cur = next;
+		}
+
+		span = 1;
+		while (span * 2 <= ly) {
+			final Plane next = new Plane(cur);
+			shiftCombine(next, cur, 0, span, op);
+			cur = next;
+			span *= 2;
+		}
+		if (span < ly) {
+			final Plane next = new Plane(cur);
+			shiftCombine(next, cur, 0, ly - span, op);
+			cur = next;
+		}
+
+		return cur;
+	}
+
+	/**
+	 * <code>dst(x, y) = dst(x, y) op src(x - dx, y - dy)</code>. The planes
+	 * must have the same geometry.
+	 */
+	private static void shiftCombine(Plane dst, Plane src, int dx, int dy, int op) {
+		final int stride = dst.stride;
+		final long tail = tailMask(dst.width);
+
+		for (int y = 0; y < dst.height; y++) {
+			final int sy = y - dy;
+			final int off = y * stride;
+
+			if (sy < 0 || sy >= src.height) {
+				if (op == OR && src.fill != 0) {
+					Arrays.fill(dst.data, off, off + stride, -1L);
+				} else if (op == AND && src.fill == 0) {
+					Arrays.fill(dst.data, off, off + stride, 0L);
+				}
+			} else {
+				final int soff = sy * stride;
+
+				if (op == OR) {
+					for (int i = 0; i < stride; i++)
+						dst.data[off + i] |= readShifted(src.data, soff, stride, src.fill, i, dx);
+				} else {
+					for (int i = 0; i < stride; i++)
+						dst.data[off + i] &= readShifted(src.data, soff, stride, src.fill, i, dx);
+				}
+			}
+
+			final int last = off + stride - 1;
+			dst.data[last] = (dst.data[last] & tail) | (dst.fill & ~tail);
+		}
+	}
+
+	/**
+	 * Read word i of a row shifted right (towards increasing x) by dx bits;
+	 * i.e. the bits <code>in(x - dx)</code>. Words outside the row read as
+	 * fill.
+	 */
+	private static long readShifted(long[] row, int off, int stride, long fill, int i, int dx) {
+		if (dx >= 0) {
+			final int ws = dx >>> 6;
+			final int bs = dx & 63;
+			final int j = i - ws;
+			final long hi = (j >= 0 && j < stride) ? row[off + j] : fill;
+
+			if (bs == 0)
+				return hi;
+
+			final long lo = (j - 1 >= 0 && j - 1 < stride) ? row[off + j - 1] : fill;
+			return (hi << bs) | (lo >>> (64 - bs));
+		} else {
+			final int s = -dx;
+			final int ws = s >>> 6;
+			final int bs = s & 63;
+			final int j = i + ws;
+			final long lo = (j >= 0 && j < stride) ? row[off + j] : fill;
+
+			if (bs == 0)
+				return lo;
+
+			final long hi = (j + 1 >= 0 && j + 1 < stride) ? row[off + j + 1] : fill;
+			return (lo >>> bs) | (hi << (64 - bs));
+		}
+	}
+
+	private static long tailMask(int width) {
+		final int r = width & 63;
+		return r == 0 ? -1L : (1L << r) - 1;
+	}
+
+	private void fill() {
+		Arrays.fill(data, -1L);
+		maskTails();
+	}
+
+	private void maskTails() {
+		final long tail = tailMask(width);
+		for (int y = 0; y < height; y++)
+			data[y * stride + stride - 1] &= tail;
+	}
+
+	/**
+	 * Add the foreground pixels to a set, offsetting them by (x0, y0).
+	 *
+	 * @param pixels
+	 *            the set to add to
+	 * @param x0
+	 *            the x-offset
+	 * @param y0
+	 *            the y-offset
+	 */
+	public void addPixelsTo(Set<Pixel> pixels, int x0, int y0) {
+		for (int y = 0; y < height; y++) {
+			final int off = y * stride;
+
+			for (int i = 0; i < stride; i++) {
+				long w = data[off + i];
+
+				while (w != 0) {
+					final int b = Long.numberOfTrailingZeros(w);
+					pixels.add(new Pixel(x0 + (i << 6) + b, y0 + y));
+					w &= w - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write this image into an {@link FImage} of the same size; foreground
+	 * pixels are set to 1 and background pixels to 0.
+	 *
+	 * @param image
+	 *            the image to write to
+	 * @return the image
+	 */
+	public FImage writeTo(FImage image) {
+		for (int y = 0; y < height; y++) {
+			final float[] row = image.pixels[y];
+			final int off = y * stride;
+
+			for (int x = 0; x < width; x++)
+				row[x] = (data[off + (x >>> 6)] & (1L << x)) != 0 ? 1 : 0;
+		}
+
+		return image;
+	}
+
+	/**
+	 * @return a new {@link FImage} with foreground pixels set to 1 and
+	 *         background to 0
+	 */
+	public FImage toFImage() {
+		return writeTo(new FImage(width, height));
+	}
+
+	@Override
+	public PackedBinaryImage clone() {
+		final PackedBinaryImage img = new PackedBinaryImage(width, height);
+		System.arraycopy(data, 0, img.data, 0, data.length);
+		return img;
+	}
+}
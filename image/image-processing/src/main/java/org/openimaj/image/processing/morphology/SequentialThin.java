@@ -79,6 +79,24 @@ public class SequentialThin implements ConnectedComponentProcessor, ImageProcess
 	 */
 	@Override
 	public void processImage(FImage image) {
+		if (hitAndMiss.isPackable()) {
+			PackedBinaryImage packed = PackedBinaryImage.pack(image);
+
+			if (packed != null) {
+				for (int i=niter; i!=0; i--) {
+					PackedBinaryImage hits = hitAndMiss.process(packed);
+
+					if (hits.isEmpty())
+						break;
+
+					packed.andNot(hits);
+				}
+
+				packed.writeTo(image);
+				return;
+			}
+		}
+
 		for (int i=niter; i!=0; i--) {
 			FImage newImage = image.process(hitAndMiss, true);
 			
@@ -62,6 +62,15 @@ public class Thin implements ConnectedComponentProcessor, ImageProcessor<FImage>
 	 */
 	@Override
 	public void processImage(FImage image) {
+		if (hitAndMiss.isPackable()) {
+			PackedBinaryImage packed = PackedBinaryImage.pack(image);
+
+			if (packed != null) {
+				packed.andNot(hitAndMiss.process(packed)).writeTo(image);
+				return;
+			}
+		}
+
 		FImage newImage = image.process(hitAndMiss, true);
 		
 		for (int y=0; y<newImage.height; y++) {
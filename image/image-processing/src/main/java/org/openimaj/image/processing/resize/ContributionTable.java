@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.resize;
+
+import java.util.Arrays;
+
+/**
+ * An immutable table of the filter contributions of the source pixels to each
+ * destination pixel along one axis of a resize, stored in flat primitive
+ * arrays. The weights are computed exactly as in
+ * {@link ResizeProcessor#zoom(org.openimaj.image.FImage, org.openimaj.image.FImage, ResizeFilterFunction)}
+ * so that results are identical.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+final class ContributionTable {
+	/** contributions to destination pixel i are in [offsets[i], offsets[i+1]) */
+	final int[] offsets;
+	final int[] pixels;
+	final double[] weights;
+
+	private ContributionTable(int[] offsets, int[] pixels, double[] weights) {
+		this.offsets = offsets;
+		this.pixels = pixels;
+		this.weights = weights;
+	}
+
+	/**
+	 * Compute the table for resizing along an axis.
+	 *
+	 * @param src
+	 *            the source size
+	 * @param dst
+	 *            the destination size
+	 * @param filterf
+	 *            the filter
+	 * @param fixedCount
+	 *            if true every destination pixel has the same number of
+	 *            contributors (as in the vertical pass of the original
+	 *            implementation); otherwise the contributors stop at the edge
+	 *            of the filter support (as in the horizontal pass).
+	 * @return the table
+	 */
+	static ContributionTable create(int src, int dst, ResizeFilterFunction filterf, boolean fixedCount) {
+		final double scale = (double) dst / (double) src;
+		final double fwidth = filterf.getSupport();
+
+		double width = fwidth;
+		double fscale = 1.0;
+		final boolean shrinking = scale < 1.0;
+		if (shrinking) {
+			width = fwidth / scale;
+			fscale = 1.0 / scale;
+
+			if (width <= .5) {
+				// Reduce to point sampling.
+				width = .5 + 1.0e-6;
+				fscale = 1.0;
+			}
+		}
+
+		final int capacity = (int) (width * 2.0 + 1.0);
+		final int[] offsets = new int[dst + 1];
+		int[] pixels = new int[dst * capacity];
+		double[] weights = new double[dst * capacity];
+
+		int k = 0;
+		for (int i = 0; i < dst; i++) {
+			offsets[i] = k;
+
+			final double center = i / scale;
+			final int left = (int) Math.ceil(center - width);
+			final int right = fixedCount ? left + capacity - 1 : (int) Math.floor(center + width);
+
+			if (k + right - left + 1 > pixels.length) {
+				pixels = Arrays.copyOf(pixels, 2 * (k + right - left + 1));
+				weights = Arrays.copyOf(weights, pixels.length);
+			}
+
+			double density = 0.0;
+			for (int j = left; j <= right; j++) {
+				double weight = center - j;
+				weight = shrinking ? filterf.filter(weight / fscale) / fscale : filterf.filter(weight);
+
+				int n;
+				if (j < 0) {
+					n = -j;
+				}
+				else if (j >= src) {
+					n = (src - j) + src - 1;
+				}
+				else {
+					n = j;
+				}
+
+				if (n >= src) {
+					n = n % src;
+				}
+				else if (n < 0) {
+					n = src - 1;
+				}
+
+				pixels[k] = n;
+				weights[k] = weight;
+				k++;
+
+				density += weight;
+			}
+
+			if (shrinking && (density != 0.0) && (density != 1.0)) {
+				// Normalize.
+				density = 1.0 / density;
+				for (int m = offsets[i]; m < k; m++) {
+					weights[m] *= density;
+				}
+			}
+		}
+		offsets[dst] = k;
+
+		return new ContributionTable(offsets, pixels, weights);
+	}
+}
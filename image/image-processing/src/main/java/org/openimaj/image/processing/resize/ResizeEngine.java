@@ -0,0 +1,342 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.resize;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.MBFImage;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * A multi-threaded implementation of the resampling performed by
+ * {@link ResizeProcessor#zoom(FImage, FImage, ResizeFilterFunction)}. The
+ * filter contribution tables for each axis are cached, keyed by the source
+ * size, target size and filter, so repeatedly resizing images to a small
+ * number of fixed sizes does not recompute them. The cache holds a bounded
+ * number of tables and evicts the least recently used. Filters are compared
+ * with {@link Object#equals(Object)}, so to benefit from caching the same
+ * filter instance (for example {@link ResizeProcessor#DEFAULT_FILTER}) should
+ * be reused.
+ * <p>
+ * The horizontal pass is split across the rows of the source image and the
+ * vertical pass across the rows of the destination; the bands of
+ * {@link MBFImage}s are also processed concurrently. The results are
+ * identical to those of the single-threaded implementation.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class ResizeEngine {
+	/**
+	 * The default maximum number of cached contribution tables
+	 */
+	public static final int DEFAULT_MAX_TABLES = 64;
+
+	/**
+	 * The approximate number of output pixels in each parallel block
+	 */
+	private static final int BLOCK_PIXELS = 1 << 14;
+
+	private static final ResizeEngine INSTANCE = new ResizeEngine(DEFAULT_MAX_TABLES);
+
+	private static final class Key {
+		final int src;
+		final int dst;
+		final boolean fixedCount;
+		final ResizeFilterFunction filter;
+
+		Key(int src, int dst, boolean fixedCount, ResizeFilterFunction filter) {
+			this.src = src;
+			this.dst = dst;
+			this.fixedCount = fixedCount;
+			this.filter = filter;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((src * 31 + dst) * 31 + (fixedCount ? 1 : 0)) * 31 + filter.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+
+			final Key k = (Key) obj;
+			return src == k.src && dst == k.dst && fixedCount == k.fixedCount && filter.equals(k.filter);
+		}
+	}
+
+	private final Map<Key, ContributionTable> cache;
+
+	/**
+	 * Construct with the given maximum number of cached contribution tables.
+	 * Each resize uses two tables (one per axis).
+	 *
+	 * @param maxTables
+	 *            the maximum number of tables to cache
+	 */
+	public ResizeEngine(final int maxTables) {
+		this.cache = new LinkedHashMap<Key, ContributionTable>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, ContributionTable> eldest) {
+				return size() > maxTables;
+			}
+		};
+	}
+
+	/**
+	 * Get the shared engine instance, which caches up to
+	 * {@link #DEFAULT_MAX_TABLES} tables.
+	 *
+	 * @return the shared engine
+	 */
+	public static ResizeEngine getInstance() {
+		return INSTANCE;
+	}
+
+	ContributionTable getTable(int src, int dst, ResizeFilterFunction filterf, boolean fixedCount) {
+		final Key key = new Key(src, dst, fixedCount, filterf);
+
+		ContributionTable table;
+		synchronized (cache) {
+			table = cache.get(key);
+		}
+
+		if (table == null) {
+			// computed outside the lock; a racing thread may compute the same
+			// table, which is harmless
+			table = ContributionTable.create(src, dst, filterf, fixedCount);
+
+			synchronized (cache) {
+				cache.put(key, table);
+			}
+		}
+
+		return table;
+	}
+
+	/**
+	 * @return the number of contribution tables currently cached
+	 */
+	public int getCachedTableCount() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Remove all cached contribution tables
+	 */
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Resample an image into the destination image, which determines the
+	 * output size.
+	 *
+	 * @param in
+	 *            the source image
+	 * @param dst
+	 *            the destination image
+	 * @param filterf
+	 *            the filter to use
+	 * @return the destination image
+	 */
+	public FImage zoom(final FImage in, final FImage dst, final ResizeFilterFunction filterf) {
+		final int srcWidth = in.width;
+		final int srcHeight = in.height;
+		final int dstWidth = dst.width;
+		final int dstHeight = dst.height;
+
+		final ContributionTable contribX = getTable(srcWidth, dstWidth, filterf, false);
+		final ContributionTable contribY = getTable(srcHeight, dstHeight, filterf, true);
+
+		final float maxValue = in.max();
+		final float[][] work = new float[srcHeight][dstWidth];
+
+		// horizontal pass: each source row into the work image
+		Parallel.forBlocks(0, srcHeight, blockRows(dstWidth), new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				for (int k = range.start; k < range.stop; k++) {
+					final float[] src = in.pixels[k];
+					final float[] out = work[k];
+
+					for (int xx = 0; xx < dstWidth; xx++) {
+						final int start = contribX.offsets[xx];
+						final int end = contribX.offsets[xx + 1];
+
+						double weight = 0.0;
+						boolean bPelDelta = false;
+						final double pel = src[contribX.pixels[start]];
+						for (int j = start; j < end; j++) {
+							final double pel2 = j == start ? pel : src[contribX.pixels[j]];
+							if (pel2 != pel) {
+								bPelDelta = true;
+							}
+							weight += pel2 * contribX.weights[j];
+						}
+
+						out[xx] = clamp(bPelDelta ? Math.round(weight * 255) / 255f : pel, maxValue);
+					}
+				}
+			}
+		});
+
+		// vertical pass: each destination row from the work image
+		Parallel.forBlocks(0, dstHeight, blockRows(dstWidth), new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				final double[] acc = new double[dstWidth];
+				final boolean[] delta = new boolean[dstWidth];
+
+				for (int i = range.start; i < range.stop; i++) {
+					final int start = contribY.offsets[i];
+					final int end = contribY.offsets[i + 1];
+					final float[] first = work[contribY.pixels[start]];
+
+					for (int xx = 0; xx < dstWidth; xx++) {
+						acc[xx] = 0.0;
+						delta[xx] = false;
+					}
+
+					for (int j = start; j < end; j++) {
+						final float[] row = work[contribY.pixels[j]];
+						final double w = contribY.weights[j];
+
+						for (int xx = 0; xx < dstWidth; xx++) {
+							final double pel2 = row[xx];
+							if (pel2 != first[xx])
+								delta[xx] = true;
+							acc[xx] += pel2 * w;
+						}
+					}
+
+					final float[] out = dst.pixels[i];
+					for (int xx = 0; xx < dstWidth; xx++) {
+						final double pel = first[xx];
+						out[xx] = clamp(delta[xx] ? Math.round(acc[xx] * 255) / 255f : pel, maxValue);
+					}
+				}
+			}
+		});
+
+		return dst;
+	}
+
+	private static float clamp(double weight, float maxValue) {
+		if (weight < 0) {
+			weight = 0;
+		}
+		else if (weight > maxValue) {
+			weight = maxValue;
+		}
+
+		return (float) weight;
+	}
+
+	private static int blockRows(int width) {
+		return Math.max(1, BLOCK_PIXELS / Math.max(1, width));
+	}
+
+	/**
+	 * Resample each band of an image into the corresponding band of the
+	 * destination image, which determines the output size. The bands are
+	 * processed concurrently.
+	 *
+	 * @param in
+	 *            the source image
+	 * @param dst
+	 *            the destination image
+	 * @param filterf
+	 *            the filter to use
+	 * @return the destination image
+	 */
+	public MBFImage zoom(final MBFImage in, final MBFImage dst, final ResizeFilterFunction filterf) {
+		if (in.numBands() != dst.numBands())
+			throw new IllegalArgumentException("Images must have the same number of bands");
+
+		Parallel.forBlocks(0, in.numBands(), 1, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				for (int b = range.start; b < range.stop; b++)
+					zoom(in.getBand(b), dst.getBand(b), filterf);
+			}
+		});
+
+		return dst;
+	}
+
+	/**
+	 * Resize an image to the given size, returning a new image.
+	 *
+	 * @param in
+	 *            the source image
+	 * @param newX
+	 *            the new width
+	 * @param newY
+	 *            the new height
+	 * @param filterf
+	 *            the filter to use
+	 * @return the resized image
+	 */
+	public MBFImage resize(MBFImage in, int newX, int newY, ResizeFilterFunction filterf) {
+		final MBFImage dst = new MBFImage(newX, newY, in.numBands());
+		dst.colourSpace = in.colourSpace;
+
+		return zoom(in, dst, filterf);
+	}
+
+	/**
+	 * Resize an image to the given size, returning a new image.
+	 *
+	 * @param in
+	 *            the source image
+	 * @param newX
+	 *            the new width
+	 * @param newY
+	 *            the new height
+	 * @param filterf
+	 *            the filter to use
+	 * @return the resized image
+	 */
+	public FImage resize(FImage in, int newX, int newY, ResizeFilterFunction filterf) {
+		return zoom(in, new FImage(newX, newY), filterf);
+	}
+}
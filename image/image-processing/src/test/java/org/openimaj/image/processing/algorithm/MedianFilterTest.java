@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+
+/**
+ * Tests for {@link MedianFilter}.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class MedianFilterTest {
+	static FImage randomImage(Random rng, int width, int height, boolean quantised) {
+		final FImage image = new FImage(width, height);
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				image.pixels[y][x] = quantised ? ImageUtilities.BYTE_TO_FLOAT_LUT[rng.nextInt(256)] : rng.nextFloat();
+		return image;
+	}
+
+	private static FImage bruteForceMedian(FImage image, int bw, int bh) {
+		final FImage out = new FImage(image.width, image.height);
+		final float[] tmp = new float[bw * bh];
+
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				int count = 0;
+				for (int yy = y - bh / 2; yy < y - bh / 2 + bh; yy++)
+					for (int xx = x - bw / 2; xx < x - bw / 2 + bw; xx++)
+						if (xx >= 0 && xx < image.width && yy >= 0 && yy < image.height)
+							tmp[count++] = image.pixels[yy][xx];
+
+				Arrays.sort(tmp, 0, count);
+				if (count % 2 == 0)
+					out.pixels[y][x] = (tmp[count / 2] + tmp[count / 2 - 1]) / 2f;
+				else
+					out.pixels[y][x] = tmp[count / 2];
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Test the constant-time path for quantised images and the sorting path
+	 * for other images against a brute-force median, for both odd and even
+	 * sized supports
+	 */
+	@Test
+	public void testBlockSupport() {
+		final Random rng = new Random(0);
+		final int[][] sizes = { { 1, 1 }, { 3, 3 }, { 5, 3 }, { 1, 7 }, { 15, 15 }, { 41, 9 }, { 2, 2 },
+				{ 4, 4 }, { 4, 3 }, { 1, 6 }, { 10, 16 } };
+
+		for (final boolean quantised : new boolean[] { true, false }) {
+			for (final int[] size : sizes) {
+				final FImage image = randomImage(rng, 37, 29, quantised);
+				final FImage expected = bruteForceMedian(image, size[0], size[1]);
+
+				final FImage actual = image.process(new MedianFilter(FilterSupport.createBlockSupport(size[0],
+						size[1])));
+
+				for (int y = 0; y < image.height; y++)
+					assertArrayEquals(expected.pixels[y], actual.pixels[y], 0f);
+			}
+		}
+	}
+}
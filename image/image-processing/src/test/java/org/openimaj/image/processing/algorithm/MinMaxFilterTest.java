@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.algorithm;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+
+/**
+ * Tests for {@link MinFilter} and {@link MaxFilter}.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class MinMaxFilterTest {
+	private static FImage bruteForce(FImage image, int bw, int bh, boolean max) {
+		final FImage out = new FImage(image.width, image.height);
+
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				float v = max ? -Float.MAX_VALUE : Float.MAX_VALUE;
+				for (int yy = y - bh / 2; yy <= y + bh / 2; yy++)
+					for (int xx = x - bw / 2; xx <= x + bw / 2; xx++)
+						if (xx >= 0 && xx < image.width && yy >= 0 && yy < image.height)
+							v = max ? Math.max(v, image.pixels[yy][xx]) : Math.min(v, image.pixels[yy][xx]);
+
+				out.pixels[y][x] = v;
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Test the van Herk/Gil-Werman block filters against brute-force min and
+	 * max filters, including non-square blocks
+	 */
+	@Test
+	public void testBlockSupport() {
+		final Random rng = new Random(0);
+		final int[][] sizes = { { 1, 1 }, { 3, 3 }, { 5, 3 }, { 1, 7 }, { 15, 15 }, { 41, 9 } };
+
+		for (final int[] size : sizes) {
+			final FImage image = MedianFilterTest.randomImage(rng, 37, 29, false);
+
+			final FImage min = image.process(new MinFilter(FilterSupport.createBlockSupport(size[0], size[1])));
+			final FImage max = image.process(new MaxFilter(FilterSupport.createBlockSupport(size[0], size[1])));
+			final FImage expectedMin = bruteForce(image, size[0], size[1], false);
+			final FImage expectedMax = bruteForce(image, size[0], size[1], true);
+
+			for (int y = 0; y < image.height; y++) {
+				assertArrayEquals(expectedMin.pixels[y], min.pixels[y], 0f);
+				assertArrayEquals(expectedMax.pixels[y], max.pixels[y], 0f);
+			}
+		}
+	}
+
+	/**
+	 * Test that arbitrary supports still work
+	 */
+	@Test
+	public void testCrossSupport() {
+		final FImage image = MedianFilterTest.randomImage(new Random(1), 10, 8, false);
+		final FImage max = image.process(new MaxFilter(FilterSupport.CROSS_3x3));
+
+		for (int y = 0; y < image.height; y++) {
+			for (int x = 0; x < image.width; x++) {
+				float v = image.pixels[y][x];
+				if (x > 0)
+					v = Math.max(v, image.pixels[y][x - 1]);
+				if (x < image.width - 1)
+					v = Math.max(v, image.pixels[y][x + 1]);
+				if (y > 0)
+					v = Math.max(v, image.pixels[y - 1][x]);
+				if (y < image.height - 1)
+					v = Math.max(v, image.pixels[y + 1][x]);
+
+				assertArrayEquals(new float[] { v }, new float[] { max.pixels[y][x] }, 0f);
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.convolution;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+
+/**
+ * Tests for {@link FImageConvolveSeparable} and
+ * {@link TiledSeparableConvolution}.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class FImageConvolveSeparableTest {
+	private static final int[][] SIZES = { { 1, 1 }, { 7, 3 }, { 31, 17 }, { 17, 300 }, { 256, 256 }, { 401, 203 },
+			{ 3000, 20 } };
+
+	private static final int[] KERNEL_SIZES = { 1, 2, 3, 4, 7, 25 };
+
+	/**
+	 * The horizontal pass must match the column-buffer implementation exactly
+	 */
+	@Test
+	public void testHorizontal() {
+		final Random rng = new Random(1);
+
+		for (final int[] size : SIZES) {
+			for (final int ksize : KERNEL_SIZES) {
+				final FImage image = randomImage(rng, size[0], size[1]);
+				final float[] kernel = randomKernel(rng, ksize);
+
+				final FImage expected = image.clone();
+				referenceHorizontal(expected, kernel);
+				FImageConvolveSeparable.convolveHorizontal(image, kernel);
+
+				assertEquals(expected, image);
+			}
+		}
+	}
+
+	/**
+	 * The vertical pass must match the column-buffer implementation exactly
+	 */
+	@Test
+	public void testVertical() {
+		final Random rng = new Random(2);
+
+		for (final int[] size : SIZES) {
+			for (final int ksize : KERNEL_SIZES) {
+				final FImage image = randomImage(rng, size[0], size[1]);
+				final float[] kernel = randomKernel(rng, ksize);
+
+				final FImage expected = image.clone();
+				referenceVertical(expected, kernel);
+				FImageConvolveSeparable.convolveVertical(image, kernel);
+
+				assertEquals(expected, image);
+			}
+		}
+	}
+
+	/**
+	 * Gaussian blurring goes through the separable convolution and must be
+	 * unchanged
+	 */
+	@Test
+	public void testGaussian() {
+		final FImage image = randomImage(new Random(3), 320, 240);
+		final float[] kernel = FGaussianConvolve.makeKernel(2.5f);
+
+		final FImage expected = image.clone();
+		referenceHorizontal(expected, kernel);
+		referenceVertical(expected, kernel);
+
+		assertEquals(expected, image.process(new FGaussianConvolve(2.5f)));
+	}
+
+	private static void assertEquals(FImage expected, FImage actual) {
+		for (int r = 0; r < expected.height; r++)
+			assertArrayEquals(expected.pixels[r], actual.pixels[r], 0f);
+	}
+
+	private static FImage randomImage(Random rng, int width, int height) {
+		final FImage image = new FImage(width, height);
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				image.pixels[r][c] = rng.nextFloat();
+		return image;
+	}
+
+	private static float[] randomKernel(Random rng, int size) {
+		final float[] kernel = new float[size];
+		for (int i = 0; i < size; i++)
+			kernel[i] = rng.nextFloat() - 0.25f;
+		return kernel;
+	}
+
+	private static void referenceHorizontal(FImage image, float[] kernel) {
+		final int halfsize = kernel.length / 2;
+		final float buffer[] = new float[image.width + kernel.length];
+
+		for (int r = 0; r < image.height; r++) {
+			for (int i = 0; i < halfsize; i++)
+				buffer[i] = image.pixels[r][0];
+			for (int i = 0; i < image.width; i++)
+				buffer[halfsize + i] = image.pixels[r][i];
+			for (int i = 0; i < halfsize; i++)
+				buffer[halfsize + image.width + i] = image.pixels[r][image.width - 1];
+
+			FImageConvolveSeparable.convolveBuffer(buffer, kernel);
+
+			for (int c = 0; c < image.width; c++)
+				image.pixels[r][c] = buffer[c];
+		}
+	}
+
+	private static void referenceVertical(FImage image, float[] kernel) {
+		final int halfsize = kernel.length / 2;
+		final float buffer[] = new float[image.height + kernel.length];
+
+		for (int c = 0; c < image.width; c++) {
+			for (int i = 0; i < halfsize; i++)
+				buffer[i] = image.pixels[0][c];
+			for (int i = 0; i < image.height; i++)
+				buffer[halfsize + i] = image.pixels[i][c];
+			for (int i = 0; i < halfsize; i++)
+				buffer[halfsize + image.height + i] = image.pixels[image.height - 1][c];
+
+			FImageConvolveSeparable.convolveBuffer(buffer, kernel);
+
+			for (int r = 0; r < image.height; r++)
+				image.pixels[r][c] = buffer[r];
+		}
+	}
+}
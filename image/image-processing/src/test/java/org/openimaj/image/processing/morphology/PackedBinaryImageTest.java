@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.morphology;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.pixel.ConnectedComponent;
+import org.openimaj.image.pixel.Pixel;
+
+/**
+ * Tests for {@link PackedBinaryImage} and the bit-packed paths of the
+ * morphological operators.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class PackedBinaryImageTest {
+	private static FImage randomImage(Random rng, int width, int height, float density) {
+		final FImage image = new FImage(width, height);
+
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				image.pixels[y][x] = rng.nextFloat() < density ? 1 : 0;
+
+		return image;
+	}
+
+	private static StructuringElement[] elements() {
+		final StructuringElement rect = new StructuringElement();
+		for (int y = -1; y <= 1; y++)
+			for (int x = -3; x <= 3; x++)
+				rect.positive.add(new Pixel(x, y));
+
+		final StructuringElement odd = new StructuringElement(
+				new Pixel[] { new Pixel(0, 0), new Pixel(2, 1), new Pixel(-1, 2), new Pixel(1, -1) }, null);
+
+		return new StructuringElement[] { StructuringElement.BOX, StructuringElement.CROSS, StructuringElement.HPIT,
+				StructuringElement.disk(4), rect, odd };
+	}
+
+	private static void assertImageEquals(FImage expected, FImage actual) {
+		assertEquals(expected.width, actual.width);
+		assertEquals(expected.height, actual.height);
+		for (int y = 0; y < expected.height; y++)
+			assertArrayEquals(expected.pixels[y], actual.pixels[y], 0f);
+	}
+
+	private static boolean get(FImage img, int x, int y) {
+		return x >= 0 && y >= 0 && x < img.width && y < img.height && img.pixels[y][x] == 1;
+	}
+
+	/**
+	 * Test dilation and erosion against brute-force implementations on images
+	 * spanning several words per row
+	 */
+	@Test
+	public void testDilateErode() {
+		final Random rng = new Random(0);
+
+		for (final StructuringElement se : elements()) {
+			final FImage image = randomImage(rng, 150, 37, 0.3f);
+			final PackedBinaryImage packed = new PackedBinaryImage(image, 0.5f);
+
+			final FImage dilated = new FImage(image.width, image.height);
+			final FImage eroded = new FImage(image.width, image.height);
+			for (int y = 0; y < image.height; y++) {
+				for (int x = 0; x < image.width; x++) {
+					boolean any = false, all = true;
+					for (final Pixel p : se.positive) {
+						any |= get(image, x - p.x, y - p.y);
+						all &= get(image, x + p.x, y + p.y);
+					}
+					dilated.pixels[y][x] = any ? 1 : 0;
+					eroded.pixels[y][x] = all ? 1 : 0;
+				}
+			}
+
+			assertImageEquals(dilated, packed.dilate(se).toFImage());
+			assertImageEquals(eroded, packed.erode(se).toFImage());
+		}
+	}
+
+	/**
+	 * Test the hit-and-miss transform against a brute-force implementation
+	 */
+	@Test
+	public void testHitAndMiss() {
+		final FImage image = randomImage(new Random(1), 70, 30, 0.5f);
+		final PackedBinaryImage packed = new PackedBinaryImage(image, 0.5f);
+
+		for (final StructuringElement se : GolayAlphabet.L) {
+			final PackedBinaryImage hm = packed.hitAndMiss(se);
+
+			for (int y = 0; y < image.height; y++) {
+				for (int x = 0; x < image.width; x++) {
+					boolean match = true;
+					for (final Pixel p : se.positive)
+						match &= get(image, x + p.x, y + p.y);
+					for (final Pixel p : se.negative)
+						match &= !get(image, x + p.x, y + p.y);
+
+					assertEquals(match, hm.get(x, y));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Test that the bit-packed paths of the image processors give identical
+	 * results to the kernel implementations
+	 */
+	@Test
+	public void testProcessors() {
+		final Random rng = new Random(2);
+
+		for (final StructuringElement se : elements()) {
+			final FImage image = randomImage(rng, 97, 41, 0.4f);
+
+			final Erode erode = new Erode(se);
+			final Dilate dilate = new Dilate(se);
+
+			final FImage open = image.process(erode, true).process(dilate, true);
+			assertImageEquals(open, image.process(new Open(se)));
+
+			final FImage close = image.process(dilate, true).process(erode, true);
+			assertImageEquals(close, image.process(new Close(se)));
+		}
+
+		final FImage image = randomImage(rng, 80, 40, 0.7f);
+		final Skeleton skeleton = new Skeleton();
+		FImage expected = image.clone();
+		while (true) {
+			final FImage hits = expected.process(skeleton.hitAndMiss, true);
+			if (hits.sum() == 0)
+				break;
+			expected = expected.subtract(hits);
+		}
+		assertImageEquals(expected, image.process(skeleton));
+	}
+
+	private static Set<Pixel> bruteDilate(Set<Pixel> pixels, StructuringElement se) {
+		final Set<Pixel> out = new HashSet<Pixel>(pixels);
+		for (final Pixel a : pixels)
+			for (final Pixel p : se.positive)
+				out.add(new Pixel(a.x - p.x, a.y - p.y));
+		return out;
+	}
+
+	private static Set<Pixel> bruteErode(Set<Pixel> pixels, StructuringElement se) {
+		final Set<Pixel> out = new HashSet<Pixel>();
+		for (final Pixel a : pixels)
+			if (se.matches(a, pixels))
+				out.add(a);
+		return out;
+	}
+
+	/**
+	 * Test the connected component operators, including components with
+	 * negative coordinates
+	 */
+	@Test
+	public void testConnectedComponents() {
+		final Random rng = new Random(3);
+
+		for (final StructuringElement se : elements()) {
+			final ConnectedComponent cc = new ConnectedComponent(randomImage(rng, 90, 20, 0.6f), 0.5f);
+			cc.translate(-50, -7);
+
+			final ConnectedComponent dilated = cc.clone();
+			new Dilate(se).process(dilated);
+			assertEquals(bruteDilate(cc.getPixels(), se), dilated.getPixels());
+
+			final ConnectedComponent eroded = cc.clone();
+			new Erode(se).process(eroded);
+			assertEquals(bruteErode(cc.getPixels(), se), eroded.getPixels());
+		}
+
+		final ConnectedComponent cc = new ConnectedComponent(randomImage(rng, 40, 30, 0.6f), 0.5f);
+		final HitAndMiss hm = new HitAndMiss(GolayAlphabet.L);
+		hm.process(cc);
+
+		final Set<Pixel> expected = new HashSet<Pixel>();
+		for (final StructuringElement se : GolayAlphabet.L)
+			for (int y = -3; y < 33; y++)
+				for (int x = -3; x < 43; x++)
+					if (se.matches(new Pixel(x, y), cc.getPixels()))
+						expected.add(new Pixel(x, y));
+		assertEquals(expected, hm.getPixels());
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.processing.resize;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.openimaj.image.FImage;
+import org.openimaj.image.ImageUtilities;
+import org.openimaj.image.MBFImage;
+import org.openimaj.image.processing.resize.filters.BSplineFilter;
+import org.openimaj.image.processing.resize.filters.BellFilter;
+import org.openimaj.image.processing.resize.filters.BlackmanFilter;
+import org.openimaj.image.processing.resize.filters.BoxFilter;
+import org.openimaj.image.processing.resize.filters.CatmullRomFilter;
+import org.openimaj.image.processing.resize.filters.HammingFilter;
+import org.openimaj.image.processing.resize.filters.HanningFilter;
+import org.openimaj.image.processing.resize.filters.HermiteFilter;
+import org.openimaj.image.processing.resize.filters.Lanczos3Filter;
+import org.openimaj.image.processing.resize.filters.MitchellFilter;
+import org.openimaj.image.processing.resize.filters.PointFilter;
+import org.openimaj.image.processing.resize.filters.TriangleFilter;
+
+/**
+ * Tests for the {@link ResizeEngine}
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class ResizeEngineTest {
+	private static void assertImageEquals(FImage expected, FImage actual) {
+		assertEquals(expected.width, actual.width);
+		assertEquals(expected.height, actual.height);
+		for (int y = 0; y < expected.height; y++)
+			assertArrayEquals(expected.pixels[y], actual.pixels[y], 0f);
+	}
+
+	/**
+	 * Test that the contribution tables are cached and bounded, and that
+	 * cached tables give the same results as fresh ones
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testCache() throws IOException {
+		final FImage image = ImageUtilities.readF(ResizeEngineTest.class
+				.getResourceAsStream("/org/openimaj/image/data/sinaface.jpg"));
+		final ResizeEngine engine = new ResizeEngine(4);
+		final ResizeFilterFunction filter = TriangleFilter.INSTANCE;
+
+		final FImage first = engine.resize(image, 64, 48, filter);
+		assertEquals(2, engine.getCachedTableCount());
+
+		assertImageEquals(first, engine.resize(image, 64, 48, filter));
+		assertEquals(2, engine.getCachedTableCount());
+
+		engine.resize(image, 32, 24, filter);
+		engine.resize(image, 300, 200, filter);
+		assertEquals(4, engine.getCachedTableCount());
+
+		engine.clearCache();
+		assertImageEquals(first, engine.resize(image, 64, 48, filter));
+	}
+
+	/**
+	 * Test that the bands of an {@link MBFImage} are resized as if they were
+	 * resized individually
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testMBFImage() throws IOException {
+		final MBFImage image = ImageUtilities.readMBF(ResizeEngineTest.class
+				.getResourceAsStream("/org/openimaj/image/data/sinaface.jpg"));
+
+		final MBFImage resized = ResizeEngine.getInstance().resize(image, 123, 77, ResizeProcessor.DEFAULT_FILTER);
+		assertEquals(image.colourSpace, resized.colourSpace);
+
+		for (int b = 0; b < image.numBands(); b++) {
+			final FImage expected = ResizeProcessor.zoom(image.getBand(b), new FImage(123, 77),
+					ResizeProcessor.DEFAULT_FILTER);
+			assertImageEquals(expected, resized.getBand(b));
+		}
+	}
+
+	/**
+	 * Test that the engine gives exactly the same results as the original
+	 * zoom implementation, for all the filters, when shrinking, enlarging and
+	 * doing both at once
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testSameAsReference() throws IOException {
+		final FImage image = ImageUtilities.readF(ResizeEngineTest.class
+				.getResourceAsStream("/org/openimaj/image/data/sinaface.jpg"));
+
+		final ResizeFilterFunction[] filters = {
+				BSplineFilter.INSTANCE, BellFilter.INSTANCE, new BlackmanFilter(), BoxFilter.INSTANCE,
+				CatmullRomFilter.INSTANCE, new HammingFilter(), new HanningFilter(), HermiteFilter.INSTANCE,
+				Lanczos3Filter.INSTANCE, MitchellFilter.INSTANCE, PointFilter.INSTANCE, TriangleFilter.INSTANCE
+		};
+		final double[][] scales = { { 0.5, 0.5 }, { 0.23, 0.31 }, { 2, 2 }, { 1.7, 2.9 }, { 0.4, 1.6 }, { 1, 1 } };
+
+		final ResizeEngine engine = new ResizeEngine(4);
+		for (final ResizeFilterFunction filter : filters) {
+			for (final double[] scale : scales) {
+				// the original implementation fails when a column has no
+				// contributors, as happens when enlarging with point sampling
+				if (filter == PointFilter.INSTANCE && scale[0] > 1)
+					continue;
+
+				final int w = (int) (image.width * scale[0]);
+				final int h = (int) (image.height * scale[1]);
+
+				final FImage expected = ReferenceZoom.zoom(image, new FImage(w, h), filter);
+				assertImageEquals(expected, engine.zoom(image, new FImage(w, h), filter));
+				assertImageEquals(expected, ResizeProcessor.zoom(image, new FImage(w, h), filter));
+			}
+		}
+	}
+}
@@ -0,0 +1,419 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.objectdetection.haar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openimaj.image.analysis.algorithm.SummedSqTiltAreaTable;
+
+/**
+ * A {@link StageTreeClassifier} compiled into flat primitive arrays. The
+ * stages, trees, tree nodes and feature rectangles of the cascade are each
+ * stored contiguously and linked by integer indices, rather than through
+ * object references, which makes evaluation of the cascade considerably more
+ * cache friendly.
+ * <p>
+ * Unlike {@link StageTreeClassifier}, the compiled classifier holds no
+ * mutable per-scale state; instead the scaled feature rectangles for a given
+ * scale are computed by {@link #scale(float)}, and the resultant
+ * {@link Scaled} object can be used to classify windows at that scale from
+ * any number of threads concurrently. The classification results are
+ * identical to those of the original {@link StageTreeClassifier}.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class CompiledStageTreeClassifier {
+	private static final int RECT_STRIDE = 5;
+	private static final int MAX_CACHED_SCALES = 256;
+
+	final int width;
+	final int height;
+
+	// stages; successor indices of -1 indicate no successor
+	final float[] stageThreshold;
+	final boolean[] stageHasNegativeValues;
+	final int[] stageTreeStart;
+	final int[] stageTreeEnd;
+	final int[] stageSuccess;
+	final int[] stageFailure;
+
+	// trees; a root (or child) index >= 0 is a node, otherwise ~index is a leaf
+	final int[] treeRoot;
+
+	// nodes; the rectangles of the feature of node i are
+	// [nodeRectStart[i], nodeRectStart[i+1])
+	final HaarFeature[] nodeFeature;
+	final boolean[] nodeTilted;
+	final int[] nodeRectStart;
+	final float[] nodeThreshold;
+	final int[] nodeLeft;
+	final int[] nodeRight;
+
+	final int maxRects;
+
+	final float[] leafValue;
+
+	private final Map<Float, Scaled> scaleCache = new ConcurrentHashMap<Float, Scaled>();
+
+	/**
+	 * A {@link CompiledStageTreeClassifier} with its features scaled to a
+	 * particular detection window size.
+	 */
+	public final class Scaled {
+		final float scale;
+		final int roundedScale;
+		final int windowWidth;
+		final int windowHeight;
+		final float invArea;
+
+		// x, y, width, height and weight (as raw int bits) of each
+		// rectangle, interleaved
+		final int[] rects;
+
+		Scaled(float scale) {
+			this.scale = scale;
+			this.roundedScale = Math.round(scale);
+
+			// following StageTreeClassifier#setScale(float)
+			this.windowWidth = Math.round(scale * (width - 2));
+			this.windowHeight = Math.round(scale * (height - 2));
+			this.invArea = 1.0f / (windowWidth * windowHeight);
+
+			rects = new int[RECT_STRIDE * nodeRectStart[nodeFeature.length]];
+
+			final WeightedRectangle[] tmp = new WeightedRectangle[maxRects];
+			for (int i = 0; i < tmp.length; i++)
+				tmp[i] = new WeightedRectangle(0, 0, 0, 0, 0);
+
+			for (int n = 0; n < nodeFeature.length; n++) {
+				final int nrects = nodeRectStart[n + 1] - nodeRectStart[n];
+				final WeightedRectangle[] scaled = nrects == maxRects ? tmp : Arrays.copyOf(tmp, nrects);
+
+				nodeFeature[n].computeScaledRects(scale, invArea, scaled);
+
+				for (int i = 0, r = RECT_STRIDE * nodeRectStart[n]; i < nrects; i++, r += RECT_STRIDE) {
+					rects[r] = scaled[i].x;
+					rects[r + 1] = scaled[i].y;
+					rects[r + 2] = scaled[i].width;
+					rects[r + 3] = scaled[i].height;
+					rects[r + 4] = Float.floatToRawIntBits(scaled[i].weight);
+				}
+			}
+		}
+
+		/**
+		 * Get the scale
+		 * 
+		 * @return the scale
+		 */
+		public float getScale() {
+			return scale;
+		}
+
+		private float computeWindowVarianceNorm(SummedSqTiltAreaTable sat, int x, int y) {
+			x += roundedScale; // shift by 1 scaled px to centre box
+			y += roundedScale;
+
+			final float[] top = sat.sum.pixels[y];
+			final float[] bottom = sat.sum.pixels[y + windowHeight];
+			final float[] sqTop = sat.sqSum.pixels[y];
+			final float[] sqBottom = sat.sqSum.pixels[y + windowHeight];
+
+			final float sum = bottom[x + windowWidth] + top[x] - bottom[x] - top[x + windowWidth];
+			final float sqSum = sqBottom[x + windowWidth] + sqTop[x] - sqBottom[x] - sqTop[x + windowWidth];
+
+			final float mean = sum * invArea;
+			float wvNorm = sqSum * invArea - mean * mean;
+			wvNorm = (float) ((wvNorm > 0) ? Math.sqrt(wvNorm) : 1);
+
+			return wvNorm;
+		}
+
+		private float computeResponse(SummedSqTiltAreaTable sat, int node, int rx, int ry) {
+			final int end = RECT_STRIDE * nodeRectStart[node + 1];
+			float total = 0;
+
+			if (nodeTilted[node]) {
+				final float[][] tilt = sat.tiltSum.pixels;
+
+				for (int r = RECT_STRIDE * nodeRectStart[node]; r < end; r += RECT_STRIDE) {
+					final int x = rx + rects[r];
+					final int y = ry + rects[r + 1];
+					final int w = rects[r + 2];
+					final int h = rects[r + 3];
+
+					final float regionSum = tilt[y][x] - tilt[y + h][x - h] - tilt[y + w][x + w]
+							+ tilt[y + w + h][x + w - h];
+					total += regionSum * Float.intBitsToFloat(rects[r + 4]);
+				}
+			} else {
+				final float[][] sum = sat.sum.pixels;
+
+				for (int r = RECT_STRIDE * nodeRectStart[node]; r < end; r += RECT_STRIDE) {
+					final int x = rx + rects[r];
+					final int y = ry + rects[r + 1];
+					final int xw = x + rects[r + 2];
+					final int yh = y + rects[r + 3];
+
+					final float regionSum = sum[yh][xw] - sum[yh][x] - sum[y][xw] + sum[y][x];
+					total += regionSum * Float.intBitsToFloat(rects[r + 4]);
+				}
+			}
+
+			return total;
+		}
+
+		private float evaluateTree(SummedSqTiltAreaTable sat, float wvNorm, int node, int x, int y) {
+			while (node >= 0) {
+				final float response = computeResponse(sat, node, x, y);
+				node = (response < nodeThreshold[node] * wvNorm) ? nodeLeft[node] : nodeRight[node];
+			}
+			return leafValue[~node];
+		}
+
+		private boolean pass(SummedSqTiltAreaTable sat, float wvNorm, int stage, int x, int y) {
+			final float threshold = stageThreshold[stage];
+			final int end = stageTreeEnd[stage];
+			float total = 0;
+
+			// see Stage#pass(...)
+			if (stageHasNegativeValues[stage]) {
+				for (int t = stageTreeStart[stage]; t < end; t++)
+					total += evaluateTree(sat, wvNorm, treeRoot[t], x, y);
+
+				return total >= threshold;
+			} else {
+				for (int t = stageTreeStart[stage]; t < end; t++) {
+					total += evaluateTree(sat, wvNorm, treeRoot[t], x, y);
+
+					if (total >= threshold)
+						return true;
+				}
+				return false;
+			}
+		}
+
+		/**
+		 * Test whether the given location is detected by the cascade at this
+		 * scale. The return value is the same as
+		 * {@link StageTreeClassifier#classify(SummedSqTiltAreaTable, int, int)}
+		 * .
+		 * 
+		 * @param sat
+		 *            the summed area tables
+		 * @param x
+		 *            the x-ordinate of the top-left of the window
+		 * @param y
+		 *            the y-ordinate of the top-left of the window
+		 * @return the number of stages passed; negative if the cascade failed
+		 */
+		public int classify(SummedSqTiltAreaTable sat, int x, int y) {
+			final float wvNorm = computeWindowVarianceNorm(sat, x, y);
+
+			int matches = 0;
+			int stage = 0;
+			while (true) {
+				if (pass(sat, wvNorm, stage, x, y)) {
+					matches++;
+					stage = stageSuccess[stage];
+					if (stage < 0)
+						return matches;
+				} else {
+					stage = stageFailure[stage];
+					if (stage < 0)
+						return -matches;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compile the given cascade.
+	 * 
+	 * @param cascade
+	 *            the cascade to compile
+	 */
+	public CompiledStageTreeClassifier(StageTreeClassifier cascade) {
+		this.width = cascade.width;
+		this.height = cascade.height;
+
+		// number the stages in depth-first order from the root (index 0)
+		final Map<Stage, Integer> stageIds = new IdentityHashMap<Stage, Integer>();
+		final List<Stage> stages = new ArrayList<Stage>();
+		numberStages(cascade.root, stageIds, stages);
+
+		final List<HaarFeatureClassifier> nodes = new ArrayList<HaarFeatureClassifier>();
+		final List<Integer> roots = new ArrayList<Integer>();
+		final List<Float> leaves = new ArrayList<Float>();
+		final List<int[]> children = new ArrayList<int[]>();
+
+		final int nstages = stages.size();
+		stageThreshold = new float[nstages];
+		stageHasNegativeValues = new boolean[nstages];
+		stageTreeStart = new int[nstages];
+		stageTreeEnd = new int[nstages];
+		stageSuccess = new int[nstages];
+		stageFailure = new int[nstages];
+
+		for (int s = 0; s < nstages; s++) {
+			final Stage stage = stages.get(s);
+
+			stageThreshold[s] = stage.threshold;
+			stageSuccess[s] = stage.successStage == null ? -1 : stageIds.get(stage.successStage);
+			stageFailure[s] = stage.failureStage == null ? -1 : stageIds.get(stage.failureStage);
+			stageTreeStart[s] = roots.size();
+
+			for (final Classifier tree : stage.ensemble) {
+				roots.add(addTree(tree, nodes, children, leaves));
+			}
+
+			stageTreeEnd[s] = roots.size();
+
+			for (int t = stageTreeStart[s]; t < stageTreeEnd[s]; t++)
+				stageHasNegativeValues[s] |= hasNegativeValues(roots.get(t), children, leaves);
+		}
+
+		treeRoot = new int[roots.size()];
+		for (int i = 0; i < treeRoot.length; i++)
+			treeRoot[i] = roots.get(i);
+
+		final int nnodes = nodes.size();
+		nodeFeature = new HaarFeature[nnodes];
+		nodeTilted = new boolean[nnodes];
+		nodeRectStart = new int[nnodes + 1];
+		nodeThreshold = new float[nnodes];
+		nodeLeft = new int[nnodes];
+		nodeRight = new int[nnodes];
+		int maxRects = 0;
+		for (int i = 0; i < nnodes; i++) {
+			final HaarFeature feature = nodes.get(i).feature;
+
+			nodeFeature[i] = feature;
+			nodeTilted[i] = feature instanceof HaarFeature.TiltedFeature;
+			nodeRectStart[i + 1] = nodeRectStart[i] + feature.rects.length;
+			nodeThreshold[i] = nodes.get(i).threshold;
+			nodeLeft[i] = children.get(i)[0];
+			nodeRight[i] = children.get(i)[1];
+			maxRects = Math.max(maxRects, feature.rects.length);
+		}
+		this.maxRects = maxRects;
+
+		leafValue = new float[leaves.size()];
+		for (int i = 0; i < leafValue.length; i++)
+			leafValue[i] = leaves.get(i);
+	}
+
+	private static void numberStages(Stage stage, Map<Stage, Integer> ids, List<Stage> stages) {
+		if (stage == null || ids.containsKey(stage))
+			return;
+
+		ids.put(stage, stages.size());
+		stages.add(stage);
+
+		numberStages(stage.successStage, ids, stages);
+		numberStages(stage.failureStage, ids, stages);
+	}
+
+	private static int addTree(Classifier classifier, List<HaarFeatureClassifier> nodes, List<int[]> children,
+			List<Float> leaves)
+	{
+		if (classifier instanceof ValueClassifier) {
+			leaves.add(((ValueClassifier) classifier).value);
+			return ~(leaves.size() - 1);
+		}
+
+		final HaarFeatureClassifier hfc = (HaarFeatureClassifier) classifier;
+		final int id = nodes.size();
+		final int[] lr = new int[2];
+		nodes.add(hfc);
+		children.add(lr);
+
+		lr[0] = addTree(hfc.left, nodes, children, leaves);
+		lr[1] = addTree(hfc.right, nodes, children, leaves);
+
+		return id;
+	}
+
+	private static boolean hasNegativeValues(int node, List<int[]> children, List<Float> leaves) {
+		if (node < 0)
+			return leaves.get(~node) < 0;
+
+		return hasNegativeValues(children.get(node)[0], children, leaves)
+				|| hasNegativeValues(children.get(node)[1], children, leaves);
+	}
+
+	/**
+	 * Get the width of the detection window at unit scale
+	 * 
+	 * @return the width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the detection window at unit scale
+	 * 
+	 * @return the height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Get a view of this classifier with its features scaled to the given
+	 * scale factor. Scaled views are cached, so repeated detection over
+	 * images of the same size (i.e. video frames) only has to compute the
+	 * scaled features once.
+	 * 
+	 * @param scale
+	 *            the scale factor
+	 * @return the scaled classifier
+	 */
+	public Scaled scale(float scale) {
+		final Float key = scale;
+
+		Scaled scaled = scaleCache.get(key);
+		if (scaled == null) {
+			if (scaleCache.size() >= MAX_CACHED_SCALES)
+				scaleCache.clear();
+
+			scaled = new Scaled(scale);
+			scaleCache.put(key, scaled);
+		}
+
+		return scaled;
+	}
+}
@@ -102,6 +102,22 @@ public abstract class HaarFeature {
 	 *            the inverse of the detector area
 	 */
 	public final void setScale(float scale, float invArea) {
+		computeScaledRects(scale, invArea, cachedRects);
+	}
+
+	/**
+	 * Compute the rectangles of this feature at the given scale, storing them
+	 * in the given array rather than in the internal caches.
+	 * 
+	 * @param scale
+	 *            the scale
+	 * @param invArea
+	 *            the inverse of the detector area
+	 * @param scaledRects
+	 *            the array to store the scaled rectangles in; must have the
+	 *            same length as {@link #rects}.
+	 */
+	final void computeScaledRects(float scale, float invArea, WeightedRectangle[] scaledRects) {
 		double sum0 = 0;
 		double area0 = 0;
 
@@ -176,20 +192,20 @@ public abstract class HaarFeature {
 
 			correction_ratio = correctionFactor * invArea;
 
-			cachedRects[k].weight = (rects[k].weight * correction_ratio);
-			cachedRects[k].x = x;
-			cachedRects[k].y = y;
-			cachedRects[k].width = width;
-			cachedRects[k].height = height;
+			scaledRects[k].weight = (rects[k].weight * correction_ratio);
+			scaledRects[k].x = x;
+			scaledRects[k].y = y;
+			scaledRects[k].width = width;
+			scaledRects[k].height = height;
 
 			if (k == 0) {
 				area0 = width * height;
 			} else {
-				sum0 += cachedRects[k].weight * width * height;
+				sum0 += scaledRects[k].weight * width * height;
 			}
 		}
 
-		cachedRects[0].weight = (float) (-sum0 / area0);
+		scaledRects[0].weight = (float) (-sum0 / area0);
 	}
 
 	/**
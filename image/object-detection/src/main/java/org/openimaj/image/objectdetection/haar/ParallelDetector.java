@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.image.objectdetection.haar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.openimaj.image.FImage;
+import org.openimaj.image.analysis.algorithm.SummedSqTiltAreaTable;
+import org.openimaj.math.geometry.shape.Rectangle;
+import org.openimaj.util.function.Operation;
+import org.openimaj.util.parallel.GlobalExecutorPool;
+import org.openimaj.util.parallel.Parallel;
+import org.openimaj.util.parallel.Parallel.IntRange;
+
+/**
+ * Multi-threaded version of the {@link Detector} that uses a
+ * {@link CompiledStageTreeClassifier}. The search algorithm and results
+ * (including their order) are identical to the {@link Detector}, but every
+ * row of every scale is treated as an independent job, and all the jobs are
+ * shared between the threads dynamically. Each job records its detections
+ * separately, so there is no locking when a detection is made.
+ * <p>
+ * Unlike the {@link MultiThreadedDetector}, this detector doesn't modify the
+ * state of the underlying {@link StageTreeClassifier} whilst detecting, and
+ * is thus safe to use from multiple threads concurrently, including from
+ * tasks that are running on the detector's own thread pool.
+ * 
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public class ParallelDetector extends Detector {
+	private transient ThreadPoolExecutor threadPool;
+	private transient volatile CompiledStageTreeClassifier compiled;
+
+	/**
+	 * Construct the {@link ParallelDetector} with the given parameters.
+	 * 
+	 * @param cascade
+	 *            the cascade or tree of stages.
+	 * @param scaleFactor
+	 *            the amount to change between scales (multiplicative)
+	 * @param smallStep
+	 *            the amount to step when there is a hint of detection
+	 * @param bigStep
+	 *            the amount to step when there is definitely no detection
+	 * @param threadPool
+	 *            the thread pool. If <code>null</code> the global pool is used.
+	 */
+	public ParallelDetector(StageTreeClassifier cascade, float scaleFactor, int smallStep, int bigStep,
+			ThreadPoolExecutor threadPool)
+	{
+		super(cascade, scaleFactor, smallStep, bigStep);
+
+		this.threadPool = threadPool;
+	}
+
+	/**
+	 * Construct the {@link ParallelDetector} with the given tree of stages and
+	 * scale factor. The default step sizes are used, and the global thread
+	 * pool is used for processing.
+	 * 
+	 * @param cascade
+	 *            the cascade or tree of stages.
+	 * @param scaleFactor
+	 *            the amount to change between scales
+	 */
+	public ParallelDetector(StageTreeClassifier cascade, float scaleFactor) {
+		this(cascade, scaleFactor, DEFAULT_SMALL_STEP, DEFAULT_BIG_STEP, null);
+	}
+
+	/**
+	 * Construct the {@link ParallelDetector} with the given tree of stages,
+	 * and the default parameters for step sizes and scale factor. The global
+	 * thread pool is used for processing.
+	 * 
+	 * @param cascade
+	 *            the cascade or tree of stages.
+	 */
+	public ParallelDetector(StageTreeClassifier cascade) {
+		this(cascade, DEFAULT_SCALE_FACTOR, DEFAULT_SMALL_STEP, DEFAULT_BIG_STEP, null);
+	}
+
+	private CompiledStageTreeClassifier compiled() {
+		CompiledStageTreeClassifier c = compiled;
+
+		if (c == null)
+			compiled = c = new CompiledStageTreeClassifier(cascade);
+
+		return c;
+	}
+
+	private ThreadPoolExecutor pool() {
+		return threadPool == null ? GlobalExecutorPool.getPool() : threadPool;
+	}
+
+	/**
+	 * The rows of all the scales to be searched
+	 */
+	private final class Search {
+		final SummedSqTiltAreaTable sat;
+		final List<CompiledStageTreeClassifier.Scaled> scales = new ArrayList<CompiledStageTreeClassifier.Scaled>();
+		final List<int[]> ranges = new ArrayList<int[]>(); // startX, stopX, startY, stopY, windowWidth, windowHeight
+		final List<Float> ysteps = new ArrayList<Float>();
+
+		int[] jobScale;
+		int[] jobRow;
+		List<Rectangle>[] jobResults;
+
+		Search(SummedSqTiltAreaTable sat) {
+			this.sat = sat;
+		}
+
+		void add(CompiledStageTreeClassifier.Scaled scale, float ystep, int startX, int stopX, int startY,
+				int stopY, int windowWidth, int windowHeight)
+		{
+			scales.add(scale);
+			ysteps.add(ystep);
+			ranges.add(new int[] { startX, stopX, startY, stopY, windowWidth, windowHeight });
+		}
+
+		@SuppressWarnings("unchecked")
+		void prepare() {
+			int njobs = 0;
+			for (final int[] range : ranges)
+				njobs += Math.max(0, range[3] - range[2]);
+
+			jobScale = new int[njobs];
+			jobRow = new int[njobs];
+			jobResults = new List[njobs];
+
+			for (int s = 0, j = 0; s < scales.size(); s++) {
+				for (int iy = ranges.get(s)[2]; iy < ranges.get(s)[3]; iy++, j++) {
+					jobScale[j] = s;
+					jobRow[j] = iy;
+				}
+			}
+		}
+
+		void run(int job) {
+			final int s = jobScale[job];
+			final CompiledStageTreeClassifier.Scaled scale = scales.get(s);
+			final float ystep = ysteps.get(s);
+			final int[] range = ranges.get(s);
+			final int startX = range[0];
+			final int stopX = range[1];
+			final int windowWidth = range[4];
+			final int windowHeight = range[5];
+
+			final int y = Math.round(jobRow[job] * ystep);
+			List<Rectangle> results = null;
+
+			for (int ix = startX, xstep = 0; ix < stopX; ix += xstep) {
+				final int x = Math.round(ix * ystep);
+
+				final int result = scale.classify(sat, x, y);
+
+				if (result > 0) {
+					if (results == null)
+						results = new ArrayList<Rectangle>();
+					results.add(new Rectangle(x, y, windowWidth, windowHeight));
+				}
+
+				// if there is no detection, then increase the step size
+				xstep = (result > 0 ? smallStep : bigStep);
+			}
+
+			jobResults[job] = results;
+		}
+	}
+
+	@Override
+	public List<Rectangle> detect(FImage image) {
+		final CompiledStageTreeClassifier compiled = compiled();
+
+		final int imageWidth = image.getWidth();
+		final int imageHeight = image.getHeight();
+
+		final Search search = new Search(new SummedSqTiltAreaTable(image, cascade.hasTiltedFeatures));
+
+		// compute the number of scales to test and the starting factor
+		int nFactors = 0;
+		int startFactor = 0;
+		for (float factor = 1; factor * cascade.width < imageWidth - 10 &&
+				factor * cascade.height < imageHeight - 10; factor *= scaleFactor)
+		{
+			final float width = factor * cascade.width;
+			final float height = factor * cascade.height;
+
+			if (width < minSize || height < minSize) {
+				startFactor++;
+			}
+
+			if (maxSize > 0 && (width > maxSize || height > maxSize)) {
+				break;
+			}
+
+			nFactors++;
+		}
+
+		// gather the rows of every scale
+		float factor = (float) Math.pow(scaleFactor, startFactor);
+		for (int scaleStep = startFactor; scaleStep < nFactors; factor *= scaleFactor, scaleStep++) {
+			final float ystep = Math.max(2, factor);
+
+			final int windowWidth = (int) (factor * cascade.width);
+			final int windowHeight = (int) (factor * cascade.height);
+
+			// determine the spatial range, taking into account any ROI.
+			final int startX = (int) (roi == null ? 0 : Math.max(0, roi.x));
+			final int startY = (int) (roi == null ? 0 : Math.max(0, roi.y));
+			final int stopX = Math.round(
+					(((roi == null ? imageWidth : Math.min(imageWidth, roi.x + roi.width)) - windowWidth)) / ystep);
+			final int stopY = Math.round(
+					(((roi == null ? imageHeight : Math.min(imageHeight, roi.y + roi.height)) - windowHeight)) / ystep);
+
+			search.add(compiled.scale(factor), ystep, startX, stopX, startY, stopY, windowWidth, windowHeight);
+		}
+
+		search.prepare();
+		run(search);
+
+		final List<Rectangle> results = new ArrayList<Rectangle>();
+		for (final List<Rectangle> r : search.jobResults) {
+			if (r != null)
+				results.addAll(r);
+		}
+
+		return results;
+	}
+
+	/*
+	 * The calling thread takes jobs too, so detection doesn't deadlock when
+	 * it is itself running as a task on the pool.
+	 */
+	private void run(final Search search) {
+		Parallel.forBlocks(0, search.jobScale.length, 1, new Operation<IntRange>() {
+			@Override
+			public void perform(IntRange range) {
+				for (int job = range.start; job < range.stop; job++)
+					search.run(job);
+			}
+		}, pool());
+	}
+}
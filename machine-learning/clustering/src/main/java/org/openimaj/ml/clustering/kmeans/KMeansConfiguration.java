@@ -82,6 +82,12 @@ public class KMeansConfiguration<NN extends NearestNeighbours<DATA, ?, ?>, DATA>
 	 */
 	protected ExecutorService threadpool;
 
+	/**
+	 * Should each worker thread accumulate into its own private centroid
+	 * accumulators rather than a single shared (and locked) accumulator?
+	 */
+	protected boolean perThreadAccumulation = false;
+
 	/**
 	 * Create configuration for data that will create <code>K</code> clusters.
 	 * The algorithm will run for a maximum of
@@ -308,4 +314,32 @@ public class KMeansConfiguration<NN extends NearestNeighbours<DATA, ?, ?>, DATA>
 	public void setNearestNeighbourFactory(NearestNeighboursFactory<? extends NN, DATA> factory) {
 		this.factory = factory;
 	}
+
+	/**
+	 * Determine whether each worker thread accumulates the assigned points
+	 * into its own private set of centroid accumulators. If <code>false</code>
+	 * (the default), all workers share a single accumulator that is locked
+	 * on update.
+	 * 
+	 * @return true if per-thread accumulation is enabled; false otherwise
+	 */
+	public boolean isPerThreadAccumulation() {
+		return perThreadAccumulation;
+	}
+
+	/**
+	 * Set whether each worker thread accumulates the assigned points into its
+	 * own private set of centroid accumulators. The private accumulators are
+	 * merged in parallel with a pairwise (tree) reduction at the end of each
+	 * iteration. This avoids contention on the shared accumulator when there
+	 * are many threads, at the cost of requiring memory for one set of
+	 * <code>K</code> accumulators per worker.
+	 * 
+	 * @param perThreadAccumulation
+	 *            true to enable per-thread accumulation; false to use a
+	 *            single shared accumulator
+	 */
+	public void setPerThreadAccumulation(boolean perThreadAccumulation) {
+		this.perThreadAccumulation = perThreadAccumulation;
+	}
 }
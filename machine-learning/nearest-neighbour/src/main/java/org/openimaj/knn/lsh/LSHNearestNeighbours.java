@@ -33,11 +33,19 @@ import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.openimaj.io.IOUtils;
+import org.openimaj.io.ReadWriteableBinary;
 import org.openimaj.knn.IncrementalNearestNeighbours;
 import org.openimaj.util.comparator.DistanceComparator;
 import org.openimaj.util.hash.HashFunction;
@@ -54,8 +62,27 @@ import org.openimaj.util.queue.BoundedPriorityQueue;
  * tables is then combined and sorted by distance (and trimmed if necessary)
  * before being returned.
  * <p>
- * Note: This object is not thread-safe. Multiple insertions or mixed insertions
- * and searches should not be performed concurrently without external locking.
+ * If the number of probes is set to more than one (see
+ * {@link #setNumProbes(int)}), each table is queried with a multi-probe
+ * sequence: in addition to the query's own bucket, the neighbouring buckets
+ * that are most likely to contain near neighbours are also searched. This
+ * requires the hash function of each table to be a
+ * {@link org.openimaj.util.hash.composition.HashComposition} (optionally
+ * wrapped in {@link org.openimaj.util.hash.modifier.HashModifier}s); the
+ * probes are best ordered if the composed functions are
+ * {@link org.openimaj.util.hash.QuantisedHashFunction}s. Multi-probing allows
+ * the same recall to be achieved with far fewer tables.
+ * <p>
+ * Items are initially added to dynamic buckets; calling {@link #compact()}
+ * moves them into a compact sorted layout in which each table is just three
+ * int arrays (bucket hash codes, bucket offsets and item ids). Items can still
+ * be added after compaction.
+ * <p>
+ * Searches can be performed concurrently with each other and with insertions;
+ * a search will see either all or none of the table entries of an item that
+ * is being added. The index (including the hash functions, distance function
+ * and data) can be saved and restored with {@link #writeBinary(DataOutput)}
+ * and {@link #readBinary(DataInput)}.
  *
  * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
  *
@@ -64,8 +91,14 @@ import org.openimaj.util.queue.BoundedPriorityQueue;
  */
 public class LSHNearestNeighbours<OBJECT>
 		implements
-		IncrementalNearestNeighbours<OBJECT, float[], IntFloatPair>
+		IncrementalNearestNeighbours<OBJECT, float[], IntFloatPair>,
+		ReadWriteableBinary
 {
+	/**
+	 * Number of data items written together when saving
+	 */
+	private static final int DATA_CHUNK_SIZE = 1024;
+
 	/**
 	 * Encapsulates a hash table with an associated hash function and pointers
 	 * to the data.
@@ -76,25 +109,25 @@ public class LSHNearestNeighbours<OBJECT>
 	 *            Type of object being hashed
 	 */
 	private static class Table<OBJECT> {
-		private final TIntObjectHashMap<TIntArrayList> table;
+		private TIntObjectHashMap<TIntArrayList> table;
 		HashFunction<OBJECT> function;
+		ProbeSequence<OBJECT> probes;
+
+		/*
+		 * The compacted buckets: the sorted hash codes, and the ids of the
+		 * items in bucket i are ids[offsets[i]] to ids[offsets[i+1]-1]
+		 */
+		int[] keys = new int[0];
+		int[] offsets = new int[1];
+		int[] ids = new int[0];
 
 		public Table(HashFunction<OBJECT> function) {
 			this.function = function;
+			this.probes = ProbeSequence.create(function);
 			table = new TIntObjectHashMap<TIntArrayList>();
 		}
 
-		/**
-		 * Insert a single point
-		 *
-		 * @param point
-		 *            the point
-		 * @param pid
-		 *            the id of the point in the data
-		 */
-		protected void insertPoint(OBJECT point, int pid) {
-			final int hash = function.computeHashCode(point);
-
+		protected void insertHash(int hash, int pid) {
 			TIntArrayList bucket = table.get(hash);
 			if (bucket == null) {
 				table.put(hash, bucket = new TIntArrayList());
@@ -104,24 +137,121 @@ public class LSHNearestNeighbours<OBJECT>
 		}
 
 		/**
-		 * Search for a point in the table
+		 * Compute the hash codes of the buckets to search for a point
 		 *
 		 * @param point
 		 *            query point
-		 * @param norm
-		 *            normalisation factor
-		 * @return ids of matched points
+		 * @param numProbes
+		 *            the number of buckets to probe
+		 * @return the hash codes of the buckets
+		 */
+		protected int[] computeProbes(OBJECT point, int numProbes) {
+			if (numProbes <= 1 || probes == null)
+				return new int[] { function.computeHashCode(point) };
+
+			return probes.computeProbes(point, numProbes);
+		}
+
+		protected void searchBucket(int hash, TIntHashSet result) {
+			final int idx = Arrays.binarySearch(keys, hash);
+			if (idx >= 0) {
+				for (int i = offsets[idx]; i < offsets[idx + 1]; i++)
+					result.add(ids[i]);
+			}
+
+			final TIntArrayList bucket = table.get(hash);
+			if (bucket != null)
+				result.addAll(bucket);
+		}
+
+		/**
+		 * Move the items in the dynamic buckets into the compact buckets
 		 */
-		protected TIntArrayList searchPoint(OBJECT point) {
-			final int hash = function.computeHashCode(point);
+		protected void compact() {
+			if (table.isEmpty())
+				return;
+
+			final int[] newKeys = table.keys();
+			Arrays.sort(newKeys);
+
+			final int nkeys = countUnion(keys, newKeys);
+			final int[] mergedKeys = new int[nkeys];
+			final int[] mergedOffsets = new int[nkeys + 1];
+
+			int nids = ids.length;
+			for (final int k : newKeys)
+				nids += table.get(k).size();
+			final int[] mergedIds = new int[nids];
+
+			int i = 0, j = 0, o = 0;
+			for (int m = 0; m < nkeys; m++) {
+				final int key;
+				if (j >= newKeys.length || (i < keys.length && keys[i] < newKeys[j]))
+					key = keys[i];
+				else
+					key = newKeys[j];
+
+				mergedKeys[m] = key;
+				mergedOffsets[m] = o;
+
+				if (i < keys.length && keys[i] == key) {
+					final int len = offsets[i + 1] - offsets[i];
+					System.arraycopy(ids, offsets[i], mergedIds, o, len);
+					o += len;
+					i++;
+				}
+				if (j < newKeys.length && newKeys[j] == key) {
+					final TIntArrayList bucket = table.get(key);
+					bucket.toArray(mergedIds, 0, o, bucket.size());
+					o += bucket.size();
+					j++;
+				}
+			}
+			mergedOffsets[nkeys] = o;
 
-			return table.get(hash);
+			keys = mergedKeys;
+			offsets = mergedOffsets;
+			ids = mergedIds;
+			table = new TIntObjectHashMap<TIntArrayList>();
+		}
+
+		private static int countUnion(int[] a, int[] b) {
+			int i = 0, j = 0, n = 0;
+
+			while (i < a.length && j < b.length) {
+				if (a[i] < b[j])
+					i++;
+				else if (a[i] > b[j])
+					j++;
+				else {
+					i++;
+					j++;
+				}
+				n++;
+			}
+
+			return n + (a.length - i) + (b.length - j);
 		}
 	}
 
 	protected DistanceComparator<OBJECT> distanceFcn;
 	protected List<Table<OBJECT>> tables;
 	protected List<OBJECT> data = new ArrayList<OBJECT>();
+	protected int numProbes = 1;
+
+	/**
+	 * Lock guarding the tables and data; insertions take the write lock and
+	 * searches the read lock.
+	 */
+	protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Default constructor. Only for use when reading a saved index with
+	 * {@link #readBinary(DataInput)}.
+	 */
+	protected LSHNearestNeighbours() {
+		this.tables = new ArrayList<Table<OBJECT>>();
+	}
 
 	/**
 	 * Construct with the given hash functions and distance function. One table
@@ -173,22 +303,45 @@ public class LSHNearestNeighbours<OBJECT>
 	}
 
 	/**
-	 * Insert data into the tables
+	 * Get the number of buckets probed in each table by a search.
 	 *
-	 * @param d
-	 *            the data
+	 * @return the number of probes per table
 	 */
-	public void addAll(Collection<OBJECT> d) {
-		int i = this.data.size();
+	public int getNumProbes() {
+		return numProbes;
+	}
 
-		for (final OBJECT point : d) {
-			this.data.add(point);
+	/**
+	 * Set the number of buckets probed in each table by a search. A value of
+	 * 1 (the default) only searches the bucket the query hashes to. Larger
+	 * values also search the most likely neighbouring buckets (multi-probe
+	 * LSH); this has no effect on tables whose hash function isn't a
+	 * {@link org.openimaj.util.hash.composition.HashComposition}.
+	 *
+	 * @param numProbes
+	 *            the number of probes per table
+	 */
+	public void setNumProbes(int numProbes) {
+		if (numProbes < 1)
+			throw new IllegalArgumentException("The number of probes must be at least 1");
 
-			for (final Table<OBJECT> table : tables) {
-				table.insertPoint(point, i);
-			}
+		this.numProbes = numProbes;
+	}
 
-			i++;
+	/**
+	 * Move all the items in the dynamic buckets of the tables into compact
+	 * buckets. This substantially reduces the memory used by the tables, and
+	 * is usually called once all the data has been added. Items can still be
+	 * added afterwards; they are kept in the dynamic buckets until the next
+	 * call to this method.
+	 */
+	public void compact() {
+		lock.writeLock().lock();
+		try {
+			for (final Table<OBJECT> table : tables)
+				table.compact();
+		} finally {
+			lock.writeLock().unlock();
 		}
 	}
 
@@ -198,30 +351,41 @@ public class LSHNearestNeighbours<OBJECT>
 	 * @param d
 	 *            the data
 	 */
-	public void addAll(OBJECT[] d) {
-		int i = this.data.size();
-
-		for (final OBJECT point : d) {
-			this.data.add(point);
-
-			for (final Table<OBJECT> table : tables) {
-				table.insertPoint(point, i);
-			}
+	public void addAll(Collection<OBJECT> d) {
+		for (final OBJECT point : d)
+			add(point);
+	}
 
-			i++;
-		}
+	/**
+	 * Insert data into the tables
+	 *
+	 * @param d
+	 *            the data
+	 */
+	public void addAll(OBJECT[] d) {
+		for (final OBJECT point : d)
+			add(point);
 	}
 
 	@Override
 	public int add(OBJECT o) {
-		final int index = this.data.size();
-		this.data.add(o);
+		// hash outside of the lock so searches aren't blocked while the
+		// (potentially expensive) hash functions are computed
+		final int[] hashes = getBucketId(o);
 
-		for (final Table<OBJECT> table : tables) {
-			table.insertPoint(o, index);
-		}
+		lock.writeLock().lock();
+		try {
+			final int index = this.data.size();
+			this.data.add(o);
+
+			for (int i = 0; i < hashes.length; i++) {
+				tables.get(i).insertHash(hashes[i], index);
+			}
 
-		return index;
+			return index;
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	/**
@@ -250,13 +414,50 @@ public class LSHNearestNeighbours<OBJECT>
 	 * @return matched ids
 	 */
 	public TIntHashSet search(OBJECT data) {
+		return search(data, numProbes);
+	}
+
+	/**
+	 * Search for a similar data item in the underlying tables using the given
+	 * number of probes per table, and return all matches
+	 *
+	 * @param data
+	 *            the point
+	 * @param numProbes
+	 *            the number of buckets to probe in each table
+	 * @return matched ids
+	 */
+	public TIntHashSet search(OBJECT data, int numProbes) {
+		// hash outside of the lock so insertions aren't blocked while the
+		// probe sequences are computed
+		final int[][] hashes = getProbes(data, numProbes);
+
+		lock.readLock().lock();
+		try {
+			return searchUnlocked(hashes);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int[][] getProbes(OBJECT data, int numProbes) {
+		final int[][] hashes = new int[tables.size()][];
+
+		for (int j = 0; j < hashes.length; j++) {
+			hashes[j] = tables.get(j).computeProbes(data, numProbes);
+		}
+
+		return hashes;
+	}
+
+	private TIntHashSet searchUnlocked(int[][] hashes) {
 		final TIntHashSet pl = new TIntHashSet();
 
-		for (final Table<OBJECT> table : tables) {
-			final TIntArrayList result = table.searchPoint(data);
+		for (int j = 0; j < hashes.length; j++) {
+			final Table<OBJECT> table = tables.get(j);
 
-			if (result != null)
-				pl.addAll(result);
+			for (final int hash : hashes[j])
+				table.searchBucket(hash, pl);
 		}
 
 		return pl;
@@ -310,14 +511,23 @@ public class LSHNearestNeighbours<OBJECT>
 	public void searchKNN(OBJECT[] qus, int K, int[][] argmins, float[][] mins) {
 		// loop on the search data
 		for (int i = 0; i < qus.length; i++) {
-			final TIntHashSet pl = search(qus[i]);
+			final int[][] hashes = getProbes(qus[i], numProbes);
+			final int[] ids;
+			final List<OBJECT> vectors;
+
+			lock.readLock().lock();
+			try {
+				ids = searchUnlocked(hashes).toArray();
+
+				vectors = new ArrayList<OBJECT>(ids.length);
+				for (int j = 0; j < ids.length; j++) {
+					vectors.add(data.get(ids[j]));
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
 
 			// now sort the selected points by distance
-			final int[] ids = pl.toArray();
-			final List<OBJECT> vectors = new ArrayList<OBJECT>(ids.length);
-			for (int j = 0; j < ids.length; j++) {
-				vectors.add(data.get(ids[j]));
-			}
 
 			exactNN(vectors, ids, qus[i], K, argmins[i], mins[i]);
 		}
@@ -336,14 +546,23 @@ public class LSHNearestNeighbours<OBJECT>
 		final int size = qus.size();
 		// loop on the search data
 		for (int i = 0; i < size; i++) {
-			final TIntHashSet pl = search(qus.get(i));
+			final int[][] hashes = getProbes(qus.get(i), numProbes);
+			final int[] ids;
+			final List<OBJECT> vectors;
+
+			lock.readLock().lock();
+			try {
+				ids = searchUnlocked(hashes).toArray();
+
+				vectors = new ArrayList<OBJECT>(ids.length);
+				for (int j = 0; j < ids.length; j++) {
+					vectors.add(data.get(ids[j]));
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
 
 			// now sort the selected points by distance
-			final int[] ids = pl.toArray();
-			final List<OBJECT> vectors = new ArrayList<OBJECT>(ids.length);
-			for (int j = 0; j < ids.length; j++) {
-				vectors.add(data.get(ids[j]));
-			}
 
 			exactNN(vectors, ids, qus.get(i), K, argmins[i], mins[i]);
 		}
@@ -409,7 +628,12 @@ public class LSHNearestNeighbours<OBJECT>
 
 	@Override
 	public int size() {
-		return data.size();
+		lock.readLock().lock();
+		try {
+			return data.size();
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	/**
@@ -422,12 +646,12 @@ public class LSHNearestNeighbours<OBJECT>
 
 			@Override
 			public OBJECT get(int index) {
-				return data.get(index);
+				return LSHNearestNeighbours.this.get(index);
 			}
 
 			@Override
 			public int size() {
-				return data.size();
+				return LSHNearestNeighbours.this.size();
 			}
 		};
 	}
@@ -440,7 +664,12 @@ public class LSHNearestNeighbours<OBJECT>
 	 * @return the retrieved object
 	 */
 	public OBJECT get(int i) {
-		return data.get(i);
+		lock.readLock().lock();
+		try {
+			return data.get(i);
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	@Override
@@ -488,4 +717,84 @@ public class LSHNearestNeighbours<OBJECT>
 
 		return new IntFloatPair(idx[0], dst[0]);
 	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return "LSHNN".getBytes();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The tables are compacted before being written.
+	 */
+	@Override
+	public void writeBinary(DataOutput out) throws IOException {
+		lock.writeLock().lock();
+		try {
+			IOUtils.write(distanceFcn, out);
+
+			out.writeInt(tables.size());
+			for (final Table<OBJECT> table : tables) {
+				table.compact();
+
+				IOUtils.write(table.function, out);
+				out.writeInt(table.keys.length);
+				for (int i = 0; i < table.keys.length; i++) {
+					out.writeInt(table.keys[i]);
+					out.writeInt(table.offsets[i + 1] - table.offsets[i]);
+				}
+				for (int i = 0; i < table.ids.length; i++)
+					out.writeInt(table.ids[i]);
+			}
+
+			out.writeInt(numProbes);
+			out.writeInt(data.size());
+			for (int start = 0; start < data.size(); start += DATA_CHUNK_SIZE) {
+				final int end = Math.min(data.size(), start + DATA_CHUNK_SIZE);
+				IOUtils.write(new ArrayList<OBJECT>(data.subList(start, end)), out);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void readBinary(DataInput in) throws IOException {
+		lock.writeLock().lock();
+		try {
+			distanceFcn = IOUtils.read(in);
+
+			final int ntables = in.readInt();
+			tables = new ArrayList<Table<OBJECT>>(ntables);
+			for (int t = 0; t < ntables; t++) {
+				final HashFunction<OBJECT> function = IOUtils.read(in);
+				final Table<OBJECT> table = new Table<OBJECT>(function);
+
+				final int nkeys = in.readInt();
+				table.keys = new int[nkeys];
+				table.offsets = new int[nkeys + 1];
+				for (int i = 0; i < nkeys; i++) {
+					table.keys[i] = in.readInt();
+					table.offsets[i + 1] = table.offsets[i] + in.readInt();
+				}
+
+				table.ids = new int[table.offsets[nkeys]];
+				for (int i = 0; i < table.ids.length; i++)
+					table.ids[i] = in.readInt();
+
+				tables.add(table);
+			}
+
+			numProbes = in.readInt();
+			final int size = in.readInt();
+			data = new ArrayList<OBJECT>(size);
+			while (data.size() < size) {
+				final List<OBJECT> chunk = IOUtils.read(in);
+				data.addAll(chunk);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
 }
@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.knn.lsh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.openimaj.citation.annotation.Reference;
+import org.openimaj.citation.annotation.ReferenceType;
+import org.openimaj.util.hash.HashFunction;
+import org.openimaj.util.hash.QuantisedHashFunction;
+import org.openimaj.util.hash.composition.HashComposition;
+import org.openimaj.util.hash.modifier.HashModifier;
+
+/**
+ * Generates query-directed multi-probe sequences for a hash function that is a
+ * {@link HashComposition} (optionally wrapped in {@link HashModifier}s). Each
+ * probe perturbs some of the underlying hash codes by +1 or -1; probes are
+ * generated in order of increasing score, where the score of a perturbation is
+ * the sum of the squared distances of the query from the slot boundaries it
+ * crosses. Underlying functions that are not {@link QuantisedHashFunction}s are
+ * treated as if the query were in the middle of its slot.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ *
+ * @param <OBJECT>
+ *            Type of object being hashed
+ */
+@Reference(
+		type = ReferenceType.Inproceedings,
+		author = { "Lv, Qin", "Josephson, William", "Wang, Zhe", "Charikar, Moses", "Li, Kai" },
+		title = "Multi-probe LSH: Efficient Indexing for High-dimensional Similarity Search",
+		year = "2007",
+		booktitle = "Proceedings of the 33rd International Conference on Very Large Data Bases",
+		pages = { "950", "961" },
+		publisher = "VLDB Endowment",
+		series = "VLDB '07")
+final class ProbeSequence<OBJECT> {
+	private static class Perturbation implements Comparable<Perturbation> {
+		final int[] members;
+		final double score;
+
+		Perturbation(int[] members, double score) {
+			this.members = members;
+			this.score = score;
+		}
+
+		@Override
+		public int compareTo(Perturbation o) {
+			return Double.compare(score, o.score);
+		}
+	}
+
+	private final HashComposition<OBJECT> composition;
+	private final List<HashModifier<OBJECT>> modifiers;
+
+	private ProbeSequence(HashComposition<OBJECT> composition, List<HashModifier<OBJECT>> modifiers) {
+		this.composition = composition;
+		this.modifiers = modifiers;
+	}
+
+	/**
+	 * Create a probe sequence generator for the given function.
+	 *
+	 * @param function
+	 *            the hash function
+	 * @return the generator, or null if the function isn't a (possibly
+	 *         modified) {@link HashComposition}
+	 */
+	static <OBJECT> ProbeSequence<OBJECT> create(HashFunction<OBJECT> function) {
+		final List<HashModifier<OBJECT>> modifiers = new ArrayList<HashModifier<OBJECT>>();
+
+		while (function instanceof HashModifier) {
+			final HashModifier<OBJECT> modifier = (HashModifier<OBJECT>) function;
+			modifiers.add(0, modifier);
+			function = modifier.getHashFunction();
+		}
+
+		if (!(function instanceof HashComposition))
+			return null;
+
+		return new ProbeSequence<OBJECT>((HashComposition<OBJECT>) function, modifiers);
+	}
+
+	private int hash(int[] hashCodes) {
+		int hash = composition.combine(hashCodes);
+
+		for (int i = 0; i < modifiers.size(); i++)
+			hash = modifiers.get(i).modifyHashCode(hash);
+
+		return hash;
+	}
+
+	/**
+	 * Compute the hash codes of the buckets to probe for the given object. The
+	 * first probe is always the bucket the object hashes to.
+	 *
+	 * @param object
+	 *            the object
+	 * @param numProbes
+	 *            the maximum number of probes
+	 * @return the hash codes of the buckets to probe; this will have fewer than
+	 *         numProbes elements if there are fewer possible perturbations
+	 */
+	@SuppressWarnings("unchecked")
+	int[] computeProbes(OBJECT object, int numProbes) {
+		final List<HashFunction<OBJECT>> functions = composition.getHashFunctions();
+		final int k = functions.size();
+
+		final int[] hashCodes = new int[k];
+		final double[] position = new double[k];
+		for (int i = 0; i < k; i++) {
+			final HashFunction<OBJECT> f = functions.get(i);
+
+			if (f instanceof QuantisedHashFunction) {
+				final double p = ((QuantisedHashFunction<OBJECT>) f).computeProjection(object);
+				final double floor = Math.floor(p);
+
+				hashCodes[i] = (int) floor;
+				position[i] = p - floor;
+			} else {
+				hashCodes[i] = f.computeHashCode(object);
+				position[i] = 0.5;
+			}
+		}
+
+		final int[] probes = new int[Math.max(1, numProbes)];
+		probes[0] = hash(hashCodes);
+
+		if (numProbes <= 1 || k == 0)
+			return probes;
+
+		// candidate single perturbations: 2i is -1 on function i, 2i+1 is +1;
+		// sorted by increasing score
+		final Integer[] order = new Integer[2 * k];
+		final double[] scores = new double[2 * k];
+		for (int i = 0; i < k; i++) {
+			scores[2 * i] = position[i] * position[i];
+			scores[2 * i + 1] = (1 - position[i]) * (1 - position[i]);
+			order[2 * i] = 2 * i;
+			order[2 * i + 1] = 2 * i + 1;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(scores[o1], scores[o2]);
+			}
+		});
+
+		final double[] sortedScores = new double[2 * k];
+		for (int i = 0; i < 2 * k; i++)
+			sortedScores[i] = scores[order[i]];
+
+		// generate perturbation sets in score order using shift & expand
+		final PriorityQueue<Perturbation> heap = new PriorityQueue<Perturbation>();
+		heap.add(new Perturbation(new int[] { 0 }, sortedScores[0]));
+
+		final int[] perturbed = new int[k];
+		final boolean[] used = new boolean[k];
+		int n = 1;
+		while (n < numProbes && !heap.isEmpty()) {
+			final Perturbation p = heap.poll();
+			final int last = p.members[p.members.length - 1];
+
+			if (last + 1 < 2 * k) {
+				final int[] shift = p.members.clone();
+				shift[shift.length - 1] = last + 1;
+				heap.add(new Perturbation(shift, p.score - sortedScores[last] + sortedScores[last + 1]));
+
+				final int[] expand = Arrays.copyOf(p.members, p.members.length + 1);
+				expand[expand.length - 1] = last + 1;
+				heap.add(new Perturbation(expand, p.score + sortedScores[last + 1]));
+			}
+
+			// a set is only valid if it perturbs each function at most once
+			Arrays.fill(used, false);
+			System.arraycopy(hashCodes, 0, perturbed, 0, k);
+			boolean valid = true;
+			for (final int m : p.members) {
+				final int c = order[m];
+				final int fn = c >> 1;
+
+				if (used[fn]) {
+					valid = false;
+					break;
+				}
+				used[fn] = true;
+				perturbed[fn] += (c & 1) == 0 ? -1 : 1;
+			}
+
+			if (valid)
+				probes[n++] = hash(perturbed);
+		}
+
+		return n < probes.length ? Arrays.copyOf(probes, n) : probes;
+	}
+}
@@ -105,4 +105,16 @@ public class PolyHashComposition<OBJECT> extends HashComposition<OBJECT> {
 		}
 		return id;
 	}
+
+	@Override
+	public int combine(int[] hashCodes) {
+		if (hashCodes.length == 0)
+			return 0;
+
+		int id = hashCodes[0];
+		for (int i = 1; i < hashCodes.length; i++)
+			id = addId(id, hashCodes[i], i);
+
+		return id;
+	}
 }
@@ -112,4 +112,15 @@ public class RandomProjectionHashComposition<OBJECT> extends HashComposition<OBJ
 
 		return hash;
 	}
+
+	@Override
+	public int combine(int[] hashCodes) {
+		int hash = 0;
+
+		for (int i = 0; i < projection.length; i++) {
+			hash += projection[i] * hashCodes[i];
+		}
+
+		return hash;
+	}
 }
@@ -31,13 +31,22 @@ package org.openimaj.knn.lsh;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import gnu.trove.set.hash.TIntHashSet;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.openimaj.data.RandomData;
 import org.openimaj.lsh.functions.DoubleGaussianFactory;
+import org.openimaj.lsh.functions.DoubleHammingFactory;
+import org.openimaj.lsh.functions.DoubleHyperplaneCosineFactory;
+import org.openimaj.lsh.functions.DoubleHyperplaneL1Factory;
+import org.openimaj.util.comparator.DistanceComparator;
 import org.openimaj.util.hash.HashFunction;
 import org.openimaj.util.hash.HashFunctionFactory;
 import org.openimaj.util.hash.composition.SimpleComposition;
@@ -235,4 +244,154 @@ public class LSHNearestNeighboursTest {
 			assertEquals(null, lsh.searchNN(qus[i]));
 		}
 	}
+
+	private double[][] createData(int n, int ndims) {
+		final double[][] data = new double[n][];
+		for (int i = 0; i < n; i++)
+			data[i] = RandomData.getRandomDoubleArray(ndims, 0, 1, mt);
+		return data;
+	}
+
+	private double[] perturb(double[] v, double amount) {
+		final double[] p = v.clone();
+		for (int i = 0; i < p.length; i++)
+			p[i] += (mt.nextDouble() - 0.5) * amount;
+		return p;
+	}
+
+	/**
+	 * Test that multi-probing finds at least everything that exact bucket
+	 * lookup does, and improves recall of near neighbours
+	 */
+	@Test
+	public void multiProbeImprovesRecall() {
+		final int ndims = 128;
+		final double[][] data = createData(1000, ndims);
+
+		final LSHNearestNeighbours<double[]> lsh = new LSHNearestNeighbours<double[]>(factory, 2,
+				gauss.distanceFunction());
+		lsh.addAll(data);
+
+		int exactHits = 0;
+		int probeHits = 0;
+		for (int i = 0; i < 100; i++) {
+			final double[] query = perturb(data[i], 0.5);
+
+			final TIntHashSet exact = lsh.search(query, 1);
+			final TIntHashSet probed = lsh.search(query, 50);
+
+			assertTrue(probed.containsAll(exact));
+			if (exact.contains(i))
+				exactHits++;
+			if (probed.contains(i))
+				probeHits++;
+		}
+
+		assertTrue(probeHits > exactHits);
+
+		lsh.setNumProbes(50);
+		assertEquals(probeHits > 0, lsh.searchNN(perturb(data[0], 0)) != null);
+	}
+
+	/**
+	 * Test that compacting the tables (including with later additions) doesn't
+	 * change the search results
+	 */
+	@Test
+	public void compactPreservesResults() {
+		final double[][] data = createData(500, 128);
+		final LSHNearestNeighbours<double[]> lsh = new LSHNearestNeighbours<double[]>(factory, 4,
+				gauss.distanceFunction());
+		lsh.setNumProbes(10);
+
+		for (int i = 0; i < 300; i++)
+			lsh.add(data[i]);
+		lsh.compact();
+		for (int i = 300; i < 500; i++)
+			lsh.add(data[i]);
+
+		final TIntHashSet[] before = lsh.search(data);
+		lsh.compact();
+		final TIntHashSet[] after = lsh.search(data);
+
+		for (int i = 0; i < data.length; i++) {
+			assertTrue(before[i].contains(i));
+			assertEquals(before[i], after[i]);
+		}
+	}
+
+	/**
+	 * Test that the index survives serialisation
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testReadWrite() throws Exception {
+		checkReadWrite(factory, gauss.distanceFunction(), createData(2500, 128));
+	}
+
+	/**
+	 * Test that indexes built with the non p-stable hash functions can be
+	 * searched after being serialised
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testReadWriteOtherFunctions() throws Exception {
+		final int ndims = 128;
+
+		final DoubleHyperplaneCosineFactory cosine = new DoubleHyperplaneCosineFactory(ndims, mt);
+		checkReadWrite(compose(cosine), cosine.distanceFunction(), createData(1000, ndims));
+
+		final DoubleHyperplaneL1Factory l1 = new DoubleHyperplaneL1Factory(ndims, mt, 0, 1);
+		checkReadWrite(compose(l1), l1.distanceFunction(), createData(1000, ndims));
+
+		final double[][] binary = createData(1000, ndims);
+		for (final double[] v : binary)
+			for (int i = 0; i < ndims; i++)
+				v[i] = Math.round(v[i]);
+		final DoubleHammingFactory hamming = new DoubleHammingFactory(ndims, mt, 0);
+		checkReadWrite(compose(hamming), hamming.distanceFunction(), binary);
+	}
+
+	private HashFunctionFactory<double[]> compose(final HashFunctionFactory<double[]> functions) {
+		return new HashFunctionFactory<double[]>() {
+			@Override
+			public HashFunction<double[]> create() {
+				return new ModuloModifier<double[]>(new SimpleComposition<double[]>(functions, 16), 1017881);
+			}
+		};
+	}
+
+	private void checkReadWrite(HashFunctionFactory<double[]> factory, DistanceComparator<double[]> distanceFcn,
+			double[][] data) throws Exception
+	{
+		final LSHNearestNeighbours<double[]> lsh = new LSHNearestNeighbours<double[]>(factory, 4, distanceFcn);
+		lsh.setNumProbes(5);
+		lsh.addAll(data);
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		lsh.writeBinary(new DataOutputStream(baos));
+
+		final LSHNearestNeighbours<double[]> lsh2 = new LSHNearestNeighbours<double[]>() {};
+		lsh2.readBinary(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+
+		assertEquals(lsh.size(), lsh2.size());
+		assertEquals(lsh.numTables(), lsh2.numTables());
+		assertEquals(5, lsh2.getNumProbes());
+
+		for (int i = 0; i < 100; i++) {
+			final double[] query = perturb(data[i], 0.5);
+
+			assertEquals(lsh.search(query), lsh2.search(query));
+
+			final List<IntFloatPair> expected = lsh.searchKNN(query, 5);
+			final List<IntFloatPair> actual = lsh2.searchKNN(query, 5);
+			assertEquals(expected.size(), actual.size());
+			for (int j = 0; j < expected.size(); j++) {
+				assertEquals(expected.get(j).first, actual.get(j).first);
+				assertEquals(expected.get(j).second, actual.get(j).second, 0);
+			}
+		}
+	}
 }
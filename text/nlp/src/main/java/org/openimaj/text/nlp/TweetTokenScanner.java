@@ -0,0 +1,549 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.text.nlp;
+
+import gov.sandia.cognition.text.token.DefaultToken;
+import gov.sandia.cognition.text.token.Token;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringEscapeUtils;
+
+/**
+ * A single-pass scanner that produces exactly the same tokens as the
+ * {@link TweetTokeniser}, but considerably faster and without building a
+ * {@link String} per token.
+ * <p>
+ * The {@link TweetTokeniser} finds protected tokens by repeatedly searching
+ * with one large alternation of all the protected patterns. Almost all of the
+ * time is spent attempting each alternative at every position of the text,
+ * even though most alternatives cannot possibly start with the character at
+ * that position. This scanner compiles each alternative separately and, for
+ * every alternative, lazily builds a table of the characters (and pairs of
+ * characters) that it could start with given the kind of character that
+ * precedes it. The tables are derived from the regex engine itself (using
+ * {@link Matcher#hitEnd()} on short probe strings), so they are exact rather
+ * than approximated from the pattern text. At each position only the
+ * alternatives that pass the tables are tried, in the original order, so the
+ * leftmost-first semantics of the alternation are preserved.
+ * <p>
+ * Tokens are returned as offsets into the normalised text; the text is only
+ * copied when normalisation (fixing broken surrogates, unescaping HTML
+ * entities, or squeezing whitespace) actually changes it.
+ * <p>
+ * This class is thread-safe; the start tables are shared between all threads.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+public final class TweetTokenScanner {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/*
+	 * The kinds of character that can precede a position. The regex
+	 * constructs in the protected patterns can only observe the preceding
+	 * character through word boundaries and input start, so a single
+	 * representative character of each kind is sufficient to probe with.
+	 */
+	private static final int START = 0;
+	private static final int WORD = 1;
+	private static final int OTHER = 2;
+	private static final int EITHER = 3;
+	private static final String[] CONTEXT_PREFIX = { "", "a", " " };
+
+	private static final int MAX_BIGRAMS = 1 << 18;
+
+	private static final Pattern[] alternatives;
+	private static final boolean[] ungated;
+	private static final boolean compiled;
+
+	/*
+	 * Per alternative and character: for each context, one bit saying whether
+	 * the entry is known, and one saying whether the alternative can start
+	 * with the character. Entries are filled lazily; concurrent updates can at
+	 * worst lose a bit, which is then just recomputed.
+	 */
+	private static final byte[][] firstChars;
+	private static final ConcurrentHashMap<Long, Boolean> bigrams = new ConcurrentHashMap<Long, Boolean>();
+
+	/* 0 = unknown, 1 = word character, 2 = non-word character (for \b) */
+	private static final byte[] wordChars = new byte[Character.MAX_VALUE + 1];
+	private static final Pattern boundary;
+
+	static {
+		final int flags = TweetTokeniser.Protect_RE.flags();
+		final String[] protect = TweetTokeniser.ProtectThese;
+
+		boolean safe = true;
+		alternatives = new Pattern[protect.length];
+		ungated = new boolean[protect.length];
+		for (int i = 0; i < protect.length; i++) {
+			final String p = protect[i];
+
+			// inline flags and back-references would change meaning if the
+			// alternatives were compiled separately
+			if (p.matches("(?s).*\\(\\?[a-zA-Z-].*") || p.matches("(?s).*\\\\(?:[1-9]|k<).*"))
+				safe = false;
+
+			// look-behind can see more than one preceding character
+			ungated[i] = p.contains("(?<=") || p.contains("(?<!");
+			alternatives[i] = Pattern.compile(p, flags);
+		}
+
+		compiled = safe;
+		firstChars = new byte[protect.length][Character.MAX_VALUE + 1];
+		boundary = Pattern.compile("\\b", flags);
+	}
+
+	private TweetTokenScanner() {
+	}
+
+	/**
+	 * Tokenise the given text. The result is identical to that of
+	 * constructing a {@link TweetTokeniser} with the same text.
+	 *
+	 * @param text
+	 *            the text to tokenise
+	 * @return the tokens
+	 */
+	public static Tokens scan(CharSequence text) {
+		final CharSequence normalised = normalise(text);
+		final Tokens tokens = new Tokens(normalised);
+
+		if (compiled)
+			scanGated(normalised, tokens);
+		else
+			scanRegex(normalised, tokens);
+
+		return tokens;
+	}
+
+	private static void scanGated(CharSequence text, Tokens tokens) {
+		final int n = text.length();
+		final Matcher[] matchers = new Matcher[alternatives.length];
+
+		int last = 0;
+		int p = 0;
+		while (p <= n) {
+			final int context = context(text, p);
+
+			int end = -1;
+			for (int i = 0; i < alternatives.length; i++) {
+				if (p < n && !canStart(i, context, text, p, n))
+					continue;
+
+				Matcher m = matchers[i];
+				if (m == null) {
+					m = alternatives[i].matcher(text);
+					m.useTransparentBounds(true);
+					m.useAnchoringBounds(false);
+					matchers[i] = m;
+				}
+
+				m.region(p, n);
+				if (m.lookingAt()) {
+					end = m.end();
+					break;
+				}
+			}
+
+			if (end < 0) {
+				p++;
+			} else {
+				tokens.addUnprotected(last, p);
+				tokens.add(p, end, true);
+				last = end;
+				p = end == p ? p + 1 : end;
+			}
+		}
+		tokens.addUnprotected(last, n);
+	}
+
+	private static void scanRegex(CharSequence text, Tokens tokens) {
+		final Matcher m = TweetTokeniser.Protect_RE.matcher(text);
+
+		int last = 0;
+		while (m.find()) {
+			tokens.addUnprotected(last, m.start());
+			tokens.add(m.start(), m.end(), true);
+			last = m.end();
+		}
+		tokens.addUnprotected(last, text.length());
+	}
+
+	private static int context(CharSequence text, int p) {
+		if (p == 0)
+			return START;
+
+		final char c = text.charAt(p - 1);
+		if (isUnstable(c))
+			return EITHER;
+
+		return isWordChar(c) ? WORD : OTHER;
+	}
+
+	/*
+	 * Surrogates can't be probed on their own, and word boundaries next to
+	 * combining marks depend on the characters before the mark.
+	 */
+	private static boolean isUnstable(char c) {
+		if (Character.isSurrogate(c))
+			return true;
+
+		final int type = Character.getType(c);
+		return type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK
+				|| type == Character.COMBINING_SPACING_MARK;
+	}
+
+	/*
+	 * Whether the regex engine treats c as a word character for \b; this
+	 * differs between Java versions, so ask the engine rather than assume.
+	 */
+	private static boolean isWordChar(char c) {
+		final byte known = wordChars[c];
+		if (known != 0)
+			return known == 1;
+
+		final Matcher m = boundary.matcher(c + " ");
+		m.useTransparentBounds(true);
+		m.useAnchoringBounds(false);
+		m.region(1, 2);
+		final boolean word = m.lookingAt();
+		wordChars[c] = (byte) (word ? 1 : 2);
+
+		return word;
+	}
+
+	private static boolean canStart(int i, int context, CharSequence text, int p, int n) {
+		if (ungated[i])
+			return true;
+
+		final char c0 = text.charAt(p);
+		if (isUnstable(c0))
+			return true;
+
+		final int c1 = p + 1 < n ? text.charAt(p + 1) : -1;
+		if (context == EITHER)
+			return canStart(i, WORD, c0, c1) || canStart(i, OTHER, c0, c1);
+
+		return canStart(i, context, c0, c1);
+	}
+
+	private static boolean canStart(int i, int context, char c0, int c1) {
+		if (!canStart(i, context, c0))
+			return false;
+
+		if (c1 < 0 || isUnstable((char) c1))
+			return true;
+
+		final Long key = ((long) i << 34) | ((long) context << 32) | ((long) c0 << 16) | c1;
+		final Boolean known = bigrams.get(key);
+		if (known != null)
+			return known;
+
+		final boolean result = probe(i, context, new String(new char[] { c0, (char) c1 }));
+		if (bigrams.size() < MAX_BIGRAMS)
+			bigrams.put(key, result);
+
+		return result;
+	}
+
+	private static boolean canStart(int i, int context, char c) {
+		final int knownBit = 1 << (2 * context);
+		final int possibleBit = knownBit << 1;
+
+		final byte entry = firstChars[i][c];
+		if ((entry & knownBit) != 0)
+			return (entry & possibleBit) != 0;
+
+		final boolean result = probe(i, context, String.valueOf(c));
+		firstChars[i][c] = (byte) (firstChars[i][c] | knownBit | (result ? possibleBit : 0));
+
+		return result;
+	}
+
+	/*
+	 * Can alternative i match at the start of chars (in the given context)?
+	 * If a match exists in some longer text starting with chars, then the
+	 * engine either finds a match within chars or runs off their end.
+	 */
+	private static boolean probe(int i, int context, String chars) {
+		final String prefix = CONTEXT_PREFIX[context];
+		final String probe = prefix + chars;
+
+		final Matcher m = alternatives[i].matcher(probe);
+		m.useTransparentBounds(true);
+		m.useAnchoringBounds(false);
+		m.region(prefix.length(), probe.length());
+
+		return m.lookingAt() || m.hitEnd();
+	}
+
+	/*
+	 * Equivalent to the encoding fix, HTML unescaping and whitespace squeezing
+	 * performed by the TweetTokeniser, but only copies when something changes.
+	 */
+	static CharSequence normalise(CharSequence text) {
+		if (hasBrokenSurrogate(text))
+			text = new String(text.toString().getBytes(UTF8), UTF8);
+
+		if (indexOf(text, '&') >= 0)
+			text = StringEscapeUtils.unescapeHtml(text.toString());
+
+		if (needsSqueeze(text)) {
+			final StringBuilder sb = new StringBuilder(text.length());
+			boolean inSpace = false;
+			for (int i = 0; i < text.length(); i++) {
+				final char c = text.charAt(i);
+				if (isSpace(c)) {
+					if (!inSpace)
+						sb.append(' ');
+					inSpace = true;
+				} else {
+					sb.append(c);
+					inSpace = false;
+				}
+			}
+			text = sb.toString();
+		}
+
+		return text;
+	}
+
+	private static boolean hasBrokenSurrogate(CharSequence text) {
+		final int n = text.length();
+		for (int i = 0; i < n; i++) {
+			final char c = text.charAt(i);
+			if (Character.isHighSurrogate(c)) {
+				if (i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1)))
+					i++;
+				else
+					return true;
+			} else if (Character.isLowSurrogate(c)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int indexOf(CharSequence text, char c) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) == c)
+				return i;
+		}
+		return -1;
+	}
+
+	private static boolean needsSqueeze(CharSequence text) {
+		boolean lastSpace = false;
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c == ' ') {
+				if (lastSpace)
+					return true;
+				lastSpace = true;
+			} else if (isSpace(c)) {
+				return true;
+			} else {
+				lastSpace = false;
+			}
+		}
+		return false;
+	}
+
+	/* the characters matched by \s (without UNICODE_CHARACTER_CLASS) */
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * The tokens of a piece of text, stored as offsets into the normalised
+	 * text. Tokens are ordered as they appear in the text.
+	 *
+	 * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+	 */
+	public static class Tokens implements Iterable<Token> {
+		private final CharSequence text;
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		private boolean[] protect = new boolean[16];
+		private int size;
+
+		Tokens(CharSequence text) {
+			this.text = text;
+		}
+
+		void add(int start, int end, boolean isProtected) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+				protect = Arrays.copyOf(protect, size * 2);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			protect[size] = isProtected;
+			size++;
+		}
+
+		void addUnprotected(int from, int to) {
+			int start = -1;
+			for (int i = from; i < to; i++) {
+				if (isSpace(text.charAt(i))) {
+					if (start >= 0)
+						add(start, i, false);
+					start = -1;
+				} else if (start < 0) {
+					start = i;
+				}
+			}
+			if (start >= 0)
+				add(start, to, false);
+		}
+
+		/**
+		 * @return the normalised text the token offsets refer to
+		 */
+		public CharSequence getText() {
+			return text;
+		}
+
+		/**
+		 * @return the number of tokens
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @param i
+		 *            the token index
+		 * @return the offset of the first character of the token
+		 */
+		public int start(int i) {
+			checkIndex(i);
+			return starts[i];
+		}
+
+		/**
+		 * @param i
+		 *            the token index
+		 * @return the offset after the last character of the token
+		 */
+		public int end(int i) {
+			checkIndex(i);
+			return ends[i];
+		}
+
+		/**
+		 * @param i
+		 *            the token index
+		 * @return true if the token was protected by one of the protected
+		 *         patterns
+		 */
+		public boolean isProtected(int i) {
+			checkIndex(i);
+			return protect[i];
+		}
+
+		/**
+		 * @param i
+		 *            the token index
+		 * @return the text of the token
+		 */
+		public String get(int i) {
+			checkIndex(i);
+			return text.subSequence(starts[i], ends[i]).toString();
+		}
+
+		private void checkIndex(int i) {
+			if (i < 0 || i >= size)
+				throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+
+		/**
+		 * @return all the tokens (as {@link Token} instances)
+		 */
+		public List<Token> getTokens() {
+			final List<Token> tokens = new ArrayList<Token>(size);
+			for (int i = 0; i < size; i++)
+				tokens.add(new DefaultToken(get(i), 0));
+			return tokens;
+		}
+
+		/**
+		 * @return all the tokens as a {@link List} of {@link String}
+		 */
+		public List<String> getStringTokens() {
+			final List<String> tokens = new ArrayList<String>(size);
+			for (int i = 0; i < size; i++)
+				tokens.add(get(i));
+			return tokens;
+		}
+
+		/**
+		 * @return the tokens protected by the protected patterns
+		 */
+		public List<String> getProtectedStringTokens() {
+			return getStringTokens(true);
+		}
+
+		/**
+		 * @return the tokens not protected by the protected patterns
+		 */
+		public List<String> getUnprotectedStringTokens() {
+			return getStringTokens(false);
+		}
+
+		private List<String> getStringTokens(boolean isProtected) {
+			final List<String> tokens = new ArrayList<String>();
+			for (int i = 0; i < size; i++) {
+				if (protect[i] == isProtected)
+					tokens.add(get(i));
+			}
+			return tokens;
+		}
+
+		@Override
+		public Iterator<Token> iterator() {
+			return getTokens().iterator();
+		}
+
+		@Override
+		public String toString() {
+			return getStringTokens().toString();
+		}
+	}
+}
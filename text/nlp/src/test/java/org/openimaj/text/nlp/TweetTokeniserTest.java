@@ -29,6 +29,7 @@
  */
 package org.openimaj.text.nlp;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import gov.sandia.cognition.text.token.Token;
 
@@ -41,6 +42,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -510,6 +512,48 @@ public class TweetTokeniserTest {
 
 	}
 
+	/**
+	 * Check that the {@link TweetTokenScanner} produces exactly the same tokens
+	 * as the {@link TweetTokeniser}, both on real tweets and on randomly
+	 * spliced text containing awkward characters.
+	 *
+	 * @throws UnsupportedEncodingException
+	 * @throws TweetTokeniserException
+	 */
+	@Test
+	public void testScannerMatchesTokeniser() throws UnsupportedEncodingException, TweetTokeniserException {
+		for (final String text : allTweets)
+			assertSameTokens(text);
+
+		final String[] awkward = { "&amp;", "&lt;3", "&#39;", "\t", "\r\n", "  ", "\uD83D", "\uDE00", "\uD83D\uDE00",
+				"\u0301", "\u00e9", "\u00A0", ":-)", ";)", "http://", "www.", ".com", "'", "--", "-", "@", "#", "_", "...",
+				"!", "?", "3:30", "1,000", "Mr.", "a@b.com", "\u266b" };
+		final Random rng = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			final StringBuilder sb = new StringBuilder();
+			final int parts = 1 + rng.nextInt(8);
+			for (int j = 0; j < parts; j++) {
+				if (rng.nextBoolean()) {
+					sb.append(awkward[rng.nextInt(awkward.length)]);
+				} else {
+					final String tweet = allTweets.get(rng.nextInt(allTweets.size()));
+					final int start = rng.nextInt(tweet.length());
+					sb.append(tweet, start, Math.min(tweet.length(), start + 1 + rng.nextInt(20)));
+				}
+			}
+			assertSameTokens(sb.toString());
+		}
+	}
+
+	private void assertSameTokens(String text) throws UnsupportedEncodingException, TweetTokeniserException {
+		final TweetTokeniser tokeniser = new TweetTokeniser(text);
+		final TweetTokenScanner.Tokens tokens = TweetTokenScanner.scan(text);
+
+		assertEquals(text, tokeniser.getStringTokens(), tokens.getStringTokens());
+		assertEquals(text, tokeniser.getProtectedStringTokens(), tokens.getProtectedStringTokens());
+		assertEquals(text, tokeniser.getUnprotectedStringTokens(), tokens.getUnprotectedStringTokens());
+	}
+
 	private List<String> launchScript(String pythonScriptLocation, String json) throws IOException, InterruptedException {
 		final Process p = Runtime.getRuntime().exec(pythonScriptLocation);
 		final PrintStream ps = new PrintStream(p.getOutputStream());
@@ -59,6 +59,8 @@ import org.openimaj.ml.clustering.kmeans.HierarchicalIntKMeans;
 import org.openimaj.ml.clustering.kmeans.HierarchicalIntKMeansResult;
 import org.openimaj.ml.clustering.kmeans.IntKMeans;
 import org.openimaj.ml.clustering.kmeans.KMeansConfiguration;
+import org.openimaj.ml.clustering.kmeans.MiniBatchByteKMeans;
+import org.openimaj.ml.clustering.kmeans.MiniBatchIntKMeans;
 import org.openimaj.ml.clustering.random.RandomByteClusterer;
 import org.openimaj.ml.clustering.random.RandomIntClusterer;
 import org.openimaj.ml.clustering.random.RandomSetByteClusterer;
@@ -99,7 +101,7 @@ public enum ClusterType implements CmdLineOptionsProvider {
 		}
 	},
 	/**
-	 * Fast (possibly approximate) batched K-Means
+	 * Fast (possibly approximate) mini-batch K-Means
 	 */
 	FASTMBKMEANS {
 		@Override
@@ -461,9 +463,9 @@ public enum ClusterType implements CmdLineOptionsProvider {
 				name = "--iterations",
 				aliases = "-itr",
 				required = false,
-				usage = "Specify number of iterations.",
+				usage = "Specify the maximum number of mini-batch iterations.",
 				metaVar = "NUMBER")
-		private int I = 30;
+		private int I = 100;
 
 		@Option(
 				name = "--mini-batch-size",
@@ -477,10 +479,26 @@ public enum ClusterType implements CmdLineOptionsProvider {
 				name = "--batch-size",
 				aliases = "-b",
 				required = false,
-				usage = "Specify size of each batch for each iteration.",
+				usage = "Specify the number of samples of each mini-batch assigned by each thread.",
 				metaVar = "NUMBER")
 		private int B = 50000;
 
+		@Option(
+				name = "--tolerance",
+				aliases = "-tol",
+				required = false,
+				usage = "Specify the mean squared centroid movement below which the clustering has converged.",
+				metaVar = "NUMBER")
+		private double tolerance = 0;
+
+		@Option(
+				name = "--max-no-improvement",
+				aliases = "-mni",
+				required = false,
+				usage = "Specify the number of mini-batches without improvement after which to stop.",
+				metaVar = "NUMBER")
+		private int maxNoImprovement = MiniBatchByteKMeans.DEFAULT_MAX_NO_IMPROVEMENT;
+
 		@Option(
 				name = "--num-checks",
 				aliases = "-nc",
@@ -513,6 +531,30 @@ public enum ClusterType implements CmdLineOptionsProvider {
 				metaVar = "NUMBER")
 		private int jj = Runtime.getRuntime().availableProcessors();
 
+		@Option(
+				name = "--cluster-random-seed",
+				aliases = "-crs",
+				required = false,
+				usage = "Specify a seed for the random data selection.",
+				metaVar = "NUMBER")
+		private long seed = -1;
+
+		private KMeansConfiguration<ByteNearestNeighbours, byte[]> confByte(int ndims) {
+			NearestNeighboursFactory<? extends ByteNearestNeighbours, byte[]> assigner;
+			final ExecutorService pool = Executors.newFixedThreadPool(jj, new DaemonThreadFactory());
+
+			if (E) {
+				assigner = new ByteNearestNeighboursExact.Factory();
+			} else {
+				assigner = new ByteNearestNeighboursKDTree.Factory(NT, NC);
+			}
+
+			final KMeansConfiguration<ByteNearestNeighbours, byte[]> conf = new KMeansConfiguration<ByteNearestNeighbours, byte[]>(
+					K, assigner, I, B, pool);
+
+			return conf;
+		}
+
 		private KMeansConfiguration<IntNearestNeighbours, int[]> confInt(int ndims) {
 			NearestNeighboursFactory<? extends IntNearestNeighbours, int[]> assigner;
 			final ExecutorService pool = Executors.newFixedThreadPool(jj, new DaemonThreadFactory());
@@ -529,16 +571,54 @@ public enum ClusterType implements CmdLineOptionsProvider {
 			return conf;
 		}
 
+		private MiniBatchByteKMeans createByte(int ndims) {
+			final MiniBatchByteKMeans c = new MiniBatchByteKMeans(confByte(ndims), M);
+			c.seed(seed);
+			c.setTolerance(tolerance);
+			c.setMaxNoImprovement(maxNoImprovement);
+			return c;
+		}
+
+		private MiniBatchIntKMeans createInt(int ndims) {
+			final MiniBatchIntKMeans c = new MiniBatchIntKMeans(confInt(ndims), M);
+			c.seed(seed);
+			c.setTolerance(tolerance);
+			c.setMaxNoImprovement(maxNoImprovement);
+			return c;
+		}
+
 		@Override
-		public SpatialClusters<int[]> create(byte[][] data) {
-			IntKMeans c = null;
-			c = new IntKMeans(confInt(data[0].length));
-			return c.cluster(ByteArrayConverter.byteToInt(data));
+		public SpatialClusters<?> create(List<SampleBatch> batches) throws Exception {
+			System.err.println("Constructing a FASTMBKMEANS cluster");
+
+			if (this.precision == Precision.BYTE) {
+				final SampleBatchByteDataSource ds = new SampleBatchByteDataSource(batches);
+				ds.setSeed(seed);
+
+				return createByte(ds.numDimensions()).cluster(ds);
+			} else {
+				final SampleBatchIntDataSource ds = new SampleBatchIntDataSource(batches);
+				ds.setSeed(seed);
+
+				return createInt(ds.numDimensions()).cluster(ds);
+			}
+		}
+
+		@Override
+		public SpatialClusters<?> create(byte[][] data) {
+			if (this.precision == Precision.BYTE) {
+				return createByte(data[0].length).cluster(data);
+			} else {
+				return createInt(data[0].length).cluster(ByteArrayConverter.byteToInt(data));
+			}
 		}
 
 		@Override
 		public Class<? extends SpatialClusters<?>> getClusterClass() {
-			return IntCentroidsResult.class;
+			if (this.precision == Precision.BYTE)
+				return ByteCentroidsResult.class;
+			else
+				return IntCentroidsResult.class;
 		}
 	}
 
@@ -55,8 +55,10 @@ import org.openimaj.image.feature.dense.gradient.dsift.PyramidDenseSIFT;
 import org.openimaj.image.feature.local.affine.AffineSimulationKeypoint;
 import org.openimaj.image.feature.local.affine.BasicASIFT;
 import org.openimaj.image.feature.local.affine.ColourASIFT;
+import org.openimaj.image.feature.local.engine.BatchDoGSIFTEngine;
 import org.openimaj.image.feature.local.engine.DoGColourSIFTEngine;
 import org.openimaj.image.feature.local.engine.DoGSIFTEngine;
+import org.openimaj.image.feature.local.engine.DoGSIFTEngineOptions;
 import org.openimaj.image.feature.local.engine.MinMaxDoGSIFTEngine;
 import org.openimaj.image.feature.local.engine.asift.ASIFTEngine;
 import org.openimaj.image.feature.local.engine.asift.ColourASIFTEngine;
@@ -226,10 +228,25 @@ public enum LocalFeatureMode implements CmdLineOptionsProvider {
 	}
 
 	private static class SiftMode extends AbstractDoGSIFTModeOp {
+		private transient BatchDoGSIFTEngine engine;
+
 		private SiftMode(LocalFeatureMode mode) {
 			super(mode);
 		}
 
+		/*
+		 * The engine is shared by all the threads extracting features, each of
+		 * which reuses its own extractor chain and buffers across images.
+		 */
+		private synchronized BatchDoGSIFTEngine getEngine() {
+			if (engine == null) {
+				final DoGSIFTEngineOptions<FImage> opts = new DoGSIFTEngineOptions<FImage>();
+				opts.setDoubleInitialImage(!noDoubleImageSize);
+				engine = new BatchDoGSIFTEngine(opts);
+			}
+			return engine;
+		}
+
 		@Override
 		public LocalFeatureList<Keypoint> extract(byte[] img) throws IOException {
 			return extract(cmOp.process(img));
@@ -250,11 +267,9 @@ public enum LocalFeatureMode implements CmdLineOptionsProvider {
 			switch (this.cm) {
 			case SINGLE_COLOUR:
 			case INTENSITY: {
-				final DoGSIFTEngine engine = new DoGSIFTEngine();
-				engine.getOptions().setDoubleInitialImage(!noDoubleImageSize);
 				image = itOp.transform(image);
 
-				keys = engine.findFeatures((FImage) image);
+				keys = getEngine().findFeatures((FImage) image);
 				break;
 			}
 			case INTENSITY_COLOUR: {
@@ -0,0 +1,308 @@
+/**
+ * Copyright (c) 2011, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.tools.twitter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.openimaj.tools.twitter.modes.output.TwitterOutputMode;
+import org.openimaj.tools.twitter.modes.preprocessing.TwitterPreprocessingMode;
+import org.openimaj.tools.twitter.options.StatusType;
+import org.openimaj.tools.twitter.options.TwitterPreprocessingToolOptions;
+import org.openimaj.twitter.USMFStatus;
+import org.openimaj.util.parallel.GlobalExecutorPool.DaemonThreadFactory;
+import org.openimaj.utils.threads.WatchedRunner;
+
+/**
+ * Multi-threaded version of the processing loop of the
+ * {@link TwitterPreprocessingTool}. The work is pipelined over three stages:
+ * <ol>
+ * <li>a reader thread iterates (and thus parses) the tweets and groups them
+ * into chunks;</li>
+ * <li>a pool of workers applies the filters and the preprocessing modes to
+ * each chunk and renders the output. Every worker has its own instances of
+ * the filters and the modes, so they need not be thread-safe;</li>
+ * <li>the calling thread writes the rendered chunks in the order they were
+ * read.</li>
+ * </ol>
+ * The output is identical to that of the serial tool. The number of chunks in
+ * flight is bounded, so memory use does not depend on the size of the input.
+ *
+ * @author Jonathon Hare (jsh2@ecs.soton.ac.uk)
+ */
+class ParallelTwitterPreprocessor {
+	/**
+	 * The processed form of a chunk of tweets
+	 */
+	private static class Chunk {
+		/** the rendered output, if it was rendered by the worker */
+		String rendered;
+
+		/** the statuses to output, if they must be rendered by the writer */
+		List<USMFStatus> unrendered = new ArrayList<USMFStatus>();
+
+		int done;
+		int skipped;
+	}
+
+	private static final Future<Chunk> END = new FutureTask<Chunk>(new Callable<Chunk>() {
+		@Override
+		public Chunk call() {
+			return null;
+		}
+	});
+
+	private final TwitterPreprocessingToolOptions options;
+	private final TwitterOutputMode outputMode;
+	private final boolean renderInWorker;
+	private final ThreadLocal<List<TwitterPreprocessingMode<?>>> modes;
+	private final ThreadLocal<TwitterPreprocessingToolOptions> filters;
+	private final ExecutorService workers;
+
+	/**
+	 * Construct the processor. The worker threads (and their instances of the
+	 * filters and modes) are kept until {@link #shutdown()} is called, so that they can be
+	 * reused across input files.
+	 *
+	 * @param options
+	 *            the tool options
+	 * @param outputMode
+	 *            the output mode
+	 */
+	ParallelTwitterPreprocessor(final TwitterPreprocessingToolOptions options, TwitterOutputMode outputMode) {
+		this.options = options;
+		this.outputMode = outputMode;
+
+		// conversion to RDF uses shared static state, so has to happen on
+		// the writer thread
+		this.renderInWorker = options.getOutputClass() != StatusType.RDF;
+
+		this.modes = new ThreadLocal<List<TwitterPreprocessingMode<?>>>() {
+			@Override
+			protected List<TwitterPreprocessingMode<?>> initialValue() {
+				try {
+					return options.preprocessingMode();
+				} catch (final Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+
+		// the filters are configured by their own arguments, so are created
+		// by parsing the arguments again
+		this.filters = new ThreadLocal<TwitterPreprocessingToolOptions>() {
+			@Override
+			protected TwitterPreprocessingToolOptions initialValue() {
+				try {
+					return options.copyForFiltering();
+				} catch (final CmdLineException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+
+		this.workers = Executors.newFixedThreadPool(options.getThreads(), new DaemonThreadFactory());
+	}
+
+	/**
+	 * Stop the worker threads
+	 */
+	void shutdown() {
+		workers.shutdownNow();
+	}
+
+	/**
+	 * Process the given tweets, writing the output in the original order.
+	 *
+	 * @param tweets
+	 *            the tweets
+	 * @param oWriter
+	 *            the output writer
+	 * @throws IOException
+	 */
+	void process(final Iterable<USMFStatus> tweets, PrintWriter oWriter) throws IOException {
+		final BlockingQueue<Future<Chunk>> pending = new ArrayBlockingQueue<Future<Chunk>>(2 * options.getThreads());
+		final Throwable[] readError = new Throwable[1];
+
+		final Thread reader = new Thread("tweet-reader") {
+			@Override
+			public void run() {
+				try {
+					final Iterator<USMFStatus> itr = tweets.iterator();
+					while (itr.hasNext() && !isInterrupted()) {
+						final List<USMFStatus> chunk = new ArrayList<USMFStatus>(options.getChunkSize());
+						while (itr.hasNext() && chunk.size() < options.getChunkSize())
+							chunk.add(itr.next());
+
+						pending.put(workers.submit(new Callable<Chunk>() {
+							@Override
+							public Chunk call() throws Exception {
+								return processChunk(chunk);
+							}
+						}));
+					}
+				} catch (final InterruptedException e) {
+					return;
+				} catch (final Throwable t) {
+					readError[0] = t;
+				}
+
+				try {
+					pending.put(END);
+				} catch (final InterruptedException e) {
+					// the writer has given up
+				}
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+
+		long done = 0;
+		long skipped = 0;
+		boolean completed = false;
+		try {
+			Future<Chunk> f;
+			while ((f = pending.take()) != END) {
+				final Chunk chunk = f.get();
+
+				if (chunk.rendered != null)
+					oWriter.print(chunk.rendered);
+				for (final USMFStatus status : chunk.unrendered)
+					outputMode.output(options.convertToOutputFormat(status), oWriter);
+				oWriter.flush();
+
+				done += chunk.done;
+				skipped += chunk.skipped;
+				options.progress("\rDone: " + done);
+				if (skipped > 0) {
+					options.progress(" (Skipped: " + skipped + ") ");
+				}
+			}
+			completed = true;
+		} catch (final InterruptedException e) {
+			throw new IOException(e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			// don't leave the reader and workers running if writing failed
+			if (!completed) {
+				reader.interrupt();
+				shutdown();
+			}
+		}
+
+		if (readError[0] != null) {
+			if (readError[0] instanceof IOException)
+				throw (IOException) readError[0];
+			throw new RuntimeException(readError[0]);
+		}
+	}
+
+	/**
+	 * Apply the filters and modes to a chunk of tweets. This is the same as
+	 * the body of the serial loop in {@link TwitterPreprocessingTool}.
+	 */
+	private Chunk processChunk(List<USMFStatus> tweets) throws IOException {
+		final List<TwitterPreprocessingMode<?>> modes = this.modes.get();
+		final TwitterPreprocessingToolOptions filters = this.filters.get();
+		final Chunk chunk = new Chunk();
+
+		StringWriter buffer = null;
+		PrintWriter bufferWriter = null;
+		if (renderInWorker) {
+			buffer = new StringWriter();
+			bufferWriter = new PrintWriter(buffer);
+		}
+
+		for (final USMFStatus twitterStatus : tweets) {
+			if (twitterStatus.isInvalid() || twitterStatus.text.isEmpty()) {
+				if (options.veryLoud()) {
+					System.out.println("\nTWEET INVALID, skipping.");
+				}
+				continue;
+			}
+			if (options.veryLoud()) {
+				System.out.println("\nPROCESSING TWEET");
+				System.out.println(twitterStatus);
+			}
+
+			if (filters.preProcessesSkip(twitterStatus))
+				continue;
+
+			final WatchedRunner runner = new WatchedRunner(options.getTimeBeforeSkip()) {
+				@Override
+				public void doTask() {
+					for (final TwitterPreprocessingMode<?> mode : modes) {
+						try {
+							TwitterPreprocessingMode.results(twitterStatus, mode);
+						} catch (final Exception e) {
+							System.err.println("Mode failed: " + mode);
+						}
+					}
+				}
+			};
+			runner.go();
+			if (runner.taskCompleted()) {
+				chunk.done++;
+
+				if (!filters.postProcessesSkip(twitterStatus)) {
+					if (renderInWorker)
+						outputMode.output(options.convertToOutputFormat(twitterStatus), bufferWriter);
+					else
+						chunk.unrendered.add(twitterStatus);
+				}
+			} else {
+				chunk.skipped++;
+			}
+		}
+
+		if (renderInWorker) {
+			bufferWriter.flush();
+			chunk.rendered = buffer.toString();
+		}
+
+		return chunk;
+	}
+}
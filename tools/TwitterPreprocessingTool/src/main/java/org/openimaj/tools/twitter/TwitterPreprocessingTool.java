@@ -77,69 +77,86 @@ public class TwitterPreprocessingTool
 			return;
 		}
 
+		ParallelTwitterPreprocessor parallel = null;
+		if(options.getThreads() > 1){
+			parallel = new ParallelTwitterPreprocessor(options, outputMode);
+		}
+
 		while(options.hasNextFile()){
 			options.nextFile();
 			options.progress("Preparing tweets\n");
 			TwitterStatusList<USMFStatus> tweets = options.getTwitterStatusList();
 			options.progress("Processing " + tweets.size() + " tweets\n");
 
-			long done = 0;
-			long skipped = 0;
 			long start = System.currentTimeMillis();
 			PrintWriter oWriter = options.outputWriter();
-			for (final USMFStatus twitterStatus : tweets) {
-				if(twitterStatus.isInvalid() || twitterStatus.text.isEmpty()){
-					if(options.veryLoud()){
-						System.out.println("\nTWEET INVALID, skipping.");
-					}
-					continue;
-				}
+			if(parallel != null){
+				parallel.process(tweets, oWriter);
+			}
+			else{
+				process(tweets, modes, outputMode, oWriter);
+			}
+			long end = System.currentTimeMillis();
+			options.progress(String.format("\nTook: %d\n",(end-start)));
+			options.progress("Done!\n");
+		}
+		if(parallel != null){
+			parallel.shutdown();
+		}
+		options.outputWriter().flush();
+		options.outputWriter().close();
+	}
+
+	private static void process(TwitterStatusList<USMFStatus> tweets, final List<TwitterPreprocessingMode<?>> modes, TwitterOutputMode outputMode, PrintWriter oWriter) throws IOException {
+		long done = 0;
+		long skipped = 0;
+		for (final USMFStatus twitterStatus : tweets) {
+			if(twitterStatus.isInvalid() || twitterStatus.text.isEmpty()){
 				if(options.veryLoud()){
-					System.out.println("\nPROCESSING TWEET");
-					System.out.println(twitterStatus);
+					System.out.println("\nTWEET INVALID, skipping.");
 				}
+				continue;
+			}
+			if(options.veryLoud()){
+				System.out.println("\nPROCESSING TWEET");
+				System.out.println(twitterStatus);
+			}
 
-				if(options.preProcessesSkip(twitterStatus)) continue;
+			if(options.preProcessesSkip(twitterStatus)) continue;
 
-				WatchedRunner runner = new WatchedRunner(options.getTimeBeforeSkip()){
-					@Override
-					public void doTask() {
-						for (TwitterPreprocessingMode<?> mode : modes) {
-							try {
-								TwitterPreprocessingMode.results(twitterStatus, mode);
-							} catch (Exception e) {
-								System.err.println("Mode failed: " + mode);
-							}
+			WatchedRunner runner = new WatchedRunner(options.getTimeBeforeSkip()){
+				@Override
+				public void doTask() {
+					for (TwitterPreprocessingMode<?> mode : modes) {
+						try {
+							TwitterPreprocessingMode.results(twitterStatus, mode);
+						} catch (Exception e) {
+							System.err.println("Mode failed: " + mode);
 						}
 					}
-				};
-				runner.go();
-				if(runner.taskCompleted()){
-					done++;
-					options.progress("\rDone: " + done);
+				}
+			};
+			runner.go();
+			if(runner.taskCompleted()){
+				done++;
+				options.progress("\rDone: " + done);
 
 
-					if(!options.postProcessesSkip(twitterStatus))
-					{
-						outputMode.output(options.convertToOutputFormat(twitterStatus),oWriter);
-						oWriter.flush();
-					}
-				}
-				else{
-					skipped ++;
-				}
-				if(skipped > 0){
-					options.progress(" (Skipped: " + skipped + ") ");
+				if(!options.postProcessesSkip(twitterStatus))
+				{
+					outputMode.output(options.convertToOutputFormat(twitterStatus),oWriter);
+					oWriter.flush();
 				}
+			}
+			else{
+				skipped ++;
+			}
+			if(skipped > 0){
+				options.progress(" (Skipped: " + skipped + ") ");
+			}
 
 
 
-			}
-			long end = System.currentTimeMillis();
-			options.progress(String.format("\nTook: %d\n",(end-start)));
-			options.progress("Done!\n");
 		}
-		options.outputWriter().flush();
-		options.outputWriter().close();
 	}
 }
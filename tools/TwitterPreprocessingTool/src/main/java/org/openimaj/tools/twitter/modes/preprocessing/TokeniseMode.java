@@ -34,6 +34,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.openimaj.text.nlp.TweetTokenScanner;
 import org.openimaj.text.nlp.TweetTokeniser;
 import org.openimaj.text.nlp.language.LanguageDetector.WeightedLocale;
 import org.openimaj.twitter.USMFStatus;
@@ -66,7 +67,7 @@ public class TokeniseMode extends TwitterPreprocessingMode<Map<String, List<Stri
 
 	@Override
 	public Map<String, List<String>> process(USMFStatus twitterStatus) {
-		TweetTokeniser tokeniser;
+		TweetTokenScanner.Tokens tokeniser;
 		final Map<String, List<String>> tokens = new HashMap<String, List<String>>();
 		twitterStatus.addAnalysis(TOKENS, tokens);
 		try {
@@ -78,7 +79,7 @@ public class TokeniseMode extends TwitterPreprocessingMode<Map<String, List<Stri
 				}
 			}
 
-			tokeniser = new TweetTokeniser(twitterStatus.text);
+			tokeniser = TweetTokenScanner.scan(twitterStatus.text);
 			tokens.put(TOKENS_ALL, tokeniser.getStringTokens());
 			tokens.put(TOKENS_PROTECTED, tokeniser.getProtectedStringTokens());
 			tokens.put(TOKENS_UNPROTECTED, tokeniser.getUnprotectedStringTokens());
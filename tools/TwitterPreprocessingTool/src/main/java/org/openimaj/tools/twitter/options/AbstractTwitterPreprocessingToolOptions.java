@@ -180,15 +180,12 @@ public abstract class AbstractTwitterPreprocessingToolOptions extends InOutToolO
 	 * @throws CmdLineException
 	 */
 	public void prepare() throws CmdLineException {
-		final CmdLineParser parser = new CmdLineParser(this);
 		try {
 			if (veryLoud && quiet) {
 				quiet = false;
 				veryLoud = true;
 			}
-			parser.parseArgument(args);
-			InOutToolOptions.prepareMultivaluedArgument(modeOptions);
-			validateFilters();
+			parseArguments();
 			registerRDFAnalysis();
 			this.validate();
 		} catch (final CmdLineException e) {
@@ -197,6 +194,26 @@ public abstract class AbstractTwitterPreprocessingToolOptions extends InOutToolO
 
 	}
 
+	/**
+	 * Parse the arguments, creating and validating the modes and filters, but
+	 * without validating the rest of the options (i.e. the input and output)
+	 *
+	 * @throws CmdLineException
+	 */
+	protected void parseArguments() throws CmdLineException {
+		final CmdLineParser parser = new CmdLineParser(this);
+		parser.parseArgument(args);
+		InOutToolOptions.prepareMultivaluedArgument(modeOptions);
+		validateFilters();
+	}
+
+	/**
+	 * @return the arguments the options are parsed from
+	 */
+	protected String[] getArgs() {
+		return args;
+	}
+
 	private void registerRDFAnalysis() {
 		if (this.outputStatusType == StatusType.RDF) {
 			for (final TwitterPreprocessingMode<?> modes : this.modeOptionsOp) {
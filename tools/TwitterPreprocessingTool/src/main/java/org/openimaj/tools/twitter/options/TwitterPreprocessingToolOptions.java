@@ -43,6 +43,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.Option;
 import org.openimaj.tools.FileToolsUtil;
 import org.openimaj.twitter.USMFStatus;
 import org.openimaj.twitter.collection.FileTwitterStatusList;
@@ -61,6 +62,11 @@ public class TwitterPreprocessingToolOptions extends  AbstractTwitterPreprocessi
 	 * this is available mainly for testing
 	 */
 	public static InputStream sysin = System.in;
+
+	/**
+	 * The default number of tweets handed to a thread at a time
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
 	List<File> inputFiles;
 	File inputFile;
 	File outputFile;
@@ -68,6 +74,24 @@ public class TwitterPreprocessingToolOptions extends  AbstractTwitterPreprocessi
 	private boolean stdout;
 	private Iterator<File> fileIterator;
 	private boolean stdin;
+
+	/*
+	 * The options are parsed by the superclass constructor, so these fields
+	 * must not have initialisers; the defaults are applied in validate().
+	 */
+	@Option(
+			name = "--threads",
+			aliases = "-j",
+			required = false,
+			usage = "The number of threads to process tweets with. Output order is preserved. Defaults to 1 (serial processing).")
+	int threads;
+
+	@Option(
+			name = "--chunk-size",
+			aliases = "-cs",
+			required = false,
+			usage = "The number of tweets handed to a thread at a time when processing with multiple threads. Defaults to " + DEFAULT_CHUNK_SIZE + ".")
+	int chunkSize;
 	
 	/**
 	 * See: {@link AbstractTwitterPreprocessingToolOptions#AbstractTwitterPreprocessingToolOptions(String[])}
@@ -78,6 +102,26 @@ public class TwitterPreprocessingToolOptions extends  AbstractTwitterPreprocessi
 		
 		if(!this.stdin) this.fileIterator = this.inputFiles.iterator();
 	}
+	
+	private TwitterPreprocessingToolOptions(String[] args, boolean prepare) throws CmdLineException{
+		super(args, prepare);
+	}
+	
+	/**
+	 * Parse the arguments again to create a copy of these options with new
+	 * instances of the pre- and post-filters. The input and output of the
+	 * copy are not validated, so it should only be used for filtering. The
+	 * filters are not required to be thread-safe, so every thread that
+	 * filters statuses concurrently should use its own copy.
+	 * 
+	 * @return the copy
+	 * @throws CmdLineException
+	 */
+	public TwitterPreprocessingToolOptions copyForFiltering() throws CmdLineException{
+		final TwitterPreprocessingToolOptions copy = new TwitterPreprocessingToolOptions(this.getArgs(), false);
+		copy.parseArguments();
+		return copy;
+	}
 
 	@Override
 	public boolean validate() throws CmdLineException{
@@ -95,12 +139,16 @@ public class TwitterPreprocessingToolOptions extends  AbstractTwitterPreprocessi
 			{
 				this.outputFile = FileToolsUtil.validateLocalOutput(this);
 			}
-			return true;
 		}
 		catch(Exception e){
 			throw new CmdLineException(null,e.getMessage());
 		}
-		
+		if(this.threads == 0) this.threads = 1;
+		if(this.chunkSize == 0) this.chunkSize = DEFAULT_CHUNK_SIZE;
+		if(this.threads < 0 || this.chunkSize < 0){
+			throw new CmdLineException(null,"The number of threads and the chunk size must be positive");
+		}
+		return true;
 	}
 
 	/**
@@ -148,6 +196,20 @@ public class TwitterPreprocessingToolOptions extends  AbstractTwitterPreprocessi
 		return this.outWriter;
 	}
 
+	/**
+	 * @return the number of threads to process tweets with
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the number of tweets handed to a thread at a time
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
 	/**
 	 * @return is there another file to analyse
 	 */
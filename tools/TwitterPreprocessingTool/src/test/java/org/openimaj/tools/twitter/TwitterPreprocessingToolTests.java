@@ -29,6 +29,7 @@
  */
 package org.openimaj.tools.twitter;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
@@ -516,6 +517,51 @@ public class TwitterPreprocessingToolTests {
 		stemOutJSON.delete();
 	}
 
+	/**
+	 * Processing with multiple threads must give exactly the same output as
+	 * processing serially
+	 * @throws IOException
+	 */
+	@Test
+	public void testParallelSameAsSerial() throws IOException {
+		String modes = "TOKENISE -m LANG_ID -m PORTER_STEM";
+		File serialOut = folder.newFile("serial-testParallelSameAsSerial.json");
+		File parallelOut = folder.newFile("parallel-testParallelSameAsSerial.json");
+
+		String commandArgs = String.format(commandFormat,jsonTwitterInputFile,serialOut,modes,"APPEND");
+		TwitterPreprocessingTool.main(commandArgs.split(" "));
+
+		commandArgs = String.format(commandFormat,jsonTwitterInputFile,parallelOut,modes,"APPEND") + " -j 4 -cs 7";
+		TwitterPreprocessingTool.main(commandArgs.split(" "));
+
+		String serial = FileUtils.readall(serialOut);
+		assertTrue(serial.length() > 0);
+		assertEquals(serial, FileUtils.readall(parallelOut));
+	}
+
+	/**
+	 * Processing with multiple threads must give exactly the same output as
+	 * processing serially when filters with their own arguments are used
+	 * @throws IOException
+	 */
+	@Test
+	public void testParallelFiltersSameAsSerial() throws IOException {
+		String modes = "TOKENISE";
+		String filters = " -prf LANG -l en -pof DATE -drng 2000/01/01,2020/01/01";
+		File serialOut = folder.newFile("serial-testParallelFiltersSameAsSerial.json");
+		File parallelOut = folder.newFile("parallel-testParallelFiltersSameAsSerial.json");
+
+		String commandArgs = String.format(commandFormat,jsonTwitterInputFile,serialOut,modes,"APPEND") + filters;
+		TwitterPreprocessingTool.main(commandArgs.split(" "));
+
+		commandArgs = String.format(commandFormat,jsonTwitterInputFile,parallelOut,modes,"APPEND") + filters + " -j 4 -cs 7";
+		TwitterPreprocessingTool.main(commandArgs.split(" "));
+
+		String serial = FileUtils.readall(serialOut);
+		assertTrue(serial.length() > 0);
+		assertEquals(serial, FileUtils.readall(parallelOut));
+	}
+
 	int[] range(int start, int stop)
 	{
 	   int[] result = new int[stop-start];
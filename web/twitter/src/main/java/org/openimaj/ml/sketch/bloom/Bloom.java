@@ -29,63 +29,178 @@
  */
 package org.openimaj.ml.sketch.bloom;
 
-import gnu.trove.map.hash.TIntIntHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import org.openimaj.io.ReadWriteableBinary;
 import org.openimaj.ml.sketch.SummarySketcher;
 import org.openimaj.util.hash.StringMurmurHashFunction;
-import org.openimaj.util.hash.StringMurmurHashFunctionFactory;
+
+import cern.jet.random.engine.MersenneTwister;
 
 /**
  * The bloom sketch as described by
  * http://lkozma.net/blog/sketching-data-structures/
+ * <p>
+ * The filter is held as a packed array of bits, which are set atomically, so
+ * the sketch can be updated and queried from multiple threads concurrently.
+ * Two sketches with the same dimensions and hash functions (i.e. constructed
+ * with the same seed) can be combined with {@link #merge(Bloom)}.
  * 
  * @author Sina Samangooei (ss@ecs.soton.ac.uk)
  * 
  */
-public class Bloom implements SummarySketcher<String, Boolean> {
-
-	private StringMurmurHashFunction[] maps;
-	private TIntIntHashMap table;
+public class Bloom implements SummarySketcher<String, Boolean>, ReadWriteableBinary {
+	private int[] seeds;
 	private int nwords;
+	private AtomicLongArray table;
+
+	private Bloom() {
+	}
 
 	/**
+	 * Construct with hash functions seeded randomly from the current time.
+	 * 
 	 * @param ntables
 	 *            the number of hash functions
 	 * @param nwords
 	 *            the range of the hash functions
 	 */
 	public Bloom(int ntables, int nwords) {
-		maps = new StringMurmurHashFunction[ntables];
+		this(ntables, nwords, new MersenneTwister(new Date()));
+	}
 
-		final StringMurmurHashFunctionFactory fact = new StringMurmurHashFunctionFactory();
-		for (int i = 0; i < maps.length; i++) {
-			maps[i] = fact.create();
-		}
+	/**
+	 * Construct with hash functions generated from the given seed. Sketches
+	 * constructed with the same parameters can be merged.
+	 * 
+	 * @param ntables
+	 *            the number of hash functions
+	 * @param nwords
+	 *            the range of the hash functions
+	 * @param seed
+	 *            the seed for generating the hash functions
+	 */
+	public Bloom(int ntables, int nwords, int seed) {
+		this(ntables, nwords, new MersenneTwister(seed));
+	}
+
+	private Bloom(int ntables, int nwords, MersenneTwister rng) {
+		this.seeds = new int[ntables];
+		for (int i = 0; i < ntables; i++)
+			seeds[i] = rng.nextInt();
 
 		this.nwords = nwords;
-		this.table = new TIntIntHashMap(nwords);
+		this.table = new AtomicLongArray((nwords + 63) / 64);
+	}
+
+	private int bit(int table, byte[] bytes) {
+		final int hash = StringMurmurHashFunction.murmurhash(bytes, seeds[table]);
+
+		return Math.abs(hash % nwords);
+	}
+
+	private void setBit(int index, long mask) {
+		long current;
+		while (((current = table.get(index)) & mask) != mask) {
+			if (table.compareAndSet(index, current, current | mask))
+				return;
+		}
 	}
 
+	/**
+	 * Add the given data to the filter. The value is ignored.
+	 */
 	@Override
 	public void update(String data, Boolean value) {
-		for (final StringMurmurHashFunction map : maps) {
-			final int hash = map.computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
-			this.table.put(loc, 1);
+		final byte[] bytes = data.getBytes();
+
+		for (int i = 0; i < seeds.length; i++) {
+			final int bit = bit(i, bytes);
+			setBit(bit >>> 6, 1L << bit);
 		}
 	}
 
+	/**
+	 * Test if the given data might have been added to the filter. False
+	 * positives are possible, but false negatives are not.
+	 */
 	@Override
 	public Boolean query(String data) {
-		boolean found = false;
-		for (final StringMurmurHashFunction map : maps) {
-			final int hash = map.computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
-			found = this.table.get(loc) == 1;
-			if (found)
-				return found;
+		final byte[] bytes = data.getBytes();
+
+		for (int i = 0; i < seeds.length; i++) {
+			final int bit = bit(i, bytes);
+			if ((table.get(bit >>> 6) & (1L << bit)) == 0)
+				return false;
 		}
-		return found;
+		return seeds.length > 0;
 	}
 
+	/**
+	 * Add the contents of the given sketch to this one. The sketches must have
+	 * the same dimensions and hash functions.
+	 * 
+	 * @param other
+	 *            the sketch to merge into this one
+	 * @throws IllegalArgumentException
+	 *             if the sketches are not compatible
+	 */
+	public void merge(Bloom other) {
+		if (other.nwords != nwords || !Arrays.equals(other.seeds, seeds))
+			throw new IllegalArgumentException("Sketches must have the same dimensions and hash functions");
+
+		for (int i = 0; i < table.length(); i++) {
+			final long v = other.table.get(i);
+
+			if (v != 0)
+				setBit(i, v);
+		}
+	}
+
+	/**
+	 * @return the number of hash functions
+	 */
+	public int getNumTables() {
+		return seeds.length;
+	}
+
+	/**
+	 * @return the range of the hash functions
+	 */
+	public int getNumWords() {
+		return nwords;
+	}
+
+	@Override
+	public void readBinary(DataInput in) throws IOException {
+		nwords = in.readInt();
+		seeds = new int[in.readInt()];
+		for (int i = 0; i < seeds.length; i++)
+			seeds[i] = in.readInt();
+
+		table = new AtomicLongArray((nwords + 63) / 64);
+		for (int i = 0; i < table.length(); i++)
+			table.set(i, in.readLong());
+	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return "BLSK".getBytes();
+	}
+
+	@Override
+	public void writeBinary(DataOutput out) throws IOException {
+		out.writeInt(nwords);
+		out.writeInt(seeds.length);
+		for (final int s : seeds)
+			out.writeInt(s);
+
+		for (int i = 0; i < table.length(); i++)
+			out.writeLong(table.get(i));
+	}
 }
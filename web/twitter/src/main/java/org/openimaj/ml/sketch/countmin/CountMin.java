@@ -29,70 +29,162 @@
  */
 package org.openimaj.ml.sketch.countmin;
 
-import gnu.trove.map.hash.TIntIntHashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import org.openimaj.io.ReadWriteableBinary;
 import org.openimaj.ml.sketch.SummarySketcher;
 import org.openimaj.util.hash.StringMurmurHashFunction;
-import org.openimaj.util.hash.StringMurmurHashFunctionFactory;
-import org.openimaj.util.pair.IndependentPair;
+
+import cern.jet.random.engine.MersenneTwister;
 
 /**
- * CountMin as described in the reference below
+ * CountMin as described in the reference below.
+ * <p>
+ * The counters of all the hash functions are held in a single flat array of
+ * atomic integers, so the sketch can be updated and queried from multiple
+ * threads concurrently without locking. Two sketches with the same dimensions
+ * and hash functions (i.e. constructed with the same seed) can be combined
+ * with {@link #merge(CountMin)}, which allows partial sketches computed in
+ * parallel to be reduced into a single sketch.
  * 
  * @author Sina Samangooei (ss@ecs.soton.ac.uk)
  * 
  */
-public class CountMin implements SummarySketcher<String, Integer> {
-
-	private static class FunctionHashPair extends IndependentPair<StringMurmurHashFunction, TIntIntHashMap> {
-
-		public FunctionHashPair(StringMurmurHashFunction func, TIntIntHashMap map) {
-			super(func, map);
+public class CountMin implements SummarySketcher<String, Integer>, ReadWriteableBinary {
+	private int[] seeds;
+	private int nwords;
+	private AtomicIntegerArray table;
 
-		}
+	private CountMin() {
 	}
 
-	private FunctionHashPair[] maps;
-	private int nwords;
-
 	/**
+	 * Construct with hash functions seeded randomly from the current time.
+	 * 
 	 * @param ntables
 	 *            the number of hash functions
 	 * @param nwords
 	 *            the range of the hash functions
 	 */
 	public CountMin(int ntables, int nwords) {
-		maps = new FunctionHashPair[ntables];
+		this(ntables, nwords, new MersenneTwister(new Date()));
+	}
+
+	/**
+	 * Construct with hash functions generated from the given seed. Sketches
+	 * constructed with the same parameters can be merged.
+	 * 
+	 * @param ntables
+	 *            the number of hash functions
+	 * @param nwords
+	 *            the range of the hash functions
+	 * @param seed
+	 *            the seed for generating the hash functions
+	 */
+	public CountMin(int ntables, int nwords, int seed) {
+		this(ntables, nwords, new MersenneTwister(seed));
+	}
+
+	private CountMin(int ntables, int nwords, MersenneTwister rng) {
+		this.seeds = new int[ntables];
+		for (int i = 0; i < ntables; i++)
+			seeds[i] = rng.nextInt();
+
 		this.nwords = nwords;
+		this.table = new AtomicIntegerArray(ntables * nwords);
+	}
 
-		final StringMurmurHashFunctionFactory fact = new StringMurmurHashFunctionFactory();
-		for (int i = 0; i < maps.length; i++) {
-			maps[i] = new FunctionHashPair(fact.create(), new TIntIntHashMap());
-		}
+	private int index(int table, byte[] bytes) {
+		final int hash = StringMurmurHashFunction.murmurhash(bytes, seeds[table]);
+
+		return table * nwords + Math.abs(hash % nwords);
 	}
 
 	@Override
 	public void update(String data, Integer value) {
-		for (final FunctionHashPair map : this.maps) {
-			final int hash = map.firstObject().computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
+		final byte[] bytes = data.getBytes();
+		final int v = value;
 
-			map.secondObject().adjustOrPutValue(loc, value, value);
-		}
+		for (int i = 0; i < seeds.length; i++)
+			table.addAndGet(index(i, bytes), v);
 	}
 
 	@Override
 	public Integer query(String data) {
-		int min = -1;
-		for (final FunctionHashPair map : this.maps) {
-			final int hash = map.firstObject().computeHashCode(data);
-			final int loc = Math.abs(hash) % this.nwords;
-			final int v = map.secondObject().get(loc);
-			if (min == -1 || min > v) {
-				min = v;
-			}
+		final byte[] bytes = data.getBytes();
+
+		int min = Integer.MAX_VALUE;
+		for (int i = 0; i < seeds.length; i++)
+			min = Math.min(min, table.get(index(i, bytes)));
+
+		return seeds.length == 0 ? -1 : min;
+	}
+
+	/**
+	 * Add the counts of the given sketch to this one. The sketches must have
+	 * the same dimensions and hash functions.
+	 * 
+	 * @param other
+	 *            the sketch to merge into this one
+	 * @throws IllegalArgumentException
+	 *             if the sketches are not compatible
+	 */
+	public void merge(CountMin other) {
+		if (other.nwords != nwords || !Arrays.equals(other.seeds, seeds))
+			throw new IllegalArgumentException("Sketches must have the same dimensions and hash functions");
+
+		for (int i = 0; i < table.length(); i++) {
+			final int v = other.table.get(i);
+
+			if (v != 0)
+				table.addAndGet(i, v);
 		}
-		return min;
 	}
 
+	/**
+	 * @return the number of hash functions
+	 */
+	public int getNumTables() {
+		return seeds.length;
+	}
+
+	/**
+	 * @return the range of the hash functions
+	 */
+	public int getNumWords() {
+		return nwords;
+	}
+
+	@Override
+	public void readBinary(DataInput in) throws IOException {
+		nwords = in.readInt();
+		seeds = new int[in.readInt()];
+		for (int i = 0; i < seeds.length; i++)
+			seeds[i] = in.readInt();
+
+		table = new AtomicIntegerArray(seeds.length * nwords);
+		for (int i = 0; i < table.length(); i++)
+			table.set(i, in.readInt());
+	}
+
+	@Override
+	public byte[] binaryHeader() {
+		return "CMSK".getBytes();
+	}
+
+	@Override
+	public void writeBinary(DataOutput out) throws IOException {
+		out.writeInt(nwords);
+		out.writeInt(seeds.length);
+		for (final int s : seeds)
+			out.writeInt(s);
+
+		for (int i = 0; i < table.length(); i++)
+			out.writeInt(table.get(i));
+	}
 }
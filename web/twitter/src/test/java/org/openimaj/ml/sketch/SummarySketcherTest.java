@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2012, The University of Southampton and the individual contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ *   * 	Redistributions of source code must retain the above copyright notice,
+ * 	this list of conditions and the following disclaimer.
+ *
+ *   *	Redistributions in binary form must reproduce the above copyright notice,
+ * 	this list of conditions and the following disclaimer in the documentation
+ * 	and/or other materials provided with the distribution.
+ *
+ *   *	Neither the name of the University of Southampton nor the names of its
+ * 	contributors may be used to endorse or promote products derived from this
+ * 	software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.openimaj.ml.sketch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.openimaj.io.IOUtils;
+import org.openimaj.ml.sketch.bloom.Bloom;
+import org.openimaj.ml.sketch.countmin.CountMin;
+
+/**
+ * Tests for the {@link CountMin} and {@link Bloom} sketches
+ * 
+ * @author Sina Samangooei (ss@ecs.soton.ac.uk)
+ */
+public class SummarySketcherTest {
+	/**
+	 * Test that merging partial {@link CountMin} sketches gives the same
+	 * result as a single sketch, and that the sketch survives serialisation.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCountMin() throws IOException {
+		final CountMin all = new CountMin(4, 1000, 42);
+		final CountMin a = new CountMin(4, 1000, 42);
+		final CountMin b = new CountMin(4, 1000, 42);
+
+		for (int i = 0; i < 100; i++) {
+			all.update("word" + (i % 10), 1);
+			(i % 2 == 0 ? a : b).update("word" + (i % 10), 1);
+		}
+
+		a.merge(b);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(all.query("word" + i) >= 10);
+			assertEquals(all.query("word" + i), a.query("word" + i));
+		}
+
+		final CountMin read = IOUtils.deserialize(IOUtils.serialize(a), CountMin.class);
+		for (int i = 0; i < 10; i++)
+			assertEquals(a.query("word" + i), read.query("word" + i));
+	}
+
+	/**
+	 * Test that merged {@link Bloom} sketches contain everything added to
+	 * either part, and that the sketch survives serialisation.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testBloom() throws IOException {
+		final Bloom a = new Bloom(3, 10000, 42);
+		final Bloom b = new Bloom(3, 10000, 42);
+
+		for (int i = 0; i < 50; i++)
+			(i % 2 == 0 ? a : b).update("word" + i, true);
+
+		assertFalse(a.query("word1"));
+		a.merge(b);
+		for (int i = 0; i < 50; i++)
+			assertTrue(a.query("word" + i));
+
+		final Bloom read = IOUtils.deserialize(IOUtils.serialize(a), Bloom.class);
+		for (int i = 0; i < 50; i++)
+			assertTrue(read.query("word" + i));
+	}
+
+	/**
+	 * Test that incompatible sketches can't be merged
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testIncompatibleMerge() {
+		new CountMin(4, 1000, 1).merge(new CountMin(4, 1000, 2));
+	}
+}